@@ -3,6 +3,7 @@ plugins {
 	id("org.springframework.boot") version "3.5.5"
 	id("io.spring.dependency-management") version "1.1.7"
 	id("io.freefair.lombok") version "8.6"
+	id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "vn.project"
@@ -21,6 +22,7 @@ repositories {
 
 dependencies {
 	implementation("org.springframework.boot:spring-boot-starter-actuator")
+	implementation("org.springframework.boot:spring-boot-starter-cache")
 	implementation("org.springframework.boot:spring-boot-starter-data-jpa")
 	implementation("org.springframework.boot:spring-boot-starter-security")
 	implementation("org.springframework.boot:spring-boot-starter-thymeleaf")
@@ -30,13 +32,24 @@ dependencies {
 	implementation("org.thymeleaf.extras:thymeleaf-extras-springsecurity6")
 	implementation ("org.springframework.boot:spring-boot-starter-oauth2-resource-server")
 	implementation("com.github.librepdf:openpdf:1.3.30")
+	implementation("com.github.ben-manes.caffeine:caffeine")
 	developmentOnly("org.springframework.boot:spring-boot-devtools")
 	runtimeOnly("com.mysql:mysql-connector-j")
 	testImplementation("org.springframework.boot:spring-boot-starter-test")
 	testImplementation("org.springframework.security:spring-security-test")
+	testRuntimeOnly("com.h2database:h2")
 	testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+// ./gradlew jmh — đo thời gian và lượng cấp phát khi dựng tài liệu, không cần cơ sở dữ liệu.
+// Chỉ chạy một nhóm: ./gradlew jmh -PjmhIncludes=DocumentRenderingBenchmark
+jmh {
+	jmhVersion = "1.37"
+	profilers = listOf("gc")
+	resultFormat = "JSON"
+	providers.gradleProperty("jmhIncludes").orNull?.let { includes = listOf(it) }
+}
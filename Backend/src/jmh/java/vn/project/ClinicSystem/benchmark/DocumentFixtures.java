@@ -0,0 +1,135 @@
+package vn.project.ClinicSystem.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import vn.project.ClinicSystem.model.Billing;
+import vn.project.ClinicSystem.model.BillingItem;
+import vn.project.ClinicSystem.model.ClinicRoom;
+import vn.project.ClinicSystem.model.Doctor;
+import vn.project.ClinicSystem.model.IndicatorTemplate;
+import vn.project.ClinicSystem.model.MedicalService;
+import vn.project.ClinicSystem.model.Patient;
+import vn.project.ClinicSystem.model.PatientVisit;
+import vn.project.ClinicSystem.model.Prescription;
+import vn.project.ClinicSystem.model.PrescriptionItem;
+import vn.project.ClinicSystem.model.ServiceOrder;
+import vn.project.ClinicSystem.model.ServiceOrderResult;
+import vn.project.ClinicSystem.model.User;
+import vn.project.ClinicSystem.model.enums.BillingItemType;
+import vn.project.ClinicSystem.model.enums.ServiceOrderStatus;
+
+/**
+ * Dữ liệu mẫu dựng sẵn trong bộ nhớ cho benchmark, không cần cơ sở dữ liệu.
+ */
+final class DocumentFixtures {
+
+    private DocumentFixtures() {
+    }
+
+    static Patient patient() {
+        Patient patient = new Patient();
+        patient.setId(1L);
+        patient.setCode("BN000001");
+        patient.setFullName("Nguyễn Thị Hồng Nhung");
+        patient.setPhone("0901234567");
+        patient.setAddress("36 Cách mạng tháng 8, Phường Cái Khế, Tp Cần Thơ");
+        patient.setDateOfBirth(LocalDate.of(1985, 6, 15));
+        return patient;
+    }
+
+    static Doctor doctor() {
+        User account = new User();
+        account.setId(1L);
+        account.setFullName("BS. Lê Minh Đức");
+        Doctor doctor = new Doctor();
+        doctor.setId(1L);
+        doctor.setAccount(account);
+        return doctor;
+    }
+
+    static PatientVisit visit() {
+        PatientVisit visit = new PatientVisit();
+        visit.setId(1L);
+        visit.setPatient(patient());
+        return visit;
+    }
+
+    // Chia đều số mục cho dịch vụ, thuốc và chi phí khác để bản in có đủ ba bảng.
+    static Billing billing(int itemCount) {
+        Billing billing = new Billing();
+        billing.setId(1L);
+        billing.setVisit(visit());
+        billing.setPatient(billing.getVisit().getPatient());
+        billing.setIssuedAt(LocalDateTime.of(2025, 3, 10, 9, 30));
+        billing.setPaymentMethod("CASH");
+        User cashier = new User();
+        cashier.setId(2L);
+        cashier.setFullName("Thu ngân");
+        billing.setCashier(cashier);
+        BillingItemType[] types = BillingItemType.values();
+        for (int i = 0; i < itemCount; i++) {
+            BillingItem item = new BillingItem();
+            item.setItemType(types[i % types.length]);
+            item.setDescription("Mục hóa đơn số " + (i + 1) + " - xét nghiệm/thuốc điều trị");
+            item.setQuantity(1 + i % 5);
+            item.setUnitPrice(new BigDecimal(25_000 + 1_000 * (i % 40)));
+            item.recalculateAmount();
+            billing.addItem(item);
+        }
+        billing.recalculateTotals();
+        return billing;
+    }
+
+    static Prescription prescription(int itemCount) {
+        Prescription prescription = new Prescription();
+        prescription.setId(1L);
+        prescription.setVisit(visit());
+        prescription.setPrescribedBy(doctor());
+        prescription.setIssuedAt(LocalDateTime.of(2025, 3, 10, 9, 15));
+        prescription.setNotes("Tái khám sau 7 ngày, uống nhiều nước");
+        for (int i = 0; i < itemCount; i++) {
+            PrescriptionItem item = new PrescriptionItem();
+            item.setMedicationName("Thuốc điều trị số " + (i + 1) + " 500mg");
+            item.setQuantity(10 + i % 20);
+            item.setFrequency(i % 2 == 0 ? "2" : "1");
+            item.setDosage("1 viên sau ăn");
+            prescription.addItem(item);
+        }
+        return prescription;
+    }
+
+    static ServiceOrder serviceOrder(int resultCount) {
+        ClinicRoom room = new ClinicRoom();
+        room.setId(1L);
+        room.setCode("XN-01");
+        room.setName("Phòng xét nghiệm");
+        room.setFloor("Tầng 2");
+        MedicalService service = new MedicalService();
+        service.setId(1L);
+        service.setName("Xét nghiệm sinh hóa máu");
+        service.setClinicRoom(room);
+
+        ServiceOrder order = new ServiceOrder();
+        order.setId(1L);
+        order.setVisit(visit());
+        order.setMedicalService(service);
+        order.setAssignedDoctor(doctor());
+        order.setStatus(ServiceOrderStatus.COMPLETED);
+        order.setPerformedAt(LocalDateTime.of(2025, 3, 10, 10, 45));
+        for (int i = 0; i < resultCount; i++) {
+            IndicatorTemplate template = new IndicatorTemplate();
+            template.setId((long) i + 1);
+            template.setName("Chỉ số " + (i + 1));
+            template.setUnit("mmol/L");
+            template.setNormalMin(new BigDecimal("3.5"));
+            template.setNormalMax(new BigDecimal("5.5"));
+            ServiceOrderResult result = new ServiceOrderResult();
+            result.setIndicatorTemplate(template);
+            result.setMeasuredValue(new BigDecimal("4.2").add(BigDecimal.valueOf(i % 10, 1)));
+            order.addIndicatorResult(result);
+        }
+        return order;
+    }
+}
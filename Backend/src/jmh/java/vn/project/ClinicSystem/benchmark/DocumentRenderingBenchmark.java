@@ -0,0 +1,119 @@
+package vn.project.ClinicSystem.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import vn.project.ClinicSystem.model.Billing;
+import vn.project.ClinicSystem.model.Prescription;
+import vn.project.ClinicSystem.model.ServiceOrder;
+import vn.project.ClinicSystem.service.BillingPrintService;
+import vn.project.ClinicSystem.service.PrescriptionPrintService;
+import vn.project.ClinicSystem.service.ServiceOrderPrintService;
+import vn.project.ClinicSystem.service.pdf.PdfDocumentEngine;
+import vn.project.ClinicSystem.service.pdf.PdfResources;
+import vn.project.ClinicSystem.service.pdf.template.BillingPdfTemplate;
+import vn.project.ClinicSystem.service.pdf.template.PrescriptionPdfTemplate;
+import vn.project.ClinicSystem.service.pdf.template.ServiceOrderResultPdfTemplate;
+import vn.project.ClinicSystem.service.pdf.template.ServiceOrderSlipPdfTemplate;
+import vn.project.ClinicSystem.service.pdf.view.BillingView;
+import vn.project.ClinicSystem.service.receipt.EscPosReceiptRenderer;
+import vn.project.ClinicSystem.service.receipt.HtmlReceiptRenderer;
+
+/**
+ * Đo từng bản in (hóa đơn, đơn thuốc, phiếu kết quả, biên lai hóa đơn ESC/POS và HTML) với 10, 50 và
+ * 200 dòng. Throughput cho số bản
+ * in mỗi mili giây, SampleTime cho các phân vị độ trễ (p50, p90, p99...); profiler gc khai báo trong
+ * build.gradle.kts cho lượng cấp phát trên mỗi bản in ({@code gc.alloc.rate.norm}).
+ * <p>
+ * Dịch vụ in được dựng tay với repository {@code null} và chỉ gọi các hàm render từ entity đã nạp,
+ * nên không cần Spring hay cơ sở dữ liệu.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentRenderingBenchmark {
+
+
+    @Param({ "10", "50", "200" })
+    private int itemCount;
+
+    private Billing billing;
+    private Prescription prescription;
+    private ServiceOrder serviceOrder;
+
+    private BillingPrintService billingPrintService;
+    private PrescriptionPrintService prescriptionPrintService;
+    private ServiceOrderPrintService serviceOrderPrintService;
+    private BillingView billingView;
+    private EscPosReceiptRenderer escPosRenderer;
+    private HtmlReceiptRenderer htmlRenderer;
+
+    @Setup
+    public void setUp() {
+        billing = DocumentFixtures.billing(itemCount);
+        prescription = DocumentFixtures.prescription(itemCount);
+        serviceOrder = DocumentFixtures.serviceOrder(itemCount);
+
+        PdfDocumentEngine engine = new PdfDocumentEngine(new PdfResources(), new SimpleMeterRegistry(), false);
+        billingPrintService = new BillingPrintService(null, engine, new BillingPdfTemplate());
+        prescriptionPrintService = new PrescriptionPrintService(null, engine, new PrescriptionPdfTemplate());
+        serviceOrderPrintService = new ServiceOrderPrintService(null, engine, new ServiceOrderSlipPdfTemplate(),
+                new ServiceOrderResultPdfTemplate());
+
+        // Biên lai dựng từ view model như ReceiptPrintService; chỉ đo bước dựng, không đo bước nạp dữ liệu.
+        billingView = BillingView.from(billing, BillingPrintService.recordedCashierName(billing));
+        escPosRenderer = new EscPosReceiptRenderer(32);
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        htmlRenderer = new HtmlReceiptRenderer(templateEngine);
+    }
+
+    @Benchmark
+    public byte[] billingPdf() {
+        return billingPrintService.renderBillingPdf(billing);
+    }
+
+    @Benchmark
+    public byte[] prescriptionPdf() {
+        return prescriptionPrintService.renderPrescriptionPdf(prescription);
+    }
+
+    @Benchmark
+    public byte[] serviceOrderResultPdf() {
+        return serviceOrderPrintService.renderServiceOrderResultPdf(serviceOrder);
+    }
+
+    @Benchmark
+    public byte[] billingReceiptEscPos() {
+        return escPosRenderer.billing(billingView);
+    }
+
+    @Benchmark
+    public byte[] billingReceiptHtml() {
+        return htmlRenderer.billing(billingView).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,68 @@
+package vn.project.ClinicSystem.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import vn.project.ClinicSystem.model.Billing;
+import vn.project.ClinicSystem.service.BillingPrintService;
+import vn.project.ClinicSystem.service.pdf.PdfDocumentEngine;
+import vn.project.ClinicSystem.service.pdf.PdfResources;
+import vn.project.ClinicSystem.service.pdf.template.BillingPdfTemplate;
+
+/**
+ * So sánh một bản in hóa đơn khi mỗi lần in tự nạp font/logo (cách cũ) với khi dùng chung
+ * {@link PdfResources}. Chạy kèm profiler gc để thấy lượng cấp phát trên mỗi tài liệu
+ * ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfResourcesBenchmark {
+
+
+    private Billing billing;
+    private BillingPrintService sharedPrintService;
+
+    @Setup
+    public void setUp() {
+        billing = DocumentFixtures.billing(10);
+        sharedPrintService = printService(new PdfResources());
+    }
+
+    @Benchmark
+    public byte[] perDocumentResources() {
+        return printService(new PdfResources()).renderBillingPdf(billing);
+    }
+
+    @Benchmark
+    public byte[] sharedResources() {
+        return sharedPrintService.renderBillingPdf(billing);
+    }
+
+    // Nhiều luồng in cùng lúc trên cùng một bộ font/logo.
+    @Benchmark
+    @Threads(4)
+    public byte[] sharedResourcesConcurrent() {
+        return sharedPrintService.renderBillingPdf(billing);
+    }
+
+    private static BillingPrintService printService(PdfResources resources) {
+        return new BillingPrintService(null,
+                new PdfDocumentEngine(resources, new SimpleMeterRegistry(), false), new BillingPdfTemplate());
+    }
+}
@@ -0,0 +1,11 @@
+package vn.project.ClinicSystem.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import vn.project.ClinicSystem.config.export.AnalyticsExportProperties;
+
+@Configuration
+@EnableConfigurationProperties(AnalyticsExportProperties.class)
+public class AnalyticsExportConfiguration {
+}
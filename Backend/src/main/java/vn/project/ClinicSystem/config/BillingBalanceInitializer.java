@@ -0,0 +1,29 @@
+package vn.project.ClinicSystem.config;
+
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import lombok.extern.slf4j.Slf4j;
+import vn.project.ClinicSystem.service.BillingPaymentService;
+
+@Slf4j
+@Configuration
+public class BillingBalanceInitializer {
+
+    // Chạy sau khi Hibernate đã tạo bảng sổ thanh toán; đã có dấu chuyển đổi thì chỉ là một truy vấn kiểm tra.
+    @Bean
+    public ApplicationRunner billingBalanceMigration(BillingPaymentService billingPaymentService) {
+        return args -> {
+            try {
+                int updated = billingPaymentService.migrateLegacyBalances();
+                if (updated >= 0) {
+                    log.info("Đã chuyển đổi số đã thu/còn nợ cho {} hóa đơn cũ sang sổ thanh toán", updated);
+                }
+            } catch (DataIntegrityViolationException ex) {
+                log.info("Instance khác đang chuyển đổi số dư hóa đơn cũ, bỏ qua");
+            }
+        };
+    }
+}
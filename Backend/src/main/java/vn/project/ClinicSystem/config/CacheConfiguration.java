@@ -0,0 +1,71 @@
+package vn.project.ClinicSystem.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import vn.project.ClinicSystem.config.cache.CacheNames;
+import vn.project.ClinicSystem.config.cache.ClinicCacheProperties;
+
+// Thống kê hit/miss của từng cache được Spring Boot Actuator đăng ký vào Micrometer (cache.gets, cache.puts...).
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(ClinicCacheProperties.class)
+public class CacheConfiguration {
+
+    private static final Map<String, CacheDefaults> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put(CacheNames.DASHBOARD_SUMMARY, new CacheDefaults(Duration.ofSeconds(30), 10));
+        DEFAULTS.put(CacheNames.BOOKING_FUNNEL, new CacheDefaults(Duration.ofMinutes(5), 100));
+        DEFAULTS.put(CacheNames.DISEASE_TREND, new CacheDefaults(Duration.ofMinutes(10), 500));
+        DEFAULTS.put(CacheNames.DISEASE_WEEKLY_CHANGES, new CacheDefaults(Duration.ofMinutes(10), 200));
+        DEFAULTS.put(CacheNames.RETENTION_COHORTS, new CacheDefaults(Duration.ofHours(1), 200));
+        DEFAULTS.put(CacheNames.DISEASES, new CacheDefaults(Duration.ofHours(1), 10));
+        DEFAULTS.put(CacheNames.MEDICATIONS, new CacheDefaults(Duration.ofMinutes(10), 10));
+    }
+
+    @Bean
+    public CacheManager cacheManager(ClinicCacheProperties properties) {
+        if (!properties.isEnabled()) {
+            return new NoOpCacheManager();
+        }
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        // Chế độ tĩnh: chỉ dùng các cache đã khai báo, tên cache sai sẽ lỗi ngay thay vì tạo cache không giới hạn
+        cacheManager.setCacheNames(DEFAULTS.keySet());
+        DEFAULTS.forEach((name, defaults) -> {
+            ClinicCacheProperties.Spec spec = properties.getCaches().get(name);
+            Duration ttl = spec != null && spec.getTtl() != null ? spec.getTtl() : defaults.ttl;
+            long maximumSize = spec != null && spec.getMaximumSize() != null
+                    ? spec.getMaximumSize()
+                    : defaults.maximumSize;
+            cacheManager.registerCustomCache(name, Caffeine.newBuilder()
+                    .expireAfterWrite(ttl)
+                    .maximumSize(maximumSize)
+                    .recordStats()
+                    .build());
+        });
+        return cacheManager;
+    }
+
+    private static class CacheDefaults {
+        private final Duration ttl;
+        private final long maximumSize;
+
+        CacheDefaults(Duration ttl, long maximumSize) {
+            this.ttl = ttl;
+            this.maximumSize = maximumSize;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package vn.project.ClinicSystem.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import vn.project.ClinicSystem.config.datasource.ReadWriteRoutingDataSource;
+import vn.project.ClinicSystem.config.datasource.ReadYourWritesGuard;
+import vn.project.ClinicSystem.config.datasource.ReplicaDataSourceProperties;
+
+// Bật bằng clinicsystem.datasource.replica.enabled=true; mặc định toàn bộ truy vấn vẫn đi vào primary.
+@Configuration
+@ConditionalOnProperty(prefix = "clinicsystem.datasource.replica", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class ReadReplicaDataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary-pool");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(ReplicaDataSourceProperties properties,
+            DataSourceProperties dataSourceProperties) {
+        if (!StringUtils.hasText(properties.getUrl())) {
+            throw new IllegalStateException("Thiếu cấu hình clinicsystem.datasource.replica.url");
+        }
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica-pool");
+        dataSource.setJdbcUrl(properties.getUrl());
+        dataSource.setUsername(StringUtils.hasText(properties.getUsername())
+                ? properties.getUsername()
+                : dataSourceProperties.determineUsername());
+        dataSource.setPassword(properties.getPassword() != null
+                ? properties.getPassword()
+                : dataSourceProperties.determinePassword());
+        dataSource.setDriverClassName(StringUtils.hasText(properties.getDriverClassName())
+                ? properties.getDriverClassName()
+                : dataSourceProperties.determineDriverClassName());
+        dataSource.setMaximumPoolSize(properties.getMaximumPoolSize());
+        dataSource.setMinimumIdle(properties.getMinimumIdle());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesGuard readYourWritesGuard(ReplicaDataSourceProperties properties) {
+        return new ReadYourWritesGuard(properties.getReadYourWritesWindow());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            ReadYourWritesGuard readYourWritesGuard) {
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(readYourWritesGuard);
+        routingDataSource.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.PRIMARY, primaryDataSource,
+                ReadWriteRoutingDataSource.REPLICA, replicaDataSource));
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
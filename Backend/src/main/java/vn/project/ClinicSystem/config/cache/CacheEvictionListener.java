@@ -0,0 +1,53 @@
+package vn.project.ClinicSystem.config.cache;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import vn.project.ClinicSystem.service.event.DataChangedEvent;
+import vn.project.ClinicSystem.service.event.DataDomain;
+
+@Component
+public class CacheEvictionListener {
+
+    private static final Map<DataDomain, List<String>> AFFECTED_CACHES = new EnumMap<>(DataDomain.class);
+
+    static {
+        AFFECTED_CACHES.put(DataDomain.APPOINTMENT,
+                List.of(CacheNames.DASHBOARD_SUMMARY, CacheNames.BOOKING_FUNNEL));
+        AFFECTED_CACHES.put(DataDomain.APPOINTMENT_REQUEST,
+                List.of(CacheNames.DASHBOARD_SUMMARY, CacheNames.BOOKING_FUNNEL));
+        // Tạo/hoàn tất hồ sơ khám cũng cập nhật trạng thái lịch hẹn
+        AFFECTED_CACHES.put(DataDomain.VISIT,
+                List.of(CacheNames.DASHBOARD_SUMMARY, CacheNames.BOOKING_FUNNEL));
+        AFFECTED_CACHES.put(DataDomain.VISIT_DIAGNOSIS,
+                List.of(CacheNames.DISEASE_TREND, CacheNames.DISEASE_WEEKLY_CHANGES));
+        AFFECTED_CACHES.put(DataDomain.DISEASE,
+                List.of(CacheNames.DISEASES, CacheNames.DISEASE_TREND, CacheNames.DISEASE_WEEKLY_CHANGES,
+                        CacheNames.RETENTION_COHORTS));
+        AFFECTED_CACHES.put(DataDomain.MEDICATION, List.of(CacheNames.MEDICATIONS));
+        AFFECTED_CACHES.put(DataDomain.RETENTION_COHORT, List.of(CacheNames.RETENTION_COHORTS));
+    }
+
+    private final CacheManager cacheManager;
+
+    public CacheEvictionListener(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        for (String cacheName : AFFECTED_CACHES.getOrDefault(event.getDomain(), List.of())) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package vn.project.ClinicSystem.config.cache;
+
+public final class CacheNames {
+
+    public static final String DASHBOARD_SUMMARY = "dashboardSummary";
+    public static final String BOOKING_FUNNEL = "bookingFunnel";
+    public static final String DISEASE_TREND = "diseaseTrend";
+    public static final String DISEASE_WEEKLY_CHANGES = "diseaseWeeklyChanges";
+    public static final String RETENTION_COHORTS = "retentionCohorts";
+    public static final String DISEASES = "diseases";
+    public static final String MEDICATIONS = "medications";
+
+    private CacheNames() {
+    }
+}
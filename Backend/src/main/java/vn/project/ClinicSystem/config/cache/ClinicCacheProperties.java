@@ -0,0 +1,35 @@
+package vn.project.ClinicSystem.config.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Cấu hình riêng cho từng cache, ví dụ:
+ * {@code clinicsystem.cache.caches.dashboardSummary.ttl=15s},
+ * {@code clinicsystem.cache.caches.medications.maximum-size=5}.
+ * Giá trị không khai báo sẽ dùng mặc định trong {@code CacheConfiguration}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "clinicsystem.cache")
+public class ClinicCacheProperties {
+
+    private boolean enabled = true;
+
+    private Map<String, Spec> caches = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Spec {
+
+        private Duration ttl;
+
+        private Long maximumSize;
+    }
+}
@@ -0,0 +1,53 @@
+package vn.project.ClinicSystem.config.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Định tuyến giao dịch {@code readOnly = true} sang replica, còn lại về primary.
+ * Phải được bọc bởi {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * để kết nối chỉ được lấy sau khi cờ read-only của giao dịch đã được thiết lập.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final ReadYourWritesGuard readYourWritesGuard;
+
+    public ReadWriteRoutingDataSource(ReadYourWritesGuard readYourWritesGuard) {
+        this.readYourWritesGuard = readYourWritesGuard;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return readYourWritesGuard.isWithinWindowForCurrentUser() ? PRIMARY : REPLICA;
+        }
+        trackWriteTransaction();
+        return PRIMARY;
+    }
+
+    private void trackWriteTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        boolean alreadyTracked = TransactionSynchronizationManager.getSynchronizations().stream()
+                .anyMatch(WriteCommitTracker.class::isInstance);
+        if (!alreadyTracked) {
+            TransactionSynchronizationManager.registerSynchronization(new WriteCommitTracker());
+        }
+    }
+
+    private class WriteCommitTracker implements TransactionSynchronization {
+
+        @Override
+        public void afterCommit() {
+            readYourWritesGuard.recordWriteForCurrentUser();
+        }
+    }
+}
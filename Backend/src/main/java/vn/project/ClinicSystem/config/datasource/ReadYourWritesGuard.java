@@ -0,0 +1,59 @@
+package vn.project.ClinicSystem.config.datasource;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import vn.project.ClinicSystem.util.SecurityUtil;
+
+/**
+ * Ghi nhớ thời điểm ghi gần nhất của từng người dùng để các giao dịch chỉ đọc
+ * ngay sau đó vẫn được định tuyến về primary.
+ */
+public class ReadYourWritesGuard {
+
+    private static final int CLEANUP_THRESHOLD = 1_000;
+
+    private final long windowMillis;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesGuard(Duration window) {
+        this.windowMillis = window != null ? Math.max(window.toMillis(), 0) : 0;
+    }
+
+    public void recordWriteForCurrentUser() {
+        SecurityUtil.getCurrentUserLogin().ifPresent(this::recordWrite);
+    }
+
+    public boolean isWithinWindowForCurrentUser() {
+        return SecurityUtil.getCurrentUserLogin()
+                .map(this::isWithinWindow)
+                .orElse(false);
+    }
+
+    public void recordWrite(String login) {
+        if (windowMillis == 0 || login == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        lastWrites.put(login, now);
+        if (lastWrites.size() > CLEANUP_THRESHOLD) {
+            lastWrites.entrySet().removeIf(entry -> now - entry.getValue() >= windowMillis);
+        }
+    }
+
+    public boolean isWithinWindow(String login) {
+        if (login == null) {
+            return false;
+        }
+        Long writtenAt = lastWrites.get(login);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - writtenAt < windowMillis) {
+            return true;
+        }
+        lastWrites.remove(login, writtenAt);
+        return false;
+    }
+}
@@ -0,0 +1,32 @@
+package vn.project.ClinicSystem.config.datasource;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "clinicsystem.datasource.replica")
+public class ReplicaDataSourceProperties {
+
+    private boolean enabled = false;
+
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    private String driverClassName;
+
+    private int maximumPoolSize = 10;
+
+    private int minimumIdle = 2;
+
+    // Sau khi người dùng ghi dữ liệu, các truy vấn chỉ đọc của chính họ vẫn đi vào
+    // primary trong khoảng thời gian này để tránh đọc dữ liệu cũ do độ trễ replication.
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+}
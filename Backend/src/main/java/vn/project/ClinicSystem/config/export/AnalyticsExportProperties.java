@@ -0,0 +1,29 @@
+package vn.project.ClinicSystem.config.export;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "clinicsystem.export")
+public class AnalyticsExportProperties {
+
+    // Job chạy theo lịch chỉ khi bật; vẫn có thể chạy tay qua API quản trị.
+    private boolean enabled = false;
+
+    private Path directory = Path.of("exports");
+
+    private String cron = "0 0 2 * * *";
+
+    // Số dòng tối đa mỗi file; watermark được lưu sau mỗi file hoàn chỉnh.
+    private int maxRowsPerFile = 200_000;
+
+    // updated_at được gán trước khi giao dịch commit, nên dòng commit trễ có thể mang updated_at nhỏ hơn
+    // watermark. Mỗi lần chạy đọc lại khoảng này phía sau watermark; phải dài hơn giao dịch ghi lâu nhất.
+    private Duration overlap = Duration.ofMinutes(5);
+}
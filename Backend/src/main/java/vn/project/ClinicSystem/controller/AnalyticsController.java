@@ -1,24 +1,58 @@
 package vn.project.ClinicSystem.controller;
 
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import vn.project.ClinicSystem.model.ExportWatermark;
 import vn.project.ClinicSystem.model.dto.BookingFunnelResponse;
+import vn.project.ClinicSystem.model.dto.DiseaseTrendResponse;
+import vn.project.ClinicSystem.model.dto.DiseaseWeeklyChangeResponse;
+import vn.project.ClinicSystem.model.dto.ExportRunResult;
+import vn.project.ClinicSystem.model.dto.RetentionCohortResponse;
+import vn.project.ClinicSystem.service.AnalyticsExportJob;
+import vn.project.ClinicSystem.service.AnalyticsExportService;
 import vn.project.ClinicSystem.service.AnalyticsService;
+import vn.project.ClinicSystem.service.DiseaseAnalyticsService;
+import vn.project.ClinicSystem.service.RetentionCohortJob;
+import vn.project.ClinicSystem.service.RetentionCohortService;
 
 @RestController
 @RequestMapping("/analytics")
 @PreAuthorize("hasRole('ADMIN')")
 public class AnalyticsController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final AnalyticsService analyticsService;
+    private final DiseaseAnalyticsService diseaseAnalyticsService;
+    private final RetentionCohortService retentionCohortService;
+    private final RetentionCohortJob retentionCohortJob;
+    private final AnalyticsExportService analyticsExportService;
+    private final AnalyticsExportJob analyticsExportJob;
 
-    public AnalyticsController(AnalyticsService analyticsService) {
+    public AnalyticsController(AnalyticsService analyticsService,
+            DiseaseAnalyticsService diseaseAnalyticsService,
+            RetentionCohortService retentionCohortService,
+            RetentionCohortJob retentionCohortJob,
+            AnalyticsExportService analyticsExportService,
+            AnalyticsExportJob analyticsExportJob) {
         this.analyticsService = analyticsService;
+        this.diseaseAnalyticsService = diseaseAnalyticsService;
+        this.retentionCohortService = retentionCohortService;
+        this.retentionCohortJob = retentionCohortJob;
+        this.analyticsExportService = analyticsExportService;
+        this.analyticsExportJob = analyticsExportJob;
     }
 
     @GetMapping("/booking-funnel")
@@ -26,5 +60,59 @@ public class AnalyticsController {
             @RequestParam(value = "month", required = false) String month) {
         return ResponseEntity.ok(analyticsService.getBookingFunnel(month));
     }
-}
 
+    @GetMapping("/diseases/trend")
+    public ResponseEntity<DiseaseTrendResponse> getDiseaseTrend(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "granularity", required = false) String granularity,
+            @RequestParam(value = "top", required = false) Integer top) {
+        return ResponseEntity.ok(diseaseAnalyticsService.getTrend(from, to, granularity, top));
+    }
+
+    @GetMapping("/diseases/weekly-changes")
+    public ResponseEntity<DiseaseWeeklyChangeResponse> getDiseaseWeeklyChanges(
+            @RequestParam(value = "weekOf", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekOf,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return ResponseEntity.ok(diseaseAnalyticsService.getWeeklyChanges(weekOf, limit));
+    }
+
+    @GetMapping("/diseases/export")
+    public ResponseEntity<StreamingResponseBody> exportDiseaseStats(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        StreamingResponseBody body = outputStream -> diseaseAnalyticsService.exportNdjson(from, to, outputStream);
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(body);
+    }
+
+    @PostMapping("/diseases/rebuild")
+    public ResponseEntity<Integer> rebuildDiseaseStats() {
+        return ResponseEntity.ok(diseaseAnalyticsService.rebuild());
+    }
+
+    @GetMapping("/retention")
+    public ResponseEntity<List<RetentionCohortResponse>> getRetentionCohorts(
+            @RequestParam(value = "fromMonth", required = false) String fromMonth,
+            @RequestParam(value = "toMonth", required = false) String toMonth,
+            @RequestParam(value = "diseaseId", required = false) Long diseaseId,
+            @RequestParam(value = "byDisease", defaultValue = "false") boolean byDisease) {
+        return ResponseEntity.ok(retentionCohortService.getCohorts(fromMonth, toMonth, diseaseId, byDisease));
+    }
+
+    @PostMapping("/retention/rebuild")
+    public ResponseEntity<Integer> rebuildRetentionCohorts() {
+        return ResponseEntity.ok(retentionCohortJob.rebuild());
+    }
+
+    @GetMapping("/exports/watermarks")
+    public ResponseEntity<List<ExportWatermark>> getExportWatermarks() {
+        return ResponseEntity.ok(analyticsExportService.getWatermarks());
+    }
+
+    @PostMapping("/exports/run")
+    public ResponseEntity<List<ExportRunResult>> runExport() {
+        return ResponseEntity.ok(analyticsExportJob.run());
+    }
+}
@@ -1,11 +1,17 @@
 package vn.project.ClinicSystem.controller;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -14,20 +20,42 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import vn.project.ClinicSystem.model.Billing;
 import vn.project.ClinicSystem.model.BillingItem;
+import vn.project.ClinicSystem.model.BillingPayment;
+import vn.project.ClinicSystem.model.dto.BillingBatchStatusResponse;
 import vn.project.ClinicSystem.model.dto.BillingItemCreateRequest;
 import vn.project.ClinicSystem.model.dto.BillingItemUpdateRequest;
 import vn.project.ClinicSystem.model.dto.BillingPageResponse;
+import vn.project.ClinicSystem.model.dto.BillingPaymentRequest;
+import vn.project.ClinicSystem.model.dto.BillingPdfArchiveStatusResponse;
 import vn.project.ClinicSystem.model.dto.BillingStatusUpdateRequest;
+import vn.project.ClinicSystem.model.dto.BillingTotalsCheckResponse;
+import vn.project.ClinicSystem.model.dto.CashReconciliationResponse;
+import vn.project.ClinicSystem.model.dto.PatientDebtResponse;
+import vn.project.ClinicSystem.model.dto.PrintJobResponse;
 import vn.project.ClinicSystem.model.enums.BillingStatus;
-import vn.project.ClinicSystem.service.BillingService;
+import vn.project.ClinicSystem.model.enums.ReceiptFormat;
+import vn.project.ClinicSystem.service.BillingBatchService;
+import vn.project.ClinicSystem.service.BillingExportService;
+import vn.project.ClinicSystem.service.BillingPaymentService;
+import vn.project.ClinicSystem.service.BillingPdfArchiveService;
 import vn.project.ClinicSystem.service.BillingPrintService;
+import vn.project.ClinicSystem.service.BillingService;
+import vn.project.ClinicSystem.service.BillingTotalsVerifier;
+import vn.project.ClinicSystem.service.CashReconciliationService;
+import vn.project.ClinicSystem.service.PrintJobService;
+import vn.project.ClinicSystem.service.ReceiptPrintService;
+import vn.project.ClinicSystem.util.PdfResponseWriter;
 
 @RestController
 @RequestMapping("/billings")
@@ -35,11 +63,38 @@ public class BillingController {
 
     private final BillingService billingService;
     private final BillingPrintService billingPrintService;
+    private final BillingBatchService billingBatchService;
+    private final BillingTotalsVerifier billingTotalsVerifier;
+    private final BillingExportService billingExportService;
+    private final CashReconciliationService cashReconciliationService;
+    private final BillingPdfArchiveService billingPdfArchiveService;
+    private final BillingPaymentService billingPaymentService;
+    private final PrintJobService printJobService;
+    private final ReceiptPrintService receiptPrintService;
+    private final PdfResponseWriter pdfResponseWriter;
 
     public BillingController(BillingService billingService,
-            BillingPrintService billingPrintService) {
+            BillingPrintService billingPrintService,
+            BillingBatchService billingBatchService,
+            BillingTotalsVerifier billingTotalsVerifier,
+            BillingExportService billingExportService,
+            CashReconciliationService cashReconciliationService,
+            BillingPdfArchiveService billingPdfArchiveService,
+            BillingPaymentService billingPaymentService,
+            PrintJobService printJobService,
+            ReceiptPrintService receiptPrintService,
+            PdfResponseWriter pdfResponseWriter) {
         this.billingService = billingService;
         this.billingPrintService = billingPrintService;
+        this.billingBatchService = billingBatchService;
+        this.billingTotalsVerifier = billingTotalsVerifier;
+        this.billingExportService = billingExportService;
+        this.cashReconciliationService = cashReconciliationService;
+        this.billingPdfArchiveService = billingPdfArchiveService;
+        this.billingPaymentService = billingPaymentService;
+        this.printJobService = printJobService;
+        this.receiptPrintService = receiptPrintService;
+        this.pdfResponseWriter = pdfResponseWriter;
     }
 
     @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST')")
@@ -71,13 +126,108 @@ public class BillingController {
         return ResponseEntity.ok(response);
     }
 
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST')")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBillings(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "format", defaultValue = BillingExportService.FORMAT_CSV) String format) {
+        billingExportService.validateRange(from, to);
+        String fileName = "billings-" + from + "_" + to;
+        if (BillingExportService.FORMAT_NDJSON.equalsIgnoreCase(format)) {
+            StreamingResponseBody body = outputStream -> billingExportService.exportNdjson(from, to, outputStream);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                    .header("Content-Disposition", "attachment; filename=\"" + fileName + ".ndjson\"")
+                    .body(body);
+        }
+        if (!BillingExportService.FORMAT_CSV.equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("Định dạng xuất không hợp lệ, chỉ hỗ trợ csv hoặc ndjson");
+        }
+        StreamingResponseBody body = outputStream -> billingExportService.exportCsv(from, to, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv; charset=UTF-8"))
+                .header("Content-Disposition", "attachment; filename=\"" + fileName + ".csv\"")
+                .body(body);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/pdf-archive")
+    public ResponseEntity<BillingPdfArchiveStatusResponse> startPdfArchive(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "format", defaultValue = BillingPdfArchiveService.FORMAT_PDF) String format) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(billingPdfArchiveService.start(from, to, format));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/pdf-archive/status")
+    public ResponseEntity<BillingPdfArchiveStatusResponse> getPdfArchiveStatus() {
+        return ResponseEntity.ok(billingPdfArchiveService.getStatus());
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/pdf-archive/download")
+    public ResponseEntity<Resource> downloadPdfArchive() {
+        Resource file = new FileSystemResource(billingPdfArchiveService.getArchiveFile());
+        String fileName = billingPdfArchiveService.getArchiveFileName();
+        MediaType contentType = fileName.endsWith("." + BillingPdfArchiveService.FORMAT_ZIP)
+                ? MediaType.parseMediaType("application/zip")
+                : MediaType.APPLICATION_PDF;
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
+                .body(file);
+    }
+
     @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST')")
     @PostMapping("/visits/{visitId}/generate")
-    public ResponseEntity<Billing> generateBilling(@PathVariable("visitId") Long visitId) {
-        Billing billing = billingService.generateForVisit(visitId);
+    public ResponseEntity<Billing> generateBilling(
+            @PathVariable("visitId") Long visitId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        Billing billing = billingService.generateForVisit(visitId, idempotencyKey);
         return ResponseEntity.status(HttpStatus.CREATED).body(billing);
     }
 
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST')")
+    @PostMapping("/batch")
+    public ResponseEntity<BillingBatchStatusResponse> startBatch() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(billingBatchService.start());
+    }
+
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST')")
+    @GetMapping("/batch/status")
+    public ResponseEntity<BillingBatchStatusResponse> getBatchStatus() {
+        return ResponseEntity.ok(billingBatchService.getStatus());
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/totals-check")
+    public ResponseEntity<BillingTotalsCheckResponse> getTotalsCheck() {
+        return ResponseEntity.ok(billingTotalsVerifier.getLastReport());
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/totals-check")
+    public ResponseEntity<BillingTotalsCheckResponse> runTotalsCheck() {
+        return ResponseEntity.ok(billingTotalsVerifier.verify());
+    }
+
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST')")
+    @GetMapping("/reconciliation")
+    public ResponseEntity<CashReconciliationResponse> getReconciliation(
+            @RequestParam(value = "date", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(value = "refresh", defaultValue = "false") boolean refresh) {
+        return ResponseEntity.ok(cashReconciliationService.getReport(date, refresh));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/reconciliation/snapshot")
+    public ResponseEntity<CashReconciliationResponse> snapshotReconciliation(
+            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(cashReconciliationService.snapshot(date));
+    }
+
     @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST')")
     @PutMapping("/{id}/status")
     public ResponseEntity<Billing> updateStatus(
@@ -86,6 +236,37 @@ public class BillingController {
         return ResponseEntity.ok(billingService.updateStatus(id, request));
     }
 
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST')")
+    @PostMapping("/{id}/payments")
+    public ResponseEntity<BillingPayment> recordPayment(
+            @PathVariable("id") Long id,
+            @Valid @RequestBody BillingPaymentRequest request) {
+        BillingPayment payment = billingPaymentService.recordPayment(id, request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(payment);
+    }
+
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST')")
+    @GetMapping("/{id}/payments")
+    public ResponseEntity<List<BillingPayment>> getPayments(@PathVariable("id") Long id) {
+        return ResponseEntity.ok(billingPaymentService.findByBilling(id));
+    }
+
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST')")
+    @GetMapping("/patients/{patientId}/outstanding")
+    public ResponseEntity<PatientDebtResponse> getPatientOutstanding(@PathVariable("patientId") Long patientId) {
+        return ResponseEntity.ok(billingPaymentService.getPatientDebt(patientId));
+    }
+
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST')")
+    @GetMapping("/debts")
+    public ResponseEntity<List<PatientDebtResponse>> getPatientDebts(
+            @RequestParam(value = "page", required = false) Integer page,
+            @RequestParam(value = "size", required = false) Integer size) {
+        int safePage = page != null ? Math.max(page, 0) : 0;
+        int safeSize = size != null ? Math.min(Math.max(size, 1), 50) : 10;
+        return ResponseEntity.ok(billingPaymentService.getPatientDebts(PageRequest.of(safePage, safeSize)));
+    }
+
     @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST')")
     @PostMapping("/{id}/items")
     public ResponseEntity<Billing> addManualItem(
@@ -108,20 +289,37 @@ public class BillingController {
     @DeleteMapping("/{billingId}/items/{itemId}")
     public ResponseEntity<Void> deleteItem(
             @PathVariable("billingId") Long billingId,
-            @PathVariable("itemId") Long itemId) {
-        billingService.deleteItem(billingId, itemId);
+            @PathVariable("itemId") Long itemId,
+            @RequestParam(value = "version", required = false) Long version) {
+        billingService.deleteItem(billingId, itemId, version);
         return ResponseEntity.noContent().build();
     }
 
     @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST')")
     @GetMapping("/{id}/print")
-    public ResponseEntity<byte[]> printBilling(@PathVariable("id") Long id) {
-        byte[] pdfBytes = billingPrintService.generateBillingPdf(id);
+    public void printBilling(@PathVariable("id") Long id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        pdfResponseWriter.writeCached(request, response, billingPrintService.describeBillingPdf(id),
+                outputStream -> billingPrintService.generateBillingPdf(id, outputStream));
+    }
+
+    // Bản in bất đồng bộ: trả về mã lệnh, theo dõi và tải về qua /print-jobs/{jobId}.
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST')")
+    @PostMapping("/{id}/print/jobs")
+    public ResponseEntity<PrintJobResponse> submitPrintJob(@PathVariable("id") Long id) {
+        PrintJobResponse job = printJobService.submit(billingPrintService.describeBillingPdf(id),
+                outputStream -> billingPrintService.generateBillingPdf(id, outputStream));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    // Biên lai khổ 58mm cho máy in nhiệt: ESC_POS trả byte lệnh gửi thẳng tới máy in, HTML để in từ trình duyệt.
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST')")
+    @GetMapping("/{id}/receipt")
+    public ResponseEntity<byte[]> printReceipt(@PathVariable("id") Long id,
+            @RequestParam(value = "format", defaultValue = "HTML") ReceiptFormat format) {
         return ResponseEntity.ok()
-                .header("Content-Type", "application/pdf")
-                .header("Content-Disposition", "inline; filename=\"billing-" + id + ".pdf\"")
-                .header("X-Content-Type-Options", "nosniff")
-                .body(pdfBytes);
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .body(receiptPrintService.renderBillingReceipt(id, format));
     }
 
     @PreAuthorize("hasRole('ADMIN')")
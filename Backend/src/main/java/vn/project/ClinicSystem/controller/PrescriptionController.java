@@ -1,8 +1,10 @@
 package vn.project.ClinicSystem.controller;
 
+import java.io.IOException;
 import java.util.List;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -16,14 +18,21 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import vn.project.ClinicSystem.model.Prescription;
 import vn.project.ClinicSystem.model.dto.PrescriptionCreateRequest;
 import vn.project.ClinicSystem.model.dto.PrescriptionStatusUpdateRequest;
 import vn.project.ClinicSystem.model.dto.PrescriptionUpdateRequest;
+import vn.project.ClinicSystem.model.dto.PrintJobResponse;
 import vn.project.ClinicSystem.model.enums.PrescriptionStatus;
+import vn.project.ClinicSystem.model.enums.ReceiptFormat;
 import vn.project.ClinicSystem.service.PrescriptionPrintService;
 import vn.project.ClinicSystem.service.PrescriptionService;
+import vn.project.ClinicSystem.service.PrintJobService;
+import vn.project.ClinicSystem.service.ReceiptPrintService;
+import vn.project.ClinicSystem.util.PdfResponseWriter;
 
 @RestController
 @RequestMapping("/prescriptions")
@@ -31,11 +40,20 @@ public class PrescriptionController {
 
     private final PrescriptionService prescriptionService;
     private final PrescriptionPrintService prescriptionPrintService;
+    private final PrintJobService printJobService;
+    private final ReceiptPrintService receiptPrintService;
+    private final PdfResponseWriter pdfResponseWriter;
 
     public PrescriptionController(PrescriptionService prescriptionService,
-            PrescriptionPrintService prescriptionPrintService) {
+            PrescriptionPrintService prescriptionPrintService,
+            PrintJobService printJobService,
+            ReceiptPrintService receiptPrintService,
+            PdfResponseWriter pdfResponseWriter) {
         this.prescriptionService = prescriptionService;
         this.prescriptionPrintService = prescriptionPrintService;
+        this.printJobService = printJobService;
+        this.receiptPrintService = receiptPrintService;
+        this.pdfResponseWriter = pdfResponseWriter;
     }
 
     @PreAuthorize("hasRole('ADMIN') or hasRole('DOCTOR')")
@@ -90,12 +108,24 @@ public class PrescriptionController {
     }
 
     @GetMapping("/{id}/print")
-    public ResponseEntity<byte[]> printPrescription(@PathVariable("id") Long id) {
-        byte[] pdfBytes = prescriptionPrintService.generatePrescriptionPdf(id);
+    public void printPrescription(@PathVariable("id") Long id, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        pdfResponseWriter.writeCached(request, response, prescriptionPrintService.describePrescriptionPdf(id),
+                outputStream -> prescriptionPrintService.generatePrescriptionPdf(id, outputStream));
+    }
+
+    @PostMapping("/{id}/print/jobs")
+    public ResponseEntity<PrintJobResponse> submitPrintJob(@PathVariable("id") Long id) {
+        PrintJobResponse job = printJobService.submit(prescriptionPrintService.describePrescriptionPdf(id),
+                outputStream -> prescriptionPrintService.generatePrescriptionPdf(id, outputStream));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    @GetMapping("/{id}/receipt")
+    public ResponseEntity<byte[]> printReceipt(@PathVariable("id") Long id,
+            @RequestParam(value = "format", defaultValue = "HTML") ReceiptFormat format) {
         return ResponseEntity.ok()
-                .header("Content-Type", "application/pdf")
-                .header("Content-Disposition", "inline; filename=\"prescription-" + id + ".pdf\"")
-                .header("X-Content-Type-Options", "nosniff")
-                .body(pdfBytes);
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .body(receiptPrintService.renderPrescriptionReceipt(id, format));
     }
 }
@@ -0,0 +1,74 @@
+package vn.project.ClinicSystem.controller;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import vn.project.ClinicSystem.model.dto.PrintJobResponse;
+import vn.project.ClinicSystem.model.dto.PrintPrerenderResult;
+import vn.project.ClinicSystem.service.BillingPrintService;
+import vn.project.ClinicSystem.service.PrintJobService;
+import vn.project.ClinicSystem.service.PrintJobService.PrintJob;
+import vn.project.ClinicSystem.service.ServiceOrderSlipPrerenderJob;
+import vn.project.ClinicSystem.util.PdfResponseWriter;
+import vn.project.ClinicSystem.util.SecurityUtil;
+import vn.project.ClinicSystem.util.error.PrintJobExpiredException;
+
+@RestController
+@RequestMapping("/print-jobs")
+public class PrintJobController {
+
+    private final PrintJobService printJobService;
+    private final ServiceOrderSlipPrerenderJob slipPrerenderJob;
+    private final PdfResponseWriter pdfResponseWriter;
+
+    public PrintJobController(PrintJobService printJobService,
+            ServiceOrderSlipPrerenderJob slipPrerenderJob,
+            PdfResponseWriter pdfResponseWriter) {
+        this.printJobService = printJobService;
+        this.slipPrerenderJob = slipPrerenderJob;
+        this.pdfResponseWriter = pdfResponseWriter;
+    }
+
+    // waitMs > 0: long-poll, trả về ngay khi lệnh xong hoặc hết thời gian chờ.
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST', 'DOCTOR', 'PHARMACIST')")
+    @GetMapping("/{jobId}")
+    public CompletableFuture<ResponseEntity<PrintJobResponse>> getJob(@PathVariable("jobId") String jobId,
+            @RequestParam(value = "waitMs", required = false, defaultValue = "0") long waitMs) {
+        return printJobService.getJob(jobId, waitMs).thenApply(ResponseEntity::ok);
+    }
+
+    // Cùng các vai trò được gửi lệnh in; riêng hóa đơn chỉ ADMIN/RECEPTIONIST như BillingController.
+    // Bản in đã bị loại khỏi cache thì trả 410 để người dùng gửi lại lệnh, không dựng lại trên luồng request.
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST', 'DOCTOR', 'PHARMACIST')")
+    @GetMapping("/{jobId}/file")
+    public void downloadJob(@PathVariable("jobId") String jobId, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        PrintJob job = printJobService.getCompletedJob(jobId);
+        if (BillingPrintService.DOCUMENT_TYPE.equals(job.getVersion().getType())
+                && !SecurityUtil.hasCurrentUserAnyOfAuthorities("ROLE_ADMIN", "ROLE_RECEPTIONIST")) {
+            throw new AccessDeniedException("Không có quyền tải bản in hóa đơn");
+        }
+        if (!pdfResponseWriter.writeCachedIfPresent(request, response, job.getVersion())) {
+            throw new PrintJobExpiredException("Bản in của lệnh " + jobId + " đã hết hạn, vui lòng gửi lại lệnh in");
+        }
+    }
+
+    // Chạy tay lần dựng sẵn phiếu chỉ định chưa thực hiện như lịch chạy tối.
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/prerender")
+    public ResponseEntity<PrintPrerenderResult> prerenderSlips() {
+        return ResponseEntity.ok(slipPrerenderJob.run());
+    }
+}
@@ -1,5 +1,6 @@
 package vn.project.ClinicSystem.controller;
 
+import java.io.IOException;
 import java.util.List;
 
 import org.springframework.http.HttpStatus;
@@ -12,11 +13,16 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import vn.project.ClinicSystem.model.ServiceOrderResult;
+import vn.project.ClinicSystem.model.dto.PrintJobResponse;
 import vn.project.ClinicSystem.model.dto.ServiceOrderResultRequest;
+import vn.project.ClinicSystem.service.PrintJobService;
 import vn.project.ClinicSystem.service.ServiceOrderPrintService;
 import vn.project.ClinicSystem.service.ServiceOrderResultService;
+import vn.project.ClinicSystem.util.PdfResponseWriter;
 
 @RestController
 @RequestMapping("/service-orders/{orderId}/results")
@@ -24,11 +30,17 @@ public class ServiceOrderResultController {
 
     private final ServiceOrderResultService resultService;
     private final ServiceOrderPrintService printService;
+    private final PrintJobService printJobService;
+    private final PdfResponseWriter pdfResponseWriter;
 
     public ServiceOrderResultController(ServiceOrderResultService resultService,
-            ServiceOrderPrintService printService) {
+            ServiceOrderPrintService printService,
+            PrintJobService printJobService,
+            PdfResponseWriter pdfResponseWriter) {
         this.resultService = resultService;
         this.printService = printService;
+        this.printJobService = printJobService;
+        this.pdfResponseWriter = pdfResponseWriter;
     }
 
     @GetMapping
@@ -46,23 +58,32 @@ public class ServiceOrderResultController {
         return ResponseEntity.status(HttpStatus.CREATED).body(results);
     }
 
+    // Phiếu chỉ định không chứa giờ in nên đi qua cache, kể cả bản được dựng sẵn từ tối hôm trước.
     @GetMapping("/print")
-    public ResponseEntity<byte[]> printServiceOrder(@PathVariable("orderId") Long orderId) {
-        byte[] pdfBytes = printService.generateServiceOrderPdf(orderId);
-        return ResponseEntity.ok()
-                .header("Content-Type", "application/pdf")
-                .header("Content-Disposition", "inline; filename=\"service-order-" + orderId + ".pdf\"")
-                .header("X-Content-Type-Options", "nosniff")
-                .body(pdfBytes);
+    public void printServiceOrder(@PathVariable("orderId") Long orderId, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        pdfResponseWriter.writeCached(request, response, printService.describeServiceOrderPdf(orderId),
+                outputStream -> printService.generateServiceOrderPdf(orderId, outputStream));
     }
 
     @GetMapping("/print-result")
-    public ResponseEntity<byte[]> printServiceOrderResult(@PathVariable("orderId") Long orderId) {
-        byte[] pdfBytes = printService.generateServiceOrderResultPdf(orderId);
-        return ResponseEntity.ok()
-                .header("Content-Type", "application/pdf")
-                .header("Content-Disposition", "inline; filename=\"service-order-result-" + orderId + ".pdf\"")
-                .header("X-Content-Type-Options", "nosniff")
-                .body(pdfBytes);
+    public void printServiceOrderResult(@PathVariable("orderId") Long orderId, HttpServletResponse response)
+            throws IOException {
+        pdfResponseWriter.write(response, "service-order-result-" + orderId + ".pdf",
+                outputStream -> printService.generateServiceOrderResultPdf(orderId, outputStream));
+    }
+
+    @PostMapping("/print/jobs")
+    public ResponseEntity<PrintJobResponse> submitPrintJob(@PathVariable("orderId") Long orderId) {
+        PrintJobResponse job = printJobService.submit(printService.describeServiceOrderPdf(orderId),
+                outputStream -> printService.generateServiceOrderPdf(orderId, outputStream));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    @PostMapping("/print-result/jobs")
+    public ResponseEntity<PrintJobResponse> submitResultPrintJob(@PathVariable("orderId") Long orderId) {
+        PrintJobResponse job = printJobService.submit(printService.describeServiceOrderResultPdf(orderId),
+                outputStream -> printService.generateServiceOrderResultPdf(orderId, outputStream));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
     }
 }
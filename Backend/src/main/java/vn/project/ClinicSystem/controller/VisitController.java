@@ -1,5 +1,6 @@
 package vn.project.ClinicSystem.controller;
 
+import java.io.IOException;
 import java.util.List;
 
 import org.springframework.data.domain.PageRequest;
@@ -17,6 +18,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import vn.project.ClinicSystem.model.PatientVisit;
 import vn.project.ClinicSystem.model.ServiceOrder;
@@ -24,19 +26,33 @@ import vn.project.ClinicSystem.model.dto.PatientVisitCreateRequest;
 import vn.project.ClinicSystem.model.dto.PatientVisitPageResponse;
 import vn.project.ClinicSystem.model.dto.PatientVisitStatusUpdateRequest;
 import vn.project.ClinicSystem.model.dto.PatientVisitUpdateRequest;
+import vn.project.ClinicSystem.model.dto.PrintJobResponse;
 import vn.project.ClinicSystem.model.dto.ServiceOrderCreateRequest;
 import vn.project.ClinicSystem.model.dto.ServiceOrderStatusUpdateRequest;
 import vn.project.ClinicSystem.model.enums.VisitStatus;
+import vn.project.ClinicSystem.service.PrintJobService;
+import vn.project.ClinicSystem.service.VisitDocumentPrintService;
 import vn.project.ClinicSystem.service.VisitService;
+import vn.project.ClinicSystem.util.PdfResponseWriter;
+import vn.project.ClinicSystem.util.SecurityUtil;
 
 @RestController
 @RequestMapping("/visits")
 public class VisitController {
 
     private final VisitService visitService;
-
-    public VisitController(VisitService visitService) {
+    private final VisitDocumentPrintService visitDocumentPrintService;
+    private final PrintJobService printJobService;
+    private final PdfResponseWriter pdfResponseWriter;
+
+    public VisitController(VisitService visitService,
+            VisitDocumentPrintService visitDocumentPrintService,
+            PrintJobService printJobService,
+            PdfResponseWriter pdfResponseWriter) {
         this.visitService = visitService;
+        this.visitDocumentPrintService = visitDocumentPrintService;
+        this.printJobService = printJobService;
+        this.pdfResponseWriter = pdfResponseWriter;
     }
 
     @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST')")
@@ -127,6 +143,29 @@ public class VisitController {
         return ResponseEntity.ok(visitService.updateServiceOrderStatus(id, request));
     }
 
+    // Phiếu chỉ định, phiếu kết quả, đơn thuốc và hóa đơn của lần khám trong một file PDF. Hóa đơn chỉ có
+    // trong bộ hồ sơ khi người in được phép in hóa đơn (như BillingController).
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST', 'DOCTOR')")
+    @GetMapping("/{id}/documents/print")
+    public void printDocuments(@PathVariable("id") Long id, HttpServletResponse response) throws IOException {
+        boolean includeBilling = canPrintBilling();
+        pdfResponseWriter.write(response, "visit-" + id + "-documents.pdf",
+                outputStream -> visitDocumentPrintService.generateVisitDocumentsPdf(id, includeBilling, outputStream));
+    }
+
+    @PreAuthorize("hasAnyRole('ADMIN', 'RECEPTIONIST', 'DOCTOR')")
+    @PostMapping("/{id}/documents/print/jobs")
+    public ResponseEntity<PrintJobResponse> submitDocumentsPrintJob(@PathVariable("id") Long id) {
+        boolean includeBilling = canPrintBilling();
+        PrintJobResponse job = printJobService.submit(visitDocumentPrintService.describeVisitDocumentsPdf(id),
+                outputStream -> visitDocumentPrintService.generateVisitDocumentsPdf(id, includeBilling, outputStream));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    private static boolean canPrintBilling() {
+        return SecurityUtil.hasCurrentUserAnyOfAuthorities("ROLE_ADMIN", "ROLE_RECEPTIONIST");
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     @org.springframework.web.bind.annotation.DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteVisit(@PathVariable("id") Long id) {
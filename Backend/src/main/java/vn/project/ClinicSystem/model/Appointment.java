@@ -13,6 +13,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToOne;
@@ -29,7 +30,9 @@ import vn.project.ClinicSystem.model.enums.AppointmentLifecycleStatus;
 @Getter
 @Setter
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+        @Index(name = "idx_appointments_updated_at_id", columnList = "updated_at, id")
+})
 public class Appointment {
 
     @Id
@@ -6,6 +6,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.persistence.CascadeType;
@@ -17,6 +18,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -24,6 +26,8 @@ import jakarta.persistence.OneToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
@@ -32,7 +36,15 @@ import vn.project.ClinicSystem.model.enums.BillingStatus;
 @Getter
 @Setter
 @Entity
-@Table(name = "billings")
+@Table(name = "billings", indexes = {
+        @Index(name = "idx_billings_issued_at", columnList = "issued_at"),
+        @Index(name = "idx_billings_settled_at", columnList = "settled_at"),
+        @Index(name = "idx_billings_patient_outstanding", columnList = "patient_id, outstanding_amount"),
+        @Index(name = "idx_billings_outstanding_patient", columnList = "outstanding_amount, patient_id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_billings_visit_id", columnNames = "visit_id"),
+        @UniqueConstraint(name = "uk_billings_idempotency_key", columnNames = "idempotency_key")
+})
 public class Billing {
 
     @Id
@@ -40,7 +52,7 @@ public class Billing {
     private Long id;
 
     @OneToOne(fetch = FetchType.LAZY, optional = false)
-    @JoinColumn(name = "visit_id", nullable = false, unique = true)
+    @JoinColumn(name = "visit_id", nullable = false)
     @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler", "serviceOrders", "prescriptions", "billing" })
     private PatientVisit visit;
 
@@ -65,15 +77,44 @@ public class Billing {
     @Column(nullable = false)
     private BigDecimal totalAmount = BigDecimal.ZERO;
 
+    // Số đã thu và còn phải thu, cập nhật cùng giao dịch với mỗi dòng trong sổ thanh toán (BillingPayment).
+    @Column(name = "paid_amount", nullable = false, columnDefinition = "decimal(38,2) default 0")
+    private BigDecimal paidAmount = BigDecimal.ZERO;
+
+    @Column(name = "outstanding_amount", nullable = false, columnDefinition = "decimal(38,2) default 0")
+    private BigDecimal outstandingAmount = BigDecimal.ZERO;
+
     @Column(length = 60)
     private String paymentMethod;
 
     @Column(length = 255)
     private String notes;
 
+    // Khóa do client gửi qua header Idempotency-Key khi lập hóa đơn; gửi lại cùng khóa sẽ nhận lại hóa đơn cũ.
+    @JsonIgnore
+    @Column(name = "idempotency_key", length = 80)
+    private String idempotencyKey;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @NotNull
     private LocalDateTime issuedAt = LocalDateTime.now();
 
+    // Người lập hóa đơn, được thay bằng người thu tiền/hủy khi hóa đơn được chốt.
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cashier_id")
+    @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
+    private User cashier;
+
+    // Thời điểm hóa đơn chuyển sang đã thu (một phần/toàn bộ) hoặc bị hủy.
+    private LocalDateTime settledAt;
+
+    // Phiên bản bảng giá (PriceCatalog) dùng để tính giá khi lập hóa đơn.
+    @Column(name = "price_catalog_version")
+    private Long priceCatalogVersion;
+
     @OneToMany(mappedBy = "billing", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<BillingItem> items = new ArrayList<>();
 
@@ -115,6 +156,29 @@ public class Billing {
         this.medicationTotal = medication;
         this.otherTotal = other;
         this.totalAmount = service.add(medication).add(other);
+        refreshOutstanding();
+    }
+
+    /**
+     * Ghi nhận một khoản thu (số âm là hoàn tiền) và suy ra trạng thái từ số đã thu.
+     */
+    public void applyPayment(BigDecimal amount) {
+        this.paidAmount = this.paidAmount.add(amount);
+        refreshOutstanding();
+        if (this.paidAmount.signum() <= 0) {
+            this.status = BillingStatus.UNPAID;
+        } else if (this.outstandingAmount.signum() > 0) {
+            this.status = BillingStatus.PARTIALLY_PAID;
+        } else {
+            this.status = BillingStatus.PAID;
+        }
+    }
+
+    // Hóa đơn đã hủy không còn là công nợ.
+    public void refreshOutstanding() {
+        this.outstandingAmount = this.status == BillingStatus.CANCELLED
+                ? BigDecimal.ZERO
+                : this.totalAmount.subtract(this.paidAmount);
     }
 
     @PrePersist
@@ -13,6 +13,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
@@ -27,7 +28,9 @@ import vn.project.ClinicSystem.model.enums.BillingItemType;
 @Getter
 @Setter
 @Entity
-@Table(name = "billing_items")
+@Table(name = "billing_items", indexes = {
+        @Index(name = "idx_billing_items_updated_at_id", columnList = "updated_at, id")
+})
 public class BillingItem {
 
     @Id
@@ -0,0 +1,76 @@
+package vn.project.ClinicSystem.model;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Một khoản thu (số dương) hoặc hoàn tiền (số âm) của hóa đơn. Sổ chỉ được ghi thêm, không sửa hay xóa;
+ * muốn điều chỉnh thì ghi một khoản bù trừ.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "billing_payments", indexes = {
+        @Index(name = "idx_billing_payments_billing", columnList = "billing_id, paid_at"),
+        @Index(name = "idx_billing_payments_paid_at", columnList = "paid_at")
+})
+public class BillingPayment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "billing_id", nullable = false, updatable = false)
+    private Billing billing;
+
+    @Column(nullable = false, updatable = false, precision = 38, scale = 2)
+    private BigDecimal amount;
+
+    @Column(nullable = false, updatable = false, length = 60)
+    private String method;
+
+    @Column(length = 100, updatable = false)
+    private String reference;
+
+    @Column(length = 255, updatable = false)
+    private String note;
+
+    @Column(name = "paid_at", nullable = false, updatable = false)
+    private LocalDateTime paidAt;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cashier_id", updatable = false)
+    @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
+    private User cashier;
+
+    @Column(updatable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    public void handleBeforeCreate() {
+        this.createdAt = Instant.now();
+        if (this.paidAt == null) {
+            this.paidAt = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package vn.project.ClinicSystem.model;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Chốt sổ cuối ngày theo từng thu ngân và phương thức thanh toán. Đã thu/đã hủy tính theo ngày
+ * chốt hóa đơn, chưa thu tính theo ngày lập hóa đơn.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "cash_reconciliation_snapshots", indexes = {
+        @Index(name = "idx_cash_reconciliation_date", columnList = "business_date")
+})
+public class CashReconciliationSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "business_date", nullable = false)
+    private LocalDate businessDate;
+
+    @Column(name = "cashier_id")
+    private Long cashierId;
+
+    @Column(name = "cashier_name", length = 150)
+    private String cashierName;
+
+    @Column(name = "payment_method", length = 60)
+    private String paymentMethod;
+
+    @Column(name = "paid_count", nullable = false)
+    private long paidCount;
+
+    @Column(name = "paid_total", nullable = false, precision = 14, scale = 2)
+    private BigDecimal paidTotal = BigDecimal.ZERO;
+
+    @Column(name = "unpaid_count", nullable = false)
+    private long unpaidCount;
+
+    @Column(name = "unpaid_total", nullable = false, precision = 14, scale = 2)
+    private BigDecimal unpaidTotal = BigDecimal.ZERO;
+
+    @Column(name = "cancelled_count", nullable = false)
+    private long cancelledCount;
+
+    @Column(name = "cancelled_total", nullable = false, precision = 14, scale = 2)
+    private BigDecimal cancelledTotal = BigDecimal.ZERO;
+
+    // Số hóa đơn trong nhóm có tổng tiền không khớp với tổng các mục hóa đơn.
+    @Column(name = "mismatch_count", nullable = false)
+    private long mismatchCount;
+
+    @Column(name = "computed_at", nullable = false)
+    private Instant computedAt;
+}
@@ -0,0 +1,42 @@
+package vn.project.ClinicSystem.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Dấu đã chạy của một lần chuyển đổi dữ liệu một lần. Tên là khóa duy nhất nên hai instance khởi động
+ * cùng lúc chỉ có một bên ghi được dấu và chạy chuyển đổi.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "data_migrations")
+public class DataMigration {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 100)
+    private String name;
+
+    @Column(name = "affected_rows", nullable = false)
+    private long affectedRows;
+
+    @Column(name = "applied_at", nullable = false)
+    private Instant appliedAt;
+
+    @PrePersist
+    public void handleBeforeCreate() {
+        this.appliedAt = Instant.now();
+    }
+}
@@ -0,0 +1,44 @@
+package vn.project.ClinicSystem.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Bảng tổng hợp số lượt khám theo bệnh và theo ngày (ngày tạo hồ sơ khám).
+ * Được cập nhật cộng dồn mỗi khi danh sách bệnh của hồ sơ khám thay đổi.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "disease_visit_daily_stats", indexes = {
+        @Index(name = "uk_disease_visit_daily_stats_disease_date", columnList = "disease_id, stat_date", unique = true),
+        @Index(name = "idx_disease_visit_daily_stats_date", columnList = "stat_date, disease_id")
+})
+public class DiseaseVisitDailyStat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "disease_id", nullable = false)
+    private Long diseaseId;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "visit_count", nullable = false)
+    private long visitCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
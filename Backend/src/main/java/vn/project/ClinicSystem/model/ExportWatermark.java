@@ -0,0 +1,54 @@
+package vn.project.ClinicSystem.model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import vn.project.ClinicSystem.model.enums.ExportDataset;
+
+/**
+ * Vị trí (updated_at, id) của dòng cuối cùng đã được ghi vào một file xuất hoàn chỉnh.
+ * Giá trị updated_at được lưu nguyên dạng như trong bảng nguồn để so sánh chính xác.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "analytics_export_watermarks")
+public class ExportWatermark {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 40, nullable = false, unique = true)
+    private ExportDataset dataset;
+
+    @Column(name = "last_updated_at")
+    private LocalDateTime lastUpdatedAt;
+
+    @Column(name = "last_id")
+    private Long lastId;
+
+    @Column(name = "exported_rows", nullable = false)
+    private long exportedRows;
+
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    public void handleBeforeSave() {
+        this.updatedAt = Instant.now();
+    }
+}
@@ -0,0 +1,44 @@
+package vn.project.ClinicSystem.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import vn.project.ClinicSystem.model.enums.ExportDataset;
+
+/**
+ * Khóa (id, updated_at) của các dòng đã xuất nằm trong cửa sổ đọc lại phía sau watermark. Lần xuất sau
+ * đọc lại cửa sổ này để bắt các dòng commit trễ và dùng bảng này để không ghi lại dòng đã có trong file.
+ * Khóa cũ hơn cửa sổ được xóa mỗi khi watermark tiến lên.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "analytics_export_row_keys", indexes = {
+        @Index(name = "idx_export_row_keys_dataset_updated", columnList = "dataset, row_updated_at")
+})
+public class ExportedRowKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 40, nullable = false)
+    private ExportDataset dataset;
+
+    @Column(name = "row_id", nullable = false)
+    private Long rowId;
+
+    @Column(name = "row_updated_at", nullable = false)
+    private LocalDateTime rowUpdatedAt;
+}
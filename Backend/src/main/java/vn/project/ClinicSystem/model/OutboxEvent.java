@@ -0,0 +1,67 @@
+package vn.project.ClinicSystem.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Sự kiện nghiệp vụ chờ phát đi, ghi cùng giao dịch với thay đổi dữ liệu (transactional outbox).
+ * Bản ghi chỉ tồn tại khi giao dịch commit, và được đánh dấu {@code publishedAt} sau khi phát thành công.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_pending", columnList = "published_at, next_attempt_at"),
+        @Index(name = "idx_outbox_events_aggregate", columnList = "aggregate_type, aggregate_id")
+})
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "aggregate_type", nullable = false, length = 40)
+    private String aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(name = "event_type", nullable = false, length = 40)
+    private String eventType;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "published_at")
+    private Instant publishedAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    private Instant createdAt;
+
+    @PrePersist
+    public void handleBeforeCreate() {
+        Instant now = Instant.now();
+        this.createdAt = now;
+        if (this.nextAttemptAt == null) {
+            this.nextAttemptAt = now;
+        }
+    }
+}
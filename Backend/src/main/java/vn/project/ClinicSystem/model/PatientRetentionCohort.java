@@ -0,0 +1,62 @@
+package vn.project.ClinicSystem.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Kết quả tính cohort tái khám: nhóm bệnh nhân theo tháng của lần khám đầu tiên và theo bệnh
+ * được chẩn đoán ở lần khám đó ({@code diseaseId = null} là toàn bộ cohort của tháng).
+ * Chỉ những bệnh nhân đã đủ N ngày kể từ lần khám đầu mới được tính vào mẫu số của mốc N ngày.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "patient_retention_cohorts", indexes = {
+        @Index(name = "idx_retention_cohort_month_disease", columnList = "cohort_month, disease_id")
+})
+public class PatientRetentionCohort {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Định dạng yyyy-MM
+    @Column(name = "cohort_month", nullable = false, length = 7)
+    private String cohortMonth;
+
+    @Column(name = "disease_id")
+    private Long diseaseId;
+
+    @Column(name = "cohort_size", nullable = false)
+    private long cohortSize;
+
+    @Column(name = "eligible_7d", nullable = false)
+    private long eligible7d;
+
+    @Column(name = "returned_7d", nullable = false)
+    private long returned7d;
+
+    @Column(name = "eligible_30d", nullable = false)
+    private long eligible30d;
+
+    @Column(name = "returned_30d", nullable = false)
+    private long returned30d;
+
+    @Column(name = "eligible_90d", nullable = false)
+    private long eligible90d;
+
+    @Column(name = "returned_90d", nullable = false)
+    private long returned90d;
+
+    @Column(name = "computed_at", nullable = false)
+    private Instant computedAt;
+}
@@ -16,6 +16,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
@@ -33,7 +34,9 @@ import vn.project.ClinicSystem.model.enums.VisitStatus;
 @Getter
 @Setter
 @Entity
-@Table(name = "patient_visits")
+@Table(name = "patient_visits", indexes = {
+        @Index(name = "idx_patient_visits_updated_at_id", columnList = "updated_at, id")
+})
 public class PatientVisit {
 
     @Id
@@ -16,6 +16,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -31,7 +32,9 @@ import vn.project.ClinicSystem.model.enums.ServiceOrderStatus;
 @Getter
 @Setter
 @Entity
-@Table(name = "service_orders")
+@Table(name = "service_orders", indexes = {
+        @Index(name = "idx_service_orders_updated_at_id", columnList = "updated_at, id")
+})
 public class ServiceOrder {
 
     @Id
@@ -0,0 +1,21 @@
+package vn.project.ClinicSystem.model.dto;
+
+import java.time.Instant;
+
+import lombok.Builder;
+import lombok.Getter;
+import vn.project.ClinicSystem.model.enums.BatchJobStatus;
+
+@Getter
+@Builder
+public class BillingBatchStatusResponse {
+    private final BatchJobStatus status;
+    private final long visitsScanned;
+    private final long billingsCreated;
+    private final long visitsSkipped;
+    private final int chunksProcessed;
+    private final int failedChunks;
+    private final String lastError;
+    private final Instant startedAt;
+    private final Instant finishedAt;
+}
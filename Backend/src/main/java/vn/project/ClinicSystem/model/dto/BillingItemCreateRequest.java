@@ -27,4 +27,7 @@ public class BillingItemCreateRequest {
 
     @NotNull(message = "Cần nhập đơn giá")
     private BigDecimal unitPrice;
+
+    // Phiên bản hóa đơn mà thu ngân đang xem; nếu gửi kèm, thao tác bị từ chối khi hóa đơn đã bị sửa bởi người khác.
+    private Long version;
 }
@@ -21,4 +21,7 @@ public class BillingItemUpdateRequest {
     private Integer quantity;
 
     private BigDecimal unitPrice;
+
+    // Phiên bản hóa đơn mà thu ngân đang xem; nếu gửi kèm, thao tác bị từ chối khi hóa đơn đã bị sửa bởi người khác.
+    private Long version;
 }
@@ -0,0 +1,31 @@
+package vn.project.ClinicSystem.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class BillingPaymentRequest {
+
+    // Số âm là hoàn tiền.
+    @NotNull(message = "Cần nhập số tiền")
+    private BigDecimal amount;
+
+    @NotBlank(message = "Phương thức thanh toán không được để trống")
+    @Size(max = 60, message = "Phương thức thanh toán tối đa 60 ký tự")
+    private String method;
+
+    @Size(max = 100, message = "Mã giao dịch tối đa 100 ký tự")
+    private String reference;
+
+    @Size(max = 255, message = "Ghi chú tối đa 255 ký tự")
+    private String note;
+
+    private LocalDateTime paidAt;
+}
@@ -0,0 +1,25 @@
+package vn.project.ClinicSystem.model.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import lombok.Builder;
+import lombok.Getter;
+import vn.project.ClinicSystem.model.enums.BatchJobStatus;
+
+@Getter
+@Builder
+public class BillingPdfArchiveStatusResponse {
+    private final BatchJobStatus status;
+    private final String format;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final long totalBillings;
+    private final long renderedBillings;
+    private final int failedBillings;
+    private final boolean downloadReady;
+    private final long fileSize;
+    private final String lastError;
+    private final Instant startedAt;
+    private final Instant finishedAt;
+}
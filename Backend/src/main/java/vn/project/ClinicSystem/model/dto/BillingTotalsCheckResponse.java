@@ -0,0 +1,16 @@
+package vn.project.ClinicSystem.model.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class BillingTotalsCheckResponse {
+    private final Instant checkedAt;
+    private final long billingsChecked;
+    private final int driftCount;
+    private final List<BillingTotalsDrift> drifts;
+}
@@ -0,0 +1,20 @@
+package vn.project.ClinicSystem.model.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class BillingTotalsDrift {
+    private final Long billingId;
+    private final BigDecimal storedServiceTotal;
+    private final BigDecimal storedMedicationTotal;
+    private final BigDecimal storedOtherTotal;
+    private final BigDecimal storedTotalAmount;
+    private final BigDecimal itemServiceTotal;
+    private final BigDecimal itemMedicationTotal;
+    private final BigDecimal itemOtherTotal;
+    private final BigDecimal itemTotalAmount;
+}
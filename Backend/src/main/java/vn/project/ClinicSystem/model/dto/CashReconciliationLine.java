@@ -0,0 +1,21 @@
+package vn.project.ClinicSystem.model.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class CashReconciliationLine {
+    private final Long cashierId;
+    private final String cashierName;
+    private final String paymentMethod;
+    private final long paidCount;
+    private final BigDecimal paidTotal;
+    private final long unpaidCount;
+    private final BigDecimal unpaidTotal;
+    private final long cancelledCount;
+    private final BigDecimal cancelledTotal;
+    private final long mismatchCount;
+}
@@ -0,0 +1,24 @@
+package vn.project.ClinicSystem.model.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class CashReconciliationResponse {
+    private final LocalDate businessDate;
+    private final boolean fromSnapshot;
+    private final Instant computedAt;
+    private final BigDecimal paidTotal;
+    private final BigDecimal unpaidTotal;
+    private final BigDecimal cancelledTotal;
+    private final long mismatchCount;
+    private final List<CashReconciliationLine> lines;
+    // Chỉ có khi tính trực tiếp; bản chốt chỉ lưu số lượng theo từng dòng.
+    private final List<Long> mismatchedBillingIds;
+}
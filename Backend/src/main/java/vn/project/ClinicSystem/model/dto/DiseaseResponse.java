@@ -0,0 +1,27 @@
+package vn.project.ClinicSystem.model.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import vn.project.ClinicSystem.model.Disease;
+
+/**
+ * Bản sao không đổi của {@link Disease}, dùng cho danh sách được giữ trong cache: không gắn với
+ * persistence context nào nên dùng chung giữa các request được.
+ */
+@Getter
+@Builder
+public class DiseaseResponse {
+    private final Long id;
+    private final String code;
+    private final String name;
+    private final String description;
+
+    public static DiseaseResponse from(Disease disease) {
+        return DiseaseResponse.builder()
+                .id(disease.getId())
+                .code(disease.getCode())
+                .name(disease.getName())
+                .description(disease.getDescription())
+                .build();
+    }
+}
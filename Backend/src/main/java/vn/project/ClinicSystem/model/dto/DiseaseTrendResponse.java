@@ -0,0 +1,20 @@
+package vn.project.ClinicSystem.model.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+import vn.project.ClinicSystem.model.enums.StatGranularity;
+
+@Getter
+@Builder
+public class DiseaseTrendResponse {
+    private final LocalDate from;
+    private final LocalDate to;
+    private final StatGranularity granularity;
+
+    // Ngày bắt đầu của từng khoảng thời gian; counts của mỗi series có cùng thứ tự.
+    private final List<LocalDate> buckets;
+    private final List<DiseaseTrendSeries> series;
+}
@@ -0,0 +1,16 @@
+package vn.project.ClinicSystem.model.dto;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class DiseaseTrendSeries {
+    private final Long diseaseId;
+    private final String code;
+    private final String name;
+    private final long total;
+    private final List<Long> counts;
+}
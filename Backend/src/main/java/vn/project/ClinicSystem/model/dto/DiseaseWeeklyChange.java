@@ -0,0 +1,18 @@
+package vn.project.ClinicSystem.model.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class DiseaseWeeklyChange {
+    private final Long diseaseId;
+    private final String code;
+    private final String name;
+    private final long currentWeek;
+    private final long previousWeek;
+    private final long delta;
+
+    // null khi tuần trước không có lượt khám nào.
+    private final Double changePercent;
+}
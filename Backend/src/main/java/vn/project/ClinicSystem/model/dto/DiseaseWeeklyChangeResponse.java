@@ -0,0 +1,15 @@
+package vn.project.ClinicSystem.model.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class DiseaseWeeklyChangeResponse {
+    private final LocalDate weekStart;
+    private final LocalDate previousWeekStart;
+    private final List<DiseaseWeeklyChange> items;
+}
@@ -0,0 +1,20 @@
+package vn.project.ClinicSystem.model.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.Builder;
+import lombok.Getter;
+import vn.project.ClinicSystem.model.enums.ExportDataset;
+
+@Getter
+@Builder
+public class ExportRunResult {
+    private final ExportDataset dataset;
+    private final long rowsExported;
+    private final int filesWritten;
+    // Dòng commit trễ, có updated_at không vượt quá watermark của lần chạy trước.
+    private final long lateRows;
+    private final LocalDateTime lastUpdatedAt;
+    private final Long lastId;
+    private final long durationMs;
+}
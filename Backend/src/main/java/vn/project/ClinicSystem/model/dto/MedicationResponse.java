@@ -0,0 +1,47 @@
+package vn.project.ClinicSystem.model.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import lombok.Builder;
+import lombok.Getter;
+import vn.project.ClinicSystem.model.Medication;
+
+/**
+ * Bản sao không đổi của {@link Medication} với cùng các trường JSON, dùng cho danh sách được giữ
+ * trong cache thay cho entity đang được quản lý.
+ */
+@Getter
+@Builder
+public class MedicationResponse {
+    private final Long id;
+    private final String name;
+    private final String activeIngredient;
+    private final String strength;
+    private final String batchNo;
+    private final String unit;
+    private final BigDecimal unitPrice;
+    private final String manufacturer;
+    private final LocalDate expiryDate;
+    private final Integer stockQuantity;
+    private final Instant createdAt;
+    private final Instant updatedAt;
+
+    public static MedicationResponse from(Medication medication) {
+        return MedicationResponse.builder()
+                .id(medication.getId())
+                .name(medication.getName())
+                .activeIngredient(medication.getActiveIngredient())
+                .strength(medication.getStrength())
+                .batchNo(medication.getBatchNo())
+                .unit(medication.getUnit())
+                .unitPrice(medication.getUnitPrice())
+                .manufacturer(medication.getManufacturer())
+                .expiryDate(medication.getExpiryDate())
+                .stockQuantity(medication.getStockQuantity())
+                .createdAt(medication.getCreatedAt())
+                .updatedAt(medication.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,14 @@
+package vn.project.ClinicSystem.model.dto;
+
+import java.math.BigDecimal;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class PatientDebtResponse {
+    private final Long patientId;
+    private final BigDecimal outstandingAmount;
+    private final long billingCount;
+}
@@ -0,0 +1,21 @@
+package vn.project.ClinicSystem.model.dto;
+
+import java.time.Instant;
+
+import lombok.Builder;
+import lombok.Getter;
+import vn.project.ClinicSystem.model.enums.PrintJobStatus;
+
+@Getter
+@Builder
+public class PrintJobResponse {
+    private final String jobId;
+    private final String documentType;
+    private final Long documentId;
+    private final PrintJobStatus status;
+    private final boolean downloadReady;
+    private final String error;
+    private final Instant submittedAt;
+    private final Instant startedAt;
+    private final Instant finishedAt;
+}
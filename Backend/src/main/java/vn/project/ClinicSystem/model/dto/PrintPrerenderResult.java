@@ -0,0 +1,19 @@
+package vn.project.ClinicSystem.model.dto;
+
+import java.time.Instant;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class PrintPrerenderResult {
+    // Chỉ xét lần khám tạo từ mốc này; candidates là số phiếu trong khoảng đó.
+    private final Instant visitCreatedFrom;
+    private final int candidates;
+    private final int rendered;
+    private final int alreadyCached;
+    private final int failed;
+    private final boolean warmedUp;
+    private final long durationMs;
+}
@@ -0,0 +1,29 @@
+package vn.project.ClinicSystem.model.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class RetentionCohortResponse {
+    private final String cohortMonth;
+
+    // null: toàn bộ bệnh nhân có lần khám đầu trong tháng
+    private final Long diseaseId;
+    private final String diseaseCode;
+    private final String diseaseName;
+
+    private final long cohortSize;
+
+    private final long eligible7d;
+    private final long returned7d;
+    private final Double returnRate7d;
+
+    private final long eligible30d;
+    private final long returned30d;
+    private final Double returnRate30d;
+
+    private final long eligible90d;
+    private final long returned90d;
+    private final Double returnRate90d;
+}
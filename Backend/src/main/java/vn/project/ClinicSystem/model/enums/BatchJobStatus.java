@@ -0,0 +1,9 @@
+package vn.project.ClinicSystem.model.enums;
+
+public enum BatchJobStatus {
+    IDLE,
+    RUNNING,
+    COMPLETED,
+    COMPLETED_WITH_ERRORS,
+    FAILED
+}
@@ -0,0 +1,9 @@
+package vn.project.ClinicSystem.model.enums;
+
+public enum BillingEventType {
+    CREATED,
+    STATUS_CHANGED,
+    ITEMS_CHANGED,
+    PAYMENT_RECORDED,
+    DELETED
+}
@@ -0,0 +1,41 @@
+package vn.project.ClinicSystem.model.enums;
+
+import java.util.List;
+
+/**
+ * Các bảng được xuất định kỳ cho phân tích ngoại tuyến. Mỗi bảng phải có cột {@code id} và
+ * {@code updated_at} (được dùng làm watermark).
+ */
+public enum ExportDataset {
+    APPOINTMENTS("appointments", List.of(
+            "id", "patient_id", "doctor_id", "clinic_room_id", "request_id", "scheduled_at", "duration",
+            "status", "created_at", "updated_at")),
+    PATIENT_VISITS("patient_visits", List.of(
+            "id", "patient_id", "primary_appointment_id", "status", "created_at", "updated_at")),
+    SERVICE_ORDERS("service_orders", List.of(
+            "id", "visit_id", "medical_service_id", "assigned_doctor_id", "performed_by_id", "performed_at",
+            "status", "created_at", "updated_at")),
+    PRESCRIPTIONS("prescriptions", List.of(
+            "id", "visit_id", "prescribed_by_id", "issued_at", "status", "dispensed_at", "created_at",
+            "updated_at")),
+    BILLING_ITEMS("billing_items", List.of(
+            "id", "billing_id", "item_type", "description", "quantity", "unit_price", "amount",
+            "service_order_id", "medical_service_id", "prescription_item_id", "medication_id", "created_at",
+            "updated_at"));
+
+    private final String tableName;
+    private final List<String> columns;
+
+    ExportDataset(String tableName, List<String> columns) {
+        this.tableName = tableName;
+        this.columns = columns;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+}
@@ -0,0 +1,8 @@
+package vn.project.ClinicSystem.model.enums;
+
+public enum PrintJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,20 @@
+package vn.project.ClinicSystem.model.enums;
+
+/**
+ * Định dạng biên lai khổ hẹp cho máy in nhiệt tại quầy: lệnh ESC/POS gửi thẳng tới máy in, hoặc HTML
+ * gọn để in qua trình duyệt.
+ */
+public enum ReceiptFormat {
+    ESC_POS("application/octet-stream"),
+    HTML("text/html;charset=UTF-8");
+
+    private final String contentType;
+
+    ReceiptFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
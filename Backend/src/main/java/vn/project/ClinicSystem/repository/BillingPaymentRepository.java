@@ -0,0 +1,67 @@
+package vn.project.ClinicSystem.repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import vn.project.ClinicSystem.model.BillingPayment;
+
+@Repository
+public interface BillingPaymentRepository extends JpaRepository<BillingPayment, Long> {
+
+    interface PaymentDayRow {
+        Long getCashierId();
+
+        String getCashierName();
+
+        String getMethod();
+
+        Long getPaymentCount();
+
+        BigDecimal getPaidTotal();
+    }
+
+    List<BillingPayment> findByBillingIdOrderByPaidAtAscIdAsc(Long billingId);
+
+    boolean existsByBillingId(Long billingId);
+
+    /**
+     * Tiền thực thu trong ngày theo từng khoản trong sổ: thời điểm thu, người thu và phương thức của
+     * chính khoản đó. Khoản hoàn tiền là số âm nên được trừ vào tổng.
+     */
+    @Query("""
+            SELECT c.id AS cashierId,
+                   c.fullName AS cashierName,
+                   p.method AS method,
+                   COUNT(p) AS paymentCount,
+                   SUM(p.amount) AS paidTotal
+            FROM BillingPayment p
+            LEFT JOIN p.cashier c
+            WHERE p.paidAt >= :start AND p.paidAt < :end
+            GROUP BY c.id, c.fullName, p.method
+            """)
+    List<PaymentDayRow> summarizeDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Ghi một khoản thu bù trừ cho mỗi hóa đơn đã thu lập trước khi có sổ thanh toán (chưa có dòng nào
+     * trong sổ và chưa có số đã thu), theo thu ngân, phương thức và thời điểm chốt của hóa đơn.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO billing_payments (billing_id, amount, method, note, paid_at, cashier_id, created_at)
+            SELECT b.id, b.total_amount, COALESCE(b.payment_method, :defaultMethod), :note,
+                   COALESCE(b.settled_at, b.issued_at), b.cashier_id, :createdAt
+            FROM billings b
+            WHERE b.status = 'PAID' AND b.paid_amount = 0 AND b.total_amount > 0
+              AND NOT EXISTS (SELECT 1 FROM billing_payments p WHERE p.billing_id = b.id)
+            """, nativeQuery = true)
+    int insertLegacySettlements(@Param("defaultMethod") String defaultMethod, @Param("note") String note,
+            @Param("createdAt") Instant createdAt);
+}
@@ -1,25 +1,273 @@
 package vn.project.ClinicSystem.repository;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import vn.project.ClinicSystem.model.Billing;
+import vn.project.ClinicSystem.model.BillingItem;
+import vn.project.ClinicSystem.model.Patient;
 import vn.project.ClinicSystem.model.enums.BillingStatus;
 
 @Repository
 public interface BillingRepository extends JpaRepository<Billing, Long> {
 
+    interface BillingTotalsRow {
+        Long getBillingId();
+
+        BigDecimal getServiceTotal();
+
+        BigDecimal getMedicationTotal();
+
+        BigDecimal getOtherTotal();
+
+        BigDecimal getTotalAmount();
+
+        BigDecimal getItemServiceTotal();
+
+        BigDecimal getItemMedicationTotal();
+
+        BigDecimal getItemOtherTotal();
+    }
+
+    interface BillingExportRow {
+        Billing getBilling();
+
+        Patient getPatient();
+
+        BillingItem getItem();
+    }
+
+    interface CashReconciliationRow {
+        Long getCashierId();
+
+        String getCashierName();
+
+        String getPaymentMethod();
+
+        Long getUnpaidCount();
+
+        BigDecimal getUnpaidTotal();
+
+        Long getCancelledCount();
+
+        BigDecimal getCancelledTotal();
+    }
+
+    interface PatientDebtRow {
+        Long getPatientId();
+
+        BigDecimal getOutstandingAmount();
+
+        Long getBillingCount();
+    }
+
+    interface BillingMismatchRow {
+        Long getBillingId();
+
+        Long getCashierId();
+
+        String getCashierName();
+
+        String getPaymentMethod();
+    }
+
     Optional<Billing> findByVisitId(Long visitId);
 
+    @EntityGraph(attributePaths = { "items", "cashier", "visit", "visit.patient" })
+    Optional<Billing> findForPrintByVisitId(Long visitId);
+
+    Optional<Billing> findByIdempotencyKey(String idempotencyKey);
+
     List<Billing> findByPatientIdOrderByIssuedAtDesc(Long patientId);
 
+    // Khóa dòng hóa đơn khi ghi sổ thanh toán để hai khoản thu đồng thời không cùng vượt số còn nợ.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Billing b WHERE b.id = :id")
+    Optional<Billing> findForPaymentById(@Param("id") Long id);
+
+    // Chỉ đọc idx_billings_patient_outstanding, không chạm tới sổ thanh toán.
+    @Query("""
+            SELECT b.patient.id AS patientId,
+                   SUM(b.outstandingAmount) AS outstandingAmount,
+                   COUNT(b) AS billingCount
+            FROM Billing b
+            WHERE b.patient.id = :patientId AND b.outstandingAmount > 0
+            GROUP BY b.patient.id
+            """)
+    Optional<PatientDebtRow> findDebtByPatientId(@Param("patientId") Long patientId);
+
+    // Quét idx_billings_outstanding_patient từ phần công nợ dương.
+    @Query("""
+            SELECT b.patient.id AS patientId,
+                   SUM(b.outstandingAmount) AS outstandingAmount,
+                   COUNT(b) AS billingCount
+            FROM Billing b
+            WHERE b.outstandingAmount > 0
+            GROUP BY b.patient.id
+            ORDER BY SUM(b.outstandingAmount) DESC, b.patient.id ASC
+            """)
+    List<PatientDebtRow> findPatientDebts(Pageable pageable);
+
+    /**
+     * Cộng dồn chênh lệch vào các tổng của hóa đơn trong một câu UPDATE, chỉ khi phiên bản còn khớp.
+     * Số còn nợ đi theo tổng tiền và trạng thái được suy ra như {@link Billing#applyPayment}: chưa thu gì là
+     * chưa thanh toán, còn nợ là thu một phần, ngược lại là đã thu đủ. Không cập nhật nếu tổng mới thấp hơn
+     * số đã thu (số còn nợ âm). Trạng thái và số còn nợ được gán trước các tổng vì MySQL dùng giá trị mới
+     * cho các phép gán sau.
+     *
+     * @return 0 nếu hóa đơn đã bị người khác sửa (phiên bản đã thay đổi) hoặc số còn nợ sẽ âm
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE Billing b
+            SET b.status = CASE
+                    WHEN b.status = vn.project.ClinicSystem.model.enums.BillingStatus.CANCELLED THEN b.status
+                    WHEN b.paidAmount <= 0 THEN vn.project.ClinicSystem.model.enums.BillingStatus.UNPAID
+                    WHEN b.outstandingAmount + :serviceDelta + :medicationDelta + :otherDelta > 0
+                    THEN vn.project.ClinicSystem.model.enums.BillingStatus.PARTIALLY_PAID
+                    ELSE vn.project.ClinicSystem.model.enums.BillingStatus.PAID END,
+                b.outstandingAmount = CASE
+                    WHEN b.status = vn.project.ClinicSystem.model.enums.BillingStatus.CANCELLED THEN b.outstandingAmount
+                    ELSE b.outstandingAmount + :serviceDelta + :medicationDelta + :otherDelta END,
+                b.serviceTotal = b.serviceTotal + :serviceDelta,
+                b.medicationTotal = b.medicationTotal + :medicationDelta,
+                b.otherTotal = b.otherTotal + :otherDelta,
+                b.totalAmount = b.totalAmount + :serviceDelta + :medicationDelta + :otherDelta,
+                b.version = b.version + 1,
+                b.updatedAt = :updatedAt
+            WHERE b.id = :id AND b.version = :version
+              AND (b.status = vn.project.ClinicSystem.model.enums.BillingStatus.CANCELLED
+                   OR b.outstandingAmount + :serviceDelta + :medicationDelta + :otherDelta >= 0)
+            """)
+    int applyTotalsDelta(
+            @Param("id") Long id,
+            @Param("version") Long version,
+            @Param("serviceDelta") BigDecimal serviceDelta,
+            @Param("medicationDelta") BigDecimal medicationDelta,
+            @Param("otherDelta") BigDecimal otherDelta,
+            @Param("updatedAt") Instant updatedAt);
+
+    @Query("""
+            SELECT b.id AS billingId,
+                   b.serviceTotal AS serviceTotal,
+                   b.medicationTotal AS medicationTotal,
+                   b.otherTotal AS otherTotal,
+                   b.totalAmount AS totalAmount,
+                   COALESCE(SUM(CASE WHEN i.itemType = vn.project.ClinicSystem.model.enums.BillingItemType.SERVICE
+                       THEN i.amount ELSE 0 END), 0) AS itemServiceTotal,
+                   COALESCE(SUM(CASE WHEN i.itemType = vn.project.ClinicSystem.model.enums.BillingItemType.MEDICATION
+                       THEN i.amount ELSE 0 END), 0) AS itemMedicationTotal,
+                   COALESCE(SUM(CASE WHEN i.itemType = vn.project.ClinicSystem.model.enums.BillingItemType.OTHER
+                       THEN i.amount ELSE 0 END), 0) AS itemOtherTotal
+            FROM Billing b
+            LEFT JOIN b.items i
+            WHERE b.id > :afterId
+            GROUP BY b.id, b.serviceTotal, b.medicationTotal, b.otherTotal, b.totalAmount
+            ORDER BY b.id ASC
+            """)
+    List<BillingTotalsRow> findTotalsWithItemSums(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Mỗi mục hóa đơn là một dòng (hóa đơn không có mục vẫn có một dòng với item = null), đọc bằng con trỏ một chiều.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT b AS billing, p AS patient, i AS item
+            FROM Billing b
+            JOIN b.patient p
+            LEFT JOIN b.items i
+            WHERE b.issuedAt >= :from AND b.issuedAt < :to
+            ORDER BY b.issuedAt ASC, b.id ASC, i.id ASC
+            """)
+    Stream<BillingExportRow> streamForExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Phần công nợ của một ngày theo thu ngân và phương thức của hóa đơn: chưa thu theo ngày lập, đã hủy
+     * theo thời điểm chốt (hóa đơn cũ chưa có settledAt dùng ngày lập). Tiền đã thu lấy từ sổ thanh toán
+     * ({@link BillingPaymentRepository#summarizeDay}).
+     */
+    @Query("""
+            SELECT c.id AS cashierId,
+                   c.fullName AS cashierName,
+                   b.paymentMethod AS paymentMethod,
+                   SUM(CASE WHEN b.status IN (vn.project.ClinicSystem.model.enums.BillingStatus.UNPAID,
+                                              vn.project.ClinicSystem.model.enums.BillingStatus.PARTIALLY_PAID)
+                            AND b.issuedAt >= :start AND b.issuedAt < :end
+                       THEN 1 ELSE 0 END) AS unpaidCount,
+                   SUM(CASE WHEN b.status IN (vn.project.ClinicSystem.model.enums.BillingStatus.UNPAID,
+                                              vn.project.ClinicSystem.model.enums.BillingStatus.PARTIALLY_PAID)
+                            AND b.issuedAt >= :start AND b.issuedAt < :end
+                       THEN b.outstandingAmount ELSE 0 END) AS unpaidTotal,
+                   SUM(CASE WHEN b.status = vn.project.ClinicSystem.model.enums.BillingStatus.CANCELLED
+                            AND COALESCE(b.settledAt, b.issuedAt) >= :start AND COALESCE(b.settledAt, b.issuedAt) < :end
+                       THEN 1 ELSE 0 END) AS cancelledCount,
+                   SUM(CASE WHEN b.status = vn.project.ClinicSystem.model.enums.BillingStatus.CANCELLED
+                            AND COALESCE(b.settledAt, b.issuedAt) >= :start AND COALESCE(b.settledAt, b.issuedAt) < :end
+                       THEN b.totalAmount ELSE 0 END) AS cancelledTotal
+            FROM Billing b
+            LEFT JOIN b.cashier c
+            WHERE (b.issuedAt >= :start AND b.issuedAt < :end)
+               OR (b.status = vn.project.ClinicSystem.model.enums.BillingStatus.CANCELLED
+                   AND b.settledAt >= :start AND b.settledAt < :end)
+            GROUP BY c.id, c.fullName, b.paymentMethod
+            """)
+    List<CashReconciliationRow> summarizeDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("""
+            SELECT b.id AS billingId, c.id AS cashierId, c.fullName AS cashierName, b.paymentMethod AS paymentMethod
+            FROM Billing b
+            LEFT JOIN b.cashier c
+            LEFT JOIN b.items i
+            WHERE (b.issuedAt >= :start AND b.issuedAt < :end)
+               OR (b.settledAt >= :start AND b.settledAt < :end)
+            GROUP BY b.id, c.id, c.fullName, b.paymentMethod, b.totalAmount
+            HAVING b.totalAmount <> COALESCE(SUM(i.amount), 0)
+            """)
+    List<BillingMismatchRow> findMismatchedInDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Chỉ dùng trong chuyển đổi một lần, sau khi đã ghi khoản bù trừ vào sổ thanh toán.
+    @Modifying
+    @Query("""
+            UPDATE Billing b
+            SET b.paidAmount = b.totalAmount, b.outstandingAmount = 0, b.version = b.version + 1
+            WHERE b.status = vn.project.ClinicSystem.model.enums.BillingStatus.PAID
+              AND b.paidAmount = 0 AND b.totalAmount > 0
+            """)
+    int backfillPaidBalances();
+
+    @Modifying
+    @Query("""
+            UPDATE Billing b
+            SET b.outstandingAmount = b.totalAmount, b.version = b.version + 1
+            WHERE b.status IN (vn.project.ClinicSystem.model.enums.BillingStatus.UNPAID,
+                               vn.project.ClinicSystem.model.enums.BillingStatus.PARTIALLY_PAID)
+              AND b.paidAmount = 0 AND b.outstandingAmount = 0 AND b.totalAmount > 0
+            """)
+    int backfillOutstandingBalances();
+
+    @Query("SELECT b.visit.id FROM Billing b WHERE b.visit.id IN :visitIds")
+    List<Long> findVisitIdsWithBilling(@Param("visitIds") Collection<Long> visitIds);
+
     @Query("""
             SELECT b FROM Billing b
             LEFT JOIN b.patient p
@@ -34,4 +282,20 @@ public interface BillingRepository extends JpaRepository<Billing, Long> {
             @Param("status") BillingStatus status,
             @Param("patientId") Long patientId,
             Pageable pageable);
+
+    long countByIssuedAtGreaterThanEqualAndIssuedAtLessThan(LocalDateTime from, LocalDateTime to);
+
+    @Query("""
+            SELECT b.id FROM Billing b
+            WHERE b.issuedAt >= :from AND b.issuedAt < :to AND b.id > :afterId
+            ORDER BY b.id
+            """)
+    List<Long> findIdsIssuedBetweenAfter(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    @EntityGraph(attributePaths = { "items", "cashier", "visit", "visit.patient" })
+    List<Billing> findForPrintByIdInOrderByIdAsc(Collection<Long> ids);
 }
@@ -0,0 +1,20 @@
+package vn.project.ClinicSystem.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import vn.project.ClinicSystem.model.CashReconciliationSnapshot;
+
+public interface CashReconciliationSnapshotRepository extends JpaRepository<CashReconciliationSnapshot, Long> {
+
+    List<CashReconciliationSnapshot> findByBusinessDateOrderByCashierNameAscPaymentMethodAsc(LocalDate businessDate);
+
+    @Modifying
+    @Query("DELETE FROM CashReconciliationSnapshot s WHERE s.businessDate = :businessDate")
+    int deleteByBusinessDate(@Param("businessDate") LocalDate businessDate);
+}
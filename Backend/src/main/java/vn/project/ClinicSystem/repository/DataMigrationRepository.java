@@ -0,0 +1,12 @@
+package vn.project.ClinicSystem.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import vn.project.ClinicSystem.model.DataMigration;
+
+@Repository
+public interface DataMigrationRepository extends JpaRepository<DataMigration, Long> {
+
+    boolean existsByName(String name);
+}
@@ -0,0 +1,133 @@
+package vn.project.ClinicSystem.repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.QueryHint;
+import vn.project.ClinicSystem.model.DiseaseVisitDailyStat;
+
+public interface DiseaseVisitDailyStatRepository extends JpaRepository<DiseaseVisitDailyStat, Long> {
+
+    interface DiseaseVisitTotal {
+        Long getDiseaseId();
+
+        Long getVisitCount();
+    }
+
+    interface DiseaseVisitDailyCount {
+        Long getDiseaseId();
+
+        LocalDate getStatDate();
+
+        Long getVisitCount();
+    }
+
+    interface DiseaseVisitExportRow {
+        LocalDate getStatDate();
+
+        Long getDiseaseId();
+
+        String getDiseaseCode();
+
+        String getDiseaseName();
+
+        Long getVisitCount();
+    }
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO disease_visit_daily_stats (disease_id, stat_date, visit_count, updated_at)
+            VALUES (:diseaseId, :statDate, GREATEST(:delta, 0), :now)
+            ON DUPLICATE KEY UPDATE
+                visit_count = GREATEST(visit_count + :delta, 0),
+                updated_at = :now
+            """, nativeQuery = true)
+    int applyDelta(@Param("diseaseId") Long diseaseId,
+            @Param("statDate") LocalDate statDate,
+            @Param("delta") long delta,
+            @Param("now") Instant now);
+
+    @Modifying
+    @Query(value = "DELETE FROM disease_visit_daily_stats", nativeQuery = true)
+    int deleteAllRows();
+
+    // offsetMinutes: độ lệch múi giờ của server, để ngày thống kê khớp với cách tính khi cập nhật cộng dồn.
+    @Modifying
+    @Query(value = """
+            INSERT INTO disease_visit_daily_stats (disease_id, stat_date, visit_count, updated_at)
+            SELECT vd.disease_id,
+                   DATE(DATE_ADD(pv.created_at, INTERVAL :offsetMinutes MINUTE)) AS stat_date,
+                   COUNT(*),
+                   :now
+            FROM visit_diseases vd
+            JOIN patient_visits pv ON pv.id = vd.visit_id
+            GROUP BY vd.disease_id, stat_date
+            """, nativeQuery = true)
+    int rebuildFromVisits(@Param("offsetMinutes") int offsetMinutes, @Param("now") Instant now);
+
+    @Query("""
+            SELECT s.diseaseId AS diseaseId, SUM(s.visitCount) AS visitCount
+            FROM DiseaseVisitDailyStat s
+            WHERE s.statDate BETWEEN :from AND :to
+            GROUP BY s.diseaseId
+            HAVING SUM(s.visitCount) > 0
+            ORDER BY SUM(s.visitCount) DESC, s.diseaseId ASC
+            """)
+    List<DiseaseVisitTotal> findTopDiseases(@Param("from") LocalDate from,
+            @Param("to") LocalDate to,
+            Pageable pageable);
+
+    @Query("""
+            SELECT s.diseaseId AS diseaseId, SUM(s.visitCount) AS visitCount
+            FROM DiseaseVisitDailyStat s
+            WHERE s.diseaseId IN :diseaseIds
+              AND s.statDate BETWEEN :from AND :to
+            GROUP BY s.diseaseId
+            """)
+    List<DiseaseVisitTotal> sumByDiseases(@Param("diseaseIds") Collection<Long> diseaseIds,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
+
+    @Query("""
+            SELECT s.diseaseId AS diseaseId, s.statDate AS statDate, s.visitCount AS visitCount
+            FROM DiseaseVisitDailyStat s
+            WHERE s.diseaseId IN :diseaseIds
+              AND s.statDate BETWEEN :from AND :to
+              AND s.visitCount > 0
+            ORDER BY s.statDate ASC
+            """)
+    List<DiseaseVisitDailyCount> findDailyCounts(@Param("diseaseIds") Collection<Long> diseaseIds,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to);
+
+    // Fetch size Integer.MIN_VALUE để MySQL Connector/J trả kết quả theo luồng thay vì nạp hết vào bộ nhớ.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT s.statDate AS statDate,
+                   d.id AS diseaseId,
+                   d.code AS diseaseCode,
+                   d.name AS diseaseName,
+                   s.visitCount AS visitCount
+            FROM DiseaseVisitDailyStat s, Disease d
+            WHERE d.id = s.diseaseId
+              AND s.visitCount > 0
+              AND (:from IS NULL OR s.statDate >= :from)
+              AND (:to IS NULL OR s.statDate <= :to)
+            ORDER BY s.statDate ASC, d.code ASC
+            """)
+    Stream<DiseaseVisitExportRow> streamForExport(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
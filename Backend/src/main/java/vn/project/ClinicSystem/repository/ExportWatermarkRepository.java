@@ -0,0 +1,13 @@
+package vn.project.ClinicSystem.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import vn.project.ClinicSystem.model.ExportWatermark;
+import vn.project.ClinicSystem.model.enums.ExportDataset;
+
+public interface ExportWatermarkRepository extends JpaRepository<ExportWatermark, Long> {
+
+    Optional<ExportWatermark> findByDataset(ExportDataset dataset);
+}
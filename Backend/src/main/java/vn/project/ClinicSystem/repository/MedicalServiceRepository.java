@@ -14,6 +14,15 @@ import vn.project.ClinicSystem.model.MedicalService;
 
 @Repository
 public interface MedicalServiceRepository extends JpaRepository<MedicalService, Long> {
+
+    interface ServicePriceRow {
+        Long getId();
+
+        String getName();
+
+        Long getBasePrice();
+    }
+
     Optional<MedicalService> findByCode(String code);
 
     boolean existsByCodeIgnoreCase(String code);
@@ -30,4 +39,7 @@ public interface MedicalServiceRepository extends JpaRepository<MedicalService,
             @Param("keyword") String keyword,
             @Param("clinicRoomId") Long clinicRoomId,
             Pageable pageable);
+
+    @Query("SELECT ms.id AS id, ms.name AS name, ms.basePrice AS basePrice FROM MedicalService ms")
+    List<ServicePriceRow> findPriceRows();
 }
@@ -1,5 +1,8 @@
 package vn.project.ClinicSystem.repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
@@ -14,6 +17,16 @@ import vn.project.ClinicSystem.model.Medication;
 @Repository
 public interface MedicationRepository extends JpaRepository<Medication, Long> {
 
+    interface MedicationPriceRow {
+        Long getId();
+
+        String getName();
+
+        BigDecimal getUnitPrice();
+
+        LocalDate getExpiryDate();
+    }
+
     Optional<Medication> findByNameIgnoreCase(String name);
 
     boolean existsByNameIgnoreCase(String name);
@@ -25,4 +38,7 @@ public interface MedicationRepository extends JpaRepository<Medication, Long> {
                 OR LOWER(m.manufacturer) LIKE LOWER(CONCAT('%', :keyword, '%')))
             """)
     Page<Medication> search(@Param("keyword") String keyword, Pageable pageable);
+
+    @Query("SELECT m.id AS id, m.name AS name, m.unitPrice AS unitPrice, m.expiryDate AS expiryDate FROM Medication m")
+    List<MedicationPriceRow> findPriceRows();
 }
@@ -0,0 +1,38 @@
+package vn.project.ClinicSystem.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import vn.project.ClinicSystem.model.PatientRetentionCohort;
+
+public interface PatientRetentionCohortRepository extends JpaRepository<PatientRetentionCohort, Long> {
+
+    @Query("""
+            SELECT c FROM PatientRetentionCohort c
+            WHERE (:fromMonth IS NULL OR c.cohortMonth >= :fromMonth)
+              AND (:toMonth IS NULL OR c.cohortMonth <= :toMonth)
+              AND ((:diseaseId IS NULL AND c.diseaseId IS NULL) OR c.diseaseId = :diseaseId)
+            ORDER BY c.cohortMonth ASC
+            """)
+    List<PatientRetentionCohort> search(@Param("fromMonth") String fromMonth,
+            @Param("toMonth") String toMonth,
+            @Param("diseaseId") Long diseaseId);
+
+    @Query("""
+            SELECT c FROM PatientRetentionCohort c
+            WHERE (:fromMonth IS NULL OR c.cohortMonth >= :fromMonth)
+              AND (:toMonth IS NULL OR c.cohortMonth <= :toMonth)
+              AND c.diseaseId IS NOT NULL
+            ORDER BY c.cohortMonth ASC, c.cohortSize DESC
+            """)
+    List<PatientRetentionCohort> searchByDisease(@Param("fromMonth") String fromMonth,
+            @Param("toMonth") String toMonth);
+
+    @Modifying
+    @Query("DELETE FROM PatientRetentionCohort c")
+    int deleteAllRows();
+}
@@ -1,19 +1,45 @@
 package vn.project.ClinicSystem.repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import jakarta.persistence.QueryHint;
 import vn.project.ClinicSystem.model.PatientVisit;
 import vn.project.ClinicSystem.model.enums.VisitStatus;
 
 public interface PatientVisitRepository extends JpaRepository<PatientVisit, Long> {
 
+    interface RetentionVisitRow {
+        Long getPatientId();
+
+        Long getVisitId();
+
+        Instant getCreatedAt();
+
+        Long getDiseaseId();
+    }
+
+    interface VisitPatientRef {
+        Long getVisitId();
+
+        Long getPatientId();
+    }
+
+    @EntityGraph(attributePaths = "patient")
+    Optional<PatientVisit> findForPrintById(Long id);
+
     long countByStatusInAndCreatedAtBetween(VisitStatus[] statuses, Instant start, Instant end);
 
     @Query("SELECT COUNT(DISTINCT pv.primaryAppointment.doctor.id) FROM PatientVisit pv "
@@ -66,4 +92,40 @@ public interface PatientVisitRepository extends JpaRepository<PatientVisit, Long
     Page<PatientVisit> searchCompletedWithoutBilling(
             @Param("keyword") String keyword,
             Pageable pageable);
+
+    // Đọc tuần tự theo (bệnh nhân, thời gian tạo) bằng con trỏ một chiều; mỗi bệnh trong hồ sơ là một dòng.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT pv.patient.id AS patientId,
+                   pv.id AS visitId,
+                   pv.createdAt AS createdAt,
+                   dis.id AS diseaseId
+            FROM PatientVisit pv
+            LEFT JOIN pv.diseases dis
+            WHERE pv.patient IS NOT NULL
+              AND pv.createdAt IS NOT NULL
+            ORDER BY pv.patient.id ASC, pv.createdAt ASC, pv.id ASC
+            """)
+    Stream<RetentionVisitRow> streamForRetention();
+
+    @Query("""
+            SELECT pv.id FROM PatientVisit pv
+            WHERE pv.billing IS NULL
+              AND pv.status = vn.project.ClinicSystem.model.enums.VisitStatus.COMPLETED
+              AND pv.id > :afterId
+            ORDER BY pv.id ASC
+            """)
+    List<Long> findCompletedWithoutBillingIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("""
+            SELECT pv.id AS visitId, pv.patient.id AS patientId
+            FROM PatientVisit pv
+            WHERE pv.id IN :visitIds
+              AND pv.status = vn.project.ClinicSystem.model.enums.VisitStatus.COMPLETED
+              AND pv.patient IS NOT NULL
+            """)
+    List<VisitPatientRef> findCompletedPatientRefs(@Param("visitIds") Collection<Long> visitIds);
 }
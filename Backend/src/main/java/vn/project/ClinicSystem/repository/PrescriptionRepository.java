@@ -1,7 +1,9 @@
 package vn.project.ClinicSystem.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -14,4 +16,14 @@ public interface PrescriptionRepository extends JpaRepository<Prescription, Long
     List<Prescription> findByVisitIdOrderByIssuedAtDesc(Long visitId);
 
     List<Prescription> findByStatusOrderByIssuedAtDesc(PrescriptionStatus status);
+
+    @EntityGraph(attributePaths = "items")
+    List<Prescription> findWithItemsByVisitIdOrderByIssuedAtDesc(Long visitId);
+
+    @EntityGraph(attributePaths = "items")
+    List<Prescription> findWithItemsByVisitIdInOrderByIssuedAtDesc(Collection<Long> visitIds);
+
+    @EntityGraph(attributePaths = { "items", "items.medication", "prescribedBy", "prescribedBy.account", "visit",
+            "visit.patient" })
+    List<Prescription> findForPrintByVisitIdOrderByIssuedAtAsc(Long visitId);
 }
@@ -1,15 +1,46 @@
 package vn.project.ClinicSystem.repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import vn.project.ClinicSystem.model.ServiceOrder;
 import vn.project.ClinicSystem.model.enums.ServiceOrderStatus;
+import vn.project.ClinicSystem.model.enums.VisitStatus;
 
 @Repository
 public interface ServiceOrderRepository extends JpaRepository<ServiceOrder, Long> {
     List<ServiceOrder> findByVisitId(Long visitId);
 
     List<ServiceOrder> findByVisitIdAndStatus(Long visitId, ServiceOrderStatus status);
+
+    List<ServiceOrder> findByVisitIdOrderByIdAsc(Long visitId);
+
+    List<ServiceOrder> findByVisitIdInOrderByIdAsc(Collection<Long> visitIds);
+
+    // Mọi thứ phiếu chỉ định và phiếu kết quả in ra, kể cả chỉ số; chỉ một collection nên nạp được trong một truy vấn.
+    @EntityGraph(attributePaths = { "visit", "visit.patient", "medicalService", "medicalService.clinicRoom",
+            "assignedDoctor", "assignedDoctor.account", "indicatorResults", "indicatorResults.indicatorTemplate" })
+    List<ServiceOrder> findForPrintByVisitIdOrderByIdAsc(Long visitId);
+
+    // Phiếu của các lần khám đang mở, tạo từ createdFrom, theo trạng thái; nạp sẵn như findForPrint để dựng
+    // ngoài giao dịch.
+    @EntityGraph(attributePaths = { "visit", "visit.patient", "medicalService", "medicalService.clinicRoom",
+            "assignedDoctor", "assignedDoctor.account", "indicatorResults", "indicatorResults.indicatorTemplate" })
+    @Query("""
+            SELECT o FROM ServiceOrder o
+            WHERE o.visit.status = :visitStatus
+              AND o.visit.createdAt >= :createdFrom
+              AND o.status IN :statuses
+            ORDER BY o.id
+            """)
+    List<ServiceOrder> findForPrintByVisitStatusAndStatusIn(@Param("visitStatus") VisitStatus visitStatus,
+            @Param("createdFrom") Instant createdFrom,
+            @Param("statuses") Collection<ServiceOrderStatus> statuses);
 }
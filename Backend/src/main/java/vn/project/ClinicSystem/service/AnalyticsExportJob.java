@@ -0,0 +1,51 @@
+package vn.project.ClinicSystem.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+import vn.project.ClinicSystem.config.export.AnalyticsExportProperties;
+import vn.project.ClinicSystem.model.dto.ExportRunResult;
+
+@Slf4j
+@Component
+public class AnalyticsExportJob {
+
+    private final AnalyticsExportService analyticsExportService;
+    private final AnalyticsExportProperties properties;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public AnalyticsExportJob(AnalyticsExportService analyticsExportService,
+            AnalyticsExportProperties properties) {
+        this.analyticsExportService = analyticsExportService;
+        this.properties = properties;
+    }
+
+    @Scheduled(cron = "${clinicsystem.export.cron:0 0 2 * * *}")
+    public void runNightly() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            run();
+        } catch (IllegalStateException ex) {
+            log.warn("Bỏ qua lần xuất dữ liệu theo lịch: {}", ex.getMessage());
+        } catch (RuntimeException ex) {
+            log.error("Xuất dữ liệu phân tích thất bại, lần chạy sau sẽ tiếp tục từ watermark", ex);
+        }
+    }
+
+    public List<ExportRunResult> run() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Đang xuất dữ liệu phân tích, vui lòng thử lại sau");
+        }
+        try {
+            return analyticsExportService.exportAll();
+        } finally {
+            running.set(false);
+        }
+    }
+}
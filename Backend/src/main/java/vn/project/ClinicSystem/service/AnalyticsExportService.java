@@ -0,0 +1,343 @@
+package vn.project.ClinicSystem.service;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+import vn.project.ClinicSystem.config.export.AnalyticsExportProperties;
+import vn.project.ClinicSystem.model.ExportWatermark;
+import vn.project.ClinicSystem.model.ExportedRowKey;
+import vn.project.ClinicSystem.model.dto.ExportRunResult;
+import vn.project.ClinicSystem.model.enums.ExportDataset;
+import vn.project.ClinicSystem.repository.ExportWatermarkRepository;
+import vn.project.ClinicSystem.util.CsvWriter;
+
+/**
+ * Xuất các dòng thay đổi kể từ watermark ra file CSV nén gzip, chia thư mục theo ngày cập nhật:
+ * {@code <directory>/<table>/date=yyyy-MM-dd/part-<HHmmssSSS>-<id>.csv.gz}.
+ * <p>
+ * Dữ liệu được đọc bằng con trỏ một chiều theo thứ tự (updated_at, id) nên bộ nhớ không phụ thuộc
+ * số dòng. Mỗi file được ghi vào tên tạm {@code .inprogress}, đổi tên nguyên tử khi hoàn tất rồi mới
+ * lưu watermark; nếu tiến trình dừng giữa chừng, lần chạy sau xóa file tạm và tiếp tục từ file hoàn
+ * chỉnh cuối cùng. Một dòng có thể xuất hiện lại ở file sau nếu được cập nhật tiếp, nên khi phân tích
+ * cần lấy bản ghi mới nhất theo (id, updated_at).
+ * <p>
+ * updated_at được gán trước khi giao dịch commit, nên một dòng commit trễ có thể mang updated_at nhỏ
+ * hơn watermark. Mỗi lần chạy đọc lại khoảng {@code overlap} phía sau watermark và bỏ qua các dòng có
+ * khóa (id, updated_at) đã ghi ở lần trước (lưu trong {@link ExportedRowKey}).
+ * <p>
+ * Chỉ xuất dòng thêm và sửa: các bảng này xóa cứng nên dòng bị xóa không để lại dấu vết và không được
+ * xuất. Khi cần đối chiếu dòng đã xóa, phía phân tích phải so tập id với một bản chụp toàn bảng.
+ */
+@Slf4j
+@Service
+public class AnalyticsExportService {
+
+    private static final String IN_PROGRESS_SUFFIX = ".inprogress";
+    private static final DateTimeFormatter PART_TIME_FORMAT = DateTimeFormatter.ofPattern("HHmmssSSS");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExportWatermarkRepository watermarkRepository;
+    private final AnalyticsExportProperties properties;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate watermarkTransaction;
+
+    public AnalyticsExportService(JdbcTemplate jdbcTemplate,
+            ExportWatermarkRepository watermarkRepository,
+            AnalyticsExportProperties properties,
+            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.watermarkRepository = watermarkRepository;
+        this.properties = properties;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.watermarkTransaction = new TransactionTemplate(transactionManager);
+        this.watermarkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public List<ExportWatermark> getWatermarks() {
+        return watermarkRepository.findAll();
+    }
+
+    public List<ExportRunResult> exportAll() {
+        List<ExportRunResult> results = new ArrayList<>();
+        for (ExportDataset dataset : ExportDataset.values()) {
+            results.add(exportDataset(dataset));
+        }
+        return results;
+    }
+
+    public ExportRunResult exportDataset(ExportDataset dataset) {
+        long startedAt = System.currentTimeMillis();
+        Path datasetDirectory = properties.getDirectory().resolve(dataset.getTableName());
+        deleteIncompleteFiles(datasetDirectory);
+
+        ExportWatermark watermark = watermarkRepository.findByDataset(dataset).orElse(null);
+        LocalDateTime fromUpdatedAt = watermark != null ? watermark.getLastUpdatedAt() : null;
+        Long fromId = watermark != null ? watermark.getLastId() : null;
+        LocalDateTime rereadFrom = fromUpdatedAt != null ? fromUpdatedAt.minus(properties.getOverlap()) : null;
+        Set<String> exportedKeys = rereadFrom != null ? loadExportedKeys(dataset, rereadFrom) : Set.of();
+
+        PartitionWriter writer = new PartitionWriter(dataset, datasetDirectory, fromUpdatedAt, fromId, exportedKeys);
+        try {
+            readTransaction.executeWithoutResult(status -> {
+                // Chốt mốc trên tại thời điểm bắt đầu để một lần chạy luôn kết thúc, kể cả khi dữ liệu vẫn đang được ghi.
+                LocalDateTime highWater = jdbcTemplate.queryForObject(
+                        "SELECT MAX(updated_at) FROM " + dataset.getTableName(), LocalDateTime.class);
+                if (highWater == null) {
+                    return;
+                }
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            buildQuery(dataset, rereadFrom != null),
+                            ResultSet.TYPE_FORWARD_ONLY,
+                            ResultSet.CONCUR_READ_ONLY);
+                    // MySQL Connector/J chỉ trả kết quả theo luồng khi fetch size là Integer.MIN_VALUE
+                    statement.setFetchSize(Integer.MIN_VALUE);
+                    int index = 1;
+                    statement.setObject(index++, highWater);
+                    if (rereadFrom != null) {
+                        statement.setObject(index, rereadFrom);
+                    }
+                    return statement;
+                }, writer::write);
+            });
+            writer.finish();
+        } catch (RuntimeException ex) {
+            writer.abort();
+            throw ex;
+        }
+
+        ExportRunResult result = ExportRunResult.builder()
+                .dataset(dataset)
+                .rowsExported(writer.totalRows)
+                .filesWritten(writer.filesWritten)
+                .lateRows(writer.lateRows)
+                .lastUpdatedAt(writer.watermarkUpdatedAt)
+                .lastId(writer.watermarkId)
+                .durationMs(System.currentTimeMillis() - startedAt)
+                .build();
+        log.info("Xuất {}: {} dòng ({} dòng commit trễ), {} file trong {} ms", dataset, result.getRowsExported(),
+                result.getLateRows(), result.getFilesWritten(), result.getDurationMs());
+        return result;
+    }
+
+    private String buildQuery(ExportDataset dataset, boolean reread) {
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(String.join(", ", dataset.getColumns()))
+                .append(" FROM ").append(dataset.getTableName())
+                .append(" WHERE updated_at IS NOT NULL AND updated_at <= ?");
+        if (reread) {
+            sql.append(" AND updated_at >= ?");
+        }
+        sql.append(" ORDER BY updated_at ASC, id ASC");
+        return sql.toString();
+    }
+
+    private Set<String> loadExportedKeys(ExportDataset dataset, LocalDateTime from) {
+        Set<String> keys = new HashSet<>();
+        jdbcTemplate.query(
+                "SELECT row_id, row_updated_at FROM analytics_export_row_keys WHERE dataset = ? AND row_updated_at >= ?",
+                rs -> {
+                    keys.add(rowKey(rs.getLong("row_id"), rs.getObject("row_updated_at", LocalDateTime.class)));
+                },
+                dataset.name(), from);
+        return keys;
+    }
+
+    private static String rowKey(long id, LocalDateTime updatedAt) {
+        return id + "@" + updatedAt;
+    }
+
+    // Dòng commit trễ được ghi ra file nhưng không kéo watermark lùi lại.
+    private static boolean isAfter(LocalDateTime updatedAt, long id, LocalDateTime markUpdatedAt, Long markId) {
+        if (markUpdatedAt == null) {
+            return true;
+        }
+        int compare = updatedAt.compareTo(markUpdatedAt);
+        return compare > 0 || (compare == 0 && id > (markId != null ? markId : 0L));
+    }
+
+    private void saveWatermark(ExportDataset dataset, LocalDateTime lastUpdatedAt, Long lastId, long rows,
+            List<Object[]> recentKeys) {
+        watermarkTransaction.executeWithoutResult(status -> {
+            ExportWatermark watermark = watermarkRepository.findByDataset(dataset).orElseGet(() -> {
+                ExportWatermark created = new ExportWatermark();
+                created.setDataset(dataset);
+                return created;
+            });
+            watermark.setLastUpdatedAt(lastUpdatedAt);
+            watermark.setLastId(lastId);
+            watermark.setExportedRows(watermark.getExportedRows() + rows);
+            watermarkRepository.save(watermark);
+
+            if (!recentKeys.isEmpty()) {
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO analytics_export_row_keys (dataset, row_id, row_updated_at) VALUES (?, ?, ?)",
+                        recentKeys);
+            }
+            jdbcTemplate.update("DELETE FROM analytics_export_row_keys WHERE dataset = ? AND row_updated_at < ?",
+                    dataset.name(), lastUpdatedAt.minus(properties.getOverlap()));
+        });
+    }
+
+    private void deleteIncompleteFiles(Path datasetDirectory) {
+        if (!Files.isDirectory(datasetDirectory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(datasetDirectory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(IN_PROGRESS_SUFFIX))
+                    .forEach(path -> {
+                        try {
+                            Files.deleteIfExists(path);
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    });
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Ghi lần lượt từng file; chỉ có tối đa một file đang mở vì dữ liệu đã được sắp theo updated_at.
+     */
+    private class PartitionWriter {
+        private final ExportDataset dataset;
+        private final Path datasetDirectory;
+        private final int columnCount;
+        private final LocalDateTime previousUpdatedAt;
+        private final Long previousId;
+        private final Set<String> exportedKeys;
+        private final List<Object[]> recentKeys = new ArrayList<>();
+
+        private CsvWriter csv;
+        private Path tempFile;
+        private Path targetFile;
+        private LocalDate currentDate;
+        private long rowsInFile;
+
+        private long totalRows;
+        private long lateRows;
+        private int filesWritten;
+        private LocalDateTime watermarkUpdatedAt;
+        private Long watermarkId;
+
+        PartitionWriter(ExportDataset dataset, Path datasetDirectory, LocalDateTime previousUpdatedAt,
+                Long previousId, Set<String> exportedKeys) {
+            this.dataset = dataset;
+            this.datasetDirectory = datasetDirectory;
+            this.columnCount = dataset.getColumns().size();
+            this.previousUpdatedAt = previousUpdatedAt;
+            this.previousId = previousId;
+            this.exportedKeys = exportedKeys;
+            this.watermarkUpdatedAt = previousUpdatedAt;
+            this.watermarkId = previousId;
+        }
+
+        void write(ResultSet rs) throws SQLException {
+            LocalDateTime updatedAt = rs.getObject("updated_at", LocalDateTime.class);
+            long id = rs.getLong("id");
+            if (exportedKeys.contains(rowKey(id, updatedAt))) {
+                return;
+            }
+            try {
+                if (csv != null && (!updatedAt.toLocalDate().equals(currentDate)
+                        || rowsInFile >= properties.getMaxRowsPerFile())) {
+                    finish();
+                }
+                if (csv == null) {
+                    open(updatedAt, id);
+                }
+                List<String> values = new ArrayList<>(columnCount);
+                for (int i = 1; i <= columnCount; i++) {
+                    values.add(rs.getString(i));
+                }
+                csv.writeRow(values);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            rowsInFile++;
+            recentKeys.add(new Object[] { dataset.name(), id, updatedAt });
+            if (isAfter(updatedAt, id, watermarkUpdatedAt, watermarkId)) {
+                watermarkUpdatedAt = updatedAt;
+                watermarkId = id;
+            }
+            if (!isAfter(updatedAt, id, previousUpdatedAt, previousId)) {
+                lateRows++;
+            }
+        }
+
+        void finish() {
+            if (csv == null) {
+                return;
+            }
+            try {
+                csv.close();
+                csv = null;
+                Files.move(tempFile, targetFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            // Chỉ giữ khóa còn nằm trong cửa sổ đọc lại của lần chạy sau.
+            LocalDateTime keepFrom = watermarkUpdatedAt.minus(properties.getOverlap());
+            recentKeys.removeIf(key -> ((LocalDateTime) key[2]).isBefore(keepFrom));
+            saveWatermark(dataset, watermarkUpdatedAt, watermarkId, rowsInFile, recentKeys);
+            totalRows += rowsInFile;
+            filesWritten++;
+            rowsInFile = 0;
+            recentKeys.clear();
+        }
+
+        void abort() {
+            if (csv == null) {
+                return;
+            }
+            try {
+                csv.close();
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ex) {
+                log.warn("Không thể xóa file xuất tạm {}: {}", tempFile, ex.getMessage());
+            } finally {
+                csv = null;
+                recentKeys.clear();
+            }
+        }
+
+        private void open(LocalDateTime firstUpdatedAt, long firstId) throws IOException {
+            currentDate = firstUpdatedAt.toLocalDate();
+            Path partition = datasetDirectory.resolve("date=" + currentDate);
+            Files.createDirectories(partition);
+            String fileName = "part-" + PART_TIME_FORMAT.format(firstUpdatedAt) + "-" + firstId + ".csv.gz";
+            targetFile = partition.resolve(fileName);
+            tempFile = partition.resolve(fileName + IN_PROGRESS_SUFFIX);
+            csv = new CsvWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(tempFile), 64 * 1024),
+                    StandardCharsets.UTF_8));
+            csv.writeRow(dataset.getColumns());
+        }
+    }
+}
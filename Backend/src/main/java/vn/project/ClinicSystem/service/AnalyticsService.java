@@ -4,9 +4,11 @@ import java.time.Instant;
 import java.time.YearMonth;
 import java.time.ZoneId;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import vn.project.ClinicSystem.config.cache.CacheNames;
 import vn.project.ClinicSystem.model.dto.BookingFunnelResponse;
 import vn.project.ClinicSystem.model.enums.AppointmentLifecycleStatus;
 import vn.project.ClinicSystem.repository.AppointmentRepository;
@@ -26,6 +28,7 @@ public class AnalyticsService {
         this.appointmentRepository = appointmentRepository;
     }
 
+    @Cacheable(CacheNames.BOOKING_FUNNEL)
     public BookingFunnelResponse getBookingFunnel(String monthParam) {
         YearMonth targetMonth = parseMonth(monthParam);
         Instant start = targetMonth.atDay(1).atStartOfDay(zoneId).toInstant();
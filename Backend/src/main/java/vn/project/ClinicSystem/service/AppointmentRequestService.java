@@ -3,6 +3,7 @@ package vn.project.ClinicSystem.service;
 import java.time.Instant;
 import java.util.List;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -22,6 +23,8 @@ import vn.project.ClinicSystem.model.dto.AppointmentRequestRejectRequest;
 import vn.project.ClinicSystem.model.enums.AppointmentLifecycleStatus;
 import vn.project.ClinicSystem.repository.AppointmentRequestRepository;
 import vn.project.ClinicSystem.repository.UserRepository;
+import vn.project.ClinicSystem.service.event.DataChangedEvent;
+import vn.project.ClinicSystem.service.event.DataDomain;
 
 @Service
 @Transactional(readOnly = true)
@@ -32,17 +35,20 @@ public class AppointmentRequestService {
     private final UserRepository userRepository;
     private final AppointmentService appointmentService;
     private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
 
     public AppointmentRequestService(AppointmentRequestRepository appointmentRequestRepository,
             PatientService patientService,
             UserRepository userRepository,
             AppointmentService appointmentService,
-            Validator validator) {
+            Validator validator,
+            ApplicationEventPublisher eventPublisher) {
         this.appointmentRequestRepository = appointmentRequestRepository;
         this.patientService = patientService;
         this.userRepository = userRepository;
         this.appointmentService = appointmentService;
         this.validator = validator;
+        this.eventPublisher = eventPublisher;
     }
 
     public AppointmentRequest getById(Long id) {
@@ -79,6 +85,7 @@ public class AppointmentRequestService {
         entity.setStatus(AppointmentLifecycleStatus.PENDING);
 
         validateBean(entity);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.APPOINTMENT_REQUEST));
         return appointmentRequestRepository.save(entity);
     }
 
@@ -107,6 +114,7 @@ public class AppointmentRequestService {
         request.setProcessedAt(Instant.now());
         request.setProcessedBy(staff);
 
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.APPOINTMENT_REQUEST));
         return appointmentRequestRepository.save(request);
     }
 
@@ -124,6 +132,7 @@ public class AppointmentRequestService {
         request.setProcessedAt(Instant.now());
         request.setProcessedBy(staff);
 
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.APPOINTMENT_REQUEST));
         return appointmentRequestRepository.save(request);
     }
 
@@ -140,6 +149,7 @@ public class AppointmentRequestService {
         request.setPatient(null);
         request.setProcessedBy(null);
         appointmentRequestRepository.delete(request);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.APPOINTMENT_REQUEST));
     }
 
     private void validateBean(AppointmentRequest appointmentRequest) {
@@ -6,6 +6,7 @@ import java.time.LocalTime;
 import java.util.List;
 import java.util.Objects;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -33,6 +34,8 @@ import vn.project.ClinicSystem.repository.DoctorRepository;
 import vn.project.ClinicSystem.repository.PatientRepository;
 import vn.project.ClinicSystem.repository.UserRepository;
 import vn.project.ClinicSystem.repository.UserWorkScheduleRepository;
+import vn.project.ClinicSystem.service.event.DataChangedEvent;
+import vn.project.ClinicSystem.service.event.DataDomain;
 
 @Service
 @Transactional(readOnly = true)
@@ -51,6 +54,7 @@ public class AppointmentService {
     private final UserWorkScheduleRepository userWorkScheduleRepository;
     private final AppointmentRequestRepository appointmentRequestRepository;
     private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
 
     public AppointmentService(AppointmentRepository appointmentRepository,
             PatientRepository patientRepository,
@@ -59,7 +63,8 @@ public class AppointmentService {
             UserRepository userRepository,
             UserWorkScheduleRepository userWorkScheduleRepository,
             AppointmentRequestRepository appointmentRequestRepository,
-            Validator validator) {
+            Validator validator,
+            ApplicationEventPublisher eventPublisher) {
         this.appointmentRepository = appointmentRepository;
         this.patientRepository = patientRepository;
         this.doctorRepository = doctorRepository;
@@ -68,6 +73,7 @@ public class AppointmentService {
         this.userWorkScheduleRepository = userWorkScheduleRepository;
         this.appointmentRequestRepository = appointmentRequestRepository;
         this.validator = validator;
+        this.eventPublisher = eventPublisher;
     }
 
     public Appointment getById(Long id) {
@@ -129,6 +135,7 @@ public class AppointmentService {
 
         validateBean(appointment);
         ensureAvailability(appointment, null);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.APPOINTMENT));
         return appointmentRepository.save(appointment);
     }
 
@@ -161,6 +168,7 @@ public class AppointmentService {
 
         validateBean(appointment);
         ensureAvailability(appointment, null);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.APPOINTMENT));
         return appointmentRepository.save(appointment);
     }
 
@@ -201,6 +209,7 @@ public class AppointmentService {
 
         validateBean(appointment);
         ensureAvailability(appointment, appointment.getId());
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.APPOINTMENT));
         return appointmentRepository.save(appointment);
     }
 
@@ -211,6 +220,7 @@ public class AppointmentService {
         if (request.getNote() != null) {
             appointment.setNotes(request.getNote());
         }
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.APPOINTMENT));
         return appointmentRepository.save(appointment);
     }
 
@@ -233,6 +243,7 @@ public class AppointmentService {
         }
 
         appointmentRepository.delete(appt);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.APPOINTMENT));
     }
 
     private void ensureAvailability(Appointment appointment, Long ignoreId) {
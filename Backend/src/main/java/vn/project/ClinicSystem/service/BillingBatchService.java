@@ -0,0 +1,169 @@
+package vn.project.ClinicSystem.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import vn.project.ClinicSystem.model.dto.BillingBatchStatusResponse;
+import vn.project.ClinicSystem.model.enums.BatchJobStatus;
+import vn.project.ClinicSystem.repository.PatientVisitRepository;
+
+/**
+ * Lập hóa đơn hàng loạt cho các hồ sơ khám đã hoàn tất nhưng chưa có hóa đơn.
+ * <p>
+ * Danh sách hồ sơ được duyệt theo id (keyset) và chia thành từng nhóm; mỗi nhóm do một luồng
+ * worker xử lý trong giao dịch riêng qua {@link BillingBatchWriter}. Vì hồ sơ đã có hóa đơn luôn
+ * bị loại ra, chạy lại sau khi dừng giữa chừng chỉ xử lý phần còn thiếu.
+ */
+@Slf4j
+@Service
+public class BillingBatchService {
+
+    private final PatientVisitRepository patientVisitRepository;
+    private final BillingBatchWriter billingBatchWriter;
+    private final int chunkSize;
+    private final int workers;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "billing-batch-coordinator"));
+
+    private final AtomicReference<BatchJobStatus> status = new AtomicReference<>(BatchJobStatus.IDLE);
+    private final AtomicLong visitsScanned = new AtomicLong();
+    private final AtomicLong billingsCreated = new AtomicLong();
+    private final AtomicInteger chunksProcessed = new AtomicInteger();
+    private final AtomicInteger failedChunks = new AtomicInteger();
+    private volatile String lastError;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    public BillingBatchService(PatientVisitRepository patientVisitRepository,
+            BillingBatchWriter billingBatchWriter,
+            @Value("${clinicsystem.billing.batch.chunk-size:200}") int chunkSize,
+            @Value("${clinicsystem.billing.batch.workers:4}") int workers) {
+        this.patientVisitRepository = patientVisitRepository;
+        this.billingBatchWriter = billingBatchWriter;
+        this.chunkSize = Math.max(chunkSize, 1);
+        this.workers = Math.max(workers, 1);
+    }
+
+    public BillingBatchStatusResponse start() {
+        BatchJobStatus previous = status.get();
+        if (previous == BatchJobStatus.RUNNING || !status.compareAndSet(previous, BatchJobStatus.RUNNING)) {
+            throw new IllegalStateException("Đang lập hóa đơn hàng loạt, vui lòng thử lại sau");
+        }
+        visitsScanned.set(0);
+        billingsCreated.set(0);
+        chunksProcessed.set(0);
+        failedChunks.set(0);
+        lastError = null;
+        startedAt = Instant.now();
+        finishedAt = null;
+        coordinator.execute(this::run);
+        return getStatus();
+    }
+
+    public BillingBatchStatusResponse getStatus() {
+        long scanned = visitsScanned.get();
+        long created = billingsCreated.get();
+        return BillingBatchStatusResponse.builder()
+                .status(status.get())
+                .visitsScanned(scanned)
+                .billingsCreated(created)
+                .visitsSkipped(Math.max(scanned - created, 0))
+                .chunksProcessed(chunksProcessed.get())
+                .failedChunks(failedChunks.get())
+                .lastError(lastError)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+    }
+
+    private void run() {
+        ExecutorService pool = Executors.newFixedThreadPool(workers, new WorkerThreadFactory());
+        // Giới hạn số nhóm đang chờ để bộ nhớ không phụ thuộc tổng số hồ sơ cần lập hóa đơn.
+        Semaphore inFlight = new Semaphore(workers * 2);
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        try {
+            long afterId = 0L;
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Long> visitIds = patientVisitRepository.findCompletedWithoutBillingIdsAfter(
+                        afterId, PageRequest.of(0, chunkSize));
+                if (visitIds.isEmpty()) {
+                    break;
+                }
+                afterId = visitIds.get(visitIds.size() - 1);
+                visitsScanned.addAndGet(visitIds.size());
+
+                inFlight.acquire();
+                tasks.add(CompletableFuture.runAsync(() -> processChunk(visitIds), pool)
+                        .whenComplete((ignored, ex) -> inFlight.release()));
+                tasks.removeIf(CompletableFuture::isDone);
+            }
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+            status.set(failedChunks.get() > 0 ? BatchJobStatus.COMPLETED_WITH_ERRORS : BatchJobStatus.COMPLETED);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            lastError = "Tiến trình bị dừng";
+            status.set(BatchJobStatus.FAILED);
+        } catch (RuntimeException ex) {
+            log.error("Lập hóa đơn hàng loạt thất bại", ex);
+            lastError = ex.getMessage();
+            status.set(BatchJobStatus.FAILED);
+        } finally {
+            pool.shutdown();
+            finishedAt = Instant.now();
+            log.info("Lập hóa đơn hàng loạt kết thúc: {} hồ sơ, {} hóa đơn mới, {} nhóm lỗi",
+                    visitsScanned.get(), billingsCreated.get(), failedChunks.get());
+        }
+    }
+
+    private void processChunk(List<Long> visitIds) {
+        try {
+            billingsCreated.addAndGet(generateWithRetry(visitIds));
+        } catch (RuntimeException ex) {
+            failedChunks.incrementAndGet();
+            lastError = ex.getMessage();
+            log.warn("Không thể lập hóa đơn cho nhóm hồ sơ {}..{}: {}",
+                    visitIds.get(0), visitIds.get(visitIds.size() - 1), ex.getMessage());
+        } finally {
+            chunksProcessed.incrementAndGet();
+        }
+    }
+
+    private int generateWithRetry(List<Long> visitIds) {
+        try {
+            return billingBatchWriter.generateChunk(visitIds);
+        } catch (DataIntegrityViolationException ex) {
+            // Hóa đơn vừa được tạo thủ công cho một hồ sơ trong nhóm; chạy lại sẽ bỏ qua hồ sơ đó.
+            return billingBatchWriter.generateChunk(visitIds);
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, "billing-batch-worker-" + sequence.incrementAndGet());
+        }
+    }
+}
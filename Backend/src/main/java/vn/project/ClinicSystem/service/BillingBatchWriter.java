@@ -0,0 +1,206 @@
+package vn.project.ClinicSystem.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import vn.project.ClinicSystem.model.Billing;
+import vn.project.ClinicSystem.model.BillingItem;
+import vn.project.ClinicSystem.model.enums.BillingEventType;
+import vn.project.ClinicSystem.model.enums.BillingStatus;
+import vn.project.ClinicSystem.repository.BillingRepository;
+import vn.project.ClinicSystem.repository.PatientVisitRepository;
+import vn.project.ClinicSystem.repository.PatientVisitRepository.VisitPatientRef;
+import vn.project.ClinicSystem.service.InvoiceDataLoader.InvoiceData;
+import vn.project.ClinicSystem.service.event.BillingDomainEvent;
+
+/**
+ * Lập hóa đơn cho một nhóm hồ sơ khám trong một giao dịch: nạp trước phiếu dịch vụ và đơn thuốc
+ * qua {@link InvoiceDataLoader}, lấy giá từ {@link PriceCatalog}, sau đó ghi billings/billing_items
+ * bằng JDBC batch.
+ * Hồ sơ đã có hóa đơn được bỏ qua, nên có thể chạy lại an toàn.
+ */
+@Component
+public class BillingBatchWriter {
+
+    private static final String INSERT_BILLING = """
+            INSERT INTO billings (visit_id, patient_id, status, service_total, medication_total, other_total,
+                    total_amount, paid_amount, outstanding_amount, issued_at, price_catalog_version,
+                    created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String INSERT_BILLING_ITEM = """
+            INSERT INTO billing_items (billing_id, item_type, description, quantity, unit_price, amount,
+                    service_order_id, medical_service_id, prescription_item_id, medication_id, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String SELECT_BILLING_IDS = "SELECT id, visit_id FROM billings WHERE visit_id IN (:visitIds)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final BillingRepository billingRepository;
+    private final PatientVisitRepository patientVisitRepository;
+    private final InvoiceDataLoader invoiceDataLoader;
+    private final BillingItemFactory billingItemFactory;
+    private final PriceCatalog priceCatalog;
+    private final OutboxService outboxService;
+
+    public BillingBatchWriter(JdbcTemplate jdbcTemplate,
+            BillingRepository billingRepository,
+            PatientVisitRepository patientVisitRepository,
+            InvoiceDataLoader invoiceDataLoader,
+            BillingItemFactory billingItemFactory,
+            PriceCatalog priceCatalog,
+            OutboxService outboxService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.billingRepository = billingRepository;
+        this.patientVisitRepository = patientVisitRepository;
+        this.invoiceDataLoader = invoiceDataLoader;
+        this.billingItemFactory = billingItemFactory;
+        this.priceCatalog = priceCatalog;
+        this.outboxService = outboxService;
+    }
+
+    /**
+     * @return số hóa đơn đã tạo; các hồ sơ còn lại trong nhóm đã có hóa đơn hoặc không còn ở trạng thái hoàn tất.
+     */
+    @Transactional
+    public int generateChunk(List<Long> visitIds) {
+        Set<Long> candidates = new HashSet<>(visitIds);
+        candidates.removeAll(billingRepository.findVisitIdsWithBilling(visitIds));
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        List<VisitPatientRef> visits = patientVisitRepository.findCompletedPatientRefs(candidates);
+        if (visits.isEmpty()) {
+            return 0;
+        }
+        Set<Long> billableIds = visits.stream().map(VisitPatientRef::getVisitId).collect(Collectors.toSet());
+
+        Map<Long, InvoiceData> invoiceData = invoiceDataLoader.loadAll(billableIds);
+        PriceCatalog.Snapshot catalog = priceCatalog.current();
+
+        LocalDateTime issuedAt = LocalDateTime.now();
+        List<PendingBilling> pending = new ArrayList<>(visits.size());
+        for (VisitPatientRef visit : visits) {
+            Billing billing = new Billing();
+            billing.setStatus(BillingStatus.UNPAID);
+            billing.setIssuedAt(issuedAt);
+            InvoiceData data = invoiceData.get(visit.getVisitId());
+            billingItemFactory.createServiceItems(data.getServiceOrders(), catalog).forEach(billing::addItem);
+            billingItemFactory.createMedicationItems(data.getPrescriptions(), catalog).forEach(billing::addItem);
+            billing.setPriceCatalogVersion(catalog.getVersion());
+            billing.recalculateTotals();
+            pending.add(new PendingBilling(visit.getVisitId(), visit.getPatientId(), billing));
+        }
+
+        // Trùng visit_id (một thu ngân vừa lập hóa đơn cùng lúc) sẽ ném DuplicateKeyException và rollback cả nhóm.
+        Timestamp now = Timestamp.from(Instant.now());
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        jdbcTemplate.batchUpdate(INSERT_BILLING, pending, pending.size(), (ps, item) -> {
+            Billing billing = item.billing;
+            ps.setLong(1, item.visitId);
+            ps.setLong(2, item.patientId);
+            ps.setString(3, billing.getStatus().name());
+            ps.setBigDecimal(4, billing.getServiceTotal());
+            ps.setBigDecimal(5, billing.getMedicationTotal());
+            ps.setBigDecimal(6, billing.getOtherTotal());
+            ps.setBigDecimal(7, billing.getTotalAmount());
+            ps.setBigDecimal(8, billing.getPaidAmount());
+            ps.setBigDecimal(9, billing.getOutstandingAmount());
+            ps.setTimestamp(10, Timestamp.valueOf(billing.getIssuedAt()));
+            setNullableLong(ps, 11, billing.getPriceCatalogVersion());
+            setInstant(ps, 12, now, utc);
+            setInstant(ps, 13, now, utc);
+        });
+
+        Map<Long, Long> billingIdsByVisit = new HashMap<>();
+        namedParameterJdbcTemplate.query(SELECT_BILLING_IDS, Map.of("visitIds", billableIds),
+                rs -> {
+                    billingIdsByVisit.put(rs.getLong("visit_id"), rs.getLong("id"));
+                });
+
+        List<ItemRow> items = new ArrayList<>();
+        for (PendingBilling item : pending) {
+            Long billingId = billingIdsByVisit.get(item.visitId);
+            item.billing.getItems().forEach(billingItem -> items.add(new ItemRow(billingId, billingItem)));
+            outboxService.appendBillingEvent(BillingDomainEvent.of(BillingEventType.CREATED, billingId,
+                    item.visitId, item.patientId, item.billing.getStatus(), item.billing.getTotalAmount(),
+                    item.billing.getTotalAmount()));
+        }
+        if (!items.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_BILLING_ITEM, items, items.size(), (ps, row) -> {
+                BillingItem item = row.item;
+                ps.setLong(1, row.billingId);
+                ps.setString(2, item.getItemType().name());
+                ps.setString(3, item.getDescription());
+                ps.setInt(4, item.getQuantity());
+                ps.setBigDecimal(5, item.getUnitPrice());
+                ps.setBigDecimal(6, item.getAmount());
+                setNullableLong(ps, 7, item.getServiceOrderId());
+                setNullableLong(ps, 8, item.getMedicalServiceId());
+                setNullableLong(ps, 9, item.getPrescriptionItemId());
+                setNullableLong(ps, 10, item.getMedicationId());
+                setInstant(ps, 11, now, utc);
+                setInstant(ps, 12, now, utc);
+            });
+        }
+        return pending.size();
+    }
+
+    // Ghi Instant theo UTC giống cách Hibernate 6 lưu kiểu Instant (TIMESTAMP_UTC).
+    private void setInstant(PreparedStatement ps, int index, Timestamp value, Calendar utc) throws SQLException {
+        ps.setTimestamp(index, value, utc);
+    }
+
+    private void setNullableLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, value);
+        }
+    }
+
+    private static class PendingBilling {
+        private final Long visitId;
+        private final Long patientId;
+        private final Billing billing;
+
+        PendingBilling(Long visitId, Long patientId, Billing billing) {
+            this.visitId = visitId;
+            this.patientId = patientId;
+            this.billing = billing;
+        }
+    }
+
+    private static class ItemRow {
+        private final Long billingId;
+        private final BillingItem item;
+
+        ItemRow(Long billingId, BillingItem item) {
+            this.billingId = billingId;
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package vn.project.ClinicSystem.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import vn.project.ClinicSystem.model.Billing;
+import vn.project.ClinicSystem.model.BillingItem;
+import vn.project.ClinicSystem.model.Patient;
+import vn.project.ClinicSystem.repository.BillingRepository;
+import vn.project.ClinicSystem.repository.BillingRepository.BillingExportRow;
+import vn.project.ClinicSystem.util.CsvWriter;
+
+/**
+ * Xuất hóa đơn kèm từng mục hóa đơn trong một khoảng ngày lập, ghi thẳng ra response.
+ * <p>
+ * Dữ liệu được đọc bằng con trỏ một chiều và persistence context được xóa sau mỗi
+ * {@value #CLEAR_INTERVAL} hóa đơn, nên bộ nhớ không phụ thuộc số hóa đơn trong khoảng xuất.
+ */
+@Service
+@Transactional(readOnly = true)
+public class BillingExportService {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final int CLEAR_INTERVAL = 500;
+    private static final long MAX_RANGE_DAYS = 366;
+
+    private static final String[] CSV_HEADER = {
+            "billing_id", "issued_at", "status", "payment_method", "patient_code", "patient_name",
+            "service_total", "medication_total", "other_total", "total_amount",
+            "item_id", "item_type", "description", "quantity", "unit_price", "amount"
+    };
+
+    private final BillingRepository billingRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public BillingExportService(BillingRepository billingRepository,
+            EntityManager entityManager,
+            ObjectMapper objectMapper) {
+        this.billingRepository = billingRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    public void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Cần chọn ngày bắt đầu và ngày kết thúc");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Ngày bắt đầu phải trước hoặc bằng ngày kết thúc");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Khoảng xuất tối đa " + MAX_RANGE_DAYS + " ngày");
+        }
+    }
+
+    public void exportCsv(LocalDate from, LocalDate to, OutputStream outputStream) {
+        validateRange(from, to);
+        try (Stream<BillingExportRow> rows = openStream(from, to)) {
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            CsvWriter csv = new CsvWriter(writer);
+            csv.writeRow((Object[]) CSV_HEADER);
+            Long currentBillingId = null;
+            int billingsSinceClear = 0;
+            for (Iterator<BillingExportRow> it = rows.iterator(); it.hasNext();) {
+                BillingExportRow row = it.next();
+                Billing billing = row.getBilling();
+                Patient patient = row.getPatient();
+                BillingItem item = row.getItem();
+                if (!billing.getId().equals(currentBillingId)) {
+                    currentBillingId = billing.getId();
+                    billingsSinceClear = clearIfNeeded(billingsSinceClear);
+                }
+                csv.writeRow(
+                        billing.getId(),
+                        billing.getIssuedAt(),
+                        billing.getStatus(),
+                        billing.getPaymentMethod(),
+                        patient.getCode(),
+                        patient.getFullName(),
+                        billing.getServiceTotal(),
+                        billing.getMedicationTotal(),
+                        billing.getOtherTotal(),
+                        billing.getTotalAmount(),
+                        item != null ? item.getId() : null,
+                        item != null ? item.getItemType() : null,
+                        item != null ? item.getDescription() : null,
+                        item != null ? item.getQuantity() : null,
+                        item != null ? item.getUnitPrice() : null,
+                        item != null ? item.getAmount() : null);
+            }
+            csv.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Mỗi dòng là một hóa đơn kèm mảng {@code items}; các dòng của cùng hóa đơn đến liền nhau
+     * nên chỉ cần giữ hóa đơn đang ghi.
+     */
+    public void exportNdjson(LocalDate from, LocalDate to, OutputStream outputStream) {
+        validateRange(from, to);
+        try (Stream<BillingExportRow> rows = openStream(from, to);
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.setRootValueSeparator(null);
+            Long currentBillingId = null;
+            int billingsSinceClear = 0;
+            for (Iterator<BillingExportRow> it = rows.iterator(); it.hasNext();) {
+                BillingExportRow row = it.next();
+                Billing billing = row.getBilling();
+                if (!billing.getId().equals(currentBillingId)) {
+                    if (currentBillingId != null) {
+                        endBilling(generator);
+                    }
+                    currentBillingId = billing.getId();
+                    billingsSinceClear = clearIfNeeded(billingsSinceClear);
+                    startBilling(generator, billing, row.getPatient());
+                }
+                if (row.getItem() != null) {
+                    writeItem(generator, row.getItem());
+                }
+            }
+            if (currentBillingId != null) {
+                endBilling(generator);
+            }
+            generator.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private Stream<BillingExportRow> openStream(LocalDate from, LocalDate to) {
+        return billingRepository.streamForExport(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+    }
+
+    // Chỉ xóa khi chuyển sang hóa đơn mới để các dòng của hóa đơn đang ghi vẫn dùng chung một thực thể.
+    private int clearIfNeeded(int billingsSinceClear) {
+        if (billingsSinceClear + 1 >= CLEAR_INTERVAL) {
+            entityManager.clear();
+            return 0;
+        }
+        return billingsSinceClear + 1;
+    }
+
+    private void startBilling(JsonGenerator generator, Billing billing, Patient patient) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", billing.getId());
+        generator.writeStringField("issuedAt", billing.getIssuedAt() != null ? billing.getIssuedAt().toString() : null);
+        generator.writeStringField("status", billing.getStatus().name());
+        generator.writeStringField("paymentMethod", billing.getPaymentMethod());
+        generator.writeStringField("patientCode", patient.getCode());
+        generator.writeStringField("patientName", patient.getFullName());
+        writeAmount(generator, "serviceTotal", billing.getServiceTotal());
+        writeAmount(generator, "medicationTotal", billing.getMedicationTotal());
+        writeAmount(generator, "otherTotal", billing.getOtherTotal());
+        writeAmount(generator, "totalAmount", billing.getTotalAmount());
+        generator.writeArrayFieldStart("items");
+    }
+
+    private void writeItem(JsonGenerator generator, BillingItem item) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", item.getId());
+        generator.writeStringField("itemType", item.getItemType().name());
+        generator.writeStringField("description", item.getDescription());
+        generator.writeNumberField("quantity", item.getQuantity());
+        writeAmount(generator, "unitPrice", item.getUnitPrice());
+        writeAmount(generator, "amount", item.getAmount());
+        generator.writeEndObject();
+    }
+
+    private void endBilling(JsonGenerator generator) throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private void writeAmount(JsonGenerator generator, String field, BigDecimal value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeNumberField(field, value);
+        }
+    }
+}
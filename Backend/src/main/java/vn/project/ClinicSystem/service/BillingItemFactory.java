@@ -0,0 +1,124 @@
+package vn.project.ClinicSystem.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import vn.project.ClinicSystem.model.BillingItem;
+import vn.project.ClinicSystem.model.MedicalService;
+import vn.project.ClinicSystem.model.Medication;
+import vn.project.ClinicSystem.model.Prescription;
+import vn.project.ClinicSystem.model.PrescriptionItem;
+import vn.project.ClinicSystem.model.ServiceOrder;
+import vn.project.ClinicSystem.model.enums.BillingItemType;
+import vn.project.ClinicSystem.model.enums.ServiceOrderStatus;
+import vn.project.ClinicSystem.service.PriceCatalog.MedicationPrice;
+import vn.project.ClinicSystem.service.PriceCatalog.ServicePrice;
+import vn.project.ClinicSystem.service.PriceCatalog.Snapshot;
+
+/**
+ * Dựng các mục hóa đơn từ phiếu dịch vụ và đơn thuốc của một hồ sơ khám. Dùng chung cho
+ * lập hóa đơn từng hồ sơ và lập hóa đơn hàng loạt.
+ * <p>
+ * Giá và tên lấy từ bảng giá truyền vào, nên cả hóa đơn được tính theo cùng một phiên bản bảng giá.
+ * Chỉ khi dịch vụ/thuốc chưa có trong bảng giá (vừa tạo, bảng giá chưa kịp nạp lại) mới đọc thực thể.
+ */
+@Component
+public class BillingItemFactory {
+
+    public List<BillingItem> createServiceItems(List<ServiceOrder> orders, Snapshot catalog) {
+        List<BillingItem> items = new ArrayList<>();
+        for (ServiceOrder order : orders) {
+            ServiceOrderStatus status = order.getStatus();
+            if (status == ServiceOrderStatus.CANCELLED || status == ServiceOrderStatus.PENDING
+                    || status == ServiceOrderStatus.SCHEDULED || status == ServiceOrderStatus.IN_PROGRESS) {
+                continue;
+            }
+
+            MedicalService medicalService = order.getMedicalService();
+            if (medicalService == null) {
+                continue;
+            }
+            ServicePrice price = catalog.service(medicalService.getId());
+            if (price == null && medicalService.getBasePrice() != null) {
+                price = new ServicePrice(medicalService.getId(), medicalService.getName(),
+                        BigDecimal.valueOf(medicalService.getBasePrice()));
+            }
+            if (price == null || price.getPrice() == null) {
+                continue;
+            }
+
+            BillingItem item = new BillingItem();
+            item.setItemType(BillingItemType.SERVICE);
+            item.setDescription(price.getName());
+            item.setQuantity(1);
+            item.setUnitPrice(price.getPrice());
+            item.setServiceOrderId(order.getId());
+            item.setMedicalServiceId(price.getId());
+            item.recalculateAmount();
+
+            items.add(item);
+        }
+        return items;
+    }
+
+    public List<BillingItem> createMedicationItems(List<Prescription> prescriptions, Snapshot catalog) {
+        List<BillingItem> items = new ArrayList<>();
+        for (Prescription prescription : prescriptions) {
+            for (PrescriptionItem item : prescription.getItems()) {
+                BillingItem billingItem = new BillingItem();
+                billingItem.setItemType(BillingItemType.MEDICATION);
+
+                String name = item.getMedicationName();
+                Medication medication = item.getMedication();
+                MedicationPrice catalogPrice = medication != null ? catalog.medication(medication.getId()) : null;
+
+                if (!StringUtils.hasText(name) && catalogPrice != null) {
+                    name = catalogPrice.getName();
+                } else if (!StringUtils.hasText(name) && medication != null) {
+                    name = medication.getName();
+                }
+                if (!StringUtils.hasText(name)) {
+                    name = "Thuốc";
+                }
+                // Keep description as medication name only. Do not append dosage to avoid
+                // showing quantity-like suffixes (e.g. "Paracetamol 500mg - 1"). If needed,
+                // dosage/frequency can be shown separately in the UI in the future.
+                billingItem.setDescription(name);
+
+                // Số lượng là số đơn vị trực tiếp (viên hoặc gói), không còn tính theo hộp
+                int quantity = item.getQuantity() != null ? item.getQuantity() : 1;
+                billingItem.setQuantity(quantity);
+
+                // Lấy giá từ snapshot (đã lưu khi tạo prescription) hoặc từ Medication hiện tại
+                // unitPrice là giá cho 1 đơn vị (1 viên hoặc 1 gói), không còn tính theo hộp
+                BigDecimal unitPrice = BigDecimal.ZERO;
+                if (item.getUnitPriceSnapshot() != null) {
+                    // Ưu tiên dùng giá snapshot (giá tại thời điểm kê đơn)
+                    unitPrice = item.getUnitPriceSnapshot();
+                } else if (catalogPrice != null && catalogPrice.getUnitPrice() != null) {
+                    // Fallback: lấy giá hiện tại trong bảng giá nếu snapshot không có
+                    unitPrice = catalogPrice.getUnitPrice();
+                } else if (catalogPrice == null && medication != null && medication.getUnitPrice() != null) {
+                    unitPrice = medication.getUnitPrice();
+                }
+
+                billingItem.setUnitPrice(unitPrice);
+                billingItem.setPrescriptionItemId(item.getId());
+
+                if (medication != null) {
+                    billingItem.setMedicationId(medication.getId());
+                }
+
+                // Tính amount = quantity * unitPrice (đơn giản, không còn logic hộp)
+                billingItem.recalculateAmount();
+
+                items.add(billingItem);
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,204 @@
+package vn.project.ClinicSystem.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import jakarta.persistence.EntityNotFoundException;
+import vn.project.ClinicSystem.model.Billing;
+import vn.project.ClinicSystem.model.BillingPayment;
+import vn.project.ClinicSystem.model.DataMigration;
+import vn.project.ClinicSystem.model.User;
+import vn.project.ClinicSystem.model.dto.BillingPaymentRequest;
+import vn.project.ClinicSystem.model.dto.PatientDebtResponse;
+import vn.project.ClinicSystem.model.enums.BillingEventType;
+import vn.project.ClinicSystem.model.enums.BillingStatus;
+import vn.project.ClinicSystem.repository.BillingPaymentRepository;
+import vn.project.ClinicSystem.repository.BillingRepository;
+import vn.project.ClinicSystem.repository.BillingRepository.PatientDebtRow;
+import vn.project.ClinicSystem.repository.DataMigrationRepository;
+import vn.project.ClinicSystem.repository.UserRepository;
+import vn.project.ClinicSystem.service.event.BillingDomainEvent;
+import vn.project.ClinicSystem.util.SecurityUtil;
+
+/**
+ * Sổ thanh toán của hóa đơn: mỗi lần thu hoặc hoàn tiền là một dòng mới, không sửa hay xóa.
+ * Số đã thu và còn nợ trên {@link Billing} được cập nhật trong cùng giao dịch, khi đang giữ khóa
+ * ghi trên dòng hóa đơn, nên các truy vấn công nợ chỉ cần đọc bảng hóa đơn.
+ */
+@Service
+@Transactional(readOnly = true)
+public class BillingPaymentService {
+
+    public static final String DEFAULT_METHOD = "CASH";
+
+    private static final String LEGACY_BALANCE_MIGRATION = "billing-legacy-balances";
+
+    private final BillingRepository billingRepository;
+    private final BillingPaymentRepository billingPaymentRepository;
+    private final UserRepository userRepository;
+    private final OutboxService outboxService;
+    private final DataMigrationRepository dataMigrationRepository;
+
+    public BillingPaymentService(BillingRepository billingRepository,
+            BillingPaymentRepository billingPaymentRepository,
+            UserRepository userRepository,
+            OutboxService outboxService,
+            DataMigrationRepository dataMigrationRepository) {
+        this.billingRepository = billingRepository;
+        this.billingPaymentRepository = billingPaymentRepository;
+        this.userRepository = userRepository;
+        this.outboxService = outboxService;
+        this.dataMigrationRepository = dataMigrationRepository;
+    }
+
+    public List<BillingPayment> findByBilling(Long billingId) {
+        if (!billingRepository.existsById(billingId)) {
+            throw new EntityNotFoundException("Không tìm thấy hóa đơn với id: " + billingId);
+        }
+        return billingPaymentRepository.findByBillingIdOrderByPaidAtAscIdAsc(billingId);
+    }
+
+    public boolean hasPayments(Long billingId) {
+        return billingPaymentRepository.existsByBillingId(billingId);
+    }
+
+    public PatientDebtResponse getPatientDebt(Long patientId) {
+        return billingRepository.findDebtByPatientId(patientId)
+                .map(this::toDebtResponse)
+                .orElseGet(() -> PatientDebtResponse.builder()
+                        .patientId(patientId)
+                        .outstandingAmount(BigDecimal.ZERO)
+                        .billingCount(0)
+                        .build());
+    }
+
+    public List<PatientDebtResponse> getPatientDebts(Pageable pageable) {
+        return billingRepository.findPatientDebts(pageable).stream().map(this::toDebtResponse).toList();
+    }
+
+    @Transactional
+    public BillingPayment recordPayment(Long billingId, BillingPaymentRequest request) {
+        Billing billing = billingRepository.findForPaymentById(billingId)
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy hóa đơn với id: " + billingId));
+        BigDecimal amount = request.getAmount();
+        if (billing.getStatus() == BillingStatus.CANCELLED) {
+            throw new IllegalStateException("Không thể ghi nhận thanh toán cho hóa đơn đã hủy.");
+        }
+        if (amount.signum() == 0) {
+            throw new IllegalArgumentException("Số tiền thanh toán phải khác 0.");
+        }
+        if (amount.signum() > 0 && amount.compareTo(billing.getOutstandingAmount()) > 0) {
+            throw new IllegalArgumentException("Số tiền vượt quá số còn phải thu: " + billing.getOutstandingAmount());
+        }
+        if (amount.signum() < 0 && amount.negate().compareTo(billing.getPaidAmount()) > 0) {
+            throw new IllegalArgumentException("Số tiền hoàn vượt quá số đã thu: " + billing.getPaidAmount());
+        }
+
+        BillingPayment payment = new BillingPayment();
+        payment.setAmount(amount);
+        payment.setMethod(request.getMethod().trim());
+        payment.setReference(normalizeText(request.getReference()));
+        payment.setNote(normalizeText(request.getNote()));
+        payment.setPaidAt(request.getPaidAt());
+        return apply(billing, payment);
+    }
+
+    /**
+     * Thu nốt số còn nợ khi hóa đơn được chuyển thẳng sang đã thu. Người gọi phải đang giữ khóa
+     * trên hóa đơn ({@link BillingRepository#findForPaymentById}).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public BillingPayment settleOutstanding(Billing billing) {
+        BillingPayment payment = new BillingPayment();
+        payment.setAmount(billing.getOutstandingAmount());
+        payment.setMethod(StringUtils.hasText(billing.getPaymentMethod()) ? billing.getPaymentMethod() : DEFAULT_METHOD);
+        return apply(billing, payment);
+    }
+
+    private BillingPayment apply(Billing billing, BillingPayment payment) {
+        BillingStatus previousStatus = billing.getStatus();
+        User cashier = currentUser();
+        payment.setBilling(billing);
+        payment.setCashier(cashier);
+        BillingPayment saved = billingPaymentRepository.save(payment);
+
+        billing.applyPayment(saved.getAmount());
+        if (billing.getStatus() == BillingStatus.UNPAID) {
+            billing.setSettledAt(null);
+        } else {
+            billing.setSettledAt(LocalDateTime.now());
+            if (cashier != null) {
+                billing.setCashier(cashier);
+            }
+        }
+        if (billing.getPaymentMethod() == null) {
+            billing.setPaymentMethod(saved.getMethod());
+        }
+        billingRepository.save(billing);
+
+        BillingDomainEvent event = BillingDomainEvent.of(BillingEventType.PAYMENT_RECORDED, billing.getId(),
+                billing.getVisit() != null ? billing.getVisit().getId() : null,
+                billing.getPatient() != null ? billing.getPatient().getId() : null,
+                billing.getStatus(), billing.getTotalAmount(), BigDecimal.ZERO);
+        event.setPreviousStatus(previousStatus);
+        event.setPaymentAmount(saved.getAmount());
+        event.setPaidAmount(billing.getPaidAmount());
+        event.setOutstandingAmount(billing.getOutstandingAmount());
+        outboxService.appendBillingEvent(event);
+        return saved;
+    }
+
+    /**
+     * Chuyển đổi một lần cho hóa đơn lập trước khi có sổ thanh toán: hóa đơn đã thu được ghi một khoản
+     * bù trừ vào sổ rồi mới gán số đã thu, để tổng sổ luôn bằng {@code paidAmount}; hóa đơn chưa thu được
+     * gán số còn nợ. Dấu chuyển đổi được ghi trong cùng giao dịch nên các lần khởi động sau bỏ qua.
+     *
+     * @return số hóa đơn đã chuyển đổi, hoặc -1 nếu chuyển đổi đã chạy trước đó
+     */
+    @Transactional
+    public int migrateLegacyBalances() {
+        if (dataMigrationRepository.existsByName(LEGACY_BALANCE_MIGRATION)) {
+            return -1;
+        }
+        DataMigration migration = new DataMigration();
+        migration.setName(LEGACY_BALANCE_MIGRATION);
+        dataMigrationRepository.saveAndFlush(migration);
+
+        int settlements = billingPaymentRepository.insertLegacySettlements(DEFAULT_METHOD,
+                "Bù trừ cho hóa đơn đã thu trước khi có sổ thanh toán", Instant.now());
+        int paid = billingRepository.backfillPaidBalances();
+        if (settlements != paid) {
+            throw new IllegalStateException("Số khoản bù trừ (" + settlements + ") khác số hóa đơn đã thu cần chuyển đổi ("
+                    + paid + ")");
+        }
+        int updated = paid + billingRepository.backfillOutstandingBalances();
+        migration.setAffectedRows(updated);
+        return updated;
+    }
+
+    private PatientDebtResponse toDebtResponse(PatientDebtRow row) {
+        return PatientDebtResponse.builder()
+                .patientId(row.getPatientId())
+                .outstandingAmount(row.getOutstandingAmount())
+                .billingCount(row.getBillingCount() != null ? row.getBillingCount() : 0)
+                .build();
+    }
+
+    private User currentUser() {
+        return SecurityUtil.getCurrentUserLogin()
+                .flatMap(userRepository::findByEmail)
+                .orElse(null);
+    }
+
+    private String normalizeText(String text) {
+        return StringUtils.hasText(text) ? text.trim() : null;
+    }
+}
@@ -0,0 +1,354 @@
+package vn.project.ClinicSystem.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.PdfCopy;
+import com.lowagie.text.pdf.PdfReader;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import vn.project.ClinicSystem.model.Billing;
+import vn.project.ClinicSystem.model.dto.BillingPdfArchiveStatusResponse;
+import vn.project.ClinicSystem.model.enums.BatchJobStatus;
+import vn.project.ClinicSystem.repository.BillingRepository;
+
+/**
+ * In hàng loạt hóa đơn trong một khoảng ngày lập thành một file PDF gộp hoặc một file ZIP trên đĩa.
+ * <p>
+ * Hóa đơn được nạp theo từng trang id (keyset) và dựng PDF song song trên một pool cố định; kết quả
+ * được ghi ra file theo đúng thứ tự id qua một cửa sổ trượt giới hạn số hóa đơn đang xử lý, nên bộ
+ * nhớ không phụ thuộc số hóa đơn trong khoảng. Mỗi lần chỉ chạy một tiến trình.
+ */
+@Slf4j
+@Service
+public class BillingPdfArchiveService {
+
+    public static final String FORMAT_PDF = "pdf";
+    public static final String FORMAT_ZIP = "zip";
+
+    private static final int PAGE_SIZE = 50;
+
+    private final BillingRepository billingRepository;
+    private final BillingPrintService billingPrintService;
+    private final BillingExportService billingExportService;
+    private final TransactionTemplate readTransaction;
+    private final Path archiveDir;
+    private final int workers;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "billing-pdf-archive-coordinator"));
+
+    private final AtomicReference<BatchJobStatus> status = new AtomicReference<>(BatchJobStatus.IDLE);
+    private final AtomicLong totalBillings = new AtomicLong();
+    private final AtomicLong renderedBillings = new AtomicLong();
+    private final AtomicInteger failedBillings = new AtomicInteger();
+    private volatile String format;
+    private volatile LocalDate from;
+    private volatile LocalDate to;
+    private volatile Path archiveFile;
+    private volatile String lastError;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    public BillingPdfArchiveService(BillingRepository billingRepository,
+            BillingPrintService billingPrintService,
+            BillingExportService billingExportService,
+            PlatformTransactionManager transactionManager,
+            @Value("${clinicsystem.billing.pdf-archive.dir:${java.io.tmpdir}/clinicsystem/billing-archives}") String archiveDir,
+            @Value("${clinicsystem.billing.pdf-archive.workers:2}") int workers) {
+        this.billingRepository = billingRepository;
+        this.billingPrintService = billingPrintService;
+        this.billingExportService = billingExportService;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.archiveDir = Paths.get(archiveDir);
+        this.workers = Math.max(workers, 1);
+    }
+
+    public BillingPdfArchiveStatusResponse start(LocalDate from, LocalDate to, String format) {
+        String normalizedFormat = normalizeFormat(format);
+        billingExportService.validateRange(from, to);
+        long total = billingRepository.countByIssuedAtGreaterThanEqualAndIssuedAtLessThan(
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        if (total == 0) {
+            throw new IllegalArgumentException("Không có hóa đơn nào trong khoảng ngày đã chọn");
+        }
+        BatchJobStatus previous = status.get();
+        if (previous == BatchJobStatus.RUNNING || !status.compareAndSet(previous, BatchJobStatus.RUNNING)) {
+            throw new IllegalStateException("Đang in hóa đơn hàng loạt, vui lòng thử lại sau");
+        }
+        deleteQuietly(archiveFile);
+        this.format = normalizedFormat;
+        this.from = from;
+        this.to = to;
+        archiveFile = null;
+        totalBillings.set(total);
+        renderedBillings.set(0);
+        failedBillings.set(0);
+        lastError = null;
+        startedAt = Instant.now();
+        finishedAt = null;
+        coordinator.execute(() -> run(from, to, normalizedFormat));
+        return getStatus();
+    }
+
+    public BillingPdfArchiveStatusResponse getStatus() {
+        Path file = archiveFile;
+        long fileSize = 0;
+        if (file != null) {
+            try {
+                fileSize = Files.size(file);
+            } catch (IOException ex) {
+                file = null;
+            }
+        }
+        return BillingPdfArchiveStatusResponse.builder()
+                .status(status.get())
+                .format(format)
+                .from(from)
+                .to(to)
+                .totalBillings(totalBillings.get())
+                .renderedBillings(renderedBillings.get())
+                .failedBillings(failedBillings.get())
+                .downloadReady(file != null)
+                .fileSize(fileSize)
+                .lastError(lastError)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+    }
+
+    /**
+     * @return file kết quả của lần chạy gần nhất đã hoàn tất.
+     */
+    public Path getArchiveFile() {
+        Path file = archiveFile;
+        if (file == null || !Files.exists(file)) {
+            throw new IllegalStateException("Chưa có file in hàng loạt để tải về");
+        }
+        return file;
+    }
+
+    public String getArchiveFileName() {
+        return "billings-" + from + "_" + to + "." + format;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+    }
+
+    private void run(LocalDate from, LocalDate to, String format) {
+        ExecutorService pool = Executors.newFixedThreadPool(workers, new WorkerThreadFactory());
+        Path partial = null;
+        try {
+            Files.createDirectories(archiveDir);
+            partial = Files.createTempFile(archiveDir, "billings-", "." + format + ".part");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+                ArchiveSink sink = FORMAT_ZIP.equals(format) ? new ZipSink(out) : new MergedPdfSink(out);
+                renderAll(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), pool, sink);
+                sink.finish();
+            }
+            Path target = archiveDir.resolve(getArchiveFileName());
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            archiveFile = target;
+            status.set(failedBillings.get() > 0 ? BatchJobStatus.COMPLETED_WITH_ERRORS : BatchJobStatus.COMPLETED);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            lastError = "Tiến trình bị dừng";
+            status.set(BatchJobStatus.FAILED);
+        } catch (IOException | RuntimeException ex) {
+            log.error("In hóa đơn hàng loạt thất bại", ex);
+            lastError = ex.getMessage();
+            status.set(BatchJobStatus.FAILED);
+        } finally {
+            pool.shutdownNow();
+            deleteQuietly(partial);
+            finishedAt = Instant.now();
+            log.info("In hóa đơn hàng loạt kết thúc: {}/{} hóa đơn, {} lỗi",
+                    renderedBillings.get(), totalBillings.get(), failedBillings.get());
+        }
+    }
+
+    private void renderAll(LocalDateTime start, LocalDateTime end, ExecutorService pool, ArchiveSink sink) throws InterruptedException, IOException {
+        // Giới hạn số hóa đơn đã nạp/đang dựng; kết quả được ghi theo thứ tự nộp vào.
+        int window = workers * 2;
+        Deque<PendingRender> pending = new ArrayDeque<>();
+        long afterId = 0L;
+        while (true) {
+            Long cursor = afterId;
+            List<Billing> page = readTransaction.execute(tx -> {
+                List<Long> ids = billingRepository.findIdsIssuedBetweenAfter(start, end, cursor,
+                        PageRequest.of(0, PAGE_SIZE));
+                return ids.isEmpty() ? List.<Billing>of() : billingRepository.findForPrintByIdInOrderByIdAsc(ids);
+            });
+            if (page == null || page.isEmpty()) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
+            for (Billing billing : page) {
+                while (pending.size() >= window) {
+                    write(pending.poll(), sink);
+                }
+                pending.add(new PendingRender(billing.getId(), CompletableFuture.supplyAsync(
+                        () -> billingPrintService.renderBillingPdf(billing), pool)));
+            }
+        }
+        while (!pending.isEmpty()) {
+            write(pending.poll(), sink);
+        }
+    }
+
+    private void write(PendingRender render, ArchiveSink sink) throws InterruptedException, IOException {
+        byte[] pdf;
+        try {
+            pdf = render.future.get();
+        } catch (ExecutionException ex) {
+            failedBillings.incrementAndGet();
+            lastError = "Hóa đơn " + render.billingId + ": " + ex.getCause().getMessage();
+            log.warn("Không thể dựng PDF hóa đơn {}: {}", render.billingId, ex.getCause().getMessage());
+            return;
+        }
+        sink.add(render.billingId, pdf);
+        renderedBillings.incrementAndGet();
+    }
+
+    private String normalizeFormat(String format) {
+        if (format == null || FORMAT_PDF.equalsIgnoreCase(format)) {
+            return FORMAT_PDF;
+        }
+        if (FORMAT_ZIP.equalsIgnoreCase(format)) {
+            return FORMAT_ZIP;
+        }
+        throw new IllegalArgumentException("Định dạng không hợp lệ, chỉ hỗ trợ pdf hoặc zip");
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Không thể xóa file {}: {}", file, ex.getMessage());
+        }
+    }
+
+    private interface ArchiveSink {
+        void add(Long billingId, byte[] pdf) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    // Chép từng trang sang tài liệu gộp rồi giải phóng reader, nên chỉ giữ một hóa đơn nguồn tại một thời điểm.
+    private static class MergedPdfSink implements ArchiveSink {
+        private final Document document = new Document();
+        private final PdfCopy copy;
+        private int pages;
+
+        MergedPdfSink(OutputStream out) {
+            try {
+                this.copy = new PdfCopy(document, out);
+            } catch (DocumentException ex) {
+                throw new IllegalStateException("Không thể tạo PDF gộp: " + ex.getMessage(), ex);
+            }
+            copy.setCloseStream(false);
+            document.open();
+        }
+
+        @Override
+        public void add(Long billingId, byte[] pdf) throws IOException {
+            PdfReader reader = new PdfReader(pdf);
+            try {
+                for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                    copy.addPage(copy.getImportedPage(reader, page));
+                    pages++;
+                }
+                copy.freeReader(reader);
+            } catch (DocumentException ex) {
+                throw new IOException("Không thể gộp hóa đơn " + billingId, ex);
+            } finally {
+                reader.close();
+            }
+        }
+
+        @Override
+        public void finish() {
+            if (pages == 0) {
+                throw new IllegalStateException("Không dựng được hóa đơn nào trong khoảng đã chọn");
+            }
+            document.close();
+        }
+    }
+
+    private static class ZipSink implements ArchiveSink {
+        private final ZipOutputStream zip;
+
+        ZipSink(OutputStream out) {
+            this.zip = new ZipOutputStream(out);
+            // Nội dung PDF đã được nén sẵn, nén thêm chỉ tốn CPU.
+            this.zip.setLevel(Deflater.BEST_SPEED);
+        }
+
+        @Override
+        public void add(Long billingId, byte[] pdf) throws IOException {
+            zip.putNextEntry(new ZipEntry("billing-" + billingId + ".pdf"));
+            zip.write(pdf);
+            zip.closeEntry();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            zip.finish();
+        }
+    }
+
+    private static class PendingRender {
+        private final Long billingId;
+        private final CompletableFuture<byte[]> future;
+
+        PendingRender(Long billingId, CompletableFuture<byte[]> future) {
+            this.billingId = billingId;
+            this.future = future;
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, "billing-pdf-archive-worker-" + sequence.incrementAndGet());
+        }
+    }
+}
@@ -1,27 +1,34 @@
 package vn.project.ClinicSystem.service;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
 import vn.project.ClinicSystem.model.Billing;
 import vn.project.ClinicSystem.model.BillingItem;
-import vn.project.ClinicSystem.model.Medication;
 import vn.project.ClinicSystem.model.PatientVisit;
-import vn.project.ClinicSystem.model.Prescription;
-import vn.project.ClinicSystem.model.PrescriptionItem;
-import vn.project.ClinicSystem.model.ServiceOrder;
+import vn.project.ClinicSystem.model.User;
+import vn.project.ClinicSystem.model.enums.BillingEventType;
 import vn.project.ClinicSystem.model.enums.BillingItemType;
 import vn.project.ClinicSystem.model.enums.BillingStatus;
-import vn.project.ClinicSystem.model.enums.ServiceOrderStatus;
 import vn.project.ClinicSystem.model.dto.BillingItemCreateRequest;
 import vn.project.ClinicSystem.model.dto.BillingItemUpdateRequest;
 import vn.project.ClinicSystem.model.dto.BillingPageResponse;
@@ -29,29 +36,50 @@ import vn.project.ClinicSystem.model.dto.BillingStatusUpdateRequest;
 import vn.project.ClinicSystem.repository.BillingItemRepository;
 import vn.project.ClinicSystem.repository.BillingRepository;
 import vn.project.ClinicSystem.repository.PatientVisitRepository;
-import vn.project.ClinicSystem.repository.PrescriptionRepository;
-import vn.project.ClinicSystem.repository.ServiceOrderRepository;
+import vn.project.ClinicSystem.repository.UserRepository;
+import vn.project.ClinicSystem.service.InvoiceDataLoader.InvoiceData;
+import vn.project.ClinicSystem.service.event.BillingDomainEvent;
+import vn.project.ClinicSystem.util.SecurityUtil;
 
+@Slf4j
 @Service
 @Transactional(readOnly = true)
 public class BillingService {
 
+    private static final int MAX_CREATE_ATTEMPTS = 3;
+
     private final BillingRepository billingRepository;
     private final BillingItemRepository billingItemRepository;
     private final PatientVisitRepository patientVisitRepository;
-    private final ServiceOrderRepository serviceOrderRepository;
-    private final PrescriptionRepository prescriptionRepository;
+    private final InvoiceDataLoader invoiceDataLoader;
+    private final BillingItemFactory billingItemFactory;
+    private final PriceCatalog priceCatalog;
+    private final UserRepository userRepository;
+    private final OutboxService outboxService;
+    private final BillingPaymentService billingPaymentService;
+    private final TransactionTemplate writeTransaction;
 
     public BillingService(BillingRepository billingRepository,
             BillingItemRepository billingItemRepository,
             PatientVisitRepository patientVisitRepository,
-            ServiceOrderRepository serviceOrderRepository,
-            PrescriptionRepository prescriptionRepository) {
+            InvoiceDataLoader invoiceDataLoader,
+            BillingItemFactory billingItemFactory,
+            PriceCatalog priceCatalog,
+            UserRepository userRepository,
+            OutboxService outboxService,
+            BillingPaymentService billingPaymentService,
+            PlatformTransactionManager transactionManager) {
         this.billingRepository = billingRepository;
         this.billingItemRepository = billingItemRepository;
         this.patientVisitRepository = patientVisitRepository;
-        this.serviceOrderRepository = serviceOrderRepository;
-        this.prescriptionRepository = prescriptionRepository;
+        this.invoiceDataLoader = invoiceDataLoader;
+        this.billingItemFactory = billingItemFactory;
+        this.priceCatalog = priceCatalog;
+        this.userRepository = userRepository;
+        this.outboxService = outboxService;
+        this.billingPaymentService = billingPaymentService;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
     public Billing getById(Long billingId) {
@@ -78,11 +106,41 @@ public class BillingService {
         return BillingPageResponse.from(page);
     }
 
-    @Transactional
-    public Billing generateForVisit(Long visitId) {
-        billingRepository.findByVisitId(visitId).ifPresent(existing -> {
-            throw new IllegalStateException("Hồ sơ khám đã có hóa đơn. Vui lòng sử dụng lại hóa đơn hiện có.");
-        });
+    /**
+     * Lập hóa đơn cho hồ sơ khám hoặc trả về hóa đơn đã có. Nhiều yêu cầu đồng thời cho cùng hồ sơ
+     * (hoặc cùng Idempotency-Key) đều nhận về một hóa đơn duy nhất: yêu cầu thua cuộc khi ghi sẽ vấp
+     * ràng buộc uk_billings_visit_id, rồi thử lại trong giao dịch mới và đọc được hóa đơn vừa tạo.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Billing generateForVisit(Long visitId, String idempotencyKey) {
+        String key = normalizeIdempotencyKey(idempotencyKey);
+        for (int attempt = 1;; attempt++) {
+            try {
+                return writeTransaction.execute(status -> findOrCreateBilling(visitId, key));
+            } catch (DataIntegrityViolationException | PessimisticLockingFailureException ex) {
+                if (attempt >= MAX_CREATE_ATTEMPTS) {
+                    throw ex;
+                }
+                log.debug("Lập hóa đơn cho hồ sơ {} trùng với yêu cầu khác, thử lại lần {}", visitId, attempt + 1);
+            }
+        }
+    }
+
+    private Billing findOrCreateBilling(Long visitId, String idempotencyKey) {
+        if (idempotencyKey != null) {
+            Optional<Billing> byKey = billingRepository.findByIdempotencyKey(idempotencyKey);
+            if (byKey.isPresent()) {
+                if (!byKey.get().getVisit().getId().equals(visitId)) {
+                    throw new IllegalArgumentException("Idempotency-Key đã được dùng cho một hồ sơ khám khác.");
+                }
+                return byKey.get();
+            }
+        }
+
+        Optional<Billing> existing = billingRepository.findByVisitId(visitId);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
 
         PatientVisit visit = patientVisitRepository.findById(visitId)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy hồ sơ khám với id: " + visitId));
@@ -93,47 +151,120 @@ public class BillingService {
         billing.setPatient(visit.getPatient());
         billing.setIssuedAt(LocalDateTime.now());
         billing.setStatus(BillingStatus.UNPAID);
+        billing.setIdempotencyKey(idempotencyKey);
+        billing.setCashier(currentUser());
 
-        populateServiceOrderItems(billing, visitId);
-        populateMedicationItems(billing, visitId);
+        InvoiceData data = invoiceDataLoader.load(visitId);
+        PriceCatalog.Snapshot catalog = priceCatalog.current();
+        billingItemFactory.createServiceItems(data.getServiceOrders(), catalog).forEach(billing::addItem);
+        billingItemFactory.createMedicationItems(data.getPrescriptions(), catalog).forEach(billing::addItem);
+        billing.setPriceCatalogVersion(catalog.getVersion());
 
         billing.recalculateTotals();
 
-        return billingRepository.save(billing);
+        Billing saved = billingRepository.save(billing);
+        recordEvent(BillingEventType.CREATED, saved, null, saved.getTotalAmount(), saved.getTotalAmount());
+        return saved;
     }
 
+    private String normalizeIdempotencyKey(String idempotencyKey) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return null;
+        }
+        String trimmed = idempotencyKey.trim();
+        if (trimmed.length() > 80) {
+            throw new IllegalArgumentException("Idempotency-Key tối đa 80 ký tự.");
+        }
+        return trimmed;
+    }
+
+    /**
+     * Chuyển sang đã thu khi còn nợ sẽ ghi một khoản thu cho phần còn lại vào sổ thanh toán; các trạng
+     * thái khác phải khớp với số đã thu trên sổ.
+     */
     @Transactional
     public Billing updateStatus(Long billingId, BillingStatusUpdateRequest request) {
-        Billing billing = getById(billingId);
-        billing.setStatus(request.getStatus());
+        Billing billing = billingRepository.findForPaymentById(billingId)
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy hóa đơn với id: " + billingId));
+        BillingStatus previousStatus = billing.getStatus();
+        BillingStatus targetStatus = request.getStatus();
         if (request.getPaymentMethod() != null) {
             billing.setPaymentMethod(normalizeText(request.getPaymentMethod()));
         }
         if (request.getNotes() != null) {
             billing.setNotes(normalizeText(request.getNotes()));
         }
-        return billingRepository.save(billing);
+
+        if (targetStatus == BillingStatus.PAID && billing.getOutstandingAmount().signum() > 0) {
+            billingPaymentService.settleOutstanding(billing);
+            return billing;
+        }
+
+        checkStatusMatchesLedger(billing, targetStatus);
+        billing.setStatus(targetStatus);
+        billing.refreshOutstanding();
+        if (targetStatus != previousStatus && targetStatus != BillingStatus.UNPAID) {
+            billing.setSettledAt(LocalDateTime.now());
+            User cashier = currentUser();
+            if (cashier != null) {
+                billing.setCashier(cashier);
+            }
+        } else if (targetStatus == BillingStatus.UNPAID) {
+            billing.setSettledAt(null);
+        }
+        Billing saved = billingRepository.save(billing);
+        if (saved.getStatus() != previousStatus) {
+            recordEvent(BillingEventType.STATUS_CHANGED, saved, previousStatus, saved.getTotalAmount(),
+                    BigDecimal.ZERO);
+        }
+        return saved;
+    }
+
+    private void checkStatusMatchesLedger(Billing billing, BillingStatus targetStatus) {
+        BigDecimal paid = billing.getPaidAmount();
+        BigDecimal remaining = billing.getTotalAmount().subtract(paid);
+        switch (targetStatus) {
+            case UNPAID, CANCELLED -> {
+                if (paid.signum() != 0) {
+                    throw new IllegalStateException("Hóa đơn đã thu " + paid + ", cần ghi nhận hoàn tiền trước.");
+                }
+            }
+            case PARTIALLY_PAID -> {
+                if (paid.signum() <= 0 || remaining.signum() <= 0) {
+                    throw new IllegalStateException("Trạng thái thu một phần không khớp với sổ thanh toán.");
+                }
+            }
+            default -> {
+            }
+        }
     }
 
     @Transactional
     public Billing addManualItem(Long billingId, BillingItemCreateRequest request) {
         Billing billing = getById(billingId);
+        long expectedVersion = resolveVersion(billing, request.getVersion());
 
         BillingItem item = new BillingItem();
+        item.setBilling(billing);
         item.setItemType(request.getItemType());
         item.setDescription(request.getDescription().trim());
         item.setQuantity(request.getQuantity());
         item.setUnitPrice(request.getUnitPrice());
         item.recalculateAmount();
-
-        billing.addItem(item);
-        billing.recalculateTotals();
-        return billingRepository.save(billing);
+        billingItemRepository.save(item);
+
+        TotalsDelta delta = new TotalsDelta();
+        delta.add(item.getItemType(), item.getAmount());
+        applyDelta(billing, expectedVersion, delta);
+        Billing updated = getById(billingId);
+        recordEvent(BillingEventType.ITEMS_CHANGED, updated, null, updated.getTotalAmount(), delta.total());
+        return updated;
     }
 
     @Transactional
     public BillingItem updateItem(Long billingId, Long itemId, BillingItemUpdateRequest request) {
         Billing billing = getById(billingId);
+        long expectedVersion = resolveVersion(billing, request.getVersion());
         BillingItem item = billingItemRepository.findById(itemId)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy mục hóa đơn với id: " + itemId));
 
@@ -141,6 +272,9 @@ public class BillingService {
             throw new IllegalArgumentException("Mục hóa đơn không thuộc về hóa đơn đã chọn.");
         }
 
+        TotalsDelta delta = new TotalsDelta();
+        delta.subtract(item.getItemType(), item.getAmount());
+
         if (request.getItemType() != null) {
             item.setItemType(request.getItemType());
         }
@@ -155,17 +289,19 @@ public class BillingService {
         }
 
         item.recalculateAmount();
-        BillingItem savedItem = billingItemRepository.save(item);
+        billingItemRepository.save(item);
+        delta.add(item.getItemType(), item.getAmount());
 
-        billing.recalculateTotals();
-        billingRepository.save(billing);
-
-        return savedItem;
+        applyDelta(billing, expectedVersion, delta);
+        recordItemsChanged(billing, delta);
+        return billingItemRepository.findById(itemId)
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy mục hóa đơn với id: " + itemId));
     }
 
     @Transactional
-    public void deleteItem(Long billingId, Long itemId) {
+    public void deleteItem(Long billingId, Long itemId, Long version) {
         Billing billing = getById(billingId);
+        long expectedVersion = resolveVersion(billing, version);
         BillingItem item = billingItemRepository.findById(itemId)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy mục hóa đơn với id: " + itemId));
 
@@ -173,90 +309,55 @@ public class BillingService {
             throw new IllegalArgumentException("Mục hóa đơn không thuộc về hóa đơn đã chọn.");
         }
 
-        billing.getItems().remove(item);
+        TotalsDelta delta = new TotalsDelta();
+        delta.subtract(item.getItemType(), item.getAmount());
         billingItemRepository.delete(item);
-        billing.recalculateTotals();
-        billingRepository.save(billing);
+        applyDelta(billing, expectedVersion, delta);
+        recordItemsChanged(billing, delta);
     }
 
-    private void populateServiceOrderItems(Billing billing, Long visitId) {
-        List<ServiceOrder> orders = serviceOrderRepository.findByVisitId(visitId);
-
-        for (ServiceOrder order : orders) {
-            ServiceOrderStatus status = order.getStatus();
-            if (status == ServiceOrderStatus.CANCELLED || status == ServiceOrderStatus.PENDING
-                    || status == ServiceOrderStatus.SCHEDULED || status == ServiceOrderStatus.IN_PROGRESS) {
-                continue;
-            }
-
-            if (order.getMedicalService() == null || order.getMedicalService().getBasePrice() == null) {
-                continue;
-            }
-
-            BigDecimal price = BigDecimal.valueOf(order.getMedicalService().getBasePrice());
-
-            BillingItem item = new BillingItem();
-            item.setItemType(BillingItemType.SERVICE);
-            item.setDescription(order.getMedicalService().getName());
-            item.setQuantity(1);
-            item.setUnitPrice(price);
-            item.setServiceOrderId(order.getId());
-            item.setMedicalServiceId(order.getMedicalService().getId());
-            item.recalculateAmount();
-
-            billing.addItem(item);
+    private long resolveVersion(Billing billing, Long requestedVersion) {
+        if (requestedVersion != null && !requestedVersion.equals(billing.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Billing.class, billing.getId());
         }
+        return billing.getVersion() != null ? billing.getVersion() : 0L;
     }
 
-    private void populateMedicationItems(Billing billing, Long visitId) {
-        List<Prescription> prescriptions = prescriptionRepository.findByVisitIdOrderByIssuedAtDesc(visitId);
-        for (Prescription prescription : prescriptions) {
-            for (PrescriptionItem item : prescription.getItems()) {
-                BillingItem billingItem = new BillingItem();
-                billingItem.setItemType(BillingItemType.MEDICATION);
-
-                String name = item.getMedicationName();
-                Medication medication = item.getMedication();
-
-                if (!StringUtils.hasText(name) && medication != null) {
-                    name = medication.getName();
-                }
-                if (!StringUtils.hasText(name)) {
-                    name = "Thuốc";
-                }
-                // Keep description as medication name only. Do not append dosage to avoid
-                // showing quantity-like suffixes (e.g. "Paracetamol 500mg - 1"). If needed,
-                // dosage/frequency can be shown separately in the UI in the future.
-                billingItem.setDescription(name);
-
-                // Số lượng là số đơn vị trực tiếp (viên hoặc gói), không còn tính theo hộp
-                int quantity = item.getQuantity() != null ? item.getQuantity() : 1;
-                billingItem.setQuantity(quantity);
-
-                // Lấy giá từ snapshot (đã lưu khi tạo prescription) hoặc từ Medication hiện tại
-                // unitPrice là giá cho 1 đơn vị (1 viên hoặc 1 gói), không còn tính theo hộp
-                BigDecimal unitPrice = BigDecimal.ZERO;
-                if (item.getUnitPriceSnapshot() != null) {
-                    // Ưu tiên dùng giá snapshot (giá tại thời điểm kê đơn)
-                    unitPrice = item.getUnitPriceSnapshot();
-                } else if (medication != null && medication.getUnitPrice() != null) {
-                    // Fallback: lấy giá từ Medication nếu snapshot không có
-                    unitPrice = medication.getUnitPrice();
-                }
-
-                billingItem.setUnitPrice(unitPrice);
-                billingItem.setPrescriptionItemId(item.getId());
+    // Chỉ cập nhật các tổng bằng phép cộng chênh lệch; hóa đơn đã bị sửa song song thì cả giao dịch bị hủy.
+    // Hóa đơn đang giữ đúng phiên bản mong đợi nên số còn nợ mới kiểm tra ở đây khớp với điều kiện của câu UPDATE.
+    private void applyDelta(Billing billing, long expectedVersion, TotalsDelta delta) {
+        if (billing.getStatus() != BillingStatus.CANCELLED
+                && billing.getOutstandingAmount().add(delta.total()).signum() < 0) {
+            throw new IllegalStateException("Tổng tiền mới thấp hơn số đã thu " + billing.getPaidAmount()
+                    + ", cần ghi nhận hoàn tiền trước.");
+        }
+        int updated = billingRepository.applyTotalsDelta(billing.getId(), expectedVersion,
+                delta.service, delta.medication, delta.other, Instant.now());
+        if (updated == 0) {
+            throw new ObjectOptimisticLockingFailureException(Billing.class, billing.getId());
+        }
+    }
 
-                if (medication != null) {
-                    billingItem.setMedicationId(medication.getId());
-                }
+    // Hóa đơn đã bị tách khỏi persistence context sau applyDelta; tổng mới suy ra từ tổng cũ cộng chênh lệch.
+    private void recordItemsChanged(Billing billing, TotalsDelta delta) {
+        BigDecimal previousTotal = billing.getTotalAmount() != null ? billing.getTotalAmount() : BigDecimal.ZERO;
+        recordEvent(BillingEventType.ITEMS_CHANGED, billing, null, previousTotal.add(delta.total()), delta.total());
+    }
 
-                // Tính amount = quantity * unitPrice (đơn giản, không còn logic hộp)
-                billingItem.recalculateAmount();
+    private void recordEvent(BillingEventType type, Billing billing, BillingStatus previousStatus,
+            BigDecimal totalAmount, BigDecimal totalDelta) {
+        BillingDomainEvent event = BillingDomainEvent.of(type, billing.getId(),
+                billing.getVisit() != null ? billing.getVisit().getId() : null,
+                billing.getPatient() != null ? billing.getPatient().getId() : null,
+                billing.getStatus(), totalAmount, totalDelta);
+        event.setPreviousStatus(previousStatus);
+        outboxService.appendBillingEvent(event);
+    }
 
-                billing.addItem(billingItem);
-            }
-        }
+    private User currentUser() {
+        return SecurityUtil.getCurrentUserLogin()
+                .flatMap(userRepository::findByEmail)
+                .orElse(null);
     }
 
     private String normalizeText(String text) {
@@ -274,6 +375,38 @@ public class BillingService {
     @Transactional
     public void deleteBilling(Long id) {
         Billing billing = getById(id);
+        if (billingPaymentService.hasPayments(id)) {
+            throw new IllegalStateException("Không thể xóa hóa đơn đã có thanh toán, hãy hủy hóa đơn.");
+        }
+        BigDecimal total = billing.getTotalAmount() != null ? billing.getTotalAmount() : BigDecimal.ZERO;
+        recordEvent(BillingEventType.DELETED, billing, null, BigDecimal.ZERO, total.negate());
         billingRepository.delete(billing);
     }
+
+    private static class TotalsDelta {
+        private BigDecimal service = BigDecimal.ZERO;
+        private BigDecimal medication = BigDecimal.ZERO;
+        private BigDecimal other = BigDecimal.ZERO;
+
+        void add(BillingItemType type, BigDecimal amount) {
+            if (amount == null) {
+                return;
+            }
+            switch (type) {
+                case SERVICE -> service = service.add(amount);
+                case MEDICATION -> medication = medication.add(amount);
+                default -> other = other.add(amount);
+            }
+        }
+
+        void subtract(BillingItemType type, BigDecimal amount) {
+            if (amount != null) {
+                add(type, amount.negate());
+            }
+        }
+
+        BigDecimal total() {
+            return service.add(medication).add(other);
+        }
+    }
 }
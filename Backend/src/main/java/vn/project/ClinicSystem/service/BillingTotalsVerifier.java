@@ -0,0 +1,132 @@
+package vn.project.ClinicSystem.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+import vn.project.ClinicSystem.model.dto.BillingTotalsCheckResponse;
+import vn.project.ClinicSystem.model.dto.BillingTotalsDrift;
+import vn.project.ClinicSystem.repository.BillingRepository;
+import vn.project.ClinicSystem.repository.BillingRepository.BillingTotalsRow;
+
+/**
+ * Đối chiếu định kỳ các tổng lưu trên hóa đơn với tổng tính lại từ các mục hóa đơn.
+ * Các tổng được cập nhật bằng phép cộng chênh lệch, nên lệch ở đây nghĩa là có chỗ ghi dữ liệu
+ * bỏ qua {@link BillingService}; kết quả chỉ được ghi log và báo cáo, không tự sửa.
+ */
+@Slf4j
+@Component
+public class BillingTotalsVerifier {
+
+    private static final int PAGE_SIZE = 500;
+    private static final int MAX_REPORTED_DRIFTS = 200;
+
+    private final BillingRepository billingRepository;
+    private final boolean enabled;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile BillingTotalsCheckResponse lastReport;
+
+    public BillingTotalsVerifier(BillingRepository billingRepository,
+            @Value("${clinicsystem.billing.totals-check.enabled:true}") boolean enabled) {
+        this.billingRepository = billingRepository;
+        this.enabled = enabled;
+    }
+
+    @Scheduled(cron = "${clinicsystem.billing.totals-check.cron:0 15 3 * * *}")
+    public void verifyNightly() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            verify();
+        } catch (IllegalStateException ex) {
+            log.warn("Bỏ qua lần đối chiếu tổng hóa đơn theo lịch: {}", ex.getMessage());
+        }
+    }
+
+    public BillingTotalsCheckResponse verify() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Đang đối chiếu tổng hóa đơn, vui lòng thử lại sau");
+        }
+        try {
+            long checked = 0;
+            int driftCount = 0;
+            List<BillingTotalsDrift> drifts = new ArrayList<>();
+            long afterId = 0L;
+            while (true) {
+                List<BillingTotalsRow> rows = billingRepository.findTotalsWithItemSums(
+                        afterId, PageRequest.of(0, PAGE_SIZE));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                for (BillingTotalsRow row : rows) {
+                    checked++;
+                    BillingTotalsDrift drift = toDrift(row);
+                    if (drift != null) {
+                        driftCount++;
+                        if (drifts.size() < MAX_REPORTED_DRIFTS) {
+                            drifts.add(drift);
+                        }
+                        log.warn("Hóa đơn {} lệch tổng: lưu {} / tính lại {}", row.getBillingId(),
+                                drift.getStoredTotalAmount(), drift.getItemTotalAmount());
+                    }
+                }
+                afterId = rows.get(rows.size() - 1).getBillingId();
+            }
+
+            BillingTotalsCheckResponse report = BillingTotalsCheckResponse.builder()
+                    .checkedAt(Instant.now())
+                    .billingsChecked(checked)
+                    .driftCount(driftCount)
+                    .drifts(drifts)
+                    .build();
+            lastReport = report;
+            log.info("Đối chiếu tổng hóa đơn: {} hóa đơn, {} hóa đơn lệch", checked, driftCount);
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public BillingTotalsCheckResponse getLastReport() {
+        return lastReport;
+    }
+
+    private BillingTotalsDrift toDrift(BillingTotalsRow row) {
+        BigDecimal itemTotal = row.getItemServiceTotal()
+                .add(row.getItemMedicationTotal())
+                .add(row.getItemOtherTotal());
+        boolean matches = sameAmount(row.getServiceTotal(), row.getItemServiceTotal())
+                && sameAmount(row.getMedicationTotal(), row.getItemMedicationTotal())
+                && sameAmount(row.getOtherTotal(), row.getItemOtherTotal())
+                && sameAmount(row.getTotalAmount(), itemTotal);
+        if (matches) {
+            return null;
+        }
+        return BillingTotalsDrift.builder()
+                .billingId(row.getBillingId())
+                .storedServiceTotal(row.getServiceTotal())
+                .storedMedicationTotal(row.getMedicationTotal())
+                .storedOtherTotal(row.getOtherTotal())
+                .storedTotalAmount(row.getTotalAmount())
+                .itemServiceTotal(row.getItemServiceTotal())
+                .itemMedicationTotal(row.getItemMedicationTotal())
+                .itemOtherTotal(row.getItemOtherTotal())
+                .itemTotalAmount(itemTotal)
+                .build();
+    }
+
+    private boolean sameAmount(BigDecimal stored, BigDecimal computed) {
+        BigDecimal left = stored != null ? stored : BigDecimal.ZERO;
+        BigDecimal right = computed != null ? computed : BigDecimal.ZERO;
+        return left.compareTo(right) == 0;
+    }
+}
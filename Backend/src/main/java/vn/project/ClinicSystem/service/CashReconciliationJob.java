@@ -0,0 +1,39 @@
+package vn.project.ClinicSystem.service;
+
+import java.time.LocalDate;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+import vn.project.ClinicSystem.model.dto.CashReconciliationResponse;
+
+/**
+ * Chốt sổ ngày hôm trước ngay sau nửa đêm để tra cứu lịch sử không phải quét lại hóa đơn.
+ */
+@Slf4j
+@Component
+public class CashReconciliationJob {
+
+    private final CashReconciliationService cashReconciliationService;
+
+    public CashReconciliationJob(CashReconciliationService cashReconciliationService) {
+        this.cashReconciliationService = cashReconciliationService;
+    }
+
+    @Scheduled(cron = "${clinicsystem.billing.reconciliation.cron:0 10 0 * * *}")
+    public void snapshotPreviousDay() {
+        LocalDate businessDate = LocalDate.now().minusDays(1);
+        try {
+            CashReconciliationResponse report = cashReconciliationService.snapshot(businessDate);
+            if (report.getMismatchCount() > 0) {
+                log.warn("Chốt sổ {}: {} hóa đơn có tổng tiền không khớp với các mục", businessDate,
+                        report.getMismatchCount());
+            }
+            log.info("Đã chốt sổ ngày {}: đã thu {}, chưa thu {}, đã hủy {}", businessDate,
+                    report.getPaidTotal(), report.getUnpaidTotal(), report.getCancelledTotal());
+        } catch (RuntimeException ex) {
+            log.error("Chốt sổ ngày {} thất bại", businessDate, ex);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package vn.project.ClinicSystem.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import vn.project.ClinicSystem.model.CashReconciliationSnapshot;
+import vn.project.ClinicSystem.model.dto.CashReconciliationLine;
+import vn.project.ClinicSystem.model.dto.CashReconciliationResponse;
+import vn.project.ClinicSystem.repository.BillingPaymentRepository;
+import vn.project.ClinicSystem.repository.BillingPaymentRepository.PaymentDayRow;
+import vn.project.ClinicSystem.repository.BillingRepository;
+import vn.project.ClinicSystem.repository.BillingRepository.BillingMismatchRow;
+import vn.project.ClinicSystem.repository.BillingRepository.CashReconciliationRow;
+import vn.project.ClinicSystem.repository.CashReconciliationSnapshotRepository;
+
+@Service
+@Transactional(readOnly = true)
+public class CashReconciliationService {
+
+    private static final Comparator<CashReconciliationLine> LINE_ORDER = Comparator
+            .comparing(CashReconciliationLine::getCashierName, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(CashReconciliationLine::getPaymentMethod, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final BillingRepository billingRepository;
+    private final BillingPaymentRepository billingPaymentRepository;
+    private final CashReconciliationSnapshotRepository snapshotRepository;
+
+    public CashReconciliationService(BillingRepository billingRepository,
+            BillingPaymentRepository billingPaymentRepository,
+            CashReconciliationSnapshotRepository snapshotRepository) {
+        this.billingRepository = billingRepository;
+        this.billingPaymentRepository = billingPaymentRepository;
+        this.snapshotRepository = snapshotRepository;
+    }
+
+    /**
+     * Ngày đã chốt sổ được đọc từ bản chốt; ngày hiện tại, ngày chưa chốt hoặc khi yêu cầu
+     * {@code refresh} thì tính trực tiếp từ hóa đơn.
+     */
+    public CashReconciliationResponse getReport(LocalDate date, boolean refresh) {
+        LocalDate businessDate = date != null ? date : LocalDate.now();
+        if (!refresh && businessDate.isBefore(LocalDate.now())) {
+            List<CashReconciliationSnapshot> snapshots = snapshotRepository
+                    .findByBusinessDateOrderByCashierNameAscPaymentMethodAsc(businessDate);
+            if (!snapshots.isEmpty()) {
+                return fromSnapshots(businessDate, snapshots);
+            }
+        }
+        return compute(businessDate);
+    }
+
+    public CashReconciliationResponse compute(LocalDate businessDate) {
+        LocalDateTime start = businessDate.atStartOfDay();
+        LocalDateTime end = businessDate.plusDays(1).atStartOfDay();
+
+        List<BillingMismatchRow> mismatches = billingRepository.findMismatchedInDay(start, end);
+        Map<String, Long> mismatchByGroup = new HashMap<>();
+        List<Long> mismatchedIds = new ArrayList<>(mismatches.size());
+        for (BillingMismatchRow mismatch : mismatches) {
+            mismatchByGroup.merge(groupKey(mismatch.getCashierId(), mismatch.getPaymentMethod()), 1L, Long::sum);
+            mismatchedIds.add(mismatch.getBillingId());
+        }
+
+        // Tiền đã thu đi theo từng khoản trong sổ (ngày thu, người thu, phương thức của khoản đó); chưa thu
+        // và đã hủy đi theo hóa đơn. Hai phần được gộp theo cùng cặp thu ngân + phương thức.
+        Map<String, CashReconciliationLine.CashReconciliationLineBuilder> groups = new LinkedHashMap<>();
+        for (PaymentDayRow row : billingPaymentRepository.summarizeDay(start, end)) {
+            group(groups, row.getCashierId(), row.getCashierName(), row.getMethod())
+                    .paidCount(count(row.getPaymentCount()))
+                    .paidTotal(amount(row.getPaidTotal()));
+        }
+        for (CashReconciliationRow row : billingRepository.summarizeDay(start, end)) {
+            if (count(row.getUnpaidCount()) == 0 && count(row.getCancelledCount()) == 0) {
+                continue;
+            }
+            group(groups, row.getCashierId(), row.getCashierName(), row.getPaymentMethod())
+                    .unpaidCount(count(row.getUnpaidCount()))
+                    .unpaidTotal(amount(row.getUnpaidTotal()))
+                    .cancelledCount(count(row.getCancelledCount()))
+                    .cancelledTotal(amount(row.getCancelledTotal()));
+        }
+        for (BillingMismatchRow mismatch : mismatches) {
+            group(groups, mismatch.getCashierId(), mismatch.getCashierName(), mismatch.getPaymentMethod());
+        }
+
+        List<CashReconciliationLine> lines = new ArrayList<>(groups.size());
+        for (Map.Entry<String, CashReconciliationLine.CashReconciliationLineBuilder> entry : groups.entrySet()) {
+            lines.add(entry.getValue().mismatchCount(mismatchByGroup.getOrDefault(entry.getKey(), 0L)).build());
+        }
+        lines.sort(LINE_ORDER);
+        return buildResponse(businessDate, false, Instant.now(), lines, mismatchedIds);
+    }
+
+    private CashReconciliationLine.CashReconciliationLineBuilder group(
+            Map<String, CashReconciliationLine.CashReconciliationLineBuilder> groups, Long cashierId,
+            String cashierName, String paymentMethod) {
+        CashReconciliationLine.CashReconciliationLineBuilder builder = groups.computeIfAbsent(
+                groupKey(cashierId, paymentMethod), key -> CashReconciliationLine.builder()
+                        .cashierId(cashierId)
+                        .paymentMethod(paymentMethod)
+                        .paidTotal(BigDecimal.ZERO)
+                        .unpaidTotal(BigDecimal.ZERO)
+                        .cancelledTotal(BigDecimal.ZERO));
+        if (cashierName != null) {
+            builder.cashierName(cashierName);
+        }
+        return builder;
+    }
+
+    @Transactional
+    public CashReconciliationResponse snapshot(LocalDate businessDate) {
+        CashReconciliationResponse report = compute(businessDate);
+        snapshotRepository.deleteByBusinessDate(businessDate);
+        List<CashReconciliationSnapshot> snapshots = new ArrayList<>(report.getLines().size());
+        for (CashReconciliationLine line : report.getLines()) {
+            CashReconciliationSnapshot snapshot = new CashReconciliationSnapshot();
+            snapshot.setBusinessDate(businessDate);
+            snapshot.setCashierId(line.getCashierId());
+            snapshot.setCashierName(line.getCashierName());
+            snapshot.setPaymentMethod(line.getPaymentMethod());
+            snapshot.setPaidCount(line.getPaidCount());
+            snapshot.setPaidTotal(line.getPaidTotal());
+            snapshot.setUnpaidCount(line.getUnpaidCount());
+            snapshot.setUnpaidTotal(line.getUnpaidTotal());
+            snapshot.setCancelledCount(line.getCancelledCount());
+            snapshot.setCancelledTotal(line.getCancelledTotal());
+            snapshot.setMismatchCount(line.getMismatchCount());
+            snapshot.setComputedAt(report.getComputedAt());
+            snapshots.add(snapshot);
+        }
+        snapshotRepository.saveAll(snapshots);
+        return report;
+    }
+
+    private CashReconciliationResponse fromSnapshots(LocalDate businessDate,
+            List<CashReconciliationSnapshot> snapshots) {
+        List<CashReconciliationLine> lines = snapshots.stream()
+                .map(snapshot -> CashReconciliationLine.builder()
+                        .cashierId(snapshot.getCashierId())
+                        .cashierName(snapshot.getCashierName())
+                        .paymentMethod(snapshot.getPaymentMethod())
+                        .paidCount(snapshot.getPaidCount())
+                        .paidTotal(snapshot.getPaidTotal())
+                        .unpaidCount(snapshot.getUnpaidCount())
+                        .unpaidTotal(snapshot.getUnpaidTotal())
+                        .cancelledCount(snapshot.getCancelledCount())
+                        .cancelledTotal(snapshot.getCancelledTotal())
+                        .mismatchCount(snapshot.getMismatchCount())
+                        .build())
+                .toList();
+        return buildResponse(businessDate, true, snapshots.get(0).getComputedAt(), lines, null);
+    }
+
+    private CashReconciliationResponse buildResponse(LocalDate businessDate, boolean fromSnapshot,
+            Instant computedAt, List<CashReconciliationLine> lines, List<Long> mismatchedIds) {
+        BigDecimal paid = BigDecimal.ZERO;
+        BigDecimal unpaid = BigDecimal.ZERO;
+        BigDecimal cancelled = BigDecimal.ZERO;
+        long mismatchCount = 0;
+        for (CashReconciliationLine line : lines) {
+            paid = paid.add(line.getPaidTotal());
+            unpaid = unpaid.add(line.getUnpaidTotal());
+            cancelled = cancelled.add(line.getCancelledTotal());
+            mismatchCount += line.getMismatchCount();
+        }
+        return CashReconciliationResponse.builder()
+                .businessDate(businessDate)
+                .fromSnapshot(fromSnapshot)
+                .computedAt(computedAt)
+                .paidTotal(paid)
+                .unpaidTotal(unpaid)
+                .cancelledTotal(cancelled)
+                .mismatchCount(mismatchCount)
+                .lines(lines)
+                .mismatchedBillingIds(mismatchedIds)
+                .build();
+    }
+
+    private String groupKey(Long cashierId, String paymentMethod) {
+        return Objects.toString(cashierId, "") + "|" + Objects.toString(paymentMethod, "");
+    }
+
+    private long count(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private BigDecimal amount(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
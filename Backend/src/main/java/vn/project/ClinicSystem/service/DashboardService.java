@@ -6,9 +6,11 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import vn.project.ClinicSystem.config.cache.CacheNames;
 import vn.project.ClinicSystem.model.enums.AppointmentLifecycleStatus;
 import vn.project.ClinicSystem.model.enums.VisitStatus;
 import vn.project.ClinicSystem.model.dto.DashboardSummaryResponse;
@@ -33,6 +35,7 @@ public class DashboardService {
         this.patientVisitRepository = patientVisitRepository;
     }
 
+    @Cacheable(cacheNames = CacheNames.DASHBOARD_SUMMARY, key = "T(java.time.LocalDate).now()")
     public DashboardSummaryResponse getTodaySummary() {
         LocalDate today = LocalDate.now(zoneId);
         LocalDateTime startOfDayLocal = today.atStartOfDay();
@@ -0,0 +1,294 @@
+package vn.project.ClinicSystem.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import vn.project.ClinicSystem.config.cache.CacheNames;
+import vn.project.ClinicSystem.model.Disease;
+import vn.project.ClinicSystem.model.dto.DiseaseTrendResponse;
+import vn.project.ClinicSystem.model.dto.DiseaseTrendSeries;
+import vn.project.ClinicSystem.model.dto.DiseaseWeeklyChange;
+import vn.project.ClinicSystem.model.dto.DiseaseWeeklyChangeResponse;
+import vn.project.ClinicSystem.model.enums.StatGranularity;
+import vn.project.ClinicSystem.repository.DiseaseRepository;
+import vn.project.ClinicSystem.repository.DiseaseVisitDailyStatRepository;
+import vn.project.ClinicSystem.repository.DiseaseVisitDailyStatRepository.DiseaseVisitDailyCount;
+import vn.project.ClinicSystem.repository.DiseaseVisitDailyStatRepository.DiseaseVisitExportRow;
+import vn.project.ClinicSystem.repository.DiseaseVisitDailyStatRepository.DiseaseVisitTotal;
+import vn.project.ClinicSystem.service.event.DataChangedEvent;
+import vn.project.ClinicSystem.service.event.DataDomain;
+
+@Service
+@Transactional(readOnly = true)
+public class DiseaseAnalyticsService {
+
+    private static final int DEFAULT_TOP = 10;
+    private static final int MAX_TOP = 50;
+    private static final long MAX_RANGE_DAYS = 3 * 366;
+    private static final int DEFAULT_TREND_WEEKS = 12;
+
+    private final DiseaseVisitDailyStatRepository statRepository;
+    private final DiseaseRepository diseaseRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ZoneId zoneId = ZoneId.systemDefault();
+
+    public DiseaseAnalyticsService(DiseaseVisitDailyStatRepository statRepository,
+            DiseaseRepository diseaseRepository,
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher) {
+        this.statRepository = statRepository;
+        this.diseaseRepository = diseaseRepository;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Cộng/trừ số lượt khám của các bệnh được thêm/bỏ khỏi một hồ sơ khám.
+     * Ngày thống kê là ngày tạo hồ sơ khám, không phải ngày chỉnh sửa.
+     */
+    @Transactional
+    public void recordDiseaseChange(Instant visitCreatedAt, Collection<Long> before, Collection<Long> after) {
+        Set<Long> removed = new TreeSet<>(before != null ? before : Collections.emptySet());
+        Set<Long> added = new TreeSet<>(after != null ? after : Collections.emptySet());
+        Set<Long> unchanged = new TreeSet<>(removed);
+        unchanged.retainAll(added);
+        removed.removeAll(unchanged);
+        added.removeAll(unchanged);
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+
+        LocalDate statDate = LocalDate.ofInstant(visitCreatedAt != null ? visitCreatedAt : Instant.now(), zoneId);
+        Instant now = Instant.now();
+        // Cập nhật theo thứ tự id tăng dần để các giao dịch song song khóa dòng theo cùng một thứ tự.
+        Set<Long> affected = new TreeSet<>(removed);
+        affected.addAll(added);
+        for (Long diseaseId : affected) {
+            statRepository.applyDelta(diseaseId, statDate, added.contains(diseaseId) ? 1 : -1, now);
+        }
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.VISIT_DIAGNOSIS));
+    }
+
+    @Transactional
+    public int rebuild() {
+        statRepository.deleteAllRows();
+        int offsetMinutes = zoneId.getRules().getOffset(Instant.now()).getTotalSeconds() / 60;
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.VISIT_DIAGNOSIS));
+        return statRepository.rebuildFromVisits(offsetMinutes, Instant.now());
+    }
+
+    @Cacheable(CacheNames.DISEASE_TREND)
+    public DiseaseTrendResponse getTrend(LocalDate from, LocalDate to, String granularityParam, Integer top) {
+        StatGranularity granularity = parseGranularity(granularityParam);
+        LocalDate end = to != null ? to : LocalDate.now(zoneId);
+        LocalDate start = from != null ? from : end.minusWeeks(DEFAULT_TREND_WEEKS).plusDays(1);
+        validateRange(start, end);
+
+        List<LocalDate> buckets = new ArrayList<>();
+        Map<LocalDate, Integer> bucketIndexes = new HashMap<>();
+        for (LocalDate bucket = granularity.bucketStart(start); !bucket.isAfter(end); bucket = granularity.next(bucket)) {
+            bucketIndexes.put(bucket, buckets.size());
+            buckets.add(bucket);
+        }
+
+        List<DiseaseVisitTotal> totals = statRepository.findTopDiseases(start, end,
+                PageRequest.of(0, normalizeLimit(top)));
+        if (totals.isEmpty()) {
+            return DiseaseTrendResponse.builder()
+                    .from(start)
+                    .to(end)
+                    .granularity(granularity)
+                    .buckets(buckets)
+                    .series(List.of())
+                    .build();
+        }
+
+        List<Long> diseaseIds = totals.stream().map(DiseaseVisitTotal::getDiseaseId).toList();
+        Map<Long, long[]> countsByDisease = new HashMap<>();
+        diseaseIds.forEach(id -> countsByDisease.put(id, new long[buckets.size()]));
+        for (DiseaseVisitDailyCount row : statRepository.findDailyCounts(diseaseIds, start, end)) {
+            Integer index = bucketIndexes.get(granularity.bucketStart(row.getStatDate()));
+            if (index != null) {
+                countsByDisease.get(row.getDiseaseId())[index] += row.getVisitCount();
+            }
+        }
+
+        Map<Long, Disease> diseases = loadDiseases(diseaseIds);
+        List<DiseaseTrendSeries> series = totals.stream()
+                .map(total -> {
+                    Disease disease = diseases.get(total.getDiseaseId());
+                    return DiseaseTrendSeries.builder()
+                            .diseaseId(total.getDiseaseId())
+                            .code(disease != null ? disease.getCode() : null)
+                            .name(disease != null ? disease.getName() : null)
+                            .total(total.getVisitCount())
+                            .counts(Arrays.stream(countsByDisease.get(total.getDiseaseId()))
+                                    .boxed()
+                                    .toList())
+                            .build();
+                })
+                .toList();
+
+        return DiseaseTrendResponse.builder()
+                .from(start)
+                .to(end)
+                .granularity(granularity)
+                .buckets(buckets)
+                .series(series)
+                .build();
+    }
+
+    @Cacheable(CacheNames.DISEASE_WEEKLY_CHANGES)
+    public DiseaseWeeklyChangeResponse getWeeklyChanges(LocalDate weekOf, Integer limit) {
+        LocalDate weekStart = StatGranularity.WEEK.bucketStart(weekOf != null ? weekOf : LocalDate.now(zoneId));
+        LocalDate previousWeekStart = weekStart.minusWeeks(1);
+
+        List<DiseaseVisitTotal> current = statRepository.findTopDiseases(weekStart, weekStart.plusDays(6),
+                PageRequest.of(0, normalizeLimit(limit)));
+        if (current.isEmpty()) {
+            return DiseaseWeeklyChangeResponse.builder()
+                    .weekStart(weekStart)
+                    .previousWeekStart(previousWeekStart)
+                    .items(List.of())
+                    .build();
+        }
+
+        List<Long> diseaseIds = current.stream().map(DiseaseVisitTotal::getDiseaseId).toList();
+        Map<Long, Long> previous = statRepository
+                .sumByDiseases(diseaseIds, previousWeekStart, weekStart.minusDays(1))
+                .stream()
+                .collect(Collectors.toMap(DiseaseVisitTotal::getDiseaseId, DiseaseVisitTotal::getVisitCount));
+        Map<Long, Disease> diseases = loadDiseases(diseaseIds);
+
+        List<DiseaseWeeklyChange> items = current.stream()
+                .map(total -> {
+                    long currentCount = total.getVisitCount();
+                    long previousCount = previous.getOrDefault(total.getDiseaseId(), 0L);
+                    Disease disease = diseases.get(total.getDiseaseId());
+                    return DiseaseWeeklyChange.builder()
+                            .diseaseId(total.getDiseaseId())
+                            .code(disease != null ? disease.getCode() : null)
+                            .name(disease != null ? disease.getName() : null)
+                            .currentWeek(currentCount)
+                            .previousWeek(previousCount)
+                            .delta(currentCount - previousCount)
+                            .changePercent(changePercent(currentCount, previousCount))
+                            .build();
+                })
+                .toList();
+
+        return DiseaseWeeklyChangeResponse.builder()
+                .weekStart(weekStart)
+                .previousWeekStart(previousWeekStart)
+                .items(items)
+                .build();
+    }
+
+    /**
+     * Ghi dữ liệu tổng hợp dưới dạng NDJSON (mỗi dòng một bản ghi bệnh/ngày) cho pipeline
+     * huấn luyện của ai-diagnosis-service. Dữ liệu được đọc theo luồng, không nạp hết vào bộ nhớ.
+     */
+    public void exportNdjson(LocalDate from, LocalDate to, OutputStream outputStream) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Ngày bắt đầu phải trước hoặc bằng ngày kết thúc");
+        }
+        try (Stream<DiseaseVisitExportRow> rows = statRepository.streamForExport(from, to);
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            generator.setRootValueSeparator(null);
+            rows.forEach(row -> writeExportRow(generator, row));
+            generator.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void writeExportRow(JsonGenerator generator, DiseaseVisitExportRow row) {
+        try {
+            generator.writeStartObject();
+            generator.writeStringField("date", row.getStatDate().toString());
+            generator.writeNumberField("diseaseId", row.getDiseaseId());
+            generator.writeStringField("diseaseCode", row.getDiseaseCode());
+            generator.writeStringField("diseaseName", row.getDiseaseName());
+            generator.writeNumberField("visitCount", row.getVisitCount());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private Map<Long, Disease> loadDiseases(List<Long> diseaseIds) {
+        return diseaseRepository.findAllById(diseaseIds).stream()
+                .collect(Collectors.toMap(Disease::getId, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private Double changePercent(long current, long previous) {
+        if (previous == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(current - previous)
+                .multiply(BigDecimal.valueOf(100))
+                .divide(BigDecimal.valueOf(previous), 1, RoundingMode.HALF_UP)
+                .doubleValue();
+    }
+
+    private StatGranularity parseGranularity(String granularityParam) {
+        if (!StringUtils.hasText(granularityParam)) {
+            return StatGranularity.WEEK;
+        }
+        try {
+            return StatGranularity.valueOf(granularityParam.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Đơn vị thời gian không hợp lệ, chỉ chấp nhận DAY, WEEK hoặc MONTH");
+        }
+    }
+
+    private void validateRange(LocalDate start, LocalDate end) {
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Ngày bắt đầu phải trước hoặc bằng ngày kết thúc");
+        }
+        if (ChronoUnit.DAYS.between(start, end) > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Khoảng thời gian thống kê không được vượt quá 3 năm");
+        }
+    }
+
+    private int normalizeLimit(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_TOP;
+        }
+        return Math.min(limit, MAX_TOP);
+    }
+}
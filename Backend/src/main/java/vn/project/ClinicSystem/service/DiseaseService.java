@@ -2,6 +2,8 @@ package vn.project.ClinicSystem.service;
 
 import java.util.List;
 
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -12,12 +14,16 @@ import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Validator;
+import vn.project.ClinicSystem.config.cache.CacheNames;
 import vn.project.ClinicSystem.model.Disease;
 import vn.project.ClinicSystem.model.dto.DiseasePageResponse;
 import vn.project.ClinicSystem.model.dto.DiseaseRequest;
+import vn.project.ClinicSystem.model.dto.DiseaseResponse;
 import vn.project.ClinicSystem.model.dto.DiseaseUpdateRequest;
 import vn.project.ClinicSystem.repository.DiseaseRepository;
 import vn.project.ClinicSystem.repository.PatientVisitRepository;
+import vn.project.ClinicSystem.service.event.DataChangedEvent;
+import vn.project.ClinicSystem.service.event.DataDomain;
 
 @Service
 @Transactional(readOnly = true)
@@ -26,17 +32,22 @@ public class DiseaseService {
     private final DiseaseRepository diseaseRepository;
     private final PatientVisitRepository patientVisitRepository;
     private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
 
     public DiseaseService(DiseaseRepository diseaseRepository,
             PatientVisitRepository patientVisitRepository,
-            Validator validator) {
+            Validator validator,
+            ApplicationEventPublisher eventPublisher) {
         this.diseaseRepository = diseaseRepository;
         this.patientVisitRepository = patientVisitRepository;
         this.validator = validator;
+        this.eventPublisher = eventPublisher;
     }
 
-    public List<Disease> findAll() {
-        return diseaseRepository.findAll();
+    // Cache giữ DTO không đổi, không giữ entity: entity trong cache có thể bị sửa hoặc gắn lại vào phiên khác.
+    @Cacheable(CacheNames.DISEASES)
+    public List<DiseaseResponse> findAll() {
+        return diseaseRepository.findAll().stream().map(DiseaseResponse::from).toList();
     }
 
     public List<Disease> search(String keyword) {
@@ -65,6 +76,7 @@ public class DiseaseService {
 
         ensureCodeUnique(disease.getCode(), null);
         validateBean(disease);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.DISEASE));
         return diseaseRepository.save(disease);
     }
 
@@ -87,6 +99,7 @@ public class DiseaseService {
         }
 
         validateBean(disease);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.DISEASE));
         return diseaseRepository.save(disease);
     }
 
@@ -97,6 +110,7 @@ public class DiseaseService {
             throw new IllegalStateException("Không thể xóa bệnh đang được sử dụng trong hồ sơ khám.");
         }
         diseaseRepository.delete(disease);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.DISEASE));
     }
 
     private void ensureCodeUnique(String code, Long currentId) {
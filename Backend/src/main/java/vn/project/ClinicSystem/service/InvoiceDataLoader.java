@@ -0,0 +1,69 @@
+package vn.project.ClinicSystem.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.Getter;
+import vn.project.ClinicSystem.model.Prescription;
+import vn.project.ClinicSystem.model.ServiceOrder;
+import vn.project.ClinicSystem.repository.PrescriptionRepository;
+import vn.project.ClinicSystem.repository.ServiceOrderRepository;
+
+/**
+ * Nạp dữ liệu cần để lập hóa đơn: phiếu dịch vụ và đơn thuốc kèm từng dòng thuốc.
+ * Mỗi lần gọi dùng đúng hai truy vấn, dù là một hay nhiều hồ sơ khám. Dịch vụ và thuốc chỉ được
+ * tham chiếu qua id; giá và tên lấy từ {@link PriceCatalog}.
+ */
+@Component
+@Transactional(readOnly = true)
+public class InvoiceDataLoader {
+
+    private final ServiceOrderRepository serviceOrderRepository;
+    private final PrescriptionRepository prescriptionRepository;
+
+    public InvoiceDataLoader(ServiceOrderRepository serviceOrderRepository,
+            PrescriptionRepository prescriptionRepository) {
+        this.serviceOrderRepository = serviceOrderRepository;
+        this.prescriptionRepository = prescriptionRepository;
+    }
+
+    public InvoiceData load(Long visitId) {
+        return new InvoiceData(
+                serviceOrderRepository.findByVisitIdOrderByIdAsc(visitId),
+                prescriptionRepository.findWithItemsByVisitIdOrderByIssuedAtDesc(visitId));
+    }
+
+    public Map<Long, InvoiceData> loadAll(Collection<Long> visitIds) {
+        Map<Long, List<ServiceOrder>> ordersByVisit = serviceOrderRepository
+                .findByVisitIdInOrderByIdAsc(visitIds).stream()
+                .collect(Collectors.groupingBy(order -> order.getVisit().getId()));
+        Map<Long, List<Prescription>> prescriptionsByVisit = prescriptionRepository
+                .findWithItemsByVisitIdInOrderByIssuedAtDesc(visitIds).stream()
+                .collect(Collectors.groupingBy(prescription -> prescription.getVisit().getId()));
+
+        Map<Long, InvoiceData> result = new HashMap<>();
+        for (Long visitId : visitIds) {
+            result.put(visitId, new InvoiceData(
+                    ordersByVisit.getOrDefault(visitId, List.of()),
+                    prescriptionsByVisit.getOrDefault(visitId, List.of())));
+        }
+        return result;
+    }
+
+    @Getter
+    public static class InvoiceData {
+        private final List<ServiceOrder> serviceOrders;
+        private final List<Prescription> prescriptions;
+
+        public InvoiceData(List<ServiceOrder> serviceOrders, List<Prescription> prescriptions) {
+            this.serviceOrders = serviceOrders;
+            this.prescriptions = prescriptions;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package vn.project.ClinicSystem.service;
 
 import java.util.List;
+import java.util.Objects;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -18,6 +20,8 @@ import vn.project.ClinicSystem.model.dto.MedicalServiceRequest;
 import vn.project.ClinicSystem.model.dto.MedicalServiceUpdateRequest;
 import vn.project.ClinicSystem.repository.ClinicRoomRepository;
 import vn.project.ClinicSystem.repository.MedicalServiceRepository;
+import vn.project.ClinicSystem.service.event.DataChangedEvent;
+import vn.project.ClinicSystem.service.event.DataDomain;
 
 @Service
 @Transactional(readOnly = true)
@@ -25,13 +29,16 @@ public class MedicalServiceService {
     private final MedicalServiceRepository medicalServiceRepository;
     private final ClinicRoomRepository clinicRoomRepository;
     private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
 
     public MedicalServiceService(MedicalServiceRepository medicalServiceRepository,
             ClinicRoomRepository clinicRoomRepository,
-            Validator validator) {
+            Validator validator,
+            ApplicationEventPublisher eventPublisher) {
         this.medicalServiceRepository = medicalServiceRepository;
         this.clinicRoomRepository = clinicRoomRepository;
         this.validator = validator;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<MedicalService> findAll() {
@@ -69,12 +76,17 @@ public class MedicalServiceService {
 
         validateBean(service);
         ensureCodeUnique(service.getCode(), null);
-        return medicalServiceRepository.save(service);
+        MedicalService saved = medicalServiceRepository.save(service);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.MEDICAL_SERVICE, saved.getId()));
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.PRICE_CATALOG, saved.getId()));
+        return saved;
     }
 
     @Transactional
     public MedicalService update(Long id, MedicalServiceUpdateRequest request) {
         MedicalService existing = getById(id);
+        String previousName = existing.getName();
+        Long previousPrice = existing.getBasePrice();
 
         if (request.getCode() != null && !normalizeCode(request.getCode()).equalsIgnoreCase(existing.getCode())) {
             String normalized = normalizeCode(request.getCode());
@@ -96,6 +108,11 @@ public class MedicalServiceService {
         }
 
         validateBean(existing);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.MEDICAL_SERVICE, existing.getId()));
+        if (!Objects.equals(previousName, existing.getName())
+                || !Objects.equals(previousPrice, existing.getBasePrice())) {
+            eventPublisher.publishEvent(new DataChangedEvent(DataDomain.PRICE_CATALOG, existing.getId()));
+        }
         return medicalServiceRepository.save(existing);
     }
 
@@ -105,6 +122,8 @@ public class MedicalServiceService {
             throw new EntityNotFoundException("Không tìm thấy dịch vụ với id: " + id);
         }
         medicalServiceRepository.deleteById(id);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.MEDICAL_SERVICE, id));
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.PRICE_CATALOG, id));
     }
 
     private void ensureCodeUnique(String code, Long currentServiceId) {
@@ -3,7 +3,10 @@ package vn.project.ClinicSystem.service;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.List;
+import java.util.Objects;
 
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -14,11 +17,15 @@ import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Validator;
+import vn.project.ClinicSystem.config.cache.CacheNames;
 import vn.project.ClinicSystem.model.Medication;
 import vn.project.ClinicSystem.model.dto.MedicationCreateRequest;
 import vn.project.ClinicSystem.model.dto.MedicationPageResponse;
+import vn.project.ClinicSystem.model.dto.MedicationResponse;
 import vn.project.ClinicSystem.model.dto.MedicationUpdateRequest;
 import vn.project.ClinicSystem.repository.MedicationRepository;
+import vn.project.ClinicSystem.service.event.DataChangedEvent;
+import vn.project.ClinicSystem.service.event.DataDomain;
 
 @Service
 @Transactional(readOnly = true)
@@ -26,14 +33,19 @@ public class MedicationService {
 
     private final MedicationRepository medicationRepository;
     private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public MedicationService(MedicationRepository medicationRepository, Validator validator) {
+    public MedicationService(MedicationRepository medicationRepository, Validator validator,
+            ApplicationEventPublisher eventPublisher) {
         this.medicationRepository = medicationRepository;
         this.validator = validator;
+        this.eventPublisher = eventPublisher;
     }
 
-    public List<Medication> findAll() {
-        return medicationRepository.findAll();
+    // Cache giữ DTO không đổi, không giữ entity: entity trong cache có thể bị sửa hoặc gắn lại vào phiên khác.
+    @Cacheable(CacheNames.MEDICATIONS)
+    public List<MedicationResponse> findAll() {
+        return medicationRepository.findAll().stream().map(MedicationResponse::from).toList();
     }
 
     public MedicationPageResponse getPaged(String keyword, Pageable pageable) {
@@ -69,12 +81,16 @@ public class MedicationService {
 
         ensureNameUnique(medication.getName(), null);
         validateBean(medication);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.MEDICATION));
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.PRICE_CATALOG));
         return medicationRepository.save(medication);
     }
 
     @Transactional
     public Medication update(Long id, MedicationUpdateRequest request) {
         Medication medication = getById(id);
+        String previousName = medication.getName();
+        BigDecimal previousPrice = medication.getUnitPrice();
 
         if (request.getName() != null) {
             String normalized = normalizeName(request.getName());
@@ -112,6 +128,11 @@ public class MedicationService {
         }
 
         validateBean(medication);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.MEDICATION));
+        if (!Objects.equals(previousName, medication.getName())
+                || !Objects.equals(previousPrice, medication.getUnitPrice())) {
+            eventPublisher.publishEvent(new DataChangedEvent(DataDomain.PRICE_CATALOG, medication.getId()));
+        }
         return medicationRepository.save(medication);
     }
 
@@ -122,6 +143,8 @@ public class MedicationService {
             throw new IllegalStateException("Không thể xóa thuốc đã được kê trong đơn thuốc.");
         }
         medicationRepository.delete(medication);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.MEDICATION));
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.PRICE_CATALOG, id));
     }
 
     private void ensureNameUnique(String name, Long currentMedicationId) {
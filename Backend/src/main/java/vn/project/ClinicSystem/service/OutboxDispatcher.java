@@ -0,0 +1,174 @@
+package vn.project.ClinicSystem.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import vn.project.ClinicSystem.model.OutboxEvent;
+import vn.project.ClinicSystem.repository.OutboxEventRepository;
+import vn.project.ClinicSystem.service.event.BillingDomainEvent;
+import vn.project.ClinicSystem.service.event.DataChangedEvent;
+import vn.project.ClinicSystem.service.event.DataDomain;
+
+/**
+ * Phát các sự kiện trong bảng outbox tới listener trong ứng dụng, trên một luồng riêng.
+ * <p>
+ * Sự kiện chỉ được đánh dấu đã phát khi mọi listener xử lý xong; listener ném lỗi thì sự kiện được
+ * thử lại với thời gian chờ tăng dần (ít nhất một lần). Dispatcher được đánh thức sau mỗi commit có
+ * ghi outbox và quét định kỳ để nhặt các sự kiện còn sót (ví dụ sau khi ứng dụng khởi động lại).
+ * <p>
+ * Khi chạy nhiều instance, mỗi lô được nhận trong một giao dịch ngắn: các dòng đến hạn bị khóa bằng
+ * {@code FOR UPDATE SKIP LOCKED} và {@code nextAttemptAt} được đẩy tới hết thời hạn nhận, nên instance
+ * khác không lấy lại lô này. Instance dừng giữa chừng thì lô đến hạn lại sau thời hạn nhận.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    private static final long MAX_BACKOFF_SECONDS = 600;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int retentionDays;
+    private final Duration claimLease;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "outbox-dispatcher"));
+    private final AtomicBoolean requested = new AtomicBoolean();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+            ApplicationEventPublisher eventPublisher,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${clinicsystem.outbox.batch-size:100}") int batchSize,
+            @Value("${clinicsystem.outbox.retention-days:7}") int retentionDays,
+            @Value("${clinicsystem.outbox.claim-lease-seconds:300}") long claimLeaseSeconds) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(batchSize, 1);
+        this.retentionDays = Math.max(retentionDays, 1);
+        this.claimLease = Duration.ofSeconds(Math.max(claimLeaseSeconds, 1));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onDataChanged(DataChangedEvent event) {
+        if (event.getDomain() == DataDomain.BILLING) {
+            trigger();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${clinicsystem.outbox.poll-interval-ms:10000}")
+    public void poll() {
+        trigger();
+    }
+
+    @Scheduled(cron = "${clinicsystem.outbox.cleanup-cron:0 45 3 * * *}")
+    public void cleanup() {
+        Instant before = Instant.now().minus(retentionDays, ChronoUnit.DAYS);
+        Integer deleted = transactionTemplate.execute(status -> outboxEventRepository.deletePublishedBefore(before));
+        log.info("Đã xóa {} sự kiện outbox đã phát trước {}", deleted, before);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Gộp nhiều lần đánh thức thành một lượt chạy; yêu cầu đến trong lúc đang chạy sẽ được chạy tiếp ngay sau.
+    private void trigger() {
+        requested.set(true);
+        if (running.compareAndSet(false, true)) {
+            executor.execute(this::drainLoop);
+        }
+    }
+
+    private void drainLoop() {
+        try {
+            while (requested.getAndSet(false)) {
+                drain();
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Phát sự kiện outbox thất bại: {}", ex.getMessage());
+        } finally {
+            running.set(false);
+            if (requested.get() && running.compareAndSet(false, true)) {
+                executor.execute(this::drainLoop);
+            }
+        }
+    }
+
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<OutboxEvent> batch = transactionTemplate.execute(status -> claim());
+            if (batch == null || batch.isEmpty()) {
+                return;
+            }
+            for (OutboxEvent event : batch) {
+                dispatch(event);
+            }
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.saveAll(batch));
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    // Chạy trong giao dịch: khóa chỉ giữ đến khi commit, sau đó thời hạn nhận giữ lô cho instance này.
+    private List<OutboxEvent> claim() {
+        Instant now = Instant.now();
+        List<OutboxEvent> batch = outboxEventRepository.findDueForClaim(now, PageRequest.of(0, batchSize));
+        Instant leaseUntil = now.plus(claimLease);
+        for (OutboxEvent event : batch) {
+            event.setNextAttemptAt(leaseUntil);
+        }
+        return batch;
+    }
+
+    private void dispatch(OutboxEvent event) {
+        try {
+            eventPublisher.publishEvent(deserialize(event));
+            event.setPublishedAt(Instant.now());
+            event.setLastError(null);
+        } catch (Exception ex) {
+            int attempts = event.getAttempts() + 1;
+            long backoff = Math.min(1L << Math.min(attempts, 20), MAX_BACKOFF_SECONDS);
+            event.setAttempts(attempts);
+            event.setNextAttemptAt(Instant.now().plus(Duration.ofSeconds(backoff)));
+            String message = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+            event.setLastError(message.length() > 500 ? message.substring(0, 500) : message);
+            log.warn("Sự kiện outbox {} ({}) lỗi lần {}: {}", event.getId(), event.getEventType(), attempts, message);
+        }
+    }
+
+    private Object deserialize(OutboxEvent event) throws Exception {
+        if (!OutboxService.AGGREGATE_BILLING.equals(event.getAggregateType())) {
+            throw new IllegalStateException("Không hỗ trợ loại sự kiện: " + event.getAggregateType());
+        }
+        BillingDomainEvent payload = objectMapper.readValue(event.getPayload(), BillingDomainEvent.class);
+        payload.setOutboxEventId(event.getId());
+        return payload;
+    }
+}
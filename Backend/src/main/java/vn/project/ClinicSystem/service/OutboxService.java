@@ -0,0 +1,57 @@
+package vn.project.ClinicSystem.service;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import vn.project.ClinicSystem.model.OutboxEvent;
+import vn.project.ClinicSystem.repository.OutboxEventRepository;
+import vn.project.ClinicSystem.service.event.BillingDomainEvent;
+import vn.project.ClinicSystem.service.event.DataChangedEvent;
+import vn.project.ClinicSystem.service.event.DataDomain;
+
+/**
+ * Ghi sự kiện nghiệp vụ vào bảng outbox trong giao dịch của người gọi; {@link OutboxDispatcher}
+ * phát chúng sau khi giao dịch commit.
+ */
+@Service
+public class OutboxService {
+
+    public static final String AGGREGATE_BILLING = "BILLING";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository,
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendBillingEvent(BillingDomainEvent event) {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setAggregateType(AGGREGATE_BILLING);
+        outboxEvent.setAggregateId(event.getBillingId());
+        outboxEvent.setEventType(event.getType().name());
+        outboxEvent.setPayload(serialize(event));
+        outboxEventRepository.save(outboxEvent);
+        // Đánh thức dispatcher ngay sau commit thay vì chờ lượt quét định kỳ.
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.BILLING, event.getBillingId()));
+    }
+
+    private String serialize(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Không thể ghi sự kiện: " + ex.getMessage(), ex);
+        }
+    }
+}
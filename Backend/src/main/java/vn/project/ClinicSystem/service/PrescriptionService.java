@@ -7,6 +7,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -33,6 +34,9 @@ import vn.project.ClinicSystem.repository.PatientVisitRepository;
 import vn.project.ClinicSystem.repository.PrescriptionRepository;
 import vn.project.ClinicSystem.repository.ServiceIndicatorMappingRepository;
 import vn.project.ClinicSystem.repository.ServiceOrderRepository;
+import vn.project.ClinicSystem.service.PriceCatalog.MedicationPrice;
+import vn.project.ClinicSystem.service.event.DataChangedEvent;
+import vn.project.ClinicSystem.service.event.DataDomain;
 
 @Service
 @Transactional(readOnly = true)
@@ -44,7 +48,9 @@ public class PrescriptionService {
     private final MedicationRepository medicationRepository;
     private final ServiceOrderRepository serviceOrderRepository;
     private final ServiceIndicatorMappingRepository mappingRepository;
+    private final PriceCatalog priceCatalog;
     private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
 
     public PrescriptionService(PrescriptionRepository prescriptionRepository,
             PatientVisitRepository patientVisitRepository,
@@ -52,14 +58,18 @@ public class PrescriptionService {
             MedicationRepository medicationRepository,
             ServiceOrderRepository serviceOrderRepository,
             ServiceIndicatorMappingRepository mappingRepository,
-            Validator validator) {
+            PriceCatalog priceCatalog,
+            Validator validator,
+            ApplicationEventPublisher eventPublisher) {
         this.prescriptionRepository = prescriptionRepository;
         this.patientVisitRepository = patientVisitRepository;
         this.doctorRepository = doctorRepository;
         this.medicationRepository = medicationRepository;
         this.serviceOrderRepository = serviceOrderRepository;
         this.mappingRepository = mappingRepository;
+        this.priceCatalog = priceCatalog;
         this.validator = validator;
+        this.eventPublisher = eventPublisher;
     }
 
     public Prescription getById(Long id) {
@@ -178,6 +188,7 @@ public class PrescriptionService {
         validateBean(prescription);
         Prescription saved = prescriptionRepository.save(prescription);
         hydratePrescription(saved);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.MEDICATION));
         return saved;
     }
 
@@ -193,14 +204,15 @@ public class PrescriptionService {
         prescription.clearItems();
 
         java.util.Set<String> medicationKeys = new java.util.HashSet<>();
+        PriceCatalog.Snapshot catalog = priceCatalog.current();
 
         for (PrescriptionItemRequest itemRequest : itemRequests) {
             PrescriptionItem item = new PrescriptionItem();
-            Medication medication = null;
+            MedicationPrice medication = null;
 
             if (itemRequest.getMedicationId() != null) {
-                medication = loadMedication(itemRequest.getMedicationId());
-                item.setMedication(medication);
+                medication = resolveMedicationPrice(catalog, itemRequest.getMedicationId());
+                item.setMedication(medicationRepository.getReferenceById(medication.getId()));
             }
 
             String medicationName = normalizeText(itemRequest.getMedicationName());
@@ -291,6 +303,17 @@ public class PrescriptionService {
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy bác sĩ với id: " + doctorId));
     }
 
+    // Thuốc vừa tạo có thể chưa có trong bảng giá; khi đó đọc trực tiếp (và báo lỗi nếu không tồn tại).
+    private MedicationPrice resolveMedicationPrice(PriceCatalog.Snapshot catalog, Long medicationId) {
+        MedicationPrice price = catalog.medication(medicationId);
+        if (price != null) {
+            return price;
+        }
+        Medication medication = loadMedication(medicationId);
+        return new MedicationPrice(medication.getId(), medication.getName(), medication.getUnitPrice(),
+                medication.getExpiryDate());
+    }
+
     private Medication loadMedication(Long medicationId) {
         return medicationRepository.findById(medicationId)
                 .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy thuốc với id: " + medicationId));
@@ -0,0 +1,173 @@
+package vn.project.ClinicSystem.service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import vn.project.ClinicSystem.repository.MedicalServiceRepository;
+import vn.project.ClinicSystem.repository.MedicalServiceRepository.ServicePriceRow;
+import vn.project.ClinicSystem.repository.MedicationRepository;
+import vn.project.ClinicSystem.repository.MedicationRepository.MedicationPriceRow;
+import vn.project.ClinicSystem.service.event.DataChangedEvent;
+import vn.project.ClinicSystem.service.event.DataDomain;
+
+/**
+ * Bảng giá dịch vụ và thuốc giữ trong bộ nhớ, dùng khi lập hóa đơn và kê đơn.
+ * <p>
+ * Mỗi lần nạp lại tạo một {@link Snapshot} mới không đổi; bảng giá chỉ nhận số phiên bản mới khi
+ * giá thực sự thay đổi, nên hóa đơn có thể ghi lại phiên bản đã dùng để tính giá. Tên và hạn dùng
+ * vẫn được cập nhật nhưng giữ nguyên phiên bản.
+ * Bảng giá được nạp lại sau khi giá hoặc tên dịch vụ/thuốc thay đổi ({@link DataDomain#PRICE_CATALOG},
+ * không phải mọi thay đổi thuốc như tồn kho hay cấp phát đơn) và định kỳ để nhận thay đổi từ nơi khác.
+ */
+@Slf4j
+@Component
+public class PriceCatalog {
+
+    private final MedicalServiceRepository medicalServiceRepository;
+    private final MedicationRepository medicationRepository;
+
+    private volatile Snapshot snapshot;
+
+    public PriceCatalog(MedicalServiceRepository medicalServiceRepository,
+            MedicationRepository medicationRepository) {
+        this.medicalServiceRepository = medicalServiceRepository;
+        this.medicationRepository = medicationRepository;
+    }
+
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        return current != null ? current : refresh();
+    }
+
+    public synchronized Snapshot refresh() {
+        Map<Long, ServicePrice> services = new HashMap<>();
+        for (ServicePriceRow row : medicalServiceRepository.findPriceRows()) {
+            BigDecimal price = row.getBasePrice() != null ? BigDecimal.valueOf(row.getBasePrice()) : null;
+            services.put(row.getId(), new ServicePrice(row.getId(), row.getName(), price));
+        }
+        Map<Long, MedicationPrice> medications = new HashMap<>();
+        for (MedicationPriceRow row : medicationRepository.findPriceRows()) {
+            medications.put(row.getId(),
+                    new MedicationPrice(row.getId(), row.getName(), row.getUnitPrice(), row.getExpiryDate()));
+        }
+
+        Snapshot previous = snapshot;
+        if (previous != null && previous.services.equals(services) && previous.medications.equals(medications)) {
+            return previous;
+        }
+        // Dùng thời điểm nạp làm phiên bản để số phiên bản vẫn tăng dần sau khi khởi động lại.
+        long version = previous != null && samePrices(previous, services, medications)
+                ? previous.version
+                : Math.max(System.currentTimeMillis(), previous != null ? previous.version + 1 : 0L);
+        Snapshot next = new Snapshot(version, Instant.now(), services, medications);
+        snapshot = next;
+        log.debug("Nạp bảng giá phiên bản {}: {} dịch vụ, {} thuốc", version, services.size(), medications.size());
+        return next;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        if (event.getDomain() == DataDomain.PRICE_CATALOG) {
+            refresh();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${clinicsystem.billing.price-catalog.refresh-interval-ms:300000}",
+            initialDelayString = "${clinicsystem.billing.price-catalog.refresh-interval-ms:300000}")
+    public void refreshPeriodically() {
+        try {
+            refresh();
+        } catch (RuntimeException ex) {
+            log.warn("Không thể nạp lại bảng giá: {}", ex.getMessage());
+        }
+    }
+
+    private static boolean samePrices(Snapshot previous, Map<Long, ServicePrice> services,
+            Map<Long, MedicationPrice> medications) {
+        if (!previous.services.keySet().equals(services.keySet())
+                || !previous.medications.keySet().equals(medications.keySet())) {
+            return false;
+        }
+        for (ServicePrice service : services.values()) {
+            if (!samePrice(previous.services.get(service.getId()).getPrice(), service.getPrice())) {
+                return false;
+            }
+        }
+        for (MedicationPrice medication : medications.values()) {
+            if (!samePrice(previous.medications.get(medication.getId()).getUnitPrice(), medication.getUnitPrice())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean samePrice(BigDecimal previous, BigDecimal current) {
+        return previous == null ? current == null : current != null && previous.compareTo(current) == 0;
+    }
+
+    @Getter
+    public static class Snapshot {
+        private final long version;
+        private final Instant loadedAt;
+        private final Map<Long, ServicePrice> services;
+        private final Map<Long, MedicationPrice> medications;
+
+        public Snapshot(long version, Instant loadedAt, Map<Long, ServicePrice> services,
+                Map<Long, MedicationPrice> medications) {
+            this.version = version;
+            this.loadedAt = loadedAt;
+            this.services = Collections.unmodifiableMap(services);
+            this.medications = Collections.unmodifiableMap(medications);
+        }
+
+        public ServicePrice service(Long id) {
+            return id != null ? services.get(id) : null;
+        }
+
+        public MedicationPrice medication(Long id) {
+            return id != null ? medications.get(id) : null;
+        }
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    public static class ServicePrice {
+        private final Long id;
+        private final String name;
+        private final BigDecimal price;
+
+        public ServicePrice(Long id, String name, BigDecimal price) {
+            this.id = id;
+            this.name = name;
+            this.price = price;
+        }
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    public static class MedicationPrice {
+        private final Long id;
+        private final String name;
+        private final BigDecimal unitPrice;
+        private final LocalDate expiryDate;
+
+        public MedicationPrice(Long id, String name, BigDecimal unitPrice, LocalDate expiryDate) {
+            this.id = id;
+            this.name = name;
+            this.unitPrice = unitPrice;
+            this.expiryDate = expiryDate;
+        }
+    }
+}
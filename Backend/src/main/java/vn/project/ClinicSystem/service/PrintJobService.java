@@ -0,0 +1,246 @@
+package vn.project.ClinicSystem.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import vn.project.ClinicSystem.model.dto.PrintJobResponse;
+import vn.project.ClinicSystem.model.enums.PrintJobStatus;
+import vn.project.ClinicSystem.service.pdf.PdfDocumentVersion;
+import vn.project.ClinicSystem.service.pdf.PdfRenderCache;
+import vn.project.ClinicSystem.service.pdf.PdfRenderer;
+import vn.project.ClinicSystem.util.error.PrintQueueFullException;
+
+/**
+ * Hàng đợi in bất đồng bộ: yêu cầu in chỉ xếp lệnh và trả về mã lệnh, việc dựng PDF chạy trên một
+ * pool riêng nên không giữ luồng request của Tomcat.
+ * <p>
+ * Pool có {@code clinicsystem.print.jobs.workers} luồng và hàng đợi tối đa
+ * {@code clinicsystem.print.jobs.queue-capacity} lệnh; hàng đợi đầy thì từ chối ngay (429) thay vì
+ * để lệnh chờ vô hạn. Kết quả nằm trong {@link PdfRenderCache}; lệnh đã xong được giữ
+ * {@code clinicsystem.print.jobs.retention-minutes} phút để tải về. Lệnh trùng tài liệu và phiên bản
+ * với một lệnh đang chờ/đang chạy dùng chung lệnh đó.
+ */
+@Slf4j
+@Service
+public class PrintJobService {
+
+    public static final String QUEUE_DEPTH_GAUGE = "clinicsystem.print.queue.depth";
+    public static final String QUEUE_WAIT_TIMER = "clinicsystem.print.queue.wait";
+    public static final String JOB_RENDER_TIMER = "clinicsystem.print.job.render";
+
+    private static final long RETRY_AFTER_SECONDS = 5;
+
+    private final PdfRenderCache renderCache;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor executor;
+    private final Duration retention;
+    private final long maxWaitMillis;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    private final Map<String, PrintJob> jobs = new ConcurrentHashMap<>();
+    // Lệnh chưa xong theo khóa cache của tài liệu, để gộp các lần bấm in lặp lại.
+    private final Map<String, PrintJob> pendingByCacheKey = new ConcurrentHashMap<>();
+
+    public PrintJobService(PdfRenderCache renderCache,
+            MeterRegistry meterRegistry,
+            @Value("${clinicsystem.print.jobs.workers:2}") int workers,
+            @Value("${clinicsystem.print.jobs.queue-capacity:100}") int queueCapacity,
+            @Value("${clinicsystem.print.jobs.retention-minutes:10}") long retentionMinutes,
+            @Value("${clinicsystem.print.jobs.max-wait-ms:25000}") long maxWaitMillis) {
+        this.renderCache = renderCache;
+        this.meterRegistry = meterRegistry;
+        int poolSize = Math.max(workers, 1);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)), new WorkerThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retention = Duration.ofMinutes(Math.max(retentionMinutes, 1));
+        this.maxWaitMillis = Math.max(maxWaitMillis, 0L);
+
+        Gauge.builder(QUEUE_DEPTH_GAUGE, executor, pool -> pool.getQueue().size())
+                .description("Số lệnh in đang chờ trong hàng đợi")
+                .register(meterRegistry);
+        Gauge.builder("clinicsystem.print.queue.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Số lệnh in đang được dựng")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder(QUEUE_WAIT_TIMER)
+                .description("Thời gian lệnh in chờ trong hàng đợi")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("clinicsystem.print.queue.rejected")
+                .description("Số lệnh in bị từ chối vì hàng đợi đầy")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Xếp lệnh dựng {@code version}. Bản đã có trong cache thì lệnh hoàn tất ngay, không chiếm chỗ
+     * trong hàng đợi.
+     */
+    public PrintJobResponse submit(PdfDocumentVersion version, PdfRenderer renderer) {
+        purgeExpired();
+        PrintJob job = new PrintJob(UUID.randomUUID().toString(), version, renderer);
+        if (renderCache.contains(version)) {
+            job.startedAt = job.submittedAt;
+            finish(job, PrintJobStatus.COMPLETED, null);
+            jobs.put(job.id, job);
+            return toResponse(job);
+        }
+
+        PrintJob pending = pendingByCacheKey.putIfAbsent(version.getCacheKey(), job);
+        if (pending != null) {
+            return toResponse(pending);
+        }
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(job.id);
+            pendingByCacheKey.remove(version.getCacheKey(), job);
+            rejectedCounter.increment();
+            throw new PrintQueueFullException("Hàng đợi in đang đầy, vui lòng thử lại sau", RETRY_AFTER_SECONDS);
+        }
+        return toResponse(job);
+    }
+
+    /**
+     * Trạng thái lệnh in. {@code waitMillis} lớn hơn 0 thì chờ tối đa chừng đó (giới hạn bởi
+     * {@code clinicsystem.print.jobs.max-wait-ms}) cho tới khi lệnh xong; việc chờ không giữ luồng nào.
+     */
+    public CompletableFuture<PrintJobResponse> getJob(String jobId, long waitMillis) {
+        PrintJob job = findJob(jobId);
+        long wait = Math.min(Math.max(waitMillis, 0L), maxWaitMillis);
+        if (wait == 0 || job.done.isDone()) {
+            return CompletableFuture.completedFuture(toResponse(job));
+        }
+        return job.done.copy()
+                .completeOnTimeout(null, wait, TimeUnit.MILLISECONDS)
+                .thenApply(ignored -> toResponse(job));
+    }
+
+    public PrintJob getCompletedJob(String jobId) {
+        PrintJob job = findJob(jobId);
+        if (job.status == PrintJobStatus.FAILED) {
+            throw new IllegalStateException("Lệnh in thất bại: " + job.error);
+        }
+        if (job.status != PrintJobStatus.COMPLETED) {
+            throw new IllegalStateException("Lệnh in chưa hoàn tất, vui lòng thử lại sau");
+        }
+        return job;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(PrintJob job) {
+        job.startedAt = Instant.now();
+        job.status = PrintJobStatus.RUNNING;
+        waitTimer.record(Duration.between(job.submittedAt, job.startedAt));
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        PrintJobStatus result = PrintJobStatus.FAILED;
+        String error = null;
+        try {
+            renderCache.prepare(job.version, job.renderer);
+            result = PrintJobStatus.COMPLETED;
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Lệnh in {} ({}) thất bại: {}", job.id, job.version.getDocumentKey(), ex.getMessage());
+            error = ex.getMessage();
+        } finally {
+            sample.stop(Timer.builder(JOB_RENDER_TIMER)
+                    .description("Thời gian nạp dữ liệu và dựng một lệnh in")
+                    .tag("document", job.version.getType())
+                    .tag("outcome", result == PrintJobStatus.COMPLETED ? "success" : "error")
+                    .register(meterRegistry));
+            pendingByCacheKey.remove(job.version.getCacheKey(), job);
+            finish(job, result, error);
+        }
+    }
+
+    private void finish(PrintJob job, PrintJobStatus status, String error) {
+        job.error = error;
+        job.finishedAt = Instant.now();
+        job.status = status;
+        job.done.complete(null);
+    }
+
+    private PrintJob findJob(String jobId) {
+        PrintJob job = jobId != null ? jobs.get(jobId) : null;
+        if (job == null) {
+            throw new EntityNotFoundException("Không tìm thấy lệnh in: " + jobId);
+        }
+        return job;
+    }
+
+    private void purgeExpired() {
+        Instant threshold = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(threshold));
+    }
+
+    private PrintJobResponse toResponse(PrintJob job) {
+        return PrintJobResponse.builder()
+                .jobId(job.id)
+                .documentType(job.version.getType())
+                .documentId(job.version.getId())
+                .status(job.status)
+                .downloadReady(job.status == PrintJobStatus.COMPLETED)
+                .error(job.error)
+                .submittedAt(job.submittedAt)
+                .startedAt(job.startedAt)
+                .finishedAt(job.finishedAt)
+                .build();
+    }
+
+    public static class PrintJob {
+        private final String id;
+        @Getter
+        private final PdfDocumentVersion version;
+        @Getter
+        private final PdfRenderer renderer;
+        private final Instant submittedAt = Instant.now();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private volatile PrintJobStatus status = PrintJobStatus.QUEUED;
+        private volatile String error;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+
+        PrintJob(String id, PdfDocumentVersion version, PdfRenderer renderer) {
+            this.id = id;
+            this.version = version;
+            this.renderer = renderer;
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "print-worker-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package vn.project.ClinicSystem.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityNotFoundException;
+import vn.project.ClinicSystem.model.Billing;
+import vn.project.ClinicSystem.model.Prescription;
+import vn.project.ClinicSystem.model.enums.ReceiptFormat;
+import vn.project.ClinicSystem.repository.BillingRepository;
+import vn.project.ClinicSystem.repository.PrescriptionRepository;
+import vn.project.ClinicSystem.service.pdf.view.BillingView;
+import vn.project.ClinicSystem.service.pdf.view.PrescriptionView;
+import vn.project.ClinicSystem.service.receipt.EscPosReceiptRenderer;
+import vn.project.ClinicSystem.service.receipt.HtmlReceiptRenderer;
+
+/**
+ * Biên lai khổ hẹp cho máy in nhiệt tại quầy. Dùng chung view model với bản in PDF nhưng không đi qua
+ * OpenPDF: ESC/POS ghi thẳng byte lệnh, HTML ghép qua Thymeleaf.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ReceiptPrintService {
+
+    public static final String RENDER_TIMER = "clinicsystem.print.receipt.render";
+
+    private final BillingRepository billingRepository;
+    private final PrescriptionRepository prescriptionRepository;
+    private final EscPosReceiptRenderer escPosRenderer;
+    private final HtmlReceiptRenderer htmlRenderer;
+    private final MeterRegistry meterRegistry;
+
+    public ReceiptPrintService(BillingRepository billingRepository,
+            PrescriptionRepository prescriptionRepository,
+            EscPosReceiptRenderer escPosRenderer,
+            HtmlReceiptRenderer htmlRenderer,
+            MeterRegistry meterRegistry) {
+        this.billingRepository = billingRepository;
+        this.prescriptionRepository = prescriptionRepository;
+        this.escPosRenderer = escPosRenderer;
+        this.htmlRenderer = htmlRenderer;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public byte[] renderBillingReceipt(Long billingId, ReceiptFormat format) {
+        Billing billing = billingRepository.findById(billingId)
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy hóa đơn với id: " + billingId));
+        BillingView view = BillingView.from(billing, BillingPrintService.recordedCashierName(billing));
+        return render(BillingPrintService.DOCUMENT_TYPE, format, () -> format == ReceiptFormat.ESC_POS
+                ? escPosRenderer.billing(view)
+                : htmlRenderer.billing(view).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public byte[] renderPrescriptionReceipt(Long prescriptionId, ReceiptFormat format) {
+        Prescription prescription = prescriptionRepository.findById(prescriptionId)
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy đơn thuốc với id: " + prescriptionId));
+        PrescriptionView view = PrescriptionView.from(prescription);
+        return render(PrescriptionPrintService.DOCUMENT_TYPE, format, () -> format == ReceiptFormat.ESC_POS
+                ? escPosRenderer.prescription(view)
+                : htmlRenderer.prescription(view).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Chỉ đo bước dựng biên lai, không tính thời gian nạp dữ liệu.
+    private byte[] render(String document, ReceiptFormat format, Supplier<byte[]> renderer) {
+        return Timer.builder(RENDER_TIMER)
+                .description("Thời gian dựng một biên lai")
+                .tag("document", document)
+                .tag("format", format.name())
+                .register(meterRegistry)
+                .record(renderer);
+    }
+}
@@ -0,0 +1,50 @@
+package vn.project.ClinicSystem.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+import vn.project.ClinicSystem.model.PatientRetentionCohort;
+
+/**
+ * Tính lại bảng cohort tái khám hằng đêm. Bước đọc chạy trong giao dịch chỉ đọc (có thể đi vào replica),
+ * bước ghi thay thế toàn bộ bảng cohort trong một giao dịch riêng.
+ */
+@Slf4j
+@Component
+public class RetentionCohortJob {
+
+    private final RetentionCohortService retentionCohortService;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public RetentionCohortJob(RetentionCohortService retentionCohortService) {
+        this.retentionCohortService = retentionCohortService;
+    }
+
+    @Scheduled(cron = "${clinicsystem.analytics.retention.cron:0 30 1 * * *}")
+    public void runNightly() {
+        try {
+            rebuild();
+        } catch (IllegalStateException ex) {
+            log.warn("Bỏ qua lần tính cohort theo lịch: {}", ex.getMessage());
+        }
+    }
+
+    public int rebuild() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Đang tính lại cohort tái khám, vui lòng thử lại sau");
+        }
+        try {
+            long startedAt = System.currentTimeMillis();
+            List<PatientRetentionCohort> cohorts = retentionCohortService.computeCohorts();
+            int saved = retentionCohortService.replaceCohorts(cohorts);
+            log.info("Đã tính lại {} dòng cohort tái khám trong {} ms", saved, System.currentTimeMillis() - startedAt);
+            return saved;
+        } finally {
+            running.set(false);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package vn.project.ClinicSystem.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import vn.project.ClinicSystem.config.cache.CacheNames;
+import vn.project.ClinicSystem.model.Disease;
+import vn.project.ClinicSystem.model.PatientRetentionCohort;
+import vn.project.ClinicSystem.model.dto.RetentionCohortResponse;
+import vn.project.ClinicSystem.repository.DiseaseRepository;
+import vn.project.ClinicSystem.repository.PatientRetentionCohortRepository;
+import vn.project.ClinicSystem.repository.PatientVisitRepository;
+import vn.project.ClinicSystem.repository.PatientVisitRepository.RetentionVisitRow;
+import vn.project.ClinicSystem.service.event.DataChangedEvent;
+import vn.project.ClinicSystem.service.event.DataDomain;
+
+@Service
+@Transactional(readOnly = true)
+public class RetentionCohortService {
+
+    private static final Duration WINDOW_7D = Duration.ofDays(7);
+    private static final Duration WINDOW_30D = Duration.ofDays(30);
+    private static final Duration WINDOW_90D = Duration.ofDays(90);
+
+    private final PatientVisitRepository patientVisitRepository;
+    private final PatientRetentionCohortRepository cohortRepository;
+    private final DiseaseRepository diseaseRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ZoneId zoneId = ZoneId.systemDefault();
+
+    public RetentionCohortService(PatientVisitRepository patientVisitRepository,
+            PatientRetentionCohortRepository cohortRepository,
+            DiseaseRepository diseaseRepository,
+            ApplicationEventPublisher eventPublisher) {
+        this.patientVisitRepository = patientVisitRepository;
+        this.cohortRepository = cohortRepository;
+        this.diseaseRepository = diseaseRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Duyệt toàn bộ hồ sơ khám một lần theo thứ tự (bệnh nhân, thời gian tạo). Mỗi thời điểm
+     * chỉ giữ trạng thái của một bệnh nhân, bộ nhớ chỉ phụ thuộc số cặp (tháng, bệnh).
+     */
+    public List<PatientRetentionCohort> computeCohorts() {
+        Instant asOf = Instant.now();
+        Map<CohortKey, CohortCounter> counters = new TreeMap<>(CohortKey.ORDER);
+        PatientState current = null;
+
+        try (Stream<RetentionVisitRow> rows = patientVisitRepository.streamForRetention()) {
+            for (RetentionVisitRow row : (Iterable<RetentionVisitRow>) rows::iterator) {
+                if (current == null || !current.patientId.equals(row.getPatientId())) {
+                    if (current != null) {
+                        collect(current, asOf, counters);
+                    }
+                    current = new PatientState(row.getPatientId(), row.getVisitId(), row.getCreatedAt());
+                }
+                current.accept(row);
+            }
+        }
+        if (current != null) {
+            collect(current, asOf, counters);
+        }
+
+        List<PatientRetentionCohort> cohorts = new ArrayList<>(counters.size());
+        counters.forEach((key, counter) -> cohorts.add(counter.toEntity(key, asOf)));
+        return cohorts;
+    }
+
+    @Transactional
+    public int replaceCohorts(List<PatientRetentionCohort> cohorts) {
+        cohortRepository.deleteAllRows();
+        cohortRepository.saveAll(cohorts);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.RETENTION_COHORT));
+        return cohorts.size();
+    }
+
+    @Cacheable(CacheNames.RETENTION_COHORTS)
+    public List<RetentionCohortResponse> getCohorts(String fromMonth, String toMonth, Long diseaseId,
+            boolean byDisease) {
+        String from = normalizeMonth(fromMonth);
+        String to = normalizeMonth(toMonth);
+        List<PatientRetentionCohort> cohorts = byDisease && diseaseId == null
+                ? cohortRepository.searchByDisease(from, to)
+                : cohortRepository.search(from, to, diseaseId);
+
+        Set<Long> diseaseIds = cohorts.stream()
+                .map(PatientRetentionCohort::getDiseaseId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Disease> diseases = diseaseIds.isEmpty()
+                ? Map.of()
+                : diseaseRepository.findAllById(diseaseIds).stream()
+                        .collect(Collectors.toMap(Disease::getId, Function.identity()));
+
+        return cohorts.stream()
+                .map(cohort -> toResponse(cohort, diseases.get(cohort.getDiseaseId())))
+                .toList();
+    }
+
+    private void collect(PatientState patient, Instant asOf, Map<CohortKey, CohortCounter> counters) {
+        String month = YearMonth.from(patient.firstVisitAt.atZone(zoneId)).toString();
+        counters.computeIfAbsent(new CohortKey(month, null), key -> new CohortCounter())
+                .add(patient, asOf);
+        for (Long diseaseId : patient.firstVisitDiseaseIds) {
+            counters.computeIfAbsent(new CohortKey(month, diseaseId), key -> new CohortCounter())
+                    .add(patient, asOf);
+        }
+    }
+
+    private RetentionCohortResponse toResponse(PatientRetentionCohort cohort, Disease disease) {
+        return RetentionCohortResponse.builder()
+                .cohortMonth(cohort.getCohortMonth())
+                .diseaseId(cohort.getDiseaseId())
+                .diseaseCode(disease != null ? disease.getCode() : null)
+                .diseaseName(disease != null ? disease.getName() : null)
+                .cohortSize(cohort.getCohortSize())
+                .eligible7d(cohort.getEligible7d())
+                .returned7d(cohort.getReturned7d())
+                .returnRate7d(rate(cohort.getReturned7d(), cohort.getEligible7d()))
+                .eligible30d(cohort.getEligible30d())
+                .returned30d(cohort.getReturned30d())
+                .returnRate30d(rate(cohort.getReturned30d(), cohort.getEligible30d()))
+                .eligible90d(cohort.getEligible90d())
+                .returned90d(cohort.getReturned90d())
+                .returnRate90d(rate(cohort.getReturned90d(), cohort.getEligible90d()))
+                .build();
+    }
+
+    private Double rate(long returned, long eligible) {
+        if (eligible == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(returned)
+                .multiply(BigDecimal.valueOf(100))
+                .divide(BigDecimal.valueOf(eligible), 1, RoundingMode.HALF_UP)
+                .doubleValue();
+    }
+
+    private String normalizeMonth(String month) {
+        if (!StringUtils.hasText(month)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(month.trim()).toString();
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Tháng không hợp lệ, định dạng đúng là yyyy-MM");
+        }
+    }
+
+    private static class CohortKey {
+        private static final Comparator<CohortKey> ORDER = Comparator.comparing((CohortKey key) -> key.month)
+                .thenComparing(key -> key.diseaseId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        private final String month;
+        private final Long diseaseId;
+
+        CohortKey(String month, Long diseaseId) {
+            this.month = month;
+            this.diseaseId = diseaseId;
+        }
+    }
+
+    private static class PatientState {
+        private final Long patientId;
+        private final Long firstVisitId;
+        private final Instant firstVisitAt;
+        private final Set<Long> firstVisitDiseaseIds = new HashSet<>();
+        private Instant returnedAt;
+
+        PatientState(Long patientId, Long firstVisitId, Instant firstVisitAt) {
+            this.patientId = patientId;
+            this.firstVisitId = firstVisitId;
+            this.firstVisitAt = firstVisitAt;
+        }
+
+        void accept(RetentionVisitRow row) {
+            if (firstVisitId.equals(row.getVisitId())) {
+                if (row.getDiseaseId() != null) {
+                    firstVisitDiseaseIds.add(row.getDiseaseId());
+                }
+            } else if (returnedAt == null) {
+                returnedAt = row.getCreatedAt();
+            }
+        }
+
+        boolean isEligible(Duration window, Instant asOf) {
+            return !firstVisitAt.plus(window).isAfter(asOf);
+        }
+
+        boolean returnedWithin(Duration window) {
+            return returnedAt != null && !returnedAt.isAfter(firstVisitAt.plus(window));
+        }
+    }
+
+    private static class CohortCounter {
+        private long cohortSize;
+        private long eligible7d;
+        private long returned7d;
+        private long eligible30d;
+        private long returned30d;
+        private long eligible90d;
+        private long returned90d;
+
+        void add(PatientState patient, Instant asOf) {
+            cohortSize++;
+            if (patient.isEligible(WINDOW_7D, asOf)) {
+                eligible7d++;
+                returned7d += patient.returnedWithin(WINDOW_7D) ? 1 : 0;
+            }
+            if (patient.isEligible(WINDOW_30D, asOf)) {
+                eligible30d++;
+                returned30d += patient.returnedWithin(WINDOW_30D) ? 1 : 0;
+            }
+            if (patient.isEligible(WINDOW_90D, asOf)) {
+                eligible90d++;
+                returned90d += patient.returnedWithin(WINDOW_90D) ? 1 : 0;
+            }
+        }
+
+        PatientRetentionCohort toEntity(CohortKey key, Instant computedAt) {
+            PatientRetentionCohort cohort = new PatientRetentionCohort();
+            cohort.setCohortMonth(key.month);
+            cohort.setDiseaseId(key.diseaseId);
+            cohort.setCohortSize(cohortSize);
+            cohort.setEligible7d(eligible7d);
+            cohort.setReturned7d(returned7d);
+            cohort.setEligible30d(eligible30d);
+            cohort.setReturned30d(returned30d);
+            cohort.setEligible90d(eligible90d);
+            cohort.setReturned90d(returned90d);
+            cohort.setComputedAt(computedAt);
+            return cohort;
+        }
+    }
+}
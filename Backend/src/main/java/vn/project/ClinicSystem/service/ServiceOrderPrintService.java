@@ -1,435 +1,138 @@
 package vn.project.ClinicSystem.service;
 
-import java.io.ByteArrayOutputStream;
-import java.time.format.DateTimeFormatter;
-import java.util.Locale;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.lowagie.text.Document;
-import com.lowagie.text.Element;
-import com.lowagie.text.Image;
-import com.lowagie.text.Font;
-import com.lowagie.text.Paragraph;
-import com.lowagie.text.Phrase;
-import com.lowagie.text.PageSize;
-import com.lowagie.text.pdf.BaseFont;
-import com.lowagie.text.pdf.PdfPCell;
-import com.lowagie.text.pdf.PdfPTable;
-import com.lowagie.text.pdf.PdfWriter;
 
 import jakarta.persistence.EntityNotFoundException;
+import vn.project.ClinicSystem.model.ClinicRoom;
+import vn.project.ClinicSystem.model.Doctor;
+import vn.project.ClinicSystem.model.MedicalService;
 import vn.project.ClinicSystem.model.Patient;
-import vn.project.ClinicSystem.model.PatientVisit;
 import vn.project.ClinicSystem.model.ServiceOrder;
+import vn.project.ClinicSystem.model.enums.ServiceOrderStatus;
+import vn.project.ClinicSystem.model.enums.VisitStatus;
 import vn.project.ClinicSystem.repository.ServiceOrderRepository;
-import org.springframework.core.io.ClassPathResource;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import vn.project.ClinicSystem.service.pdf.PdfDocumentEngine;
+import vn.project.ClinicSystem.service.pdf.PdfDocumentVersion;
+import vn.project.ClinicSystem.service.pdf.template.ServiceOrderResultPdfTemplate;
+import vn.project.ClinicSystem.service.pdf.template.ServiceOrderSlipPdfTemplate;
+import vn.project.ClinicSystem.service.pdf.view.ServiceOrderView;
 
 @Service
 @Transactional(readOnly = true)
 public class ServiceOrderPrintService {
 
-        private final ServiceOrderRepository serviceOrderRepository;
+        public static final String ORDER_DOCUMENT_TYPE = "service-order";
+        public static final String RESULT_DOCUMENT_TYPE = "service-order-result";
 
-        public ServiceOrderPrintService(ServiceOrderRepository serviceOrderRepository) {
+        private final ServiceOrderRepository serviceOrderRepository;
+        private final PdfDocumentEngine documentEngine;
+        private final ServiceOrderSlipPdfTemplate slipTemplate;
+        private final ServiceOrderResultPdfTemplate resultTemplate;
+
+        public ServiceOrderPrintService(ServiceOrderRepository serviceOrderRepository,
+                        PdfDocumentEngine documentEngine,
+                        ServiceOrderSlipPdfTemplate slipTemplate,
+                        ServiceOrderResultPdfTemplate resultTemplate) {
                 this.serviceOrderRepository = serviceOrderRepository;
+                this.documentEngine = documentEngine;
+                this.slipTemplate = slipTemplate;
+                this.resultTemplate = resultTemplate;
         }
 
-        public byte[] generateServiceOrderPdf(Long orderId) {
-                ServiceOrder order = serviceOrderRepository.findById(orderId)
-                                .orElseThrow(() -> new EntityNotFoundException(
-                                                "Không tìm thấy phiếu dịch vụ với id: " + orderId));
-
-                PatientVisit visit = order.getVisit();
-                Patient patient = visit != null ? visit.getPatient() : null;
-
-                try {
-                        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                        Document document = new Document(PageSize.A5.rotate());
-                        PdfWriter.getInstance(document, baos);
-                        document.open();
-
-                        BaseFont baseFont = loadUnicodeFont();
-                        Font titleFont = new Font(baseFont, 14, Font.BOLD);
-                        Font labelFont = new Font(baseFont, 10, Font.BOLD);
-                        Font textFont = new Font(baseFont, 10, Font.NORMAL);
-                        Font headerFont = new Font(baseFont, 9, Font.NORMAL);
-
-                        // Header with logo + clinic info
-                        PdfPTable header = new PdfPTable(2);
-                        header.setWidthPercentage(100);
-                        header.setWidths(new float[] { 1.2f, 2f });
-
-                        Image logo = loadLogo();
-                        if (logo != null) {
-                                logo.scaleToFit(80, 50);
-                                PdfPCell logoCell = new PdfPCell(logo, false);
-                                logoCell.setBorderWidth(0);
-                                logoCell.setHorizontalAlignment(Element.ALIGN_LEFT);
-                                header.addCell(logoCell);
-                        } else {
-                                PdfPCell emptyLogo = new PdfPCell(new Paragraph(""));
-                                emptyLogo.setBorderWidth(0);
-                                header.addCell(emptyLogo);
-                        }
-
-                        Paragraph clinicInfo = new Paragraph();
-                        clinicInfo.setFont(headerFont);
-                        clinicInfo.add(new Paragraph("PHÒNG KHÁM ĐA KHOA DUYÊN HẠNH",
-                                        new Font(baseFont, 10, Font.BOLD)));
-                        clinicInfo.add(new Paragraph("36 Cách mạng tháng 8, Phường Cái Khế, Tp Cần Thơ", headerFont));
-                        clinicInfo.add(new Paragraph("Email: duyenhanh@clinic.vn", headerFont));
-                        PdfPCell clinicCell = new PdfPCell(clinicInfo);
-                        clinicCell.setBorderWidth(0);
-                        clinicCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
-                        header.addCell(clinicCell);
-
-                        document.add(header);
-                        document.add(new Paragraph(" ", textFont));
-
-                        Paragraph title = new Paragraph("PHIẾU CHỈ ĐỊNH CẬN LÂM SÀNG",
-                                        new Font(baseFont, 13, Font.BOLD));
-                        title.setAlignment(Element.ALIGN_CENTER);
-                        document.add(title);
-                        document.add(new Paragraph(" ", textFont));
-
-                        // Patient info block (no border)
-                        PdfPTable patientInfo = new PdfPTable(2);
-                        patientInfo.setWidthPercentage(100);
-                        patientInfo.setWidths(new float[] { 2.2f, 1.8f });
-                        patientInfo.addCell(createLabelValueCell("Bệnh nhân:",
-                                        patient != null ? patient.getFullName() : "N/A",
-                                        labelFont, textFont, Element.ALIGN_LEFT));
-                        patientInfo.addCell(createLabelValueCell(
-                                        "Năm sinh:",
-                                        (patient != null && patient.getDateOfBirth() != null
-                                                        ? String.valueOf(patient.getDateOfBirth().getYear())
-                                                        : "N/A") +
-                                                        "    Giới tính: "
-                                                        + (patient != null && patient.getGender() != null
-                                                                        ? patient.getGender()
-                                                                        : "N/A"),
-                                        labelFont, textFont, Element.ALIGN_RIGHT));
-                        document.add(patientInfo);
-
-                        PdfPTable addressLine = new PdfPTable(1);
-                        addressLine.setWidthPercentage(100);
-                        addressLine.addCell(createLabelValueCell("Địa chỉ:",
-                                        (patient != null && patient.getAddress() != null
-                                                        ? patient.getAddress()
-                                                        : "N/A"),
-                                        labelFont, textFont, Element.ALIGN_LEFT));
-                        document.add(addressLine);
-
-                        PdfPTable roomLine = new PdfPTable(1);
-                        roomLine.setWidthPercentage(100);
-                        String roomText = "N/A";
-                        if (order.getMedicalService() != null && order.getMedicalService().getClinicRoom() != null) {
-                                var room = order.getMedicalService().getClinicRoom();
-                                String code = room.getCode() != null ? room.getCode() : "N/A";
-                                String floor = room.getFloor() != null ? room.getFloor() : "N/A";
-                                roomText = room.getName() + "/" + code + "/" + floor;
-                        }
-                        roomLine.addCell(
-                                        createLabelValueCell("Phòng chỉ định:", roomText, labelFont, textFont,
-                                                        Element.ALIGN_LEFT));
-                        document.add(roomLine);
-
-                        PdfPTable doctorLine = new PdfPTable(1);
-                        doctorLine.setWidthPercentage(100);
-                        doctorLine.addCell(createLabelValueCell(
-                                        "Bác sĩ phụ trách:",
-                                        (order.getAssignedDoctor() != null
-                                                        && order.getAssignedDoctor().getAccount() != null
-                                                                        ? order.getAssignedDoctor().getAccount()
-                                                                                        .getFullName()
-                                                                        : "N/A"),
-                                        labelFont, textFont, Element.ALIGN_LEFT));
-                        document.add(doctorLine);
-
-                        PdfPTable serviceLine = new PdfPTable(2);
-                        serviceLine.setWidthPercentage(100);
-                        serviceLine.setWidths(new float[] { 2f, 1f });
-                        serviceLine.addCell(createLabelValueCell(
-                                        "Dịch vụ:",
-                                        (order.getMedicalService() != null ? order.getMedicalService().getName()
-                                                        : "N/A"),
-                                        labelFont, textFont, Element.ALIGN_LEFT));
-                        serviceLine.addCell(createLabelValueCell(
-                                        "Giờ chỉ định:",
-                                        DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy", Locale.forLanguageTag("vi"))
-                                                        .withZone(java.time.ZoneId.systemDefault())
-                                                        .format(java.time.Instant.now()),
-                                        labelFont, textFont, Element.ALIGN_RIGHT));
-                        document.add(serviceLine);
-
-                        document.close();
-                        return baos.toByteArray();
-                } catch (Exception ex) {
-                        throw new IllegalStateException("Không thể tạo PDF phiếu dịch vụ: " + ex.getMessage(), ex);
-                }
+        public void generateServiceOrderPdf(Long orderId, OutputStream outputStream) {
+                renderServiceOrderPdf(findOrder(orderId), outputStream);
         }
 
-        public byte[] generateServiceOrderResultPdf(Long orderId) {
-                ServiceOrder order = serviceOrderRepository.findById(orderId)
-                                .orElseThrow(() -> new EntityNotFoundException(
-                                                "Không tìm thấy phiếu dịch vụ với id: " + orderId));
-
-                PatientVisit visit = order.getVisit();
-                Patient patient = visit != null ? visit.getPatient() : null;
-
-                try {
-                        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                        Document document = new Document(PageSize.A4);
-                        PdfWriter.getInstance(document, baos);
-                        document.open();
-
-                        BaseFont baseFont = loadUnicodeFont();
-                        Font titleFont = new Font(baseFont, 14, Font.BOLD);
-                        Font labelFont = new Font(baseFont, 10, Font.BOLD);
-                        Font textFont = new Font(baseFont, 10, Font.NORMAL);
-                        Font headerFont = new Font(baseFont, 9, Font.NORMAL);
-
-                        PdfPTable header = new PdfPTable(2);
-                        header.setWidthPercentage(100);
-                        header.setWidths(new float[] { 1.2f, 2f });
-
-                        Image logo = loadLogo();
-                        if (logo != null) {
-                                logo.scaleToFit(70, 40);
-                                PdfPCell logoCell = new PdfPCell(logo, false);
-                                logoCell.setBorderWidth(0);
-                                logoCell.setHorizontalAlignment(Element.ALIGN_LEFT);
-                                header.addCell(logoCell);
-                        } else {
-                                PdfPCell emptyLogo = new PdfPCell(new Paragraph(""));
-                                emptyLogo.setBorderWidth(0);
-                                header.addCell(emptyLogo);
-                        }
-
-                        Paragraph clinicInfo = new Paragraph();
-                        clinicInfo.setFont(headerFont);
-                        clinicInfo.add(new Paragraph("PHÒNG KHÁM ĐA KHOA DUYÊN HẠNH",
-                                        new Font(baseFont, 10, Font.BOLD)));
-                        clinicInfo.add(new Paragraph("36 Cách mạng tháng 8, Phường Cái Khế, Tp Cần Thơ", headerFont));
-                        clinicInfo.add(new Paragraph("Email: duyenhanh@clinic.vn", headerFont));
-                        PdfPCell clinicCell = new PdfPCell(clinicInfo);
-                        clinicCell.setBorderWidth(0);
-                        clinicCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
-                        header.addCell(clinicCell);
-
-                        document.add(header);
-                        document.add(new Paragraph(" ", textFont));
-
-                        Paragraph title = new Paragraph("PHIẾU KẾT QUẢ CẬN LÂM SÀNG", titleFont);
-                        title.setAlignment(Element.ALIGN_CENTER);
-                        document.add(title);
-                        document.add(new Paragraph(" ", textFont));
-
-                        PdfPTable patientInfo = new PdfPTable(2);
-                        patientInfo.setWidthPercentage(100);
-                        patientInfo.setWidths(new float[] { 2.2f, 1.8f });
-                        patientInfo.addCell(createLabelValueCell("Bệnh nhân:",
-                                        patient != null ? patient.getFullName() : "N/A",
-                                        labelFont, textFont, Element.ALIGN_LEFT));
-                        patientInfo.addCell(createLabelValueCell(
-                                        "Năm sinh:",
-                                        (patient != null && patient.getDateOfBirth() != null
-                                                        ? String.valueOf(patient.getDateOfBirth().getYear())
-                                                        : "N/A") +
-                                                        "    Giới tính: "
-                                                        + (patient != null && patient.getGender() != null
-                                                                        ? patient.getGender()
-                                                                        : "N/A"),
-                                        labelFont, textFont, Element.ALIGN_RIGHT));
-                        document.add(patientInfo);
-
-                        PdfPTable addressLine = new PdfPTable(1);
-                        addressLine.setWidthPercentage(100);
-                        addressLine.addCell(createLabelValueCell("Địa chỉ:",
-                                        (patient != null && patient.getAddress() != null
-                                                        ? patient.getAddress()
-                                                        : "N/A"),
-                                        labelFont, textFont, Element.ALIGN_LEFT));
-                        document.add(addressLine);
-
-                        PdfPTable roomLine = new PdfPTable(1);
-                        roomLine.setWidthPercentage(100);
-                        String roomText = "N/A";
-                        if (order.getMedicalService() != null && order.getMedicalService().getClinicRoom() != null) {
-                                var room = order.getMedicalService().getClinicRoom();
-                                String code = room.getCode() != null ? room.getCode() : "N/A";
-                                String floor = room.getFloor() != null ? room.getFloor() : "N/A";
-                                roomText = room.getName() + " - " + code + " - " + floor;
-                        }
-                        roomLine.addCell(createLabelValueCell("Phòng chỉ định:", roomText, labelFont, textFont,
-                                        Element.ALIGN_LEFT));
-                        document.add(roomLine);
-
-                        PdfPTable doctorLine = new PdfPTable(2);
-                        doctorLine.setWidthPercentage(100);
-                        doctorLine.setWidths(new float[] { 2f, 1f });
-                        doctorLine.addCell(createLabelValueCell(
-                                        "Bác sĩ phụ trách:",
-                                        (order.getAssignedDoctor() != null
-                                                        && order.getAssignedDoctor().getAccount() != null
-                                                                        ? order.getAssignedDoctor().getAccount()
-                                                                                        .getFullName()
-                                                                        : "N/A"),
-                                        labelFont, textFont, Element.ALIGN_LEFT));
-                        doctorLine.addCell(createLabelValueCell(
-                                        "Thời gian thực hiện:",
-                                        order.getPerformedAt() != null
-                                                        ? DateTimeFormatter
-                                                                        .ofPattern("HH:mm dd/MM/yyyy",
-                                                                                        Locale.forLanguageTag("vi"))
-                                                                        .format(order.getPerformedAt())
-                                                        : "N/A",
-                                        labelFont, textFont, Element.ALIGN_RIGHT));
-                        document.add(doctorLine);
-
-                        PdfPTable serviceLine = new PdfPTable(2);
-                        serviceLine.setWidthPercentage(100);
-                        serviceLine.setWidths(new float[] { 2f, 1f });
-                        serviceLine.addCell(createLabelValueCell(
-                                        "Dịch vụ:",
-                                        (order.getMedicalService() != null ? order.getMedicalService().getName()
-                                                        : "N/A"),
-                                        labelFont, textFont, Element.ALIGN_LEFT));
-                        serviceLine.addCell(createLabelValueCell(
-                                        "Giờ in:",
-                                        DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy", Locale.forLanguageTag("vi"))
-                                                        .withZone(java.time.ZoneId.systemDefault())
-                                                        .format(java.time.Instant.now()),
-                                        labelFont, textFont, Element.ALIGN_RIGHT));
-                        document.add(serviceLine);
-
-                        document.add(new Paragraph(" ", textFont));
-
-                        PdfPTable resultTable = new PdfPTable(4);
-                        resultTable.setWidthPercentage(100);
-                        resultTable.setWidths(new float[] { 3f, 1.5f, 1.2f, 1.6f });
-                        resultTable.addCell(createCellAligned("Chỉ số", labelFont, Element.ALIGN_CENTER));
-                        resultTable.addCell(createCellAligned("Kết quả", labelFont, Element.ALIGN_CENTER));
-                        resultTable.addCell(createCellAligned("Đơn vị", labelFont, Element.ALIGN_CENTER));
-                        resultTable.addCell(createCellAligned("Ngưỡng tham chiếu", labelFont, Element.ALIGN_CENTER));
-
-                        order.getIndicatorResults().forEach(res -> {
-                                resultTable.addCell(createCell(
-                                                res.getIndicatorNameSnapshot() != null ? res.getIndicatorNameSnapshot()
-                                                                : (res.getIndicatorTemplate() != null
-                                                                                ? res.getIndicatorTemplate().getName()
-                                                                                : "N/A"),
-                                                textFont));
-                                String unit = res.getUnitSnapshot() != null ? res.getUnitSnapshot()
-                                                : (res.getIndicatorTemplate() != null
-                                                                ? res.getIndicatorTemplate().getUnit()
-                                                                : "N/A");
-                                String refRange = "N/A";
-                                if (res.getIndicatorTemplate() != null
-                                                && res.getIndicatorTemplate().getNormalMin() != null
-                                                && res.getIndicatorTemplate().getNormalMax() != null) {
-                                        refRange = formatDecimal(res.getIndicatorTemplate().getNormalMin()) + " - "
-                                                        + formatDecimal(res.getIndicatorTemplate().getNormalMax());
-                                }
-                                resultTable.addCell(createCellAligned(
-                                                res.getMeasuredValue() != null ? formatDecimal(res.getMeasuredValue())
-                                                                : "N/A",
-                                                textFont, Element.ALIGN_CENTER));
-                                resultTable.addCell(createCellAligned(unit, textFont, Element.ALIGN_CENTER));
-                                resultTable.addCell(createCellAligned(refRange, textFont, Element.ALIGN_CENTER));
-                        });
-                        document.add(resultTable);
+        public void generateServiceOrderResultPdf(Long orderId, OutputStream outputStream) {
+                renderServiceOrderResultPdf(findOrder(orderId), outputStream);
+        }
 
-                        document.add(new Paragraph(" ", textFont));
-                        PdfPTable signTable = new PdfPTable(1);
-                        signTable.setWidthPercentage(100);
-                        PdfPCell signCell = new PdfPCell(
-                                        new Paragraph("Bác sĩ ký", labelFont));
-                        signCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
-                        signCell.setBorderWidth(0);
-                        signCell.setPaddingTop(20f);
-                        signCell.setPaddingBottom(40f);
-                        signCell.setPaddingRight(40f);
-                        signTable.addCell(signCell);
-                        document.add(signTable);
+        public PdfDocumentVersion describeServiceOrderPdf(Long orderId) {
+                return describeServiceOrderPdf(findOrder(orderId));
+        }
 
-                        document.close();
-                        return baos.toByteArray();
-                } catch (Exception ex) {
-                        throw new IllegalStateException("Không thể tạo PDF kết quả dịch vụ: " + ex.getMessage(), ex);
-                }
+        /**
+         * Phiên bản nội dung của phiếu chỉ định: phiếu, bệnh nhân, dịch vụ, phòng và bác sĩ phụ trách.
+         * Phiếu ghi giờ chỉ định chứ không ghi giờ in nên bản dựng sẵn dùng lại được cho tới khi dữ liệu đổi.
+         */
+        @Transactional(propagation = Propagation.SUPPORTS)
+        public PdfDocumentVersion describeServiceOrderPdf(ServiceOrder order) {
+                Patient patient = order.getVisit() != null ? order.getVisit().getPatient() : null;
+                MedicalService service = order.getMedicalService();
+                ClinicRoom room = service != null ? service.getClinicRoom() : null;
+                Doctor doctor = order.getAssignedDoctor();
+                Instant patientUpdatedAt = patient != null ? patient.getUpdatedAt() : null;
+                Instant serviceUpdatedAt = service != null ? service.getUpdatedAt() : null;
+                Instant roomUpdatedAt = room != null ? room.getUpdatedAt() : null;
+                Instant accountUpdatedAt = doctor != null && doctor.getAccount() != null
+                                ? doctor.getAccount().getUpdatedAt()
+                                : null;
+                return PdfDocumentVersion.of(ORDER_DOCUMENT_TYPE, order.getId(),
+                                PdfDocumentVersion.latest(order.getUpdatedAt(), patientUpdatedAt, serviceUpdatedAt,
+                                                roomUpdatedAt, accountUpdatedAt),
+                                order.getUpdatedAt(), patient != null ? patient.getId() : null, patientUpdatedAt,
+                                service != null ? service.getId() : null, serviceUpdatedAt,
+                                room != null ? room.getId() : null, roomUpdatedAt,
+                                doctor != null ? doctor.getId() : null, accountUpdatedAt);
         }
 
-        private PdfPCell createCell(String text, Font font) {
-                PdfPCell cell = new PdfPCell(new Paragraph(text, font));
-                cell.setPadding(6f);
-                cell.setBorderWidth(0.5f);
-                return cell;
+        /**
+         * Phiếu kết quả in kèm giờ in nên mỗi lần in là một phiên bản riêng; phiên bản chỉ dùng để giữ
+         * kết quả của lệnh in bất đồng bộ.
+         */
+        public PdfDocumentVersion describeServiceOrderResultPdf(Long orderId) {
+                ServiceOrder order = findOrder(orderId);
+                Instant printedAt = Instant.now();
+                return PdfDocumentVersion.of(RESULT_DOCUMENT_TYPE, order.getId(), printedAt, order.getUpdatedAt(),
+                                printedAt, UUID.randomUUID());
         }
 
-        private PdfPCell createCellAligned(String text, Font font, int alignment) {
-                PdfPCell cell = new PdfPCell(new Paragraph(text, font));
-                cell.setPadding(6f);
-                cell.setBorderWidth(0.5f);
-                cell.setHorizontalAlignment(alignment);
-                return cell;
+        /**
+         * Phiếu dịch vụ chưa thực hiện (chờ hoặc đã hẹn) của các lần khám còn mở và được tạo từ
+         * {@code visitCreatedFrom}, tức các phiếu bệnh nhân sẽ mang tới phòng dịch vụ ở lần sau; lần khám mở
+         * lâu hơn thường là bị bỏ quên nên không dựng. Đã nạp đủ dữ liệu in để dựng sau khi giao dịch kết thúc.
+         */
+        public List<ServiceOrder> findOutstandingSlips(Instant visitCreatedFrom) {
+                return serviceOrderRepository.findForPrintByVisitStatusAndStatusIn(VisitStatus.OPEN, visitCreatedFrom,
+                                EnumSet.of(ServiceOrderStatus.PENDING, ServiceOrderStatus.SCHEDULED));
         }
 
-        private PdfPCell createBorderlessCell(String text, Font font) {
-                return createBorderlessCell(text, font, Element.ALIGN_LEFT);
+        // Dựng một phiếu trống bỏ đi để nạp font, mẫu và JIT; không ghi vào số liệu thời gian dựng.
+        @Transactional(propagation = Propagation.NOT_SUPPORTED)
+        public void warmUp() {
+                documentEngine.warmUp(slipTemplate, ServiceOrderView.from(new ServiceOrder(), Instant.now()));
         }
 
-        private PdfPCell createBorderlessCell(String text, Font font, int alignment) {
-                PdfPCell cell = new PdfPCell(new Paragraph(text, font));
-                cell.setBorderWidth(0f);
-                cell.setPadding(4f);
-                cell.setHorizontalAlignment(alignment);
-                return cell;
+        private ServiceOrder findOrder(Long orderId) {
+                return serviceOrderRepository.findById(orderId)
+                                .orElseThrow(() -> new EntityNotFoundException(
+                                                "Không tìm thấy phiếu dịch vụ với id: " + orderId));
         }
 
-        private PdfPCell createLabelValueCell(String label, String value, Font labelFont, Font valueFont,
-                        int alignment) {
-                Phrase phrase = new Phrase();
-                phrase.add(new com.lowagie.text.Chunk(label + " ", labelFont));
-                phrase.add(new com.lowagie.text.Chunk(value != null ? value : "", valueFont));
-                PdfPCell cell = new PdfPCell(phrase);
-                cell.setBorderWidth(0f);
-                cell.setPadding(4f);
-                cell.setHorizontalAlignment(alignment);
-                return cell;
+        public byte[] renderServiceOrderPdf(ServiceOrder order) {
+                return documentEngine.render(slipTemplate, ServiceOrderView.from(order, Instant.now()));
         }
 
-        private BaseFont loadUnicodeFont() throws Exception {
-                ClassPathResource resource = new ClassPathResource("fonts/NotoSans-Regular.ttf");
-                try (InputStream is = resource.getInputStream()) {
-                        byte[] fontBytes = is.readAllBytes();
-                        return BaseFont.createFont("NotoSans-Regular.ttf", BaseFont.IDENTITY_H, BaseFont.EMBEDDED,
-                                        false, fontBytes,
-                                        null);
-                }
+        public byte[] renderServiceOrderResultPdf(ServiceOrder order) {
+                return documentEngine.render(resultTemplate, ServiceOrderView.from(order, Instant.now()));
         }
 
-        private Image loadLogo() {
-                try {
-                        ClassPathResource resource = new ClassPathResource("logo/LogoDuyenHanh.png");
-                        if (!resource.exists()) {
-                                return null;
-                        }
-                        return Image.getInstance(resource.getURL());
-                } catch (Exception ex) {
-                        return null;
-                }
+        // Các hàm render ghi thẳng ra outputStream và không đóng nó.
+        @Transactional(propagation = Propagation.NOT_SUPPORTED)
+        public void renderServiceOrderPdf(ServiceOrder order, OutputStream outputStream) {
+                documentEngine.render(slipTemplate, ServiceOrderView.from(order, Instant.now()), outputStream);
         }
 
-        private String formatDecimal(java.math.BigDecimal value) {
-                if (value == null) {
-                        return "N/A";
-                }
-                // Strip trailing zeros and plain string
-                return value.stripTrailingZeros().toPlainString();
+        public void renderServiceOrderResultPdf(ServiceOrder order, OutputStream outputStream) {
+                documentEngine.render(resultTemplate, ServiceOrderView.from(order, Instant.now()), outputStream);
         }
 }
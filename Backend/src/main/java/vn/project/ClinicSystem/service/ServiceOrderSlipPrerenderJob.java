@@ -0,0 +1,119 @@
+package vn.project.ClinicSystem.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+import vn.project.ClinicSystem.model.ServiceOrder;
+import vn.project.ClinicSystem.model.dto.PrintPrerenderResult;
+import vn.project.ClinicSystem.service.pdf.PdfDocumentVersion;
+import vn.project.ClinicSystem.service.pdf.PdfRenderCache;
+
+/**
+ * Dựng sẵn vào {@link PdfRenderCache} từ tối hôm trước các phiếu chỉ định đã có nhưng chưa thực hiện
+ * (phiếu chờ hoặc đã hẹn của lần khám còn mở), để lượt in lại buổi sáng ở phòng dịch vụ lấy thẳng từ
+ * cache. Phiếu của lượt khám mới chỉ có sau khi tiếp đón nên không dựng trước được. Chỉ xét lần khám tạo
+ * trong {@code clinicsystem.print.prerender.lookback-days} ngày gần nhất: lần khám mở lâu hơn thường bị
+ * bỏ quên, dựng lại mỗi đêm chỉ đẩy bản in hữu ích ra khỏi cache.
+ * <p>
+ * Không có phiếu nào cần dựng thì dựng một phiếu trống bỏ đi, nhờ vậy font, mẫu và JIT của bộ dựng PDF
+ * đã sẵn sàng; lần dựng thử này không tính vào số liệu thời gian dựng.
+ */
+@Slf4j
+@Component
+public class ServiceOrderSlipPrerenderJob {
+
+    private final ServiceOrderPrintService printService;
+    private final PdfRenderCache renderCache;
+    private final boolean enabled;
+    private final Duration lookback;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public ServiceOrderSlipPrerenderJob(ServiceOrderPrintService printService,
+            PdfRenderCache renderCache,
+            @Value("${clinicsystem.print.prerender.enabled:true}") boolean enabled,
+            @Value("${clinicsystem.print.prerender.lookback-days:2}") int lookbackDays) {
+        this.printService = printService;
+        this.renderCache = renderCache;
+        this.enabled = enabled;
+        this.lookback = Duration.ofDays(Math.max(lookbackDays, 1));
+    }
+
+    @Scheduled(cron = "${clinicsystem.print.prerender.cron:0 30 22 * * *}")
+    public void prerenderNightly() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            run();
+        } catch (IllegalStateException ex) {
+            log.warn("Bỏ qua lần dựng sẵn phiếu chỉ định theo lịch: {}", ex.getMessage());
+        } catch (RuntimeException ex) {
+            log.error("Dựng sẵn phiếu chỉ định thất bại", ex);
+        }
+    }
+
+    public PrintPrerenderResult run() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Đang dựng sẵn phiếu chỉ định, vui lòng thử lại sau");
+        }
+        try {
+            return prerender();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private PrintPrerenderResult prerender() {
+        long started = System.nanoTime();
+        Instant visitCreatedFrom = Instant.now().minus(lookback);
+        List<ServiceOrder> orders = printService.findOutstandingSlips(visitCreatedFrom);
+        int rendered = 0;
+        int alreadyCached = 0;
+        int failed = 0;
+        for (ServiceOrder order : orders) {
+            PdfDocumentVersion version = printService.describeServiceOrderPdf(order);
+            if (renderCache.contains(version)) {
+                alreadyCached++;
+                continue;
+            }
+            try {
+                renderCache.prepare(version, outputStream -> printService.renderServiceOrderPdf(order, outputStream));
+                rendered++;
+            } catch (IOException | RuntimeException ex) {
+                failed++;
+                log.warn("Không thể dựng sẵn phiếu chỉ định {}: {}", order.getId(), ex.getMessage());
+            }
+        }
+        boolean warmedUp = false;
+        if (rendered == 0) {
+            try {
+                printService.warmUp();
+                warmedUp = true;
+            } catch (RuntimeException ex) {
+                log.warn("Không thể dựng thử phiếu chỉ định: {}", ex.getMessage());
+            }
+        }
+
+        PrintPrerenderResult result = PrintPrerenderResult.builder()
+                .visitCreatedFrom(visitCreatedFrom)
+                .candidates(orders.size())
+                .rendered(rendered)
+                .alreadyCached(alreadyCached)
+                .failed(failed)
+                .warmedUp(warmedUp)
+                .durationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started))
+                .build();
+        log.info("Dựng sẵn phiếu chỉ định (lần khám từ {}): {} phiếu, dựng mới {}, đã có {}, lỗi {}, mất {} ms",
+                visitCreatedFrom, result.getCandidates(), rendered, alreadyCached, failed, result.getDurationMs());
+        return result;
+    }
+}
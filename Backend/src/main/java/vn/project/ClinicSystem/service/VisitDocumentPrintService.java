@@ -0,0 +1,144 @@
+package vn.project.ClinicSystem.service;
+
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityNotFoundException;
+import vn.project.ClinicSystem.model.Billing;
+import vn.project.ClinicSystem.model.PatientVisit;
+import vn.project.ClinicSystem.model.Prescription;
+import vn.project.ClinicSystem.model.ServiceOrder;
+import vn.project.ClinicSystem.model.enums.ServiceOrderStatus;
+import vn.project.ClinicSystem.repository.BillingRepository;
+import vn.project.ClinicSystem.repository.PatientVisitRepository;
+import vn.project.ClinicSystem.repository.PrescriptionRepository;
+import vn.project.ClinicSystem.repository.ServiceOrderRepository;
+import vn.project.ClinicSystem.service.pdf.PdfDocumentEngine;
+import vn.project.ClinicSystem.service.pdf.PdfDocumentVersion;
+import vn.project.ClinicSystem.service.pdf.PdfSection;
+import vn.project.ClinicSystem.service.pdf.template.BillingPdfTemplate;
+import vn.project.ClinicSystem.service.pdf.template.PrescriptionPdfTemplate;
+import vn.project.ClinicSystem.service.pdf.template.ServiceOrderResultPdfTemplate;
+import vn.project.ClinicSystem.service.pdf.template.ServiceOrderSlipPdfTemplate;
+import vn.project.ClinicSystem.service.pdf.view.BillingView;
+import vn.project.ClinicSystem.service.pdf.view.PrescriptionView;
+import vn.project.ClinicSystem.service.pdf.view.ServiceOrderView;
+
+/**
+ * Bộ hồ sơ in khi ra về của một lần khám trong một file PDF: phiếu chỉ định, phiếu kết quả, đơn thuốc
+ * và hóa đơn, theo thứ tự đó.
+ * <p>
+ * Dữ liệu được nạp bằng bốn truy vấn cố định (lần khám, phiếu dịch vụ kèm kết quả, đơn thuốc kèm dòng
+ * thuốc, hóa đơn kèm mục) rồi chuyển thành view model trong một giao dịch chỉ đọc; việc dựng PDF chạy
+ * sau khi đã trả kết nối. Các phần được ghép vào cùng một tài liệu nên font chỉ nhúng một lần.
+ */
+@Service
+@Transactional(readOnly = true)
+public class VisitDocumentPrintService {
+
+    public static final String DOCUMENT_TYPE = "visit-documents";
+
+    private final PatientVisitRepository patientVisitRepository;
+    private final ServiceOrderRepository serviceOrderRepository;
+    private final PrescriptionRepository prescriptionRepository;
+    private final BillingRepository billingRepository;
+    private final PdfDocumentEngine documentEngine;
+    private final ServiceOrderSlipPdfTemplate slipTemplate;
+    private final ServiceOrderResultPdfTemplate resultTemplate;
+    private final PrescriptionPdfTemplate prescriptionTemplate;
+    private final BillingPdfTemplate billingTemplate;
+    private final TransactionTemplate readTransaction;
+
+    public VisitDocumentPrintService(PatientVisitRepository patientVisitRepository,
+            ServiceOrderRepository serviceOrderRepository,
+            PrescriptionRepository prescriptionRepository,
+            BillingRepository billingRepository,
+            PdfDocumentEngine documentEngine,
+            ServiceOrderSlipPdfTemplate slipTemplate,
+            ServiceOrderResultPdfTemplate resultTemplate,
+            PrescriptionPdfTemplate prescriptionTemplate,
+            BillingPdfTemplate billingTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.patientVisitRepository = patientVisitRepository;
+        this.serviceOrderRepository = serviceOrderRepository;
+        this.prescriptionRepository = prescriptionRepository;
+        this.billingRepository = billingRepository;
+        this.documentEngine = documentEngine;
+        this.slipTemplate = slipTemplate;
+        this.resultTemplate = resultTemplate;
+        this.prescriptionTemplate = prescriptionTemplate;
+        this.billingTemplate = billingTemplate;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Bộ hồ sơ in kèm giờ in nên mỗi lần in là một phiên bản riêng; phiên bản chỉ dùng để giữ kết quả
+     * của lệnh in bất đồng bộ.
+     */
+    public PdfDocumentVersion describeVisitDocumentsPdf(Long visitId) {
+        PatientVisit visit = findVisit(visitId);
+        Instant printedAt = Instant.now();
+        return PdfDocumentVersion.of(DOCUMENT_TYPE, visitId, printedAt, visit.getUpdatedAt(), printedAt,
+                UUID.randomUUID());
+    }
+
+    /**
+     * Lần khám không tồn tại thì báo lỗi trước khi ghi byte nào ra outputStream. Không đóng outputStream.
+     * {@code includeBilling} do nơi gọi xác định theo quyền của người in, vì hàm có thể chạy ngoài luồng request.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void generateVisitDocumentsPdf(Long visitId, boolean includeBilling, OutputStream outputStream) {
+        Instant printedAt = Instant.now();
+        List<PdfSection<?>> sections = readTransaction.execute(
+                tx -> loadSections(visitId, includeBilling, printedAt));
+        if (sections == null || sections.isEmpty()) {
+            throw new IllegalStateException("Lần khám chưa có phiếu dịch vụ, đơn thuốc hay hóa đơn để in");
+        }
+        documentEngine.render(DOCUMENT_TYPE, "hồ sơ khám", sections, outputStream);
+    }
+
+    private List<PdfSection<?>> loadSections(Long visitId, boolean includeBilling, Instant printedAt) {
+        findVisit(visitId);
+        List<ServiceOrder> orders = serviceOrderRepository.findForPrintByVisitIdOrderByIdAsc(visitId);
+        List<Prescription> prescriptions = prescriptionRepository.findForPrintByVisitIdOrderByIssuedAtAsc(visitId);
+        Billing billing = includeBilling ? billingRepository.findForPrintByVisitId(visitId).orElse(null) : null;
+
+        List<PdfSection<?>> sections = new ArrayList<>();
+        List<ServiceOrderView> orderViews = new ArrayList<>();
+        for (ServiceOrder order : orders) {
+            if (order.getStatus() == ServiceOrderStatus.CANCELLED) {
+                continue;
+            }
+            ServiceOrderView view = ServiceOrderView.from(order, printedAt);
+            orderViews.add(view);
+            sections.add(PdfSection.of(slipTemplate, view));
+        }
+        for (ServiceOrderView view : orderViews) {
+            if (!view.getResults().isEmpty()) {
+                sections.add(PdfSection.of(resultTemplate, view));
+            }
+        }
+        for (Prescription prescription : prescriptions) {
+            sections.add(PdfSection.of(prescriptionTemplate, PrescriptionView.from(prescription)));
+        }
+        if (billing != null) {
+            sections.add(PdfSection.of(billingTemplate, BillingView.from(billing, BillingPrintService.recordedCashierName(billing))));
+        }
+        return sections;
+    }
+
+    private PatientVisit findVisit(Long visitId) {
+        return patientVisitRepository.findForPrintById(visitId)
+                .orElseThrow(() -> new EntityNotFoundException("Không tìm thấy lần khám với id: " + visitId));
+    }
+}
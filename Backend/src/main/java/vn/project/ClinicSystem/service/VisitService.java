@@ -4,7 +4,10 @@ import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -34,6 +37,8 @@ import vn.project.ClinicSystem.repository.DiseaseRepository;
 import vn.project.ClinicSystem.repository.MedicalServiceRepository;
 import vn.project.ClinicSystem.repository.PatientVisitRepository;
 import vn.project.ClinicSystem.repository.ServiceOrderRepository;
+import vn.project.ClinicSystem.service.event.DataChangedEvent;
+import vn.project.ClinicSystem.service.event.DataDomain;
 
 @Service
 @Transactional(readOnly = true)
@@ -46,6 +51,8 @@ public class VisitService {
     private final DiseaseRepository diseaseRepository;
     private final MedicalServiceRepository medicalServiceRepository;
     private final DoctorRepository doctorRepository;
+    private final DiseaseAnalyticsService diseaseAnalyticsService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public VisitService(PatientVisitRepository patientVisitRepository,
             ServiceOrderRepository serviceOrderRepository,
@@ -53,7 +60,9 @@ public class VisitService {
             AppointmentRepository appointmentRepository,
             DiseaseRepository diseaseRepository,
             MedicalServiceRepository medicalServiceRepository,
-            DoctorRepository doctorRepository) {
+            DoctorRepository doctorRepository,
+            DiseaseAnalyticsService diseaseAnalyticsService,
+            ApplicationEventPublisher eventPublisher) {
         this.patientVisitRepository = patientVisitRepository;
         this.serviceOrderRepository = serviceOrderRepository;
         this.appointmentService = appointmentService;
@@ -61,6 +70,8 @@ public class VisitService {
         this.diseaseRepository = diseaseRepository;
         this.medicalServiceRepository = medicalServiceRepository;
         this.doctorRepository = doctorRepository;
+        this.diseaseAnalyticsService = diseaseAnalyticsService;
+        this.eventPublisher = eventPublisher;
     }
 
     public PatientVisit getById(Long id) {
@@ -134,6 +145,7 @@ public class VisitService {
         visit.setPatient(primaryAppointment.getPatient());
         visit.setProvisionalDiagnosis(request.getProvisionalDiagnosis());
         visit.setStatus(VisitStatus.OPEN);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.VISIT));
         return patientVisitRepository.save(visit);
     }
 
@@ -184,6 +196,7 @@ public class VisitService {
             appointmentRepository.save(primaryAppointment);
         }
 
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.VISIT));
         return patientVisitRepository.save(visit);
     }
 
@@ -195,6 +208,7 @@ public class VisitService {
 
         // Multi-disease handling
         if (request.getDiseaseIds() != null) {
+            Set<Long> previousDiseaseIds = diseaseIdsOf(visit);
             if (request.getDiseaseIds().isEmpty()) {
                 visit.getDiseases().clear();
             } else {
@@ -205,6 +219,7 @@ public class VisitService {
                 visit.getDiseases().clear();
                 visit.getDiseases().addAll(diseases);
             }
+            diseaseAnalyticsService.recordDiseaseChange(visit.getCreatedAt(), previousDiseaseIds, diseaseIdsOf(visit));
         }
 
         return patientVisitRepository.save(visit);
@@ -326,7 +341,15 @@ public class VisitService {
 
     @Transactional
     public void deleteVisit(Long id) {
-        ensureVisitExists(id);
-        patientVisitRepository.deleteById(id);
+        PatientVisit visit = getById(id);
+        diseaseAnalyticsService.recordDiseaseChange(visit.getCreatedAt(), diseaseIdsOf(visit), Set.of());
+        patientVisitRepository.delete(visit);
+        eventPublisher.publishEvent(new DataChangedEvent(DataDomain.VISIT));
+    }
+
+    private Set<Long> diseaseIdsOf(PatientVisit visit) {
+        return visit.getDiseases().stream()
+                .map(Disease::getId)
+                .collect(Collectors.toSet());
     }
 }
@@ -0,0 +1,50 @@
+package vn.project.ClinicSystem.service.event;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import vn.project.ClinicSystem.model.enums.BillingEventType;
+import vn.project.ClinicSystem.model.enums.BillingStatus;
+
+/**
+ * Sự kiện của hóa đơn, phát qua outbox sau khi giao dịch commit. Việc phát là "ít nhất một lần":
+ * cùng một sự kiện có thể đến nhiều lần, bên nhận nên bỏ qua {@code outboxEventId} đã xử lý.
+ * {@code totalDelta} là chênh lệch tổng tiền do sự kiện gây ra, để cập nhật số liệu tổng hợp
+ * mà không cần quét lại hóa đơn.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class BillingDomainEvent {
+
+    private Long outboxEventId;
+    private BillingEventType type;
+    private Long billingId;
+    private Long visitId;
+    private Long patientId;
+    private BillingStatus status;
+    private BillingStatus previousStatus;
+    private BigDecimal totalAmount;
+    private BigDecimal totalDelta;
+    private BigDecimal paymentAmount;
+    private BigDecimal paidAmount;
+    private BigDecimal outstandingAmount;
+    private Instant occurredAt;
+
+    public static BillingDomainEvent of(BillingEventType type, Long billingId, Long visitId, Long patientId,
+            BillingStatus status, BigDecimal totalAmount, BigDecimal totalDelta) {
+        BillingDomainEvent event = new BillingDomainEvent();
+        event.setType(type);
+        event.setBillingId(billingId);
+        event.setVisitId(visitId);
+        event.setPatientId(patientId);
+        event.setStatus(status);
+        event.setTotalAmount(totalAmount);
+        event.setTotalDelta(totalDelta);
+        event.setOccurredAt(Instant.now());
+        return event;
+    }
+}
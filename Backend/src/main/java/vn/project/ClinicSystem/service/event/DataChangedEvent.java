@@ -0,0 +1,23 @@
+package vn.project.ClinicSystem.service.event;
+
+import lombok.Getter;
+
+/**
+ * Phát ra từ các service ghi dữ liệu; được xử lý sau khi giao dịch commit
+ * (ví dụ để xóa cache của các màn hình thống kê).
+ */
+@Getter
+public class DataChangedEvent {
+
+    private final DataDomain domain;
+    private final Long entityId;
+
+    public DataChangedEvent(DataDomain domain) {
+        this(domain, null);
+    }
+
+    public DataChangedEvent(DataDomain domain, Long entityId) {
+        this.domain = domain;
+        this.entityId = entityId;
+    }
+}
@@ -0,0 +1,15 @@
+package vn.project.ClinicSystem.service.event;
+
+public enum DataDomain {
+    APPOINTMENT,
+    APPOINTMENT_REQUEST,
+    VISIT,
+    VISIT_DIAGNOSIS,
+    DISEASE,
+    MEDICATION,
+    MEDICAL_SERVICE,
+    BILLING,
+    RETENTION_COHORT,
+    // Giá hoặc tên của dịch vụ/thuốc thay đổi; chỉ bảng giá lắng nghe.
+    PRICE_CATALOG
+}
@@ -0,0 +1,243 @@
+package vn.project.ClinicSystem.service.pdf;
+
+import com.lowagie.text.Chunk;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.Image;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+
+import vn.project.ClinicSystem.service.pdf.view.PatientView;
+
+/**
+ * Các khối bố cục dùng chung của mọi bản in (đầu trang phòng khám, tiêu đề, dòng thông tin, bảng,
+ * tổng tiền, chữ ký). Mỗi tài liệu dùng một composer riêng; không dùng chung giữa các luồng.
+ */
+public class PdfComposer {
+
+    public static final String CLINIC_NAME = "PHÒNG KHÁM ĐA KHOA DUYÊN HẠNH";
+    public static final String CLINIC_ADDRESS = "36 Cách mạng tháng 8, Phường Cái Khế, Tp Cần Thơ";
+    public static final String CLINIC_EMAIL = "Email: duyenhanh@clinic.vn";
+    public static final String MISSING = "N/A";
+
+    private final Document document;
+    private final PdfResources resources;
+
+    public PdfComposer(Document document, PdfResources resources) {
+        this.document = document;
+        this.resources = resources;
+    }
+
+    public PdfResources getResources() {
+        return resources;
+    }
+
+    public void clinicHeader(float logoWidth, float logoHeight) {
+        PdfPTable header = table(new float[] { 1.2f, 2f });
+
+        Image logo = resources.logo(logoWidth, logoHeight);
+        PdfPCell logoCell = logo != null ? new PdfPCell(logo, false) : new PdfPCell(new Paragraph(""));
+        logoCell.setBorderWidth(0);
+        logoCell.setHorizontalAlignment(Element.ALIGN_LEFT);
+        header.addCell(logoCell);
+
+        Paragraph clinicInfo = new Paragraph();
+        clinicInfo.setFont(resources.getHeaderFont());
+        clinicInfo.add(new Paragraph(CLINIC_NAME, resources.getLabelFont()));
+        clinicInfo.add(new Paragraph(CLINIC_ADDRESS, resources.getHeaderFont()));
+        clinicInfo.add(new Paragraph(CLINIC_EMAIL, resources.getHeaderFont()));
+        PdfPCell clinicCell = new PdfPCell(clinicInfo);
+        clinicCell.setBorderWidth(0);
+        clinicCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        header.addCell(clinicCell);
+
+        add(header);
+        spacer();
+    }
+
+    public void title(String text, Font font) {
+        Paragraph title = new Paragraph(text, font);
+        title.setAlignment(Element.ALIGN_CENTER);
+        add(title);
+        spacer();
+    }
+
+    public void spacer() {
+        add(new Paragraph(" ", resources.getTextFont()));
+    }
+
+    public void paragraph(String text) {
+        add(new Paragraph(text, resources.getTextFont()));
+    }
+
+    public void section(String text) {
+        Paragraph section = new Paragraph(text, resources.getSectionTitleFont());
+        section.setSpacingAfter(4f);
+        add(section);
+    }
+
+    /**
+     * Một hàng các cặp "nhãn: giá trị" không viền; ô đầu căn trái, các ô sau căn phải.
+     */
+    public void fields(float[] widths, String... labelsAndValues) {
+        PdfPTable row = widths != null ? table(widths) : fullWidth(labelsAndValues.length / 2);
+        for (int i = 0; i + 1 < labelsAndValues.length; i += 2) {
+            row.addCell(labelValueCell(labelsAndValues[i], labelsAndValues[i + 1],
+                    i == 0 ? Element.ALIGN_LEFT : Element.ALIGN_RIGHT));
+        }
+        add(row);
+    }
+
+    public void patientIdentity(PatientView patient) {
+        fields(new float[] { 2.2f, 1.8f },
+                "Bệnh nhân:", patient != null ? or(patient.getFullName()) : MISSING,
+                "Năm sinh:", (patient != null ? or(patient.getBirthYear()) : MISSING)
+                        + "    Giới tính: " + (patient != null ? or(patient.getGender()) : MISSING));
+    }
+
+    public void patientAddress(PatientView patient) {
+        fields(null, "Địa chỉ:", patient != null ? or(patient.getAddress()) : MISSING);
+    }
+
+    public ItemTable itemTable(float[] widths, String... headers) {
+        PdfPTable table = table(widths);
+        for (String header : headers) {
+            table.addCell(cell(header, resources.getLabelFont(), Element.ALIGN_CENTER));
+        }
+        return new ItemTable(table);
+    }
+
+    public void total(String label, String value) {
+        PdfPTable totalTable = table(new float[] { 1f, 1f });
+        totalTable.setWidthPercentage(40);
+        totalTable.setHorizontalAlignment(Element.ALIGN_RIGHT);
+
+        PdfPCell labelCell = new PdfPCell(new Phrase(label, resources.getLabelFont()));
+        labelCell.setBorderWidth(0);
+        labelCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        labelCell.setPadding(4f);
+
+        PdfPCell valueCell = new PdfPCell(new Phrase(value, resources.getTotalFont()));
+        valueCell.setBorderWidth(0);
+        valueCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        valueCell.setPadding(4f);
+
+        totalTable.addCell(labelCell);
+        totalTable.addCell(valueCell);
+        add(totalTable);
+    }
+
+    // Ô chữ ký có dòng hướng dẫn, căn giữa trong khối 40% bên phải.
+    public void signature(String label, String hint) {
+        PdfPTable signatureTable = new PdfPTable(1);
+        signatureTable.setWidthPercentage(40);
+        signatureTable.setHorizontalAlignment(Element.ALIGN_RIGHT);
+
+        PdfPCell cell = new PdfPCell();
+        cell.setBorder(0);
+        Paragraph labelParagraph = new Paragraph(label, resources.getLabelFont());
+        labelParagraph.setAlignment(Element.ALIGN_CENTER);
+        cell.addElement(labelParagraph);
+        Paragraph hintParagraph = new Paragraph(hint, resources.getSmallItalicFont());
+        hintParagraph.setAlignment(Element.ALIGN_CENTER);
+        cell.addElement(hintParagraph);
+
+        signatureTable.addCell(cell);
+        add(signatureTable);
+    }
+
+    // Chỗ ký của bác sĩ, sát lề phải và chừa khoảng trống bên dưới.
+    public void doctorSignature(String label) {
+        PdfPTable signTable = new PdfPTable(1);
+        signTable.setWidthPercentage(100);
+        PdfPCell cell = new PdfPCell(new Paragraph(label, resources.getLabelFont()));
+        cell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        cell.setBorderWidth(0);
+        cell.setPaddingTop(20f);
+        cell.setPaddingBottom(40f);
+        cell.setPaddingRight(40f);
+        signTable.addCell(cell);
+        add(signTable);
+    }
+
+    public void add(Element element) {
+        try {
+            document.add(element);
+        } catch (DocumentException ex) {
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+    }
+
+    public static String or(String value) {
+        return value != null ? value : MISSING;
+    }
+
+    private PdfPCell labelValueCell(String label, String value, int alignment) {
+        Phrase phrase = new Phrase();
+        phrase.add(new Chunk(label + " ", resources.getLabelFont()));
+        phrase.add(new Chunk(value != null ? value : "", resources.getTextFont()));
+        PdfPCell cell = new PdfPCell(phrase);
+        cell.setBorderWidth(0f);
+        cell.setPadding(4f);
+        cell.setHorizontalAlignment(alignment);
+        return cell;
+    }
+
+    private static PdfPCell cell(String text, Font font, int alignment) {
+        PdfPCell cell = new PdfPCell(new Paragraph(text != null ? text : "", font));
+        cell.setPadding(6f);
+        cell.setBorderWidth(0.5f);
+        cell.setHorizontalAlignment(alignment);
+        return cell;
+    }
+
+    private static PdfPTable fullWidth(int columns) {
+        PdfPTable table = new PdfPTable(Math.max(columns, 1));
+        table.setWidthPercentage(100);
+        return table;
+    }
+
+    private static PdfPTable table(float[] widths) {
+        PdfPTable table = fullWidth(widths.length);
+        try {
+            table.setWidths(widths);
+        } catch (DocumentException ex) {
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+        return table;
+    }
+
+    /**
+     * Bảng có viền: hàng tiêu đề đã thêm sẵn, mỗi lời gọi thêm một ô theo thứ tự cột.
+     */
+    public class ItemTable {
+        private final PdfPTable table;
+
+        private ItemTable(PdfPTable table) {
+            this.table = table;
+        }
+
+        public ItemTable text(String value) {
+            table.addCell(cell(value, resources.getTextFont(), Element.ALIGN_LEFT));
+            return this;
+        }
+
+        public ItemTable centered(String value) {
+            table.addCell(cell(value, resources.getTextFont(), Element.ALIGN_CENTER));
+            return this;
+        }
+
+        public ItemTable cell(PdfPCell cell) {
+            table.addCell(cell);
+            return this;
+        }
+
+        public void add() {
+            PdfComposer.this.add(table);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package vn.project.ClinicSystem.service.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.pdf.PdfWriter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Dựng PDF từ một {@link PdfTemplate} và view model. Thời gian dựng mỗi mẫu được ghi vào
+ * {@value #RENDER_TIMER} với tag {@code template} và {@code outcome}.
+ * <p>
+ * Mặc định nén tối đa và dùng object stream (PDF 1.5) cho file nhỏ nhất. Bật
+ * {@code clinicsystem.print.pdfa} để xuất PDF/A-1b cho lưu trữ; chuẩn này dựa trên PDF 1.4 nên không
+ * dùng object stream.
+ */
+@Component
+public class PdfDocumentEngine {
+
+    public static final String RENDER_TIMER = "clinicsystem.print.render";
+
+    private final PdfResources resources;
+    private final MeterRegistry meterRegistry;
+    private final boolean pdfA;
+
+    public PdfDocumentEngine(PdfResources resources, MeterRegistry meterRegistry,
+            @Value("${clinicsystem.print.pdfa:false}") boolean pdfA) {
+        this.resources = resources;
+        this.meterRegistry = meterRegistry;
+        this.pdfA = pdfA;
+    }
+
+    public <M> byte[] render(PdfTemplate<M> template, M model) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        render(template, model, baos);
+        return baos.toByteArray();
+    }
+
+    // Ghi thẳng ra outputStream và không đóng nó; người gọi sở hữu luồng ghi.
+    public <M> void render(PdfTemplate<M> template, M model, OutputStream outputStream) {
+        render(template.getName(), template.getDisplayName(), List.of(PdfSection.of(template, model)), outputStream);
+    }
+
+    /**
+     * Ghép nhiều phần vào cùng một tài liệu, mỗi phần bắt đầu ở trang mới với khổ giấy của mẫu đó.
+     * Mọi phần dùng chung một writer nên font chỉ được nhúng một lần cho cả tài liệu.
+     */
+    public void render(String name, String displayName, List<PdfSection<?>> sections, OutputStream outputStream) {
+        if (sections.isEmpty()) {
+            throw new IllegalArgumentException("Không có nội dung để in " + displayName);
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            write(sections, outputStream);
+            outcome = "success";
+        } catch (Exception ex) {
+            throw new IllegalStateException("Không thể tạo PDF " + displayName + ": " + ex.getMessage(), ex);
+        } finally {
+            sample.stop(Timer.builder(RENDER_TIMER)
+                    .description("Thời gian dựng một bản in PDF")
+                    .tag("template", name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Dựng một tài liệu bỏ đi để nạp font, mẫu và JIT trước lượt in thật. Không ghi vào {@value #RENDER_TIMER}
+     * để số liệu chỉ phản ánh bản in thật.
+     */
+    public <M> void warmUp(PdfTemplate<M> template, M model) {
+        try {
+            write(List.of(PdfSection.of(template, model)), OutputStream.nullOutputStream());
+        } catch (Exception ex) {
+            throw new IllegalStateException("Không thể dựng thử " + template.getDisplayName() + ": " + ex.getMessage(),
+                    ex);
+        }
+    }
+
+    private void write(List<PdfSection<?>> sections, OutputStream outputStream) throws Exception {
+        Document document = new Document(sections.get(0).getPageSize());
+        PdfWriter writer = PdfWriter.getInstance(document, outputStream);
+        writer.setCloseStream(false);
+        writer.setCompressionLevel(Deflater.BEST_COMPRESSION);
+        if (pdfA) {
+            writer.setPDFXConformance(PdfWriter.PDFA1B);
+        } else {
+            writer.setFullCompression();
+        }
+        document.open();
+        if (pdfA) {
+            writer.setOutputIntents("Custom", "", "http://www.color.org", "sRGB IEC61966-2.1",
+                    resources.getSrgbProfile());
+        }
+        PdfComposer composer = new PdfComposer(document, resources);
+        for (int i = 0; i < sections.size(); i++) {
+            if (i > 0) {
+                document.setPageSize(sections.get(i).getPageSize());
+                document.newPage();
+            }
+            sections.get(i).compose(composer);
+        }
+        if (pdfA) {
+            writer.createXmpMetadata();
+        }
+        document.close();
+    }
+}
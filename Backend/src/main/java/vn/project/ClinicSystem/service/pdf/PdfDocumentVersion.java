@@ -0,0 +1,75 @@
+package vn.project.ClinicSystem.service.pdf;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Objects;
+
+import lombok.Getter;
+
+/**
+ * Định danh một phiên bản nội dung của bản in: loại tài liệu, id và dấu vân tay của mọi dữ liệu
+ * in ra (updatedAt/version của thực thể và các thực thể liên quan). Dữ liệu đổi thì dấu vân tay
+ * đổi, nên khóa cache và ETag cũ tự hết hiệu lực.
+ */
+@Getter
+public class PdfDocumentVersion {
+
+    private final String type;
+    private final Long id;
+    private final String fingerprint;
+    private final Instant lastModified;
+
+    private PdfDocumentVersion(String type, Long id, String fingerprint, Instant lastModified) {
+        this.type = type;
+        this.id = id;
+        this.fingerprint = fingerprint;
+        this.lastModified = lastModified;
+    }
+
+    public static PdfDocumentVersion of(String type, Long id, Instant lastModified, Object... parts) {
+        StringBuilder source = new StringBuilder();
+        for (Object part : parts) {
+            source.append(Objects.toString(part, "")).append('|');
+        }
+        return new PdfDocumentVersion(type, id, sha256(source.toString()).substring(0, 20), lastModified);
+    }
+
+    public static Instant latest(Instant... values) {
+        Instant latest = null;
+        for (Instant value : values) {
+            if (value != null && (latest == null || value.isAfter(latest))) {
+                latest = value;
+            }
+        }
+        return latest;
+    }
+
+    // Phần chung của mọi phiên bản cùng tài liệu, dùng để dọn bản cũ khỏi cache.
+    public String getDocumentKey() {
+        return type + "-" + id;
+    }
+
+    public String getCacheKey() {
+        return getDocumentKey() + "-" + fingerprint;
+    }
+
+    public String getEtag() {
+        return "\"" + getCacheKey() + "\"";
+    }
+
+    public String getFileName() {
+        return getDocumentKey() + ".pdf";
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
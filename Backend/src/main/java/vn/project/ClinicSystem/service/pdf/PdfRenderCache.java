@@ -0,0 +1,245 @@
+package vn.project.ClinicSystem.service.pdf;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache bản in PDF trên đĩa theo {@link PdfDocumentVersion#getCacheKey()}, giới hạn tổng dung lượng
+ * {@code clinicsystem.print.cache.max-bytes} và loại file lâu nhất chưa dùng (LRU) khi vượt.
+ * <p>
+ * Thư mục cache được dọn khi khởi động để bản in luôn theo bố cục của phiên bản đang chạy. Tài liệu
+ * được dựng vào file tạm rồi đổi tên nguyên tử, nên không bao giờ trả về file dở dang; hai yêu cầu
+ * cùng lúc cho cùng tài liệu có thể dựng trùng nhưng kết quả như nhau.
+ * <p>
+ * Bản in chỉ được đọc qua {@link CachedPdf} từ {@link #open}: file được mở và giữ chỗ ngay trong khóa
+ * của cache, file bị thay hoặc bị loại trong lúc đang gửi chỉ bị xóa khi người đọc cuối cùng đóng lại.
+ */
+@Slf4j
+@Component
+public class PdfRenderCache {
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // Thứ tự truy cập: phần tử đầu là file lâu nhất chưa được dùng.
+    private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+    // Số người đang đọc theo khóa, và các khóa đã bị loại nhưng còn người đọc nên chưa xóa file.
+    private final Map<String, Integer> pins = new HashMap<>();
+    private final Set<String> pendingDeletes = new HashSet<>();
+
+    public PdfRenderCache(
+            @Value("${clinicsystem.print.cache.dir:${java.io.tmpdir}/clinicsystem/print-cache}") String directory,
+            @Value("${clinicsystem.print.cache.max-bytes:268435456}") long maxBytes) {
+        this.directory = Paths.get(directory);
+        this.maxBytes = maxBytes;
+    }
+
+    @PostConstruct
+    void clearDirectory() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException ex) {
+            log.warn("Không thể dọn thư mục cache bản in {}: {}", directory, ex.getMessage());
+        }
+    }
+
+    /**
+     * Mở bản in để gửi đi, dựng trước nếu chưa có. Người gọi phải đóng {@link CachedPdf} sau khi gửi xong.
+     */
+    public CachedPdf open(PdfDocumentVersion version, PdfRenderer renderer) throws IOException {
+        CachedPdf cached = openIfPresent(version);
+        return cached != null ? cached : render(version, renderer, true);
+    }
+
+    // Chỉ đưa bản in vào cache (lệnh in nền, dựng sẵn); không giữ file.
+    public void prepare(PdfDocumentVersion version, PdfRenderer renderer) throws IOException {
+        synchronized (this) {
+            if (sizes.get(version.getCacheKey()) != null && Files.exists(fileOf(version.getCacheKey()))) {
+                return;
+            }
+        }
+        render(version, renderer, false);
+    }
+
+    /**
+     * Mở bản in đã có trong cache mà không dựng lại.
+     *
+     * @return {@code null} nếu bản in chưa có hoặc đã bị loại khỏi cache
+     */
+    public synchronized CachedPdf openIfPresent(PdfDocumentVersion version) throws IOException {
+        String key = version.getCacheKey();
+        if (sizes.get(key) == null) {
+            return null;
+        }
+        try {
+            return pin(key);
+        } catch (NoSuchFileException ex) {
+            return null;
+        }
+    }
+
+    private CachedPdf render(PdfDocumentVersion version, PdfRenderer renderer, boolean open) throws IOException {
+        String key = version.getCacheKey();
+        Path file = fileOf(key);
+        Files.createDirectories(directory);
+        Path partial = Files.createTempFile(directory, key + "-", ".part");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+                renderer.render(out);
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        long size = Files.size(file);
+        synchronized (this) {
+            put(version, size);
+            return open ? pin(key) : null;
+        }
+    }
+
+    public synchronized boolean contains(PdfDocumentVersion version) {
+        return sizes.containsKey(version.getCacheKey());
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private synchronized void put(PdfDocumentVersion version, long size) {
+        String key = version.getCacheKey();
+        // Bản cũ của cùng tài liệu sẽ không được yêu cầu lại nữa.
+        String documentPrefix = version.getDocumentKey() + "-";
+        for (Iterator<Map.Entry<String, Long>> it = sizes.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Long> entry = it.next();
+            if (entry.getKey().startsWith(documentPrefix) && !entry.getKey().equals(key)) {
+                it.remove();
+                totalBytes -= entry.getValue();
+                delete(entry.getKey());
+            }
+        }
+
+        pendingDeletes.remove(key);
+        Long previous = sizes.put(key, size);
+        totalBytes += size - (previous != null ? previous : 0L);
+
+        for (Iterator<Map.Entry<String, Long>> it = sizes.entrySet().iterator(); totalBytes > maxBytes
+                && it.hasNext();) {
+            Map.Entry<String, Long> eldest = it.next();
+            if (eldest.getKey().equals(key)) {
+                break;
+            }
+            it.remove();
+            totalBytes -= eldest.getValue();
+            delete(eldest.getKey());
+        }
+    }
+
+    // Gọi trong khóa của cache: channel được mở trước khi bất kỳ ai kịp xóa file.
+    private CachedPdf pin(String key) throws IOException {
+        FileChannel channel = FileChannel.open(fileOf(key), StandardOpenOption.READ);
+        pins.merge(key, 1, Integer::sum);
+        return new CachedPdf(key, channel);
+    }
+
+    private synchronized void release(String key) {
+        Integer remaining = pins.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+        if (remaining == null && pendingDeletes.remove(key) && !sizes.containsKey(key)) {
+            deleteFile(key);
+        }
+    }
+
+    private void delete(String key) {
+        if (pins.containsKey(key)) {
+            pendingDeletes.add(key);
+        } else {
+            deleteFile(key);
+        }
+    }
+
+    private void deleteFile(String key) {
+        try {
+            Files.deleteIfExists(fileOf(key));
+        } catch (IOException ex) {
+            log.warn("Không thể xóa bản in {} khỏi cache: {}", key, ex.getMessage());
+        }
+    }
+
+    private Path fileOf(String key) {
+        return directory.resolve(key + ".pdf");
+    }
+
+    /**
+     * Một bản in đang được đọc. File không bị xóa cho tới khi {@link #close()}.
+     */
+    public final class CachedPdf implements Closeable {
+
+        private final String key;
+        private final FileChannel channel;
+        private final long size;
+        private boolean closed;
+
+        private CachedPdf(String key, FileChannel channel) throws IOException {
+            this.key = key;
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        public long size() {
+            return size;
+        }
+
+        // Ghi toàn bộ file ra out; không đóng out. Đích là channel bọc quanh stream nên đây là một lần chép
+        // qua bộ nhớ của JVM, không phải zero-copy.
+        public void transferTo(OutputStream out) throws IOException {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                channel.close();
+            } finally {
+                release(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package vn.project.ClinicSystem.service.pdf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Dựng một tài liệu PDF vào luồng ghi của người gọi; không đóng luồng.
+ */
+@FunctionalInterface
+public interface PdfRenderer {
+    void render(OutputStream outputStream) throws IOException;
+}
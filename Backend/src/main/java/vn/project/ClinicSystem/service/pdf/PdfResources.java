@@ -0,0 +1,153 @@
+package vn.project.ClinicSystem.service.pdf;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import com.lowagie.text.Font;
+import com.lowagie.text.Image;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.ICC_Profile;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Font, các kiểu chữ và logo dùng chung cho mọi bản in PDF, nạp một lần khi khởi động.
+ * <p>
+ * {@link BaseFont} và các {@link Font} ở đây chỉ được đọc khi dựng tài liệu nên dùng chung an toàn
+ * giữa các luồng; nơi gọi không được sửa chúng (setSize, setStyle...), cần kiểu khác thì tạo
+ * {@code new Font(...)} riêng. Logo được giải mã một lần, mỗi tài liệu nhận một bản sao đã co giãn
+ * qua {@link #logo(float, float)} vì {@link Image} bị thay đổi khi co giãn.
+ * <p>
+ * Font được nhúng dạng subset (chỉ các glyph đã dùng). Logo gốc là ảnh PNG lớn có kênh alpha; khi
+ * nạp, ảnh được thu về {@value #LOGO_DPI} dpi của khung lớn nhất mà bản in dùng và phủ lên nền trắng,
+ * nên mỗi tài liệu chỉ mang vài chục KB ảnh và không có độ trong suốt (PDF/A-1 không cho phép).
+ */
+@Slf4j
+@Getter
+@Component
+public class PdfResources {
+
+    private static final String FONT_PATH = "fonts/NotoSans-Regular.ttf";
+    private static final String LOGO_PATH = "logo/LogoDuyenHanh.png";
+    private static final int LOGO_DPI = 300;
+    private static final float LOGO_MAX_WIDTH = 80f;
+    private static final float LOGO_MAX_HEIGHT = 50f;
+
+    private final BaseFont baseFont;
+    private final Font titleFont;
+    private final Font compactTitleFont;
+    private final Font sectionTitleFont;
+    private final Font totalFont;
+    private final Font labelFont;
+    private final Font textFont;
+    private final Font textItalicFont;
+    private final Font headerFont;
+    private final Font smallItalicFont;
+
+    // Hồ sơ màu sRGB khai báo trong output intent của bản in PDF/A.
+    private final ICC_Profile srgbProfile;
+
+    @Getter(AccessLevel.NONE)
+    private final Image logoTemplate;
+
+    public PdfResources() {
+        this.baseFont = loadFont();
+        this.titleFont = new Font(baseFont, 14, Font.BOLD);
+        this.compactTitleFont = new Font(baseFont, 13, Font.BOLD);
+        this.sectionTitleFont = new Font(baseFont, 11, Font.BOLD);
+        this.totalFont = new Font(baseFont, 12, Font.BOLD);
+        this.labelFont = new Font(baseFont, 10, Font.BOLD);
+        this.textFont = new Font(baseFont, 10, Font.NORMAL);
+        this.textItalicFont = new Font(baseFont, 10, Font.ITALIC);
+        this.headerFont = new Font(baseFont, 9, Font.NORMAL);
+        this.smallItalicFont = new Font(baseFont, 9, Font.ITALIC);
+        this.srgbProfile = ICC_Profile.getInstance(
+                java.awt.color.ICC_Profile.getInstance(ColorSpace.CS_sRGB).getData());
+        this.logoTemplate = loadLogo();
+    }
+
+    /**
+     * Bản sao logo co vừa khung cho một tài liệu; dữ liệu ảnh đã giải mã được dùng chung.
+     *
+     * @return null nếu không có logo trong classpath
+     */
+    public Image logo(float maxWidth, float maxHeight) {
+        if (logoTemplate == null) {
+            return null;
+        }
+        Image copy = Image.getInstance(logoTemplate);
+        copy.scaleToFit(maxWidth, maxHeight);
+        return copy;
+    }
+
+    private static BaseFont loadFont() {
+        ClassPathResource resource = new ClassPathResource(FONT_PATH);
+        try (InputStream is = resource.getInputStream()) {
+            byte[] fontBytes = is.readAllBytes();
+            BaseFont font = BaseFont.createFont("NotoSans-Regular.ttf", BaseFont.IDENTITY_H, BaseFont.EMBEDDED,
+                    false, fontBytes, null);
+            font.setSubset(true);
+            return font;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Không thể nạp font " + FONT_PATH + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    private static Image loadLogo() {
+        ClassPathResource resource = new ClassPathResource(LOGO_PATH);
+        if (!resource.exists()) {
+            return null;
+        }
+        try (InputStream is = resource.getInputStream()) {
+            BufferedImage source = ImageIO.read(is);
+            if (source == null) {
+                log.warn("Không đọc được logo {}, bản in sẽ không có logo", LOGO_PATH);
+                return null;
+            }
+            return Image.getInstance(toPng(flatten(source)));
+        } catch (Exception ex) {
+            log.warn("Không thể nạp logo {}, bản in sẽ không có logo: {}", LOGO_PATH, ex.getMessage());
+            return null;
+        }
+    }
+
+    private static BufferedImage flatten(BufferedImage source) {
+        double scale = Math.min(1d, Math.min(
+                LOGO_MAX_WIDTH / 72f * LOGO_DPI / source.getWidth(),
+                LOGO_MAX_HEIGHT / 72f * LOGO_DPI / source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    // PNG RGB không alpha được OpenPDF nhúng nguyên dữ liệu đã nén, không nén lại ở mỗi tài liệu.
+    private static byte[] toPng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
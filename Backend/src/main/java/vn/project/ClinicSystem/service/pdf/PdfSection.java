@@ -0,0 +1,30 @@
+package vn.project.ClinicSystem.service.pdf;
+
+import com.lowagie.text.Rectangle;
+
+/**
+ * Một mẫu kèm view model của nó; nhiều phần ghép thành một tài liệu qua
+ * {@link PdfDocumentEngine#render(String, String, java.util.List, java.io.OutputStream)}.
+ */
+public final class PdfSection<M> {
+
+    private final PdfTemplate<M> template;
+    private final M model;
+
+    private PdfSection(PdfTemplate<M> template, M model) {
+        this.template = template;
+        this.model = model;
+    }
+
+    public static <M> PdfSection<M> of(PdfTemplate<M> template, M model) {
+        return new PdfSection<>(template, model);
+    }
+
+    public Rectangle getPageSize() {
+        return template.getPageSize();
+    }
+
+    void compose(PdfComposer composer) {
+        template.compose(composer, model);
+    }
+}
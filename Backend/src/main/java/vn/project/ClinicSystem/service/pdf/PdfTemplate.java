@@ -0,0 +1,23 @@
+package vn.project.ClinicSystem.service.pdf;
+
+import com.lowagie.text.Rectangle;
+
+/**
+ * Bố cục một loại bản in. Phần cố định (khổ giấy, tiêu đề, độ rộng cột, tiêu đề cột) khai báo một lần
+ * trong mẫu; mỗi lần in chỉ gắn view model vào các khối của {@link PdfComposer}. Mẫu không giữ trạng
+ * thái nên dùng chung được giữa các luồng.
+ *
+ * @param <M> view model đã định dạng sẵn, không chứa entity
+ */
+public interface PdfTemplate<M> {
+
+    /** Tên ngắn, dùng làm tag của số đo thời gian dựng. */
+    String getName();
+
+    /** Tên hiển thị trong thông báo lỗi, ví dụ "hóa đơn". */
+    String getDisplayName();
+
+    Rectangle getPageSize();
+
+    void compose(PdfComposer composer, M model);
+}
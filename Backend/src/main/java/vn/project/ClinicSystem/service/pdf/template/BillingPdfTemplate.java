@@ -0,0 +1,94 @@
+package vn.project.ClinicSystem.service.pdf.template;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Rectangle;
+
+import vn.project.ClinicSystem.service.pdf.PdfComposer;
+import vn.project.ClinicSystem.service.pdf.PdfTemplate;
+import vn.project.ClinicSystem.service.pdf.view.BillingView;
+import vn.project.ClinicSystem.service.pdf.view.BillingView.ItemLine;
+import vn.project.ClinicSystem.service.pdf.view.PatientView;
+
+@Component
+public class BillingPdfTemplate implements PdfTemplate<BillingView> {
+
+    private static final float[] INFO_WIDTHS = { 2.2f, 1.8f };
+    private static final float[] SERVICE_WIDTHS = { 0.6f, 4.4f, 1.5f };
+    private static final float[] ITEM_WIDTHS = { 0.6f, 3.4f, 0.8f, 1.2f, 1.2f };
+    private static final float[] PAYMENT_WIDTHS = { 3f, 1f };
+
+    @Override
+    public String getName() {
+        return "billing";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "hóa đơn";
+    }
+
+    @Override
+    public Rectangle getPageSize() {
+        return PageSize.A4;
+    }
+
+    @Override
+    public void compose(PdfComposer composer, BillingView billing) {
+        PatientView patient = billing.getPatient();
+        composer.clinicHeader(70, 40);
+        composer.title("HÓA ĐƠN THANH TOÁN", composer.getResources().getTitleFont());
+        composer.fields(INFO_WIDTHS,
+                "Bệnh nhân:", patient != null ? patient.getFullName() : PdfComposer.MISSING,
+                "Ngày lập:", billing.getIssuedAt());
+        composer.fields(INFO_WIDTHS,
+                "SĐT:", patient != null ? (patient.getPhone() != null ? patient.getPhone() : "—") : PdfComposer.MISSING,
+                "Người lập:", billing.getCashierName());
+        composer.spacer();
+        composer.spacer();
+
+        if (!billing.getServiceItems().isEmpty()) {
+            composer.section("Dịch vụ khám");
+            PdfComposer.ItemTable table = composer.itemTable(SERVICE_WIDTHS, "STT", "Tên dịch vụ", "Thành tiền");
+            int index = 1;
+            for (ItemLine item : billing.getServiceItems()) {
+                table.centered(String.valueOf(index++)).text(item.getDescription()).centered(item.getAmount());
+            }
+            table.add();
+            composer.spacer();
+        }
+        itemSection(composer, "Đơn thuốc", "Tên thuốc", billing.getMedicationItems());
+        itemSection(composer, "Chi phí khác", "Mô tả", billing.getOtherItems());
+
+        composer.total("Tổng cộng:", billing.getTotalAmount());
+        composer.spacer();
+        composer.fields(PAYMENT_WIDTHS,
+                "Phương thức thanh toán:", billing.getPaymentMethod() != null ? billing.getPaymentMethod() : "—",
+                "", "");
+        composer.spacer();
+        composer.spacer();
+        composer.signature("Người thanh toán", "(Ký, ghi rõ họ tên)");
+    }
+
+    private void itemSection(PdfComposer composer, String title, String descriptionHeader, List<ItemLine> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        composer.section(title);
+        PdfComposer.ItemTable table = composer.itemTable(ITEM_WIDTHS,
+                "STT", descriptionHeader, "SL", "Đơn giá", "Thành tiền");
+        int index = 1;
+        for (ItemLine item : items) {
+            table.centered(String.valueOf(index++))
+                    .text(item.getDescription())
+                    .centered(item.getQuantity())
+                    .centered(item.getUnitPrice())
+                    .centered(item.getAmount());
+        }
+        table.add();
+        composer.spacer();
+    }
+}
@@ -0,0 +1,75 @@
+package vn.project.ClinicSystem.service.pdf.template;
+
+import org.springframework.stereotype.Component;
+
+import com.lowagie.text.Chunk;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.PdfPCell;
+
+import vn.project.ClinicSystem.service.pdf.PdfComposer;
+import vn.project.ClinicSystem.service.pdf.PdfResources;
+import vn.project.ClinicSystem.service.pdf.PdfTemplate;
+import vn.project.ClinicSystem.service.pdf.view.PrescriptionView;
+import vn.project.ClinicSystem.service.pdf.view.PrescriptionView.MedicationLine;
+
+@Component
+public class PrescriptionPdfTemplate implements PdfTemplate<PrescriptionView> {
+
+    private static final float[] DOCTOR_WIDTHS = { 2f, 1f };
+    private static final float[] ITEM_WIDTHS = { 0.4f, 5.6f };
+
+    @Override
+    public String getName() {
+        return "prescription";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "đơn thuốc";
+    }
+
+    @Override
+    public Rectangle getPageSize() {
+        return PageSize.A4;
+    }
+
+    @Override
+    public void compose(PdfComposer composer, PrescriptionView prescription) {
+        composer.clinicHeader(70, 40);
+        composer.title("ĐƠN THUỐC", composer.getResources().getTitleFont());
+        composer.patientIdentity(prescription.getPatient());
+        composer.patientAddress(prescription.getPatient());
+        composer.fields(DOCTOR_WIDTHS,
+                "Bác sĩ kê đơn:", PdfComposer.or(prescription.getDoctorName()),
+                "Ngày kê:", prescription.getIssuedAt());
+        if (prescription.getNotes() != null) {
+            composer.paragraph("Ghi chú: " + prescription.getNotes());
+        }
+        composer.spacer();
+
+        PdfComposer.ItemTable table = composer.itemTable(ITEM_WIDTHS, "STT", "Thuốc / Hướng dẫn");
+        int index = 1;
+        for (MedicationLine item : prescription.getItems()) {
+            table.centered(String.valueOf(index++)).cell(medicationCell(composer.getResources(), item));
+        }
+        table.add();
+
+        composer.spacer();
+        composer.doctorSignature("Bác sĩ ký");
+    }
+
+    private PdfPCell medicationCell(PdfResources resources, MedicationLine item) {
+        Phrase phrase = new Phrase();
+        phrase.add(new Chunk(item.getName() + "\n", resources.getSectionTitleFont()));
+        phrase.add(new Chunk(item.getDetail(), resources.getTextItalicFont()));
+        PdfPCell cell = new PdfPCell(phrase);
+        cell.setPaddingTop(8f);
+        cell.setPaddingBottom(8f);
+        cell.setPaddingLeft(6f);
+        cell.setPaddingRight(6f);
+        cell.setBorderWidth(0.5f);
+        return cell;
+    }
+}
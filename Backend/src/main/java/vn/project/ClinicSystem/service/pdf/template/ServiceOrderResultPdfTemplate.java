@@ -0,0 +1,62 @@
+package vn.project.ClinicSystem.service.pdf.template;
+
+import org.springframework.stereotype.Component;
+
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Rectangle;
+
+import vn.project.ClinicSystem.service.pdf.PdfComposer;
+import vn.project.ClinicSystem.service.pdf.PdfTemplate;
+import vn.project.ClinicSystem.service.pdf.view.ServiceOrderView;
+import vn.project.ClinicSystem.service.pdf.view.ServiceOrderView.ResultLine;
+
+@Component
+public class ServiceOrderResultPdfTemplate implements PdfTemplate<ServiceOrderView> {
+
+    private static final float[] INFO_WIDTHS = { 2f, 1f };
+    private static final float[] RESULT_WIDTHS = { 3f, 1.5f, 1.2f, 1.6f };
+
+    @Override
+    public String getName() {
+        return "service-order-result";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "kết quả dịch vụ";
+    }
+
+    @Override
+    public Rectangle getPageSize() {
+        return PageSize.A4;
+    }
+
+    @Override
+    public void compose(PdfComposer composer, ServiceOrderView order) {
+        composer.clinicHeader(70, 40);
+        composer.title("PHIẾU KẾT QUẢ CẬN LÂM SÀNG", composer.getResources().getTitleFont());
+        composer.patientIdentity(order.getPatient());
+        composer.patientAddress(order.getPatient());
+        composer.fields(null, "Phòng chỉ định:", order.roomText(" - "));
+        composer.fields(INFO_WIDTHS,
+                "Bác sĩ phụ trách:", PdfComposer.or(order.getDoctorName()),
+                "Thời gian thực hiện:", order.getPerformedAt());
+        composer.fields(INFO_WIDTHS,
+                "Dịch vụ:", PdfComposer.or(order.getServiceName()),
+                "Giờ in:", order.getPrintedAt());
+        composer.spacer();
+
+        PdfComposer.ItemTable table = composer.itemTable(RESULT_WIDTHS,
+                "Chỉ số", "Kết quả", "Đơn vị", "Ngưỡng tham chiếu");
+        for (ResultLine result : order.getResults()) {
+            table.text(result.getName())
+                    .centered(result.getValue())
+                    .centered(result.getUnit())
+                    .centered(result.getReferenceRange());
+        }
+        table.add();
+
+        composer.spacer();
+        composer.doctorSignature("Bác sĩ ký");
+    }
+}
@@ -0,0 +1,48 @@
+package vn.project.ClinicSystem.service.pdf.template;
+
+import org.springframework.stereotype.Component;
+
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Rectangle;
+
+import vn.project.ClinicSystem.service.pdf.PdfComposer;
+import vn.project.ClinicSystem.service.pdf.PdfTemplate;
+import vn.project.ClinicSystem.service.pdf.view.ServiceOrderView;
+
+/**
+ * Phiếu chỉ định cận lâm sàng, khổ A5 ngang.
+ */
+@Component
+public class ServiceOrderSlipPdfTemplate implements PdfTemplate<ServiceOrderView> {
+
+    private static final Rectangle PAGE_SIZE = PageSize.A5.rotate();
+    private static final float[] SERVICE_WIDTHS = { 2f, 1f };
+
+    @Override
+    public String getName() {
+        return "service-order";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "phiếu dịch vụ";
+    }
+
+    @Override
+    public Rectangle getPageSize() {
+        return PAGE_SIZE;
+    }
+
+    @Override
+    public void compose(PdfComposer composer, ServiceOrderView order) {
+        composer.clinicHeader(80, 50);
+        composer.title("PHIẾU CHỈ ĐỊNH CẬN LÂM SÀNG", composer.getResources().getCompactTitleFont());
+        composer.patientIdentity(order.getPatient());
+        composer.patientAddress(order.getPatient());
+        composer.fields(null, "Phòng chỉ định:", order.roomText("/"));
+        composer.fields(null, "Bác sĩ phụ trách:", PdfComposer.or(order.getDoctorName()));
+        composer.fields(SERVICE_WIDTHS,
+                "Dịch vụ:", PdfComposer.or(order.getServiceName()),
+                "Giờ chỉ định:", order.getOrderedAt());
+    }
+}
@@ -0,0 +1,72 @@
+package vn.project.ClinicSystem.service.pdf.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+import vn.project.ClinicSystem.model.Billing;
+import vn.project.ClinicSystem.model.BillingItem;
+import vn.project.ClinicSystem.model.enums.BillingItemType;
+
+/**
+ * Dữ liệu đã định dạng sẵn của bản in hóa đơn, tách theo nhóm dịch vụ, thuốc và chi phí khác.
+ */
+@Getter
+@Builder
+public class BillingView {
+    private final PatientView patient;
+    private final String issuedAt;
+    private final String cashierName;
+    private final List<ItemLine> serviceItems;
+    private final List<ItemLine> medicationItems;
+    private final List<ItemLine> otherItems;
+    private final String totalAmount;
+    private final String paymentMethod;
+
+    public static BillingView from(Billing billing, String cashierName) {
+        List<ItemLine> serviceItems = new ArrayList<>();
+        List<ItemLine> medicationItems = new ArrayList<>();
+        List<ItemLine> otherItems = new ArrayList<>();
+        if (billing.getItems() != null) {
+            for (BillingItem item : billing.getItems()) {
+                ItemLine line = ItemLine.from(item);
+                if (BillingItemType.SERVICE.equals(item.getItemType())) {
+                    serviceItems.add(line);
+                } else if (BillingItemType.MEDICATION.equals(item.getItemType())) {
+                    medicationItems.add(line);
+                } else {
+                    otherItems.add(line);
+                }
+            }
+        }
+        return BillingView.builder()
+                .patient(PatientView.from(billing.getVisit() != null ? billing.getVisit().getPatient() : null))
+                .issuedAt(ViewFormats.dateTime(billing.getIssuedAt()))
+                .cashierName(cashierName)
+                .serviceItems(serviceItems)
+                .medicationItems(medicationItems)
+                .otherItems(otherItems)
+                .totalAmount(ViewFormats.money(billing.getTotalAmount()))
+                .paymentMethod(billing.getPaymentMethod())
+                .build();
+    }
+
+    @Getter
+    @Builder
+    public static class ItemLine {
+        private final String description;
+        private final String quantity;
+        private final String unitPrice;
+        private final String amount;
+
+        static ItemLine from(BillingItem item) {
+            return ItemLine.builder()
+                    .description(item.getDescription())
+                    .quantity(String.valueOf(item.getQuantity()))
+                    .unitPrice(ViewFormats.money(item.getUnitPrice()))
+                    .amount(ViewFormats.money(item.getAmount()))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package vn.project.ClinicSystem.service.pdf.view;
+
+import lombok.Builder;
+import lombok.Getter;
+import vn.project.ClinicSystem.model.Patient;
+
+@Getter
+@Builder
+public class PatientView {
+    private final String fullName;
+    private final String birthYear;
+    private final String gender;
+    private final String address;
+    private final String phone;
+
+    public static PatientView from(Patient patient) {
+        if (patient == null) {
+            return null;
+        }
+        return PatientView.builder()
+                .fullName(patient.getFullName())
+                .birthYear(patient.getDateOfBirth() != null
+                        ? String.valueOf(patient.getDateOfBirth().getYear())
+                        : null)
+                .gender(patient.getGender())
+                .address(patient.getAddress())
+                .phone(patient.getPhone())
+                .build();
+    }
+}
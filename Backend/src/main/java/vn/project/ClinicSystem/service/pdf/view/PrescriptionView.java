@@ -0,0 +1,67 @@
+package vn.project.ClinicSystem.service.pdf.view;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+import vn.project.ClinicSystem.model.Prescription;
+import vn.project.ClinicSystem.model.PrescriptionItem;
+
+@Getter
+@Builder
+public class PrescriptionView {
+    private final PatientView patient;
+    private final String doctorName;
+    private final String issuedAt;
+    private final String notes;
+    private final List<MedicationLine> items;
+
+    public static PrescriptionView from(Prescription prescription) {
+        List<MedicationLine> items = new ArrayList<>();
+        for (PrescriptionItem item : prescription.getItems()) {
+            items.add(MedicationLine.from(item));
+        }
+        return PrescriptionView.builder()
+                .patient(PatientView.from(prescription.getVisit() != null ? prescription.getVisit().getPatient() : null))
+                .doctorName(prescription.getPrescribedBy() != null && prescription.getPrescribedBy().getAccount() != null
+                        ? prescription.getPrescribedBy().getAccount().getFullName()
+                        : null)
+                .issuedAt(ViewFormats.dateTime(prescription.getIssuedAt() != null ? prescription.getIssuedAt()
+                        : LocalDateTime.now()))
+                .notes(prescription.getNotes())
+                .items(items)
+                .build();
+    }
+
+    @Getter
+    @Builder
+    public static class MedicationLine {
+        private final String name;
+        private final String detail;
+
+        static MedicationLine from(PrescriptionItem item) {
+            String name = item.getMedicationName() != null ? item.getMedicationName()
+                    : (item.getMedication() != null ? item.getMedication().getName() : "Thuốc không xác định");
+            String detail = "SL: " + (item.getQuantity() != null ? item.getQuantity() : "-")
+                    + " | Tần suất: " + formatFrequency(item.getFrequency())
+                    + " | Liều dùng: " + (item.getDosage() != null ? item.getDosage() : "-");
+            return MedicationLine.builder().name(name).detail(detail).build();
+        }
+
+        private static String formatFrequency(String frequency) {
+            if (frequency == null) {
+                return "N/A";
+            }
+            String normalized = frequency.trim();
+            if (normalized.equals("2") || normalized.equalsIgnoreCase("2 lần")) {
+                return "Sáng - Chiều";
+            }
+            if (normalized.equals("1") || normalized.equalsIgnoreCase("1 lần")) {
+                return "Sáng";
+            }
+            return normalized;
+        }
+    }
+}
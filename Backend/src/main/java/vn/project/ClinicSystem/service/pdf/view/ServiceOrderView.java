@@ -0,0 +1,93 @@
+package vn.project.ClinicSystem.service.pdf.view;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+import vn.project.ClinicSystem.model.ClinicRoom;
+import vn.project.ClinicSystem.model.IndicatorTemplate;
+import vn.project.ClinicSystem.model.ServiceOrder;
+import vn.project.ClinicSystem.model.ServiceOrderResult;
+
+/**
+ * Dữ liệu dùng chung cho phiếu chỉ định và phiếu kết quả của một phiếu dịch vụ. Phòng giữ từng
+ * phần vì hai mẫu nối chúng bằng ký tự khác nhau.
+ */
+@Getter
+@Builder
+public class ServiceOrderView {
+    private final PatientView patient;
+    private final String serviceName;
+    private final String doctorName;
+    private final String roomName;
+    private final String roomCode;
+    private final String roomFloor;
+    private final boolean roomAssigned;
+    private final String performedAt;
+    private final String orderedAt;
+    private final String printedAt;
+    private final List<ResultLine> results;
+
+    public static ServiceOrderView from(ServiceOrder order, Instant printedAt) {
+        ClinicRoom room = order.getMedicalService() != null ? order.getMedicalService().getClinicRoom() : null;
+        List<ResultLine> results = new ArrayList<>();
+        for (ServiceOrderResult result : order.getIndicatorResults()) {
+            results.add(ResultLine.from(result));
+        }
+        return ServiceOrderView.builder()
+                .patient(PatientView.from(order.getVisit() != null ? order.getVisit().getPatient() : null))
+                .serviceName(order.getMedicalService() != null ? order.getMedicalService().getName() : null)
+                .doctorName(order.getAssignedDoctor() != null && order.getAssignedDoctor().getAccount() != null
+                        ? order.getAssignedDoctor().getAccount().getFullName()
+                        : null)
+                .roomName(room != null ? room.getName() : null)
+                .roomCode(room != null ? room.getCode() : null)
+                .roomFloor(room != null ? room.getFloor() : null)
+                .roomAssigned(room != null)
+                .performedAt(ViewFormats.dateTime(order.getPerformedAt()))
+                .orderedAt(ViewFormats.dateTime((order.getCreatedAt() != null ? order.getCreatedAt() : printedAt)
+                        .atZone(ZoneId.systemDefault())))
+                .printedAt(ViewFormats.dateTime(printedAt.atZone(ZoneId.systemDefault())))
+                .results(results)
+                .build();
+    }
+
+    public String roomText(String separator) {
+        if (!roomAssigned) {
+            return "N/A";
+        }
+        return roomName + separator + (roomCode != null ? roomCode : "N/A")
+                + separator + (roomFloor != null ? roomFloor : "N/A");
+    }
+
+    @Getter
+    @Builder
+    public static class ResultLine {
+        private final String name;
+        private final String value;
+        private final String unit;
+        private final String referenceRange;
+
+        static ResultLine from(ServiceOrderResult result) {
+            IndicatorTemplate template = result.getIndicatorTemplate();
+            String name = result.getIndicatorNameSnapshot() != null ? result.getIndicatorNameSnapshot()
+                    : (template != null ? template.getName() : "N/A");
+            String unit = result.getUnitSnapshot() != null ? result.getUnitSnapshot()
+                    : (template != null ? template.getUnit() : "N/A");
+            String referenceRange = "N/A";
+            if (template != null && template.getNormalMin() != null && template.getNormalMax() != null) {
+                referenceRange = ViewFormats.number(template.getNormalMin()) + " - "
+                        + ViewFormats.number(template.getNormalMax());
+            }
+            return ResultLine.builder()
+                    .name(name)
+                    .value(ViewFormats.number(result.getMeasuredValue()))
+                    .unit(unit)
+                    .referenceRange(referenceRange)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package vn.project.ClinicSystem.service.pdf.view;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+
+final class ViewFormats {
+
+    static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy",
+            Locale.forLanguageTag("vi"));
+
+    private static final DecimalFormatSymbols MONEY_SYMBOLS = moneySymbols();
+
+    private ViewFormats() {
+    }
+
+    static String dateTime(TemporalAccessor value) {
+        return value != null ? DATE_TIME.format(value) : "N/A";
+    }
+
+    // DecimalFormat không an toàn đa luồng nên mỗi lần định dạng tạo một đối tượng mới.
+    static String money(BigDecimal value) {
+        if (value == null) {
+            return "0";
+        }
+        return new DecimalFormat("#,###.##", MONEY_SYMBOLS).format(value);
+    }
+
+    static String number(BigDecimal value) {
+        return value != null ? value.stripTrailingZeros().toPlainString() : "N/A";
+    }
+
+    private static DecimalFormatSymbols moneySymbols() {
+        DecimalFormatSymbols symbols = new DecimalFormatSymbols(new Locale("vi", "VN"));
+        symbols.setGroupingSeparator('.');
+        symbols.setDecimalSeparator(',');
+        return symbols;
+    }
+}
@@ -0,0 +1,91 @@
+package vn.project.ClinicSystem.service.receipt;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import vn.project.ClinicSystem.service.pdf.PdfComposer;
+import vn.project.ClinicSystem.service.pdf.view.BillingView;
+import vn.project.ClinicSystem.service.pdf.view.BillingView.ItemLine;
+import vn.project.ClinicSystem.service.pdf.view.PatientView;
+import vn.project.ClinicSystem.service.pdf.view.PrescriptionView;
+import vn.project.ClinicSystem.service.pdf.view.PrescriptionView.MedicationLine;
+
+/**
+ * Biên lai ESC/POS cho máy in nhiệt, dựng từ cùng view model với bản in PDF. Số cột lấy từ
+ * {@code clinicsystem.print.receipt.columns} (mặc định 32, khổ 58mm).
+ */
+@Component
+public class EscPosReceiptRenderer {
+
+    private final int columns;
+
+    public EscPosReceiptRenderer(@Value("${clinicsystem.print.receipt.columns:32}") int columns) {
+        this.columns = Math.max(columns, 24);
+    }
+
+    public byte[] billing(BillingView billing) {
+        EscPosWriter writer = header("HOA DON THANH TOAN");
+        patient(writer, billing.getPatient());
+        writer.row("Ngay lap:", billing.getIssuedAt())
+                .row("Nguoi lap:", billing.getCashierName())
+                .separator();
+        items(writer, "Dich vu kham", billing.getServiceItems());
+        items(writer, "Thuoc", billing.getMedicationItems());
+        items(writer, "Chi phi khac", billing.getOtherItems());
+        writer.bold(true).row("TONG CONG:", billing.getTotalAmount()).bold(false)
+                .row("Thanh toan:", billing.getPaymentMethod() != null ? billing.getPaymentMethod() : "-")
+                .feed(1)
+                .center()
+                .text("Cam on quy khach!");
+        return writer.feed(2).cut();
+    }
+
+    public byte[] prescription(PrescriptionView prescription) {
+        EscPosWriter writer = header("DON THUOC");
+        patient(writer, prescription.getPatient());
+        writer.row("Bac si:", PdfComposer.or(prescription.getDoctorName()))
+                .row("Ngay ke:", prescription.getIssuedAt())
+                .separator();
+        int index = 1;
+        for (MedicationLine item : prescription.getItems()) {
+            writer.bold(true).text(index++ + ". " + item.getName()).bold(false)
+                    .text("   " + item.getDetail());
+        }
+        writer.separator();
+        if (prescription.getNotes() != null) {
+            writer.text("Ghi chu: " + prescription.getNotes());
+        }
+        return writer.feed(2).cut();
+    }
+
+    private EscPosWriter header(String title) {
+        return new EscPosWriter(columns)
+                .center()
+                .bold(true).text(PdfComposer.CLINIC_NAME).bold(false)
+                .text(PdfComposer.CLINIC_ADDRESS)
+                .feed(1)
+                .doubleHeight(true).bold(true).text(title).bold(false).doubleHeight(false)
+                .left();
+    }
+
+    private void patient(EscPosWriter writer, PatientView patient) {
+        writer.row("Benh nhan:", patient != null ? PdfComposer.or(patient.getFullName()) : PdfComposer.MISSING);
+        if (patient != null && patient.getPhone() != null) {
+            writer.row("SDT:", patient.getPhone());
+        }
+    }
+
+    private void items(EscPosWriter writer, String title, List<ItemLine> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        writer.bold(true).text(title).bold(false);
+        for (ItemLine item : items) {
+            writer.text(item.getDescription())
+                    .row("  " + item.getQuantity() + " x " + item.getUnitPrice(), item.getAmount());
+        }
+        writer.separator();
+    }
+}
@@ -0,0 +1,128 @@
+package vn.project.ClinicSystem.service.receipt;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.regex.Pattern;
+
+/**
+ * Ghi lệnh ESC/POS cho một biên lai có {@code columns} ký tự mỗi dòng (32 với khổ 58mm, 48 với khổ
+ * 80mm, font A).
+ * <p>
+ * Bảng mã tiếng Việt khác nhau giữa các hãng máy in nên chữ được bỏ dấu về ASCII; mọi máy ESC/POS đều
+ * in được và số ký tự trên dòng luôn khớp với số cột.
+ */
+class EscPosWriter {
+
+    private static final byte ESC = 0x1B;
+    private static final byte GS = 0x1D;
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+    private final int columns;
+
+    EscPosWriter(int columns) {
+        this.columns = columns;
+        command(ESC, '@');
+    }
+
+    EscPosWriter center() {
+        command(ESC, 'a', 1);
+        return this;
+    }
+
+    EscPosWriter left() {
+        command(ESC, 'a', 0);
+        return this;
+    }
+
+    EscPosWriter bold(boolean on) {
+        command(ESC, 'E', on ? 1 : 0);
+        return this;
+    }
+
+    // Chữ cao gấp đôi, giữ nguyên độ rộng để không làm thay đổi số cột.
+    EscPosWriter doubleHeight(boolean on) {
+        command(GS, '!', on ? 0x01 : 0x00);
+        return this;
+    }
+
+    // Xuống dòng theo số cột; từ dài hơn một dòng bị cắt cứng. Khoảng trắng đầu dòng được giữ để thụt lề.
+    EscPosWriter text(String value) {
+        String remaining = ascii(value).stripTrailing();
+        if (remaining.isEmpty()) {
+            return line("");
+        }
+        int indent = remaining.length() - remaining.stripLeading().length();
+        while (remaining.length() > columns) {
+            int cut = remaining.lastIndexOf(' ', columns);
+            if (cut <= indent) {
+                cut = columns;
+            }
+            line(remaining.substring(0, cut));
+            remaining = remaining.substring(cut).trim();
+            indent = 0;
+        }
+        return line(remaining);
+    }
+
+    // Nhãn bên trái, giá trị canh phải trên cùng một dòng; không đủ chỗ thì giá trị xuống dòng dưới.
+    EscPosWriter row(String label, String value) {
+        String l = ascii(label);
+        String v = ascii(value);
+        int gap = columns - l.length() - v.length();
+        if (gap < 1) {
+            text(l);
+            return line(" ".repeat(Math.max(columns - v.length(), 0)) + v);
+        }
+        return line(l + " ".repeat(gap) + v);
+    }
+
+    EscPosWriter separator() {
+        return line("-".repeat(columns));
+    }
+
+    EscPosWriter feed(int lines) {
+        command(ESC, 'd', lines);
+        return this;
+    }
+
+    // Đẩy giấy qua dao cắt rồi cắt một phần.
+    byte[] cut() {
+        command(GS, 'V', 66, 3);
+        return out.toByteArray();
+    }
+
+    private EscPosWriter line(String value) {
+        out.writeBytes(value.getBytes(StandardCharsets.US_ASCII));
+        out.write('\n');
+        return this;
+    }
+
+    private void command(int... bytes) {
+        for (int b : bytes) {
+            out.write(b);
+        }
+    }
+
+    static String ascii(String value) {
+        if (value == null) {
+            return "";
+        }
+        String stripped = COMBINING_MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder result = new StringBuilder(stripped.length());
+        for (int i = 0; i < stripped.length(); i++) {
+            char c = stripped.charAt(i);
+            if (c == 'đ') {
+                result.append('d');
+            } else if (c == 'Đ') {
+                result.append('D');
+            } else if (c == '—' || c == '–') {
+                result.append('-');
+            } else {
+                result.append(c < 0x20 || c > 0x7E ? '?' : c);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package vn.project.ClinicSystem.service.receipt;
+
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import vn.project.ClinicSystem.service.pdf.PdfComposer;
+import vn.project.ClinicSystem.service.pdf.view.BillingView;
+import vn.project.ClinicSystem.service.pdf.view.PrescriptionView;
+
+/**
+ * Biên lai HTML khổ 58mm qua Thymeleaf ({@code templates/receipt/*.html}), in từ trình duyệt ở quầy.
+ * Mẫu được Thymeleaf phân tích một lần rồi giữ trong cache, mỗi lần in chỉ còn bước ghép dữ liệu.
+ */
+@Component
+public class HtmlReceiptRenderer {
+
+    private static final Locale VIETNAMESE = Locale.forLanguageTag("vi");
+
+    private final ITemplateEngine templateEngine;
+
+    public HtmlReceiptRenderer(ITemplateEngine templateEngine) {
+        this.templateEngine = templateEngine;
+    }
+
+    public String billing(BillingView billing) {
+        return render("receipt/billing", Map.of("billing", billing));
+    }
+
+    public String prescription(PrescriptionView prescription) {
+        return render("receipt/prescription", Map.of("prescription", prescription));
+    }
+
+    private String render(String template, Map<String, Object> variables) {
+        Context context = new Context(VIETNAMESE, variables);
+        context.setVariable("clinicName", PdfComposer.CLINIC_NAME);
+        context.setVariable("clinicAddress", PdfComposer.CLINIC_ADDRESS);
+        return templateEngine.process(template, context);
+    }
+}
@@ -0,0 +1,59 @@
+package vn.project.ClinicSystem.util;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ghi CSV theo RFC 4180: giá trị chứa dấu phẩy, nháy kép hoặc xuống dòng được bọc trong nháy kép;
+ * {@code null} được ghi thành ô rỗng.
+ */
+public class CsvWriter implements Closeable, Flushable {
+
+    private final Writer writer;
+
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    public void writeRow(List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values.get(i);
+            if (value != null) {
+                writer.write(escape(value.toString()));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    public void writeRow(Object... values) throws IOException {
+        writeRow(Arrays.asList(values));
+    }
+
+    public static String escape(String value) {
+        boolean needsQuoting = value.indexOf(',') >= 0
+                || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0
+                || value.indexOf('\r') >= 0;
+        if (!needsQuoting) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
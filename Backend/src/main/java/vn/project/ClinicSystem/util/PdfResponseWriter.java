@@ -0,0 +1,131 @@
+package vn.project.ClinicSystem.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import vn.project.ClinicSystem.service.pdf.PdfDocumentVersion;
+import vn.project.ClinicSystem.service.pdf.PdfRenderCache;
+import vn.project.ClinicSystem.service.pdf.PdfRenderCache.CachedPdf;
+import vn.project.ClinicSystem.service.pdf.PdfRenderer;
+
+/**
+ * Ghi PDF thẳng ra response thay vì dựng cả file thành byte[] rồi mới trả về.
+ * <p>
+ * Response chỉ được giữ trong bộ đệm {@code clinicsystem.print.response-buffer-bytes} của servlet
+ * container. Lỗi xảy ra khi bộ đệm chưa được gửi đi (gồm mọi lỗi tìm dữ liệu và hầu hết lỗi dựng
+ * trang, vì font được ghi vào cuối tài liệu) thì phần thân và các header của PDF bị xóa, lỗi đi qua
+ * GlobalException như các API khác; header CORS và bảo mật đã đặt trước đó được giữ nguyên. Lỗi sau khi đã gửi một phần thì chỉ còn cách cắt kết nối.
+ */
+@Slf4j
+@Component
+public class PdfResponseWriter {
+
+    private final PdfRenderCache renderCache;
+    private final int bufferSize;
+
+    public PdfResponseWriter(PdfRenderCache renderCache,
+            @Value("${clinicsystem.print.response-buffer-bytes:65536}") int bufferSize) {
+        this.renderCache = renderCache;
+        this.bufferSize = bufferSize;
+    }
+
+    public void write(HttpServletResponse response, String fileName, PdfRenderer renderer) throws IOException {
+        response.setBufferSize(bufferSize);
+        setPdfHeaders(response, fileName);
+        OutputStream outputStream = response.getOutputStream();
+        try {
+            renderer.render(outputStream);
+        } catch (IOException | RuntimeException ex) {
+            if (response.isCommitted()) {
+                log.error("Lỗi khi đang gửi {}, đã gửi một phần nên phải hủy response", fileName, ex);
+                throw new PdfStreamAbortedException(fileName, ex);
+            }
+            clearPdfResponse(response);
+            throw ex;
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * Trả bản in qua {@link PdfRenderCache}: trình duyệt gửi lại ETag/Last-Modified còn khớp thì nhận
+     * 304, bản đã có trong cache được gửi từ file, chỉ khi chưa có mới dựng lại. Lỗi dựng xảy ra khi
+     * ghi file tạm nên luôn trả về JSON.
+     * <p>
+     * Việc gửi không phải zero-copy: file được chép qua bộ đệm vào output stream của servlet. Cố ý không
+     * dùng sendfile của Tomcat, vì khi đó file chỉ được đọc sau khi request đã trả về, lúc file không
+     * còn được giữ chỗ và có thể đã bị cache xóa.
+     */
+    public void writeCached(HttpServletRequest request, HttpServletResponse response, PdfDocumentVersion version,
+            PdfRenderer renderer) throws IOException {
+        if (notModified(request, response, version)) {
+            return;
+        }
+        try (CachedPdf pdf = renderCache.open(version, renderer)) {
+            send(response, version, pdf);
+        }
+    }
+
+    /**
+     * Như {@link #writeCached} nhưng không bao giờ dựng lại: dùng cho kết quả của lệnh in nền, để việc
+     * dựng luôn nằm trên pool in thay vì luồng request.
+     *
+     * @return {@code false} nếu bản in đã bị loại khỏi cache; chưa có gì được ghi ra response
+     */
+    public boolean writeCachedIfPresent(HttpServletRequest request, HttpServletResponse response,
+            PdfDocumentVersion version) throws IOException {
+        if (notModified(request, response, version)) {
+            return true;
+        }
+        try (CachedPdf pdf = renderCache.openIfPresent(version)) {
+            if (pdf == null) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, null);
+                return false;
+            }
+            send(response, version, pdf);
+            return true;
+        }
+    }
+
+    // Bản in chứa thông tin bệnh nhân: chỉ trình duyệt được giữ, và phải hỏi lại server mỗi lần dùng.
+    private boolean notModified(HttpServletRequest request, HttpServletResponse response, PdfDocumentVersion version) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        long lastModified = version.getLastModified() != null ? version.getLastModified().toEpochMilli() : -1L;
+        return new ServletWebRequest(request, response).checkNotModified(version.getEtag(), lastModified);
+    }
+
+    private void send(HttpServletResponse response, PdfDocumentVersion version, CachedPdf pdf) throws IOException {
+        setPdfHeaders(response, version.getFileName());
+        response.setContentLengthLong(pdf.size());
+        pdf.transferTo(response.getOutputStream());
+    }
+
+    // Không dùng response.reset(): hàm đó xóa cả header của filter CORS và Spring Security.
+    private void clearPdfResponse(HttpServletResponse response) {
+        response.resetBuffer();
+        response.setContentType(null);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, null);
+        response.setHeader(HttpHeaders.CONTENT_LENGTH, null);
+    }
+
+    private void setPdfHeaders(HttpServletResponse response, String fileName) {
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+    }
+
+    // Không có handler trong GlobalException nên servlet container sẽ hủy kết nối thay vì ghi JSON nối vào PDF.
+    public static class PdfStreamAbortedException extends RuntimeException {
+        public PdfStreamAbortedException(String fileName, Throwable cause) {
+            super("Không thể gửi hết " + fileName, cause);
+        }
+    }
+}
@@ -2,9 +2,11 @@ package vn.project.ClinicSystem.util;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
@@ -108,14 +110,11 @@ public class SecurityUtil {
      * @param authorities the authorities to check.
      * @return true if the current user has any of the authorities, false otherwise.
      */
-    // public static boolean hasCurrentUserAnyOfAuthorities(String... authorities) {
-    // Authentication authentication =
-    // SecurityContextHolder.getContext().getAuthentication();
-    // return (
-    // authentication != null && getAuthorities(authentication).anyMatch(authority
-    // -> Arrays.asList(authorities).contains(authority))
-    // );
-    // }
+    public static boolean hasCurrentUserAnyOfAuthorities(String... authorities) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null
+                && getAuthorities(authentication).anyMatch(authority -> Arrays.asList(authorities).contains(authority));
+    }
 
     /**
      * Checks if the current user has none of the authorities.
@@ -139,9 +138,8 @@ public class SecurityUtil {
     // return hasCurrentUserAnyOfAuthorities(authority);
     // }
 
-    // private static Stream<String> getAuthorities(Authentication authentication) {
-    // return
-    // authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority);
-    // }
+    private static Stream<String> getAuthorities(Authentication authentication) {
+        return authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority);
+    }
 
 }
@@ -3,6 +3,8 @@ package vn.project.ClinicSystem.util.error;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -44,6 +46,35 @@ public class GlobalException {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(res);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<RestResponse<Object>> handleConflict(OptimisticLockingFailureException ex) {
+        RestResponse<Object> res = new RestResponse<>();
+        res.setStatusCode(HttpStatus.CONFLICT.value());
+        res.setError("ConcurrentModification");
+        res.setMessage("Dữ liệu đã được người khác cập nhật, vui lòng tải lại và thử lại");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(res);
+    }
+
+    @ExceptionHandler(PrintQueueFullException.class)
+    public ResponseEntity<RestResponse<Object>> handleTooManyRequests(PrintQueueFullException ex) {
+        RestResponse<Object> res = new RestResponse<>();
+        res.setStatusCode(HttpStatus.TOO_MANY_REQUESTS.value());
+        res.setError("PrintQueueFull");
+        res.setMessage(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(res);
+    }
+
+    @ExceptionHandler(PrintJobExpiredException.class)
+    public ResponseEntity<RestResponse<Object>> handleGone(PrintJobExpiredException ex) {
+        RestResponse<Object> res = new RestResponse<>();
+        res.setStatusCode(HttpStatus.GONE.value());
+        res.setError("PrintJobExpired");
+        res.setMessage(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.GONE).body(res);
+    }
+
     @ExceptionHandler(value = {
             UsernameNotFoundException.class,
             BadCredentialsException.class
@@ -0,0 +1,8 @@
+package vn.project.ClinicSystem.util.error;
+
+// Lệnh in đã xong nhưng bản in đã bị loại khỏi cache; người dùng cần gửi lại lệnh in.
+public class PrintJobExpiredException extends RuntimeException {
+    public PrintJobExpiredException(String message) {
+        super(message);
+    }
+}
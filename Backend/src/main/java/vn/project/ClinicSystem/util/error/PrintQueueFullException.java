@@ -0,0 +1,14 @@
+package vn.project.ClinicSystem.util.error;
+
+public class PrintQueueFullException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public PrintQueueFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,131 @@
+package vn.project.ClinicSystem.config.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = embeddedDatabase("primary");
+        replica = embeddedDatabase("replica");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransaction_shouldBeRoutedToReplica() {
+        Routing routing = routing(Duration.ofSeconds(5));
+
+        assertThat(routing.currentDatabase(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void writeTransaction_shouldBeRoutedToPrimary() {
+        Routing routing = routing(Duration.ofSeconds(5));
+
+        assertThat(routing.currentDatabase(false)).isEqualTo("primary");
+    }
+
+    @Test
+    void readAfterOwnWrite_shouldStayOnPrimaryWithinWindow() {
+        Routing routing = routing(Duration.ofMinutes(1));
+        authenticate("cashier@clinicsystem.com");
+
+        routing.currentDatabase(false);
+
+        assertThat(routing.currentDatabase(true)).isEqualTo("primary");
+
+        authenticate("doctor@clinicsystem.com");
+        assertThat(routing.currentDatabase(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void readAfterOwnWrite_shouldReturnToReplicaWhenWindowDisabled() {
+        Routing routing = routing(Duration.ZERO);
+        authenticate("cashier@clinicsystem.com");
+
+        routing.currentDatabase(false);
+
+        assertThat(routing.currentDatabase(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void rolledBackWrite_shouldNotPinUserToPrimary() {
+        Routing routing = routing(Duration.ofMinutes(1));
+        authenticate("cashier@clinicsystem.com");
+
+        routing.transactionTemplate(false).executeWithoutResult(status -> {
+            routing.jdbcTemplate.queryForObject("SELECT name FROM db_role", String.class);
+            status.setRollbackOnly();
+        });
+
+        assertThat(routing.currentDatabase(true)).isEqualTo("replica");
+    }
+
+    private Routing routing(Duration window) {
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(new ReadYourWritesGuard(window));
+        routingDataSource.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.PRIMARY, primary,
+                ReadWriteRoutingDataSource.REPLICA, replica));
+        routingDataSource.setDefaultTargetDataSource(primary);
+        routingDataSource.afterPropertiesSet();
+        return new Routing(new LazyConnectionDataSourceProxy(routingDataSource));
+    }
+
+    private void authenticate(String login) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(login, null));
+    }
+
+    private DataSource embeddedDatabase(String role) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + role + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE db_role (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO db_role (name) VALUES (?)", role);
+        return dataSource;
+    }
+
+    private static class Routing {
+        private final DataSourceTransactionManager transactionManager;
+        private final JdbcTemplate jdbcTemplate;
+
+        Routing(DataSource dataSource) {
+            this.transactionManager = new DataSourceTransactionManager(dataSource);
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+
+        TransactionTemplate transactionTemplate(boolean readOnly) {
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setReadOnly(readOnly);
+            return template;
+        }
+
+        String currentDatabase(boolean readOnly) {
+            return transactionTemplate(readOnly).execute(
+                    status -> jdbcTemplate.queryForObject("SELECT name FROM db_role", String.class));
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package vn.project.ClinicSystem.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import vn.project.ClinicSystem.model.Billing;
+import vn.project.ClinicSystem.model.BillingPayment;
+import vn.project.ClinicSystem.model.DataMigration;
+import vn.project.ClinicSystem.model.User;
+import vn.project.ClinicSystem.model.dto.BillingPaymentRequest;
+import vn.project.ClinicSystem.model.enums.BillingStatus;
+import vn.project.ClinicSystem.repository.BillingPaymentRepository;
+import vn.project.ClinicSystem.repository.BillingRepository;
+import vn.project.ClinicSystem.repository.DataMigrationRepository;
+import vn.project.ClinicSystem.repository.UserRepository;
+import vn.project.ClinicSystem.service.event.BillingDomainEvent;
+
+@ExtendWith(MockitoExtension.class)
+class BillingPaymentServiceTest {
+
+    private static final String CASHIER_EMAIL = "thungan@clinic.vn";
+
+    @Mock
+    private BillingRepository billingRepository;
+    @Mock
+    private BillingPaymentRepository billingPaymentRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private OutboxService outboxService;
+    @Mock
+    private DataMigrationRepository dataMigrationRepository;
+
+    @InjectMocks
+    private BillingPaymentService billingPaymentService;
+
+    private Billing billing;
+    private User cashier;
+
+    @BeforeEach
+    void setUp() {
+        billing = new Billing();
+        billing.setId(1L);
+        billing.setTotalAmount(new BigDecimal("500000"));
+        billing.refreshOutstanding();
+
+        cashier = new User();
+        cashier.setId(9L);
+        cashier.setEmail(CASHIER_EMAIL);
+        cashier.setFullName("Trần Văn Thu");
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void recordPayment_shouldRejectAmountAboveOutstanding() {
+        when(billingRepository.findForPaymentById(1L)).thenReturn(Optional.of(billing));
+
+        assertThatThrownBy(() -> billingPaymentService.recordPayment(1L, request("500001")))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(billingPaymentRepository, never()).save(any(BillingPayment.class));
+    }
+
+    @Test
+    void recordPayment_shouldRejectRefundAbovePaidAmount() {
+        billing.applyPayment(new BigDecimal("100000"));
+        when(billingRepository.findForPaymentById(1L)).thenReturn(Optional.of(billing));
+
+        assertThatThrownBy(() -> billingPaymentService.recordPayment(1L, request("-100001")))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(billingPaymentRepository, never()).save(any(BillingPayment.class));
+    }
+
+    @Test
+    void recordPayment_shouldRejectZeroAmount() {
+        when(billingRepository.findForPaymentById(1L)).thenReturn(Optional.of(billing));
+
+        assertThatThrownBy(() -> billingPaymentService.recordPayment(1L, request("0")))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(billingPaymentRepository, never()).save(any(BillingPayment.class));
+    }
+
+    @Test
+    void recordPayment_shouldRejectCancelledBilling() {
+        billing.setStatus(BillingStatus.CANCELLED);
+        when(billingRepository.findForPaymentById(1L)).thenReturn(Optional.of(billing));
+
+        assertThatThrownBy(() -> billingPaymentService.recordPayment(1L, request("100000")))
+                .isInstanceOf(IllegalStateException.class);
+        verify(billingPaymentRepository, never()).save(any(BillingPayment.class));
+    }
+
+    @Test
+    void recordPayment_shouldMoveThroughPartiallyPaidToPaid() {
+        loginAsCashier();
+        when(billingRepository.findForPaymentById(1L)).thenReturn(Optional.of(billing));
+        when(billingPaymentRepository.save(any(BillingPayment.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0, BillingPayment.class));
+
+        BillingPayment first = billingPaymentService.recordPayment(1L, request("200000"));
+
+        assertThat(billing.getStatus()).isEqualTo(BillingStatus.PARTIALLY_PAID);
+        assertThat(billing.getPaidAmount()).isEqualByComparingTo("200000");
+        assertThat(billing.getOutstandingAmount()).isEqualByComparingTo("300000");
+        assertThat(billing.getSettledAt()).isNotNull();
+        assertThat(billing.getCashier()).isSameAs(cashier);
+        assertThat(first.getCashier()).isSameAs(cashier);
+        assertThat(first.getBilling()).isSameAs(billing);
+
+        billingPaymentService.recordPayment(1L, request("300000"));
+
+        assertThat(billing.getStatus()).isEqualTo(BillingStatus.PAID);
+        assertThat(billing.getPaidAmount()).isEqualByComparingTo("500000");
+        assertThat(billing.getOutstandingAmount()).isEqualByComparingTo("0");
+        assertThat(billing.getPaymentMethod()).isEqualTo("CASH");
+
+        ArgumentCaptor<BillingDomainEvent> event = ArgumentCaptor.forClass(BillingDomainEvent.class);
+        verify(outboxService, times(2)).appendBillingEvent(event.capture());
+        assertThat(event.getValue().getPreviousStatus()).isEqualTo(BillingStatus.PARTIALLY_PAID);
+        assertThat(event.getValue().getOutstandingAmount()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void settleOutstanding_shouldRecordRemainingAmountWithBillingMethod() {
+        billing.applyPayment(new BigDecimal("200000"));
+        billing.setPaymentMethod("TRANSFER");
+        when(billingPaymentRepository.save(any(BillingPayment.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0, BillingPayment.class));
+
+        BillingPayment payment = billingPaymentService.settleOutstanding(billing);
+
+        assertThat(payment.getAmount()).isEqualByComparingTo("300000");
+        assertThat(payment.getMethod()).isEqualTo("TRANSFER");
+        assertThat(billing.getStatus()).isEqualTo(BillingStatus.PAID);
+        assertThat(billing.getOutstandingAmount()).isEqualByComparingTo("0");
+        assertThat(billing.getSettledAt()).isNotNull();
+        verify(billingRepository).save(billing);
+    }
+
+    @Test
+    void migrateLegacyBalances_shouldRunOnlyOnce() {
+        when(dataMigrationRepository.existsByName(anyString())).thenReturn(false, true);
+        when(billingPaymentRepository.insertLegacySettlements(eq(BillingPaymentService.DEFAULT_METHOD), anyString(),
+                any(Instant.class))).thenReturn(3);
+        when(billingRepository.backfillPaidBalances()).thenReturn(3);
+        when(billingRepository.backfillOutstandingBalances()).thenReturn(4);
+
+        assertThat(billingPaymentService.migrateLegacyBalances()).isEqualTo(7);
+        assertThat(billingPaymentService.migrateLegacyBalances()).isEqualTo(-1);
+
+        ArgumentCaptor<DataMigration> migration = ArgumentCaptor.forClass(DataMigration.class);
+        verify(dataMigrationRepository).saveAndFlush(migration.capture());
+        assertThat(migration.getValue().getAffectedRows()).isEqualTo(7);
+    }
+
+    @Test
+    void migrateLegacyBalances_shouldFailWhenSettlementsDifferFromPaidBillings() {
+        when(dataMigrationRepository.existsByName(anyString())).thenReturn(false);
+        when(billingPaymentRepository.insertLegacySettlements(eq(BillingPaymentService.DEFAULT_METHOD), anyString(),
+                any(Instant.class))).thenReturn(2);
+        when(billingRepository.backfillPaidBalances()).thenReturn(3);
+
+        assertThatThrownBy(() -> billingPaymentService.migrateLegacyBalances())
+                .isInstanceOf(IllegalStateException.class);
+        verify(billingRepository, never()).backfillOutstandingBalances();
+    }
+
+    private void loginAsCashier() {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(CASHIER_EMAIL, null));
+        when(userRepository.findByEmail(CASHIER_EMAIL)).thenReturn(Optional.of(cashier));
+    }
+
+    private static BillingPaymentRequest request(String amount) {
+        BillingPaymentRequest request = new BillingPaymentRequest();
+        request.setAmount(new BigDecimal(amount));
+        request.setMethod("CASH");
+        return request;
+    }
+}
@@ -0,0 +1,182 @@
+package vn.project.ClinicSystem.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import vn.project.ClinicSystem.model.Appointment;
+import vn.project.ClinicSystem.model.Billing;
+import vn.project.ClinicSystem.model.ClinicRoom;
+import vn.project.ClinicSystem.model.Doctor;
+import vn.project.ClinicSystem.model.Patient;
+import vn.project.ClinicSystem.model.PatientVisit;
+import vn.project.ClinicSystem.repository.BillingItemRepository;
+import vn.project.ClinicSystem.repository.BillingPaymentRepository;
+import vn.project.ClinicSystem.repository.BillingRepository;
+import vn.project.ClinicSystem.repository.MedicalServiceRepository;
+import vn.project.ClinicSystem.repository.MedicationRepository;
+import vn.project.ClinicSystem.repository.OutboxEventRepository;
+import vn.project.ClinicSystem.repository.PatientVisitRepository;
+import vn.project.ClinicSystem.repository.PrescriptionRepository;
+import vn.project.ClinicSystem.repository.ServiceOrderRepository;
+import vn.project.ClinicSystem.repository.UserRepository;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BillingServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private BillingService billingService;
+    @Autowired
+    private BillingRepository billingRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentRequestsForSameVisit_shouldConvergeOnOneBilling() throws Exception {
+        Long visitId = createVisit();
+
+        Set<Long> billingIds = runConcurrently(() -> billingService.generateForVisit(visitId, null).getId());
+
+        assertThat(billingIds).hasSize(1);
+        assertThat(countBillings(visitId)).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentRetriesWithSameIdempotencyKey_shouldReturnSameBilling() throws Exception {
+        Long visitId = createVisit();
+        String key = UUID.randomUUID().toString();
+
+        Set<Long> billingIds = runConcurrently(() -> billingService.generateForVisit(visitId, key).getId());
+
+        assertThat(billingIds).hasSize(1);
+        Billing billing = billingRepository.findByIdempotencyKey(key).orElseThrow();
+        assertThat(billingIds).containsExactly(billing.getId());
+    }
+
+    // Tất cả luồng cùng chờ một tín hiệu để các yêu cầu thực sự chồng lên nhau; lỗi ở bất kỳ luồng nào làm test thất bại.
+    private Set<Long> runConcurrently(Callable<Long> action) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return action.call();
+            }));
+        }
+        start.countDown();
+
+        List<Long> ids = new ArrayList<>();
+        for (Future<Long> future : futures) {
+            ids.add(future.get(30, TimeUnit.SECONDS));
+        }
+        return ids.stream().collect(Collectors.toSet());
+    }
+
+    private long countBillings(Long visitId) {
+        return new TransactionTemplate(transactionManager).execute(status -> entityManager
+                .createQuery("SELECT COUNT(b) FROM Billing b WHERE b.visit.id = :visitId", Long.class)
+                .setParameter("visitId", visitId)
+                .getSingleResult());
+    }
+
+    private Long createVisit() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Patient patient = new Patient();
+            patient.setCode("BN-" + suffix);
+            patient.setFullName("Trần Thị B");
+            patient.setPhone("0900000002");
+            entityManager.persist(patient);
+
+            Doctor doctor = new Doctor();
+            doctor.setSpecialty("Nhi");
+            doctor.setLicenseNumber("GP-" + suffix);
+            entityManager.persist(doctor);
+
+            ClinicRoom room = new ClinicRoom();
+            room.setCode("P-" + suffix);
+            room.setName("Phòng khám " + suffix);
+            entityManager.persist(room);
+
+            Appointment appointment = new Appointment();
+            appointment.setPatient(patient);
+            appointment.setDoctor(doctor);
+            appointment.setClinicRoom(room);
+            appointment.setScheduledAt(LocalDateTime.now().plusHours(1));
+            entityManager.persist(appointment);
+
+            PatientVisit visit = new PatientVisit();
+            visit.setPatient(patient);
+            visit.setPrimaryAppointment(appointment);
+            entityManager.persist(visit);
+            return visit.getId();
+        });
+    }
+
+    @Configuration
+    @EntityScan(basePackageClasses = PatientVisit.class)
+    @EnableJpaRepositories(basePackageClasses = BillingRepository.class, includeFilters = @ComponentScan.Filter(
+            type = FilterType.ASSIGNABLE_TYPE, classes = {
+                    BillingRepository.class,
+                    BillingItemRepository.class,
+                    BillingPaymentRepository.class,
+                    PatientVisitRepository.class,
+                    ServiceOrderRepository.class,
+                    PrescriptionRepository.class,
+                    MedicalServiceRepository.class,
+                    MedicationRepository.class,
+                    UserRepository.class,
+                    OutboxEventRepository.class }))
+    @Import({ BillingService.class, InvoiceDataLoader.class, BillingItemFactory.class, PriceCatalog.class,
+            OutboxService.class, BillingPaymentService.class })
+    @ImportAutoConfiguration(JacksonAutoConfiguration.class)
+    static class Config {
+    }
+}
@@ -1,12 +1,18 @@
 package vn.project.ClinicSystem.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
 
 
 import java.util.List;
@@ -15,23 +21,30 @@ import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import vn.project.ClinicSystem.model.Billing;
+import vn.project.ClinicSystem.model.BillingItem;
 import vn.project.ClinicSystem.model.Patient;
 import vn.project.ClinicSystem.model.PatientVisit;
 import vn.project.ClinicSystem.model.Prescription;
 import vn.project.ClinicSystem.model.PrescriptionItem;
 import vn.project.ClinicSystem.model.ServiceOrder;
+import vn.project.ClinicSystem.model.dto.BillingItemCreateRequest;
+import vn.project.ClinicSystem.model.enums.BillingEventType;
 import vn.project.ClinicSystem.model.enums.BillingItemType;
+import vn.project.ClinicSystem.model.enums.BillingStatus;
 import vn.project.ClinicSystem.model.enums.ServiceOrderStatus;
 import vn.project.ClinicSystem.repository.BillingItemRepository;
 import vn.project.ClinicSystem.repository.BillingRepository;
 import vn.project.ClinicSystem.repository.PatientVisitRepository;
-import vn.project.ClinicSystem.repository.PrescriptionRepository;
-import vn.project.ClinicSystem.repository.ServiceOrderRepository;
+import vn.project.ClinicSystem.repository.UserRepository;
 
 @ExtendWith(MockitoExtension.class)
 class BillingServiceTest {
@@ -43,9 +56,19 @@ class BillingServiceTest {
     @Mock
     private PatientVisitRepository patientVisitRepository;
     @Mock
-    private ServiceOrderRepository serviceOrderRepository;
+    private InvoiceDataLoader invoiceDataLoader;
     @Mock
-    private PrescriptionRepository prescriptionRepository;
+    private PriceCatalog priceCatalog;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private OutboxService outboxService;
+    @Mock
+    private BillingPaymentService billingPaymentService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Spy
+    private BillingItemFactory billingItemFactory = new BillingItemFactory();
 
     @InjectMocks
     private BillingService billingService;
@@ -86,18 +109,22 @@ class BillingServiceTest {
 
         when(billingRepository.findByVisitId(2L)).thenReturn(Optional.empty());
         when(patientVisitRepository.findById(2L)).thenReturn(Optional.of(visit));
-        when(serviceOrderRepository.findByVisitId(2L)).thenReturn(List.of(serviceOrder));
-        when(prescriptionRepository.findByVisitIdOrderByIssuedAtDesc(2L)).thenReturn(List.of(prescription));
+        when(invoiceDataLoader.load(2L)).thenReturn(
+                new InvoiceDataLoader.InvoiceData(List.of(serviceOrder), List.of(prescription)));
+        when(priceCatalog.current()).thenReturn(new PriceCatalog.Snapshot(7L, Instant.now(),
+                Map.of(40L, new PriceCatalog.ServicePrice(40L, "Xét nghiệm máu", new BigDecimal("200000"))),
+                Map.of()));
         when(billingRepository.save(any(Billing.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0, Billing.class));
 
-        Billing billing = billingService.generateForVisit(2L);
+        Billing billing = billingService.generateForVisit(2L, null);
 
         assertThat(billing.getItems()).hasSize(2);
         assertThat(billing.getServiceTotal()).isEqualByComparingTo("200000");
         assertThat(billing.getMedicationTotal()).isEqualByComparingTo("50000");
         assertThat(billing.getOtherTotal()).isEqualByComparingTo("0");
         assertThat(billing.getTotalAmount()).isEqualByComparingTo("250000");
+        assertThat(billing.getPriceCatalogVersion()).isEqualTo(7L);
 
         var serviceItem = billing.getItems().stream()
                 .filter(i -> i.getItemType() == BillingItemType.SERVICE)
@@ -114,5 +141,90 @@ class BillingServiceTest {
 
         verify(billingRepository).save(any(Billing.class));
         verify(patientVisitRepository).findById(2L);
+        verify(outboxService).appendBillingEvent(argThat(event -> event.getType() == BillingEventType.CREATED
+                && event.getTotalDelta().compareTo(new BigDecimal("250000")) == 0));
+    }
+
+    @Test
+    void addManualItem_shouldApplyDeltaToTotalsInsteadOfRecalculating() {
+        Billing billing = new Billing();
+        billing.setId(5L);
+        billing.setVersion(3L);
+
+        BillingItemCreateRequest request = new BillingItemCreateRequest();
+        request.setItemType(BillingItemType.OTHER);
+        request.setDescription("Phí sổ khám");
+        request.setQuantity(2);
+        request.setUnitPrice(new BigDecimal("15000"));
+
+        when(billingRepository.findById(5L)).thenReturn(Optional.of(billing));
+        when(billingRepository.applyTotalsDelta(eq(5L), eq(3L), any(BigDecimal.class), any(BigDecimal.class),
+                any(BigDecimal.class), any(Instant.class))).thenReturn(1);
+
+        billingService.addManualItem(5L, request);
+
+        ArgumentCaptor<BigDecimal> otherDelta = ArgumentCaptor.forClass(BigDecimal.class);
+        verify(billingRepository).applyTotalsDelta(eq(5L), eq(3L), argThat(d -> d.signum() == 0),
+                argThat(d -> d.signum() == 0), otherDelta.capture(), any(Instant.class));
+        assertThat(otherDelta.getValue()).isEqualByComparingTo("30000");
+        verify(billingItemRepository).save(any(BillingItem.class));
+    }
+
+    @Test
+    void addManualItem_shouldRejectStaleVersion() {
+        Billing billing = new Billing();
+        billing.setId(5L);
+        billing.setVersion(4L);
+
+        BillingItemCreateRequest request = new BillingItemCreateRequest();
+        request.setItemType(BillingItemType.OTHER);
+        request.setDescription("Phí sổ khám");
+        request.setQuantity(1);
+        request.setUnitPrice(new BigDecimal("15000"));
+        request.setVersion(3L);
+
+        when(billingRepository.findById(5L)).thenReturn(Optional.of(billing));
+
+        assertThatThrownBy(() -> billingService.addManualItem(5L, request))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        verify(billingItemRepository, never()).save(any(BillingItem.class));
+    }
+
+    @Test
+    void deleteItem_shouldRejectTotalBelowPaidAmount() {
+        Billing billing = new Billing();
+        billing.setId(5L);
+        billing.setVersion(3L);
+        billing.setStatus(BillingStatus.PAID);
+        billing.setTotalAmount(new BigDecimal("30000"));
+        billing.setPaidAmount(new BigDecimal("30000"));
+        billing.setOutstandingAmount(BigDecimal.ZERO);
+
+        BillingItem item = new BillingItem();
+        item.setId(11L);
+        item.setBilling(billing);
+        item.setItemType(BillingItemType.OTHER);
+        item.setAmount(new BigDecimal("15000"));
+
+        when(billingRepository.findById(5L)).thenReturn(Optional.of(billing));
+        when(billingItemRepository.findById(11L)).thenReturn(Optional.of(item));
+
+        assertThatThrownBy(() -> billingService.deleteItem(5L, 11L, 3L))
+                .isInstanceOf(IllegalStateException.class);
+        verify(billingRepository, never()).applyTotalsDelta(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void generateForVisit_shouldReturnExistingBillingInsteadOfFailing() {
+        Billing existing = new Billing();
+        existing.setId(9L);
+        existing.setVisit(visit);
+
+        when(billingRepository.findByVisitId(2L)).thenReturn(Optional.of(existing));
+
+        Billing billing = billingService.generateForVisit(2L, null);
+
+        assertThat(billing).isSameAs(existing);
+        verify(billingRepository, never()).save(any(Billing.class));
     }
 }
@@ -0,0 +1,171 @@
+package vn.project.ClinicSystem.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import jakarta.persistence.EntityManagerFactory;
+import vn.project.ClinicSystem.model.Appointment;
+import vn.project.ClinicSystem.model.ClinicRoom;
+import vn.project.ClinicSystem.model.Doctor;
+import vn.project.ClinicSystem.model.MedicalService;
+import vn.project.ClinicSystem.model.Medication;
+import vn.project.ClinicSystem.model.Patient;
+import vn.project.ClinicSystem.model.PatientVisit;
+import vn.project.ClinicSystem.model.Prescription;
+import vn.project.ClinicSystem.model.PrescriptionItem;
+import vn.project.ClinicSystem.model.ServiceOrder;
+import vn.project.ClinicSystem.model.enums.ServiceType;
+import vn.project.ClinicSystem.repository.PrescriptionRepository;
+import vn.project.ClinicSystem.repository.ServiceOrderRepository;
+import vn.project.ClinicSystem.service.InvoiceDataLoader.InvoiceData;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class InvoiceDataLoaderTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private InvoiceDataLoader invoiceDataLoader;
+
+    private Statistics statistics;
+    private PatientVisit firstVisit;
+    private PatientVisit secondVisit;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Patient patient = new Patient();
+        patient.setCode("BN0001");
+        patient.setFullName("Nguyễn Văn A");
+        patient.setPhone("0900000001");
+        entityManager.persist(patient);
+
+        Doctor doctor = new Doctor();
+        doctor.setSpecialty("Nội tổng quát");
+        doctor.setLicenseNumber("GP-0001");
+        entityManager.persist(doctor);
+
+        ClinicRoom room = new ClinicRoom();
+        room.setCode("P101");
+        room.setName("Phòng khám 101");
+        entityManager.persist(room);
+
+        Medication medication = new Medication();
+        medication.setName("Paracetamol");
+        medication.setBatchNo("LO-01");
+        medication.setUnitPrice(new BigDecimal("2000"));
+        medication.setManufacturer("DHG");
+        medication.setExpiryDate(LocalDate.now().plusYears(1));
+        medication.setStockQuantity(100);
+        entityManager.persist(medication);
+
+        firstVisit = createVisit(patient, doctor, room);
+        secondVisit = createVisit(patient, doctor, room);
+        for (PatientVisit visit : List.of(firstVisit, secondVisit)) {
+            for (int i = 0; i < 3; i++) {
+                MedicalService service = new MedicalService();
+                service.setCode("DV-" + visit.getId() + "-" + i);
+                service.setName("Dịch vụ " + i);
+                service.setBasePrice(100_000L);
+                service.setType(ServiceType.SUB_CLINICAL);
+                service.setClinicRoom(room);
+                entityManager.persist(service);
+
+                ServiceOrder order = new ServiceOrder();
+                order.setVisit(visit);
+                order.setMedicalService(service);
+                order.setAssignedDoctor(doctor);
+                entityManager.persist(order);
+            }
+            for (int i = 0; i < 2; i++) {
+                Prescription prescription = new Prescription();
+                prescription.setVisit(visit);
+                for (int j = 0; j < 3; j++) {
+                    PrescriptionItem item = new PrescriptionItem();
+                    item.setPrescription(prescription);
+                    item.setMedication(medication);
+                    item.setDosage("1 viên");
+                    item.setFrequency("2 lần/ngày");
+                    item.setQuantity(10);
+                    prescription.getItems().add(item);
+                }
+                entityManager.persist(prescription);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    void load_shouldFetchOrdersAndPrescriptionsInTwoQueries() {
+        InvoiceData data = invoiceDataLoader.load(firstVisit.getId());
+        touch(data);
+
+        assertThat(data.getServiceOrders()).hasSize(3);
+        assertThat(data.getPrescriptions()).hasSize(2);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void loadAll_shouldNotScaleQueriesWithVisitCount() {
+        Map<Long, InvoiceData> data = invoiceDataLoader.loadAll(List.of(firstVisit.getId(), secondVisit.getId()));
+        data.values().forEach(this::touch);
+
+        assertThat(data).hasSize(2);
+        assertThat(data.get(secondVisit.getId()).getServiceOrders()).hasSize(3);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    // Đọc đúng những thuộc tính BillingItemFactory dùng khi giá có trong bảng giá; dịch vụ và thuốc
+    // chỉ cần id nên không được phép phát sinh truy vấn.
+    private void touch(InvoiceData data) {
+        data.getServiceOrders().forEach(order -> order.getMedicalService().getId());
+        data.getPrescriptions().forEach(prescription -> prescription.getItems()
+                .forEach(item -> item.getMedication().getId()));
+    }
+
+    private PatientVisit createVisit(Patient patient, Doctor doctor, ClinicRoom room) {
+        Appointment appointment = new Appointment();
+        appointment.setPatient(patient);
+        appointment.setDoctor(doctor);
+        appointment.setClinicRoom(room);
+        appointment.setScheduledAt(LocalDateTime.now().plusHours(1));
+        entityManager.persist(appointment);
+
+        PatientVisit visit = new PatientVisit();
+        visit.setPatient(patient);
+        visit.setPrimaryAppointment(appointment);
+        return entityManager.persist(visit);
+    }
+
+    @Configuration
+    @EntityScan(basePackageClasses = PatientVisit.class)
+    @EnableJpaRepositories(basePackageClasses = ServiceOrderRepository.class, includeFilters = @ComponentScan.Filter(
+            type = FilterType.ASSIGNABLE_TYPE, classes = { ServiceOrderRepository.class, PrescriptionRepository.class }))
+    @Import(InvoiceDataLoader.class)
+    static class Config {
+    }
+}
@@ -0,0 +1,103 @@
+package vn.project.ClinicSystem.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import vn.project.ClinicSystem.model.OutboxEvent;
+import vn.project.ClinicSystem.model.enums.BillingEventType;
+import vn.project.ClinicSystem.model.enums.BillingStatus;
+import vn.project.ClinicSystem.repository.OutboxEventRepository;
+import vn.project.ClinicSystem.service.event.BillingDomainEvent;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxDispatcherTest {
+
+    private static final long CLAIM_LEASE_SECONDS = 300;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private OutboxDispatcher dispatcher;
+    private OutboxEvent event;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dispatcher = new OutboxDispatcher(outboxEventRepository, eventPublisher, objectMapper, transactionManager,
+                100, 7, CLAIM_LEASE_SECONDS);
+
+        event = new OutboxEvent();
+        event.setId(11L);
+        event.setAggregateType(OutboxService.AGGREGATE_BILLING);
+        event.setAggregateId(1L);
+        event.setEventType(BillingEventType.PAYMENT_RECORDED.name());
+        event.setPayload(objectMapper.writeValueAsString(BillingDomainEvent.of(BillingEventType.PAYMENT_RECORDED,
+                1L, 2L, 3L, BillingStatus.PAID, new BigDecimal("300000"), BigDecimal.ZERO)));
+        event.setNextAttemptAt(Instant.now());
+        when(outboxEventRepository.findDueForClaim(any(Instant.class), any(Pageable.class)))
+                .thenReturn(List.of(event), List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void poll_shouldKeepEventUnpublishedWhenListenerFails() {
+        doThrow(new IllegalStateException("listener down")).when(eventPublisher).publishEvent(any(Object.class));
+        Instant before = Instant.now();
+
+        dispatcher.poll();
+
+        verify(outboxEventRepository, timeout(5_000)).saveAll(anyList());
+        assertThat(event.getPublishedAt()).isNull();
+        assertThat(event.getAttempts()).isEqualTo(1);
+        assertThat(event.getLastError()).isEqualTo("listener down");
+        // Lần thử lại theo thời gian chờ tăng dần, không đợi hết thời hạn nhận lô.
+        assertThat(event.getNextAttemptAt()).isAfter(before)
+                .isBefore(before.plusSeconds(CLAIM_LEASE_SECONDS));
+    }
+
+    @Test
+    void poll_shouldMarkEventPublishedWhenListenerSucceeds() {
+        dispatcher.poll();
+
+        verify(outboxEventRepository, timeout(5_000)).saveAll(anyList());
+        ArgumentCaptor<Object> published = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher).publishEvent(published.capture());
+        assertThat(published.getValue()).isInstanceOfSatisfying(BillingDomainEvent.class, payload -> {
+            assertThat(payload.getOutboxEventId()).isEqualTo(11L);
+            assertThat(payload.getBillingId()).isEqualTo(1L);
+        });
+        assertThat(event.getPublishedAt()).isNotNull();
+        assertThat(event.getAttempts()).isZero();
+        assertThat(event.getLastError()).isNull();
+    }
+}
@@ -0,0 +1,114 @@
+package vn.project.ClinicSystem.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import vn.project.ClinicSystem.model.dto.PrintJobResponse;
+import vn.project.ClinicSystem.model.enums.PrintJobStatus;
+import vn.project.ClinicSystem.service.pdf.PdfDocumentVersion;
+import vn.project.ClinicSystem.service.pdf.PdfRenderCache;
+import vn.project.ClinicSystem.service.pdf.PdfRenderer;
+import vn.project.ClinicSystem.util.error.PrintQueueFullException;
+
+/**
+ * Một luồng dựng và một chỗ trong hàng đợi; bộ dựng chặn cho tới khi test cho phép, nên trạng thái
+ * hàng đợi được kiểm soát hoàn toàn.
+ */
+class PrintJobServiceTest {
+
+    @TempDir
+    Path cacheDirectory;
+
+    private PdfRenderCache renderCache;
+    private PrintJobService printJobService;
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        renderCache = new PdfRenderCache(cacheDirectory.toString(), 1024 * 1024);
+        printJobService = new PrintJobService(renderCache, new SimpleMeterRegistry(), 1, 1, 10, 5_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        printJobService.shutdown();
+    }
+
+    @Test
+    void submit_shouldRejectWhenQueueIsFull() throws InterruptedException {
+        printJobService.submit(version(1L), blockingRenderer());
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        printJobService.submit(version(2L), blockingRenderer());
+
+        assertThatThrownBy(() -> printJobService.submit(version(3L), blockingRenderer()))
+                .isInstanceOf(PrintQueueFullException.class);
+    }
+
+    @Test
+    void submit_shouldReuseJobForSameCacheKey() {
+        PrintJobResponse first = printJobService.submit(version(1L), blockingRenderer());
+        PrintJobResponse second = printJobService.submit(version(1L), blockingRenderer());
+
+        assertThat(second.getJobId()).isEqualTo(first.getJobId());
+    }
+
+    @Test
+    void submit_shouldCompleteCachedVersionWithoutQueueing() throws Exception {
+        PdfDocumentVersion cached = version(9L);
+        renderCache.prepare(cached, out -> out.write(new byte[] { '%', 'P', 'D', 'F' }));
+        // Chiếm luồng dựng và chỗ duy nhất trong hàng đợi.
+        printJobService.submit(version(1L), blockingRenderer());
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        printJobService.submit(version(2L), blockingRenderer());
+
+        PrintJobResponse job = printJobService.submit(cached, blockingRenderer());
+
+        assertThat(job.getStatus()).isEqualTo(PrintJobStatus.COMPLETED);
+        assertThat(job.isDownloadReady()).isTrue();
+    }
+
+    @Test
+    void getJob_shouldCompleteWhenRenderFinishes() throws Exception {
+        PrintJobResponse submitted = printJobService.submit(version(1L), blockingRenderer());
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<PrintJobResponse> waiting = printJobService.getJob(submitted.getJobId(), 5_000);
+        assertThat(waiting).isNotDone();
+
+        release.countDown();
+        PrintJobResponse finished = waiting.get(5, TimeUnit.SECONDS);
+
+        assertThat(finished.getStatus()).isEqualTo(PrintJobStatus.COMPLETED);
+        assertThat(finished.isDownloadReady()).isTrue();
+        assertThat(renderCache.contains(version(1L))).isTrue();
+    }
+
+    private PdfRenderer blockingRenderer() {
+        return out -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            out.write(new byte[] { '%', 'P', 'D', 'F' });
+        };
+    }
+
+    private static PdfDocumentVersion version(Long id) {
+        return PdfDocumentVersion.of(BillingPrintService.DOCUMENT_TYPE, id, null, "v1");
+    }
+}
@@ -0,0 +1,88 @@
+package vn.project.ClinicSystem.service.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import vn.project.ClinicSystem.service.pdf.template.BillingPdfTemplate;
+import vn.project.ClinicSystem.service.pdf.template.PrescriptionPdfTemplate;
+import vn.project.ClinicSystem.service.pdf.view.ViewFixtures;
+
+/**
+ * Chặn việc bản in phình to trở lại. Font NotoSans đầy đủ khoảng 560 KB và logo gốc khoảng 260 KB,
+ * nên chỉ cần một trong hai bị nhúng nguyên vẹn là vượt ngưỡng.
+ */
+class PdfDocumentSizeTest {
+
+    private static final int MAX_DOCUMENT_BYTES = 150 * 1024;
+    private static final String NOTES = "Tái khám sau 7 ngày";
+
+    private static PdfResources resources;
+
+    private final BillingPdfTemplate billingTemplate = new BillingPdfTemplate();
+    private final PrescriptionPdfTemplate prescriptionTemplate = new PrescriptionPdfTemplate();
+
+    @BeforeAll
+    static void loadResources() {
+        resources = new PdfResources();
+    }
+
+    @Test
+    void billing_shouldStayUnderSizeBudget() {
+        byte[] pdf = engine(false).render(billingTemplate, ViewFixtures.billing(50));
+
+        assertThat(pdf.length).isLessThan(MAX_DOCUMENT_BYTES);
+    }
+
+    @Test
+    void prescription_shouldStayUnderSizeBudget() {
+        byte[] pdf = engine(false).render(prescriptionTemplate, ViewFixtures.prescription(20, NOTES));
+
+        assertThat(pdf.length).isLessThan(MAX_DOCUMENT_BYTES);
+    }
+
+    @Test
+    void bundle_shouldEmbedFontAndLogoOnce() {
+        PdfDocumentEngine engine = engine(false);
+        int separate = engine.render(billingTemplate, ViewFixtures.billing(10)).length
+                + engine.render(prescriptionTemplate, ViewFixtures.prescription(10, NOTES)).length;
+
+        ByteArrayOutputStream bundle = new ByteArrayOutputStream();
+        engine.render("bundle", "bộ hồ sơ", List.of(
+                PdfSection.of(prescriptionTemplate, ViewFixtures.prescription(10, NOTES)),
+                PdfSection.of(billingTemplate, ViewFixtures.billing(10))), bundle);
+
+        assertThat(bundle.size()).isLessThan(separate * 85 / 100);
+    }
+
+    @Test
+    void pdfA_shouldRenderUnderSizeBudget() {
+        byte[] pdf = engine(true).render(billingTemplate, ViewFixtures.billing(50));
+
+        assertThat(new String(pdf, 0, 5, StandardCharsets.ISO_8859_1)).isEqualTo("%PDF-");
+        assertThat(pdf.length).isLessThan(MAX_DOCUMENT_BYTES);
+    }
+
+    // Luồng XMP và từ điển OutputIntent không bị nén nên đọc thẳng được từ byte của file.
+    @Test
+    void pdfA_shouldDeclareConformanceAndOutputIntent() {
+        byte[] bytes = engine(true).render(billingTemplate, ViewFixtures.billing(5));
+        String pdf = new String(bytes, StandardCharsets.ISO_8859_1);
+
+        assertThat(pdf).containsPattern("pdfaid:part[>=\"]+1");
+        assertThat(pdf).containsPattern("pdfaid:conformance[>=\"]+B");
+        assertThat(pdf).contains("/OutputIntents", "/GTS_PDFA1", "sRGB IEC61966-2.1");
+        assertThat(pdf).contains("/Metadata");
+    }
+
+    private PdfDocumentEngine engine(boolean pdfA) {
+        return new PdfDocumentEngine(resources, new SimpleMeterRegistry(), pdfA);
+    }
+
+}
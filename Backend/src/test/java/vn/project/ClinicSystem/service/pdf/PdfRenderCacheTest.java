@@ -0,0 +1,106 @@
+package vn.project.ClinicSystem.service.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import vn.project.ClinicSystem.service.pdf.PdfRenderCache.CachedPdf;
+
+/**
+ * Mỗi bản in giả dài 100 byte, ngân sách 250 byte: cache chứa được hai bản, bản thứ ba làm một bản bị loại.
+ */
+class PdfRenderCacheTest {
+
+    private static final int DOCUMENT_BYTES = 100;
+
+    @TempDir
+    Path directory;
+
+    private PdfRenderCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PdfRenderCache(directory.toString(), 250);
+    }
+
+    @Test
+    void prepare_shouldEvictLeastRecentlyUsedWhenOverBudget() throws IOException {
+        PdfDocumentVersion first = version(1L, "a");
+        PdfDocumentVersion second = version(2L, "a");
+        PdfDocumentVersion third = version(3L, "a");
+        cache.prepare(first, renderer('1'));
+        cache.prepare(second, renderer('2'));
+        // Đọc lại bản đầu tiên để bản thứ hai thành bản lâu nhất chưa dùng.
+        cache.openIfPresent(first).close();
+
+        cache.prepare(third, renderer('3'));
+
+        assertThat(cache.contains(first)).isTrue();
+        assertThat(cache.contains(second)).isFalse();
+        assertThat(cache.contains(third)).isTrue();
+        assertThat(fileOf(second)).doesNotExist();
+        assertThat(cache.getTotalBytes()).isEqualTo(2L * DOCUMENT_BYTES);
+    }
+
+    @Test
+    void prepare_shouldDropOlderVersionOfSameDocument() throws IOException {
+        PdfDocumentVersion older = version(1L, "a");
+        PdfDocumentVersion other = version(10L, "a");
+        PdfDocumentVersion newer = version(1L, "b");
+        cache.prepare(older, renderer('1'));
+        cache.prepare(other, renderer('0'));
+
+        cache.prepare(newer, renderer('2'));
+
+        assertThat(cache.contains(older)).isFalse();
+        assertThat(fileOf(older)).doesNotExist();
+        assertThat(cache.contains(newer)).isTrue();
+        assertThat(cache.contains(other)).isTrue();
+        assertThat(cache.getTotalBytes()).isEqualTo(2L * DOCUMENT_BYTES);
+    }
+
+    @Test
+    void open_shouldKeepEvictedFileUntilReaderCloses() throws IOException {
+        PdfDocumentVersion pinned = version(1L, "a");
+        CachedPdf reader = cache.open(pinned, renderer('1'));
+        cache.prepare(version(2L, "a"), renderer('2'));
+        cache.prepare(version(3L, "a"), renderer('3'));
+
+        assertThat(cache.contains(pinned)).isFalse();
+        assertThat(cache.openIfPresent(pinned)).isNull();
+        assertThat(fileOf(pinned)).exists();
+
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        reader.transferTo(sent);
+        assertThat(sent.toByteArray()).isEqualTo(content('1'));
+
+        reader.close();
+        assertThat(fileOf(pinned)).doesNotExist();
+    }
+
+    private Path fileOf(PdfDocumentVersion version) {
+        return directory.resolve(version.getCacheKey() + ".pdf");
+    }
+
+    private static PdfDocumentVersion version(Long id, String revision) {
+        return PdfDocumentVersion.of("billing", id, null, revision);
+    }
+
+    private static PdfRenderer renderer(char fill) {
+        return out -> out.write(content(fill));
+    }
+
+    private static byte[] content(char fill) {
+        byte[] bytes = new byte[DOCUMENT_BYTES];
+        Arrays.fill(bytes, (byte) fill);
+        return bytes;
+    }
+}
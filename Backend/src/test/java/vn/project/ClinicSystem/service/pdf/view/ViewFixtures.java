@@ -0,0 +1,90 @@
+package vn.project.ClinicSystem.service.pdf.view;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * View model dùng chung cho các test bản in PDF và biên lai. Các mục lặp lại theo cặp: mục lẻ là dịch
+ * vụ, mục chẵn là thuốc; {@code billing(2)} và {@code prescription(2, ...)} là một cặp đầy đủ.
+ */
+public final class ViewFixtures {
+
+    private static final long SERVICE_PRICE = 250_000;
+    private static final int MEDICATION_QUANTITY = 20;
+    private static final long MEDICATION_PRICE = 2_500;
+
+    private ViewFixtures() {
+    }
+
+    public static PatientView patient() {
+        return PatientView.builder()
+                .fullName("Nguyễn Thị Hồng Nhung")
+                .birthYear("1987")
+                .gender("Nữ")
+                .address("36 Cách mạng tháng 8, Phường Cái Khế, Tp Cần Thơ")
+                .phone("0901234567")
+                .build();
+    }
+
+    public static BillingView billing(int itemCount) {
+        List<BillingView.ItemLine> services = new ArrayList<>();
+        List<BillingView.ItemLine> medications = new ArrayList<>();
+        long total = 0;
+        for (int i = 1; i <= itemCount; i++) {
+            if (i % 2 == 1) {
+                services.add(BillingView.ItemLine.builder()
+                        .description("Xét nghiệm công thức máu toàn phần <CBC>")
+                        .quantity("1")
+                        .unitPrice(money(SERVICE_PRICE))
+                        .amount(money(SERVICE_PRICE))
+                        .build());
+                total += SERVICE_PRICE;
+            } else {
+                medications.add(BillingView.ItemLine.builder()
+                        .description("Amoxicillin 500mg")
+                        .quantity(String.valueOf(MEDICATION_QUANTITY))
+                        .unitPrice(money(MEDICATION_PRICE))
+                        .amount(money(MEDICATION_QUANTITY * MEDICATION_PRICE))
+                        .build());
+                total += MEDICATION_QUANTITY * MEDICATION_PRICE;
+            }
+        }
+        return BillingView.builder()
+                .patient(patient())
+                .issuedAt("09:30 18/10/2026")
+                .cashierName("Trần Văn Thu")
+                .serviceItems(services)
+                .medicationItems(medications)
+                .otherItems(List.of())
+                .totalAmount(money(total))
+                .paymentMethod("CASH")
+                .build();
+    }
+
+    public static PrescriptionView prescription(int itemCount, String notes) {
+        List<PrescriptionView.MedicationLine> items = new ArrayList<>();
+        for (int i = 1; i <= itemCount; i++) {
+            items.add(i % 2 == 1
+                    ? PrescriptionView.MedicationLine.builder()
+                            .name("Paracetamol 500mg")
+                            .detail("SL: 10 | Tần suất: Sáng - Chiều | Liều dùng: 1 viên sau ăn")
+                            .build()
+                    : PrescriptionView.MedicationLine.builder()
+                            .name("Vitamin C 500mg")
+                            .detail("SL: 5 | Tần suất: Sáng | Liều dùng: 1 viên")
+                            .build());
+        }
+        return PrescriptionView.builder()
+                .patient(patient())
+                .doctorName("BS. Lê Minh Đức")
+                .issuedAt("09:15 18/10/2026")
+                .notes(notes)
+                .items(items)
+                .build();
+    }
+
+    private static String money(long amount) {
+        return ViewFormats.money(BigDecimal.valueOf(amount));
+    }
+}
@@ -0,0 +1,98 @@
+package vn.project.ClinicSystem.service.receipt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import vn.project.ClinicSystem.service.pdf.view.ViewFixtures;
+
+class EscPosReceiptRendererTest {
+
+    private static final byte[] INIT = { 0x1B, '@' };
+    private static final byte[] CUT = { 0x1D, 'V', 66, 3 };
+
+    @Test
+    void billing_shouldPrintAsciiLinesWithinColumns() {
+        byte[] bytes = new EscPosReceiptRenderer(32).billing(ViewFixtures.billing(2));
+
+        assertThat(bytes).startsWith(INIT).endsWith(CUT);
+        for (byte b : bytes) {
+            assertThat(b).isBetween((byte) 0, (byte) 0x7F);
+        }
+        List<String> lines = printedLines(bytes);
+        assertThat(lines).allSatisfy(line -> assertThat(line.length()).isLessThanOrEqualTo(32));
+        assertThat(lines).contains(
+                "PHONG KHAM DA KHOA DUYEN HANH",
+                "HOA DON THANH TOAN",
+                "Benh nhan: Nguyen Thi Hong Nhung",
+                "Nguoi lap:           Tran Van Thu",
+                "Xet nghiem cong thuc mau toan",
+                "phan <CBC>",
+                "  20 x 2.500              50.000",
+                "TONG CONG:               300.000",
+                "-".repeat(32));
+        assertThat(lines).doesNotContain("Chi phi khac");
+    }
+
+    @Test
+    void billing_shouldFeedBeforeCut() {
+        byte[] bytes = new EscPosReceiptRenderer(32).billing(ViewFixtures.billing(2));
+
+        assertThat(Arrays.copyOfRange(bytes, bytes.length - 7, bytes.length))
+                .containsExactly(0x1B, 'd', 2, 0x1D, 'V', 66, 3);
+    }
+
+    @Test
+    void prescription_shouldNumberItemsAndIndentDetails() {
+        List<String> lines = printedLines(new EscPosReceiptRenderer(32)
+                .prescription(ViewFixtures.prescription(2, "Tái khám sau 7 ngày")));
+
+        assertThat(lines).contains(
+                "DON THUOC",
+                "Bac si:          BS. Le Minh Duc",
+                "1. Paracetamol 500mg",
+                "   SL: 10 | Tan suat: Sang -",
+                "2. Vitamin C 500mg",
+                "Ghi chu: Tai kham sau 7 ngay");
+        assertThat(lines).allSatisfy(line -> assertThat(line.length()).isLessThanOrEqualTo(32));
+    }
+
+    @Test
+    void prescription_shouldOmitNotesWhenAbsent() {
+        List<String> lines = printedLines(new EscPosReceiptRenderer(32).prescription(ViewFixtures.prescription(2, null)));
+
+        assertThat(lines).noneMatch(line -> line.startsWith("Ghi chu"));
+    }
+
+    @Test
+    void columns_shouldNotGoBelowMinimum() {
+        List<String> lines = printedLines(new EscPosReceiptRenderer(10).billing(ViewFixtures.billing(2)));
+
+        assertThat(lines).contains("-".repeat(24));
+        assertThat(lines).allSatisfy(line -> assertThat(line.length()).isLessThanOrEqualTo(24));
+    }
+
+    // Bỏ các lệnh ESC/POS mà EscPosWriter ghi ra, chỉ giữ chữ được in.
+    private static List<String> printedLines(byte[] bytes) {
+        StringBuilder text = new StringBuilder();
+        int i = 0;
+        while (i < bytes.length) {
+            byte b = bytes[i];
+            if (b == 0x1B) {
+                i += bytes[i + 1] == '@' ? 2 : 3;
+            } else if (b == 0x1D) {
+                i += bytes[i + 1] == 'V' ? 4 : 3;
+            } else {
+                text.append((char) b);
+                i++;
+            }
+        }
+        List<String> lines = new ArrayList<>(Arrays.asList(text.toString().split("\n")));
+        lines.removeIf(String::isEmpty);
+        return lines;
+    }
+}
@@ -0,0 +1,92 @@
+package vn.project.ClinicSystem.service.receipt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class EscPosWriterTest {
+
+    private static final byte[] INIT = { 0x1B, '@' };
+    private static final byte[] CUT = { 0x1D, 'V', 66, 3 };
+
+    @Test
+    void ascii_shouldFoldVietnameseAndReplaceUnknownCharacters() {
+        assertThat(EscPosWriter.ascii("Nguyễn Thị Hồng Nhung")).isEqualTo("Nguyen Thi Hong Nhung");
+        assertThat(EscPosWriter.ascii("Đặng Đức đạt")).isEqualTo("Dang Duc dat");
+        assertThat(EscPosWriter.ascii("Sáng — Chiều – Tối")).isEqualTo("Sang - Chieu - Toi");
+        assertThat(EscPosWriter.ascii("100€\t")).isEqualTo("100??");
+        assertThat(EscPosWriter.ascii(null)).isEmpty();
+    }
+
+    @Test
+    void cut_shouldStartWithInitializeAndEndWithPartialCut() {
+        byte[] bytes = new EscPosWriter(32).cut();
+
+        assertThat(bytes).startsWith(INIT).endsWith(CUT).hasSize(INIT.length + CUT.length);
+    }
+
+    @Test
+    void commands_shouldWriteEscPosBytes() {
+        byte[] bytes = new EscPosWriter(32).center().bold(true).doubleHeight(true).feed(2).left().cut();
+
+        assertThat(Arrays.copyOfRange(bytes, INIT.length, bytes.length - CUT.length)).containsExactly(
+                0x1B, 'a', 1,
+                0x1B, 'E', 1,
+                0x1D, '!', 0x01,
+                0x1B, 'd', 2,
+                0x1B, 'a', 0);
+    }
+
+    @Test
+    void text_shouldWrapAtWordBoundaries() {
+        List<String> lines = lines(new EscPosWriter(24).text("Amoxicillin 500mg viên nang uống sau ăn").cut());
+
+        assertThat(lines).containsExactly("Amoxicillin 500mg vien", "nang uong sau an");
+    }
+
+    @Test
+    void text_shouldKeepLeadingIndentOnFirstLineOnly() {
+        List<String> lines = lines(new EscPosWriter(24).text("   SL: 10 | Tần suất: Sáng - Chiều").cut());
+
+        assertThat(lines).containsExactly("   SL: 10 | Tan suat:", "Sang - Chieu");
+    }
+
+    @Test
+    void text_shouldHardCutWordsLongerThanALine() {
+        List<String> lines = lines(new EscPosWriter(24).text("x".repeat(30)).cut());
+
+        assertThat(lines).containsExactly("x".repeat(24), "x".repeat(6));
+    }
+
+    @Test
+    void row_shouldRightAlignValueWithinColumns() {
+        List<String> lines = lines(new EscPosWriter(32).row("TỔNG CỘNG:", "12.500.000").cut());
+
+        assertThat(lines).containsExactly("TONG CONG:            12.500.000");
+        assertThat(lines.get(0)).hasSize(32);
+    }
+
+    @Test
+    void row_shouldMoveValueToNextLineWhenLabelIsTooLong() {
+        List<String> lines = lines(new EscPosWriter(24).row("  10 x 125.000 (đã giảm giá)", "1.250.000").cut());
+
+        assertThat(lines).containsExactly("  10 x 125.000 (da giam", "gia)", "               1.250.000");
+        assertThat(lines).allSatisfy(line -> assertThat(line.length()).isLessThanOrEqualTo(24));
+    }
+
+    @Test
+    void separator_shouldFillColumns() {
+        assertThat(lines(new EscPosWriter(48).separator().cut())).containsExactly("-".repeat(48));
+    }
+
+    // Các dòng chữ giữa lệnh khởi tạo và lệnh cắt; chỉ dùng khi không có lệnh định dạng nào khác.
+    private static List<String> lines(byte[] bytes) {
+        String text = new String(bytes, INIT.length, bytes.length - INIT.length - CUT.length,
+                StandardCharsets.US_ASCII);
+        return Arrays.asList(text.split("\n"));
+    }
+}
@@ -0,0 +1,80 @@
+package vn.project.ClinicSystem.service.receipt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import vn.project.ClinicSystem.service.pdf.PdfComposer;
+import vn.project.ClinicSystem.service.pdf.view.ViewFixtures;
+
+class HtmlReceiptRendererTest {
+
+    private static HtmlReceiptRenderer renderer;
+
+    // Cùng cấu hình mặc định của Spring Boot: templates/*.html trên classpath.
+    @BeforeAll
+    static void createRenderer() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        renderer = new HtmlReceiptRenderer(engine);
+    }
+
+    @Test
+    void billing_shouldRenderHeaderPatientItemsAndTotal() {
+        String html = renderer.billing(ViewFixtures.billing(2));
+
+        assertThat(html).contains(
+                "@page { size: 58mm auto; margin: 0; }",
+                PdfComposer.CLINIC_NAME,
+                PdfComposer.CLINIC_ADDRESS,
+                "<h1>HÓA ĐƠN THANH TOÁN</h1>",
+                "Nguyễn Thị Hồng Nhung",
+                "0901234567",
+                "Trần Văn Thu",
+                ">Dịch vụ khám<",
+                ">Thuốc<",
+                "20 x 2.500",
+                "50.000",
+                "300.000",
+                "CASH");
+        assertThat(html).doesNotContain("Chi phí khác", "th:text", "th:replace");
+    }
+
+    @Test
+    void billing_shouldEscapeItemText() {
+        String html = renderer.billing(ViewFixtures.billing(2));
+
+        assertThat(html).contains("Xét nghiệm công thức máu toàn phần &lt;CBC&gt;").doesNotContain("<CBC>");
+    }
+
+    @Test
+    void prescription_shouldNumberItemsAndShowNotes() {
+        String html = renderer.prescription(ViewFixtures.prescription(2, "Tái khám sau 7 ngày"));
+
+        assertThat(html).contains(
+                "<h1>ĐƠN THUỐC</h1>",
+                "BS. Lê Minh Đức",
+                "1. Paracetamol 500mg",
+                "SL: 10 | Tần suất: Sáng - Chiều | Liều dùng: 1 viên sau ăn",
+                "2. Vitamin C 500mg",
+                "Ghi chú: Tái khám sau 7 ngày");
+    }
+
+    @Test
+    void prescription_shouldOmitNotesWhenAbsent() {
+        String html = renderer.prescription(ViewFixtures.prescription(2, null));
+
+        assertThat(html).doesNotContain("Ghi chú");
+    }
+}